@@ -0,0 +1,45 @@
+/*
+ *    BenchmarkData.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ */
+
+package weka.classifiers.ann;
+
+import weka.core.Instances;
+import weka.core.TestInstances;
+
+/**
+ * Synthetic data and models shared by the JMH benchmarks.
+ */
+class BenchmarkData {
+
+    /** Numeric data with a nominal class, the same for the same seed. */
+    static Instances generate(int inputs, int numClasses, int numInstances, int seed) throws Exception {
+        TestInstances gen = new TestInstances();
+        gen.setNumNominal(0);
+        gen.setNumNumeric(inputs);
+        gen.setNumClasses(numClasses);
+        gen.setNumInstances(numInstances);
+        gen.setSeed(seed);
+        return gen.generate();
+    }
+
+    /** An untrained MLP with the given shape and engine (0 = GRAPH, 1 = DENSE). */
+    static MLP mlp(int hidden, int layers, int engine) {
+        MLP mlp = new MLP();
+        mlp.setEngine(engine);
+        mlp.setHiddenPerceptrons(hidden);
+        mlp.setHiddenLayers(layers);
+        mlp.setUseFilter(true);
+        mlp.setInitWeight("a");
+        mlp.setMaxIteration(1);
+        return mlp;
+    }
+
+    /** Index of the next instance for one benchmark thread. */
+    static int next(int[] cursor, Instances data) {
+        int i = cursor[0];
+        cursor[0] = i + 1 == data.numInstances() ? 0 : i + 1;
+        return i;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ *    CompactModelBenchmark.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ */
+
+package weka.classifiers.ann;
+
+import weka.classifiers.Classifier;
+import weka.core.BatchPredictor;
+import weka.core.Instances;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scoring with a trained MLP (DENSE engine) and with its float32 and int8
+ * exports of {@link CompactModel}: one instance per call and a block of
+ * instances. The model is shared by all benchmark threads, so the number of
+ * scoring threads is the JMH option <code>-t</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompactModelBenchmark {
+
+    @Param({"20", "200"})
+    public int inputs;
+
+    @Param({"16", "128"})
+    public int hidden;
+
+    @Param({"1", "2"})
+    public int layers;
+
+    @Param({"double", "float32", "int8"})
+    public String precision;
+
+    private Instances test;
+    private Classifier model;
+
+    /** Position of one benchmark thread in the test data. */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int[] index = new int[1];
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        Instances train = BenchmarkData.generate(inputs, 4, 500, 1);
+        test = BenchmarkData.generate(inputs, 4, 500, 2);
+        MLP mlp = BenchmarkData.mlp(hidden, layers, 1);
+        mlp.buildClassifier(train);
+        if (precision.equals("float32"))
+            model = CompactModel.export(mlp);
+        else if (precision.equals("int8"))
+            model = CompactModel.export(mlp, train);
+        else
+            model = mlp;
+    }
+
+    @Benchmark
+    public double[] instance(Cursor cursor) throws Exception {
+        return model.distributionForInstance(test.instance(BenchmarkData.next(cursor.index, test)));
+    }
+
+    @Benchmark
+    public double[][] batch() throws Exception {
+        return ((BatchPredictor) model).distributionsForInstances(test);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ *    InputTransformerBenchmark.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ */
+
+package weka.classifiers.ann;
+
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.TestInstances;
+import weka.filters.Filter;
+import weka.filters.unsupervised.attribute.NominalToBinary;
+import weka.filters.unsupervised.attribute.Normalize;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transforming one instance into network inputs, with the NominalToBinary
+ * and Normalize round trip that MLP used before and with InputTransformer,
+ * on data with numeric and five-valued nominal attributes. The filters keep
+ * state between input and output, so this benchmark must run with one
+ * thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InputTransformerBenchmark {
+
+    @Param({"10", "50"})
+    public int numeric;
+
+    @Param({"0", "10"})
+    public int nominal;
+
+    private Instances data;
+    private NominalToBinary nominalToBinary;
+    private Normalize normalize;
+    private InputTransformer transformer;
+    private int[] cursor = new int[1];
+
+    @Setup
+    public void setup() throws Exception {
+        TestInstances gen = new TestInstances();
+        gen.setNumNumeric(numeric);
+        gen.setNumNominal(nominal);
+        gen.setNumNominalValues(5);
+        gen.setNumClasses(3);
+        gen.setNumInstances(2000);
+        gen.setSeed(1);
+        data = gen.generate();
+
+        nominalToBinary = new NominalToBinary();
+        nominalToBinary.setInputFormat(data);
+        Instances binary = Filter.useFilter(data, nominalToBinary);
+        normalize = new Normalize();
+        normalize.setInputFormat(binary);
+        Filter.useFilter(binary, normalize);
+        transformer = new InputTransformer(data, true);
+    }
+
+    @Benchmark
+    public Instance filters() throws Exception {
+        nominalToBinary.input(data.instance(BenchmarkData.next(cursor, data)));
+        normalize.input(nominalToBinary.output());
+        return normalize.output();
+    }
+
+    @Benchmark
+    public double[] transformer() throws Exception {
+        return transformer.transform(data.instance(BenchmarkData.next(cursor, data)));
+    }
+}
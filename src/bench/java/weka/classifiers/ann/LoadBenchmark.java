@@ -0,0 +1,96 @@
+/*
+ *    LoadBenchmark.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ */
+
+package weka.classifiers.ann;
+
+import weka.classifiers.Classifier;
+import weka.core.Instances;
+import weka.core.SerializationHelper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading a trained MLP from a file and scoring one instance with it, so
+ * that work the loader defers to the first prediction is included: Java
+ * serialization, the binary format of {@link BinaryModel} read from a
+ * stream, and the binary format mapped into memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoadBenchmark {
+
+    @Param({"20", "200"})
+    public int inputs;
+
+    @Param({"16", "128"})
+    public int hidden;
+
+    @Param({"1", "2"})
+    public int layers;
+
+    @Param({"0", "1"})
+    public int engine;
+
+    private Instances test;
+    private File serialized;
+    private File binary;
+
+    @Setup
+    public void setup() throws Exception {
+        test = BenchmarkData.generate(inputs, 4, 20, 2);
+        MLP mlp = BenchmarkData.mlp(hidden, layers, engine);
+        mlp.buildClassifier(BenchmarkData.generate(inputs, 4, 100, 1));
+        serialized = File.createTempFile("mlp", ".model");
+        SerializationHelper.write(serialized.getAbsolutePath(), mlp);
+        binary = File.createTempFile("mlp", ".wann");
+        BinaryModel.write(mlp, binary);
+    }
+
+    @TearDown
+    public void tearDown() {
+        serialized.delete();
+        binary.delete();
+    }
+
+    @Benchmark
+    public double[] deserialize() throws Exception {
+        Classifier model = (Classifier) SerializationHelper.read(serialized.getAbsolutePath());
+        return model.distributionForInstance(test.instance(0));
+    }
+
+    @Benchmark
+    public double[] readStream() throws Exception {
+        FileInputStream in = new FileInputStream(binary);
+        try {
+            return BinaryModel.read(in).distributionForInstance(test.instance(0));
+        } finally {
+            in.close();
+        }
+    }
+
+    @Benchmark
+    public double[] readMapped() throws Exception {
+        return BinaryModel.read(binary).distributionForInstance(test.instance(0));
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ *    OptimizerBenchmark.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ */
+
+package weka.classifiers.ann;
+
+import weka.classifiers.ann.engine.Optimizer;
+import weka.core.Instances;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One training epoch of MLP with the DENSE engine and online updates for
+ * each optimizer (0 = SGD, 1 = NESTEROV, 2 = RMSPROP, 3 = ADAM), SGD and
+ * NESTEROV with a momentum of 0.9. Includes the setup of buildClassifier:
+ * input transformation and weight initialization.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OptimizerBenchmark {
+
+    @Param({"20", "200"})
+    public int inputs;
+
+    @Param({"16", "128"})
+    public int hidden;
+
+    @Param({"0", "1", "2", "3"})
+    public int optimizer;
+
+    private Instances train;
+    private MLP mlp;
+
+    @Setup
+    public void setup() throws Exception {
+        train = BenchmarkData.generate(inputs, 4, 500, 1);
+        mlp = BenchmarkData.mlp(hidden, 1, 1);
+        mlp.setOptimizer(optimizer);
+        mlp.setMomentum(optimizer <= Optimizer.NESTEROV ? 0.9 : 0);
+    }
+
+    @Benchmark
+    public MLP epoch() throws Exception {
+        mlp.buildClassifier(train);
+        return mlp;
+    }
+}
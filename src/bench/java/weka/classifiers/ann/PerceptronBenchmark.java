@@ -0,0 +1,106 @@
+/*
+ *    PerceptronBenchmark.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ */
+
+package weka.classifiers.ann;
+
+import weka.core.Instances;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Training and scoring of PTR and DR on two-class data. They have no hidden
+ * layers and train on one thread, so only the input width varies; the
+ * number of scoring threads is the JMH option <code>-t</code>. The epoch
+ * benchmarks retrain the shared models and must run with one thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PerceptronBenchmark {
+
+    @Param({"20", "200"})
+    public int inputs;
+
+    private Instances train;
+    private Instances test;
+    private PTR ptr;
+    private DR dr;
+
+    /** Position of one benchmark thread in the test data. */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int[] index = new int[1];
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        train = BenchmarkData.generate(inputs, 2, 2000, 1);
+        test = BenchmarkData.generate(inputs, 2, 500, 2);
+        // maxIteration PTR dihitung per instance: satu epoch
+        ptr = new PTR();
+        ptr.setMaxIteration(train.numInstances());
+        ptr.buildClassifier(train);
+        dr = new DR();
+        dr.setMaxIteration(1);
+        dr.buildClassifier(train);
+    }
+
+    @Benchmark
+    public PTR ptrEpoch() throws Exception {
+        ptr.buildClassifier(train);
+        return ptr;
+    }
+
+    @Benchmark
+    public double ptrInstance(Cursor cursor) throws Exception {
+        return ptr.classifyInstance(test.instance(BenchmarkData.next(cursor.index, test)));
+    }
+
+    @Benchmark
+    public double[][] ptrBatch() throws Exception {
+        return ptr.distributionsForInstances(test);
+    }
+
+    @Benchmark
+    public double ptrCalculateError() throws Exception {
+        return ptr.calculateError(test);
+    }
+
+    @Benchmark
+    public DR drEpoch() throws Exception {
+        dr.buildClassifier(train);
+        return dr;
+    }
+
+    @Benchmark
+    public double drInstance(Cursor cursor) throws Exception {
+        return dr.classifyInstance(test.instance(BenchmarkData.next(cursor.index, test)));
+    }
+
+    @Benchmark
+    public double[][] drBatch() throws Exception {
+        return dr.distributionsForInstances(test);
+    }
+
+    @Benchmark
+    public double drCalculateError() throws Exception {
+        return dr.calculateError(test);
+    }
+}
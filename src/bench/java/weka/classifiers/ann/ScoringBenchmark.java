@@ -0,0 +1,80 @@
+/*
+ *    ScoringBenchmark.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ */
+
+package weka.classifiers.ann;
+
+import weka.core.Instances;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scoring with a trained MLP: one instance per call, a block of instances,
+ * and calculateError, which the convergence checks run on the training or
+ * validation data. The model is shared by all benchmark threads, so the
+ * number of scoring threads is the JMH option <code>-t</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScoringBenchmark {
+
+    @Param({"20", "200"})
+    public int inputs;
+
+    @Param({"16", "128"})
+    public int hidden;
+
+    @Param({"1", "2"})
+    public int layers;
+
+    @Param({"0", "1"})
+    public int engine;
+
+    private Instances test;
+    private MLP mlp;
+
+    /** Position of one benchmark thread in the test data. */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int[] index = new int[1];
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        test = BenchmarkData.generate(inputs, 4, 500, 2);
+        mlp = BenchmarkData.mlp(hidden, layers, engine);
+        mlp.buildClassifier(BenchmarkData.generate(inputs, 4, 500, 1));
+    }
+
+    @Benchmark
+    public double[] instance(Cursor cursor) throws Exception {
+        return mlp.distributionForInstance(test.instance(BenchmarkData.next(cursor.index, test)));
+    }
+
+    @Benchmark
+    public double[][] batch() throws Exception {
+        return mlp.distributionsForInstances(test);
+    }
+
+    @Benchmark
+    public double calculateError() throws Exception {
+        return mlp.calculateError(test);
+    }
+}
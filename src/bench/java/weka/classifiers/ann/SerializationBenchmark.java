@@ -0,0 +1,85 @@
+/*
+ *    SerializationBenchmark.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ */
+
+package weka.classifiers.ann;
+
+import weka.core.SerializationHelper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing and reading a trained MLP in memory, with Java serialization and
+ * with the binary format of {@link BinaryModel}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"20", "200"})
+    public int inputs;
+
+    @Param({"16", "128"})
+    public int hidden;
+
+    @Param({"1", "2"})
+    public int layers;
+
+    @Param({"0", "1"})
+    public int engine;
+
+    private MLP mlp;
+    private byte[] serialized;
+    private byte[] binary;
+
+    @Setup
+    public void setup() throws Exception {
+        mlp = BenchmarkData.mlp(hidden, layers, engine);
+        mlp.buildClassifier(BenchmarkData.generate(inputs, 4, 100, 1));
+        serialized = serialize();
+        binary = writeBinary();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SerializationHelper.write(out, mlp);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public Object deserialize() throws Exception {
+        return SerializationHelper.read(new ByteArrayInputStream(serialized));
+    }
+
+    @Benchmark
+    public byte[] writeBinary() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryModel.write(mlp, out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public MLP readBinary() throws Exception {
+        return BinaryModel.read(new ByteArrayInputStream(binary));
+    }
+}
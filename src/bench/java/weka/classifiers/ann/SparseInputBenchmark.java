@@ -0,0 +1,115 @@
+/*
+ *    SparseInputBenchmark.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ */
+
+package weka.classifiers.ann;
+
+import weka.core.Attribute;
+import weka.core.FastVector;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.SparseInstance;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Training and scoring of MLP (DENSE engine) and PTR on text-like data, many
+ * numeric attributes of which 50 are non-zero per instance, stored as dense
+ * and as sparse instances. The number of scoring threads is the JMH option
+ * <code>-t</code>; the epoch benchmarks retrain the shared models and must
+ * run with one thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SparseInputBenchmark {
+
+    @Param({"1000", "10000"})
+    public int attributes;
+
+    @Param({"false", "true"})
+    public boolean sparse;
+
+    private Instances data;
+    private MLP mlp;
+    private PTR ptr;
+
+    /** Position of one benchmark thread in the data. */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int[] index = new int[1];
+    }
+
+    /** 500 instances, the class depends on the first two attributes. */
+    protected static Instances generate(int attributes, boolean sparse) {
+        FastVector atts = new FastVector();
+        for (int a = 0; a < attributes; a++)
+            atts.addElement(new Attribute("word" + a));
+        FastVector classes = new FastVector();
+        classes.addElement("no");
+        classes.addElement("yes");
+        atts.addElement(new Attribute("class", classes));
+        Instances data = new Instances("text", atts, 500);
+        data.setClassIndex(attributes);
+
+        Random random = new Random(1);
+        for (int i = 0; i < 500; i++) {
+            double[] values = new double[attributes + 1];
+            for (int n = 0; n < 50; n++)
+                values[random.nextInt(attributes)] = 1 + random.nextInt(3);
+            values[attributes] = values[0] + values[1] > 0 ? 1 : random.nextInt(2);
+            data.add(sparse ? new SparseInstance(1, values) : new Instance(1, values));
+        }
+        return data;
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        data = generate(attributes, sparse);
+        mlp = BenchmarkData.mlp(16, 1, 1);
+        mlp.buildClassifier(data);
+        // maxIteration PTR dihitung per instance: satu epoch
+        ptr = new PTR();
+        ptr.setMaxIteration(data.numInstances());
+        ptr.buildClassifier(data);
+    }
+
+    @Benchmark
+    public MLP mlpEpoch() throws Exception {
+        mlp.buildClassifier(data);
+        return mlp;
+    }
+
+    @Benchmark
+    public double mlpInstance(Cursor cursor) throws Exception {
+        return mlp.classifyInstance(data.instance(BenchmarkData.next(cursor.index, data)));
+    }
+
+    @Benchmark
+    public PTR ptrEpoch() throws Exception {
+        ptr.buildClassifier(data);
+        return ptr;
+    }
+
+    @Benchmark
+    public double ptrInstance(Cursor cursor) throws Exception {
+        return ptr.classifyInstance(data.instance(BenchmarkData.next(cursor.index, data)));
+    }
+}
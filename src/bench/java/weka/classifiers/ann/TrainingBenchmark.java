@@ -0,0 +1,66 @@
+/*
+ *    TrainingBenchmark.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ */
+
+package weka.classifiers.ann;
+
+import weka.core.Instances;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One training epoch of MLP with the DENSE engine and mini-batches of 32,
+ * so that only the number of training threads (-K) changes between runs
+ * with the same shape. Includes the setup of buildClassifier: input
+ * transformation and weight initialization.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrainingBenchmark {
+
+    @Param({"20", "200"})
+    public int inputs;
+
+    @Param({"16", "128"})
+    public int hidden;
+
+    @Param({"1", "2"})
+    public int layers;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private Instances train;
+    private MLP mlp;
+
+    @Setup
+    public void setup() throws Exception {
+        train = BenchmarkData.generate(inputs, 4, 2000, 1);
+        mlp = BenchmarkData.mlp(hidden, layers, 1);
+        mlp.setBatchSize(32);
+        mlp.setNumThreads(threads);
+    }
+
+    @Benchmark
+    public MLP epoch() throws Exception {
+        mlp.buildClassifier(train);
+        return mlp;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ *    ActivationBenchmark.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ */
+
+package weka.classifiers.ann.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The activation functions applied to a layer of values, in nanoseconds per
+ * value. <code>approximate</code> only changes SIGMOID and TANH, which are
+ * then looked up in a table; <code>pow</code> is the old Math.pow based
+ * sigmoid and does not depend on the parameters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActivationBenchmark {
+
+    private static final int VALUES = 100000;
+
+    @Param({"0", "1", "2", "3", "4"})
+    public int type;
+
+    @Param({"false", "true"})
+    public boolean approximate;
+
+    private Activation function;
+    private double[] values;
+    private double[] buffer;
+
+    @Setup
+    public void setup() {
+        function = Activation.forType(type, approximate);
+        Random random = new Random(1);
+        values = new double[VALUES];
+        for (int k = 0; k < VALUES; k++)
+            values[k] = random.nextGaussian() * 4;
+        buffer = new double[VALUES];
+    }
+
+    /** Includes copying the values into the buffer that is activated in place. */
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public double[] apply() {
+        System.arraycopy(values, 0, buffer, 0, VALUES);
+        function.apply(buffer, 0, VALUES);
+        return buffer;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public double[] pow() {
+        for (int k = 0; k < VALUES; k++)
+            buffer[k] = 1.0 / (1 + Math.pow(Math.E, -values[k]));
+        return buffer;
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+/*
+ * Copyright (C) 2015 University of Waikato, Hamilton, NZ
+ */
+
+package weka.core;
+
+import weka.classifiers.trees.DecisionStump;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Column scans (attributeStats, kthSmallestValue, meanOrMode and variance
+ * over all attributes) and building a DecisionStump on the same numeric
+ * data stored in Instances ("rows") and in ColumnarInstances ("columns").
+ *
+ * @version $Revision: 1.0 $
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ColumnarInstancesBenchmark {
+
+  /** the layout of the dataset. */
+  @Param({"rows", "columns"})
+  public String layout;
+
+  /** the number of numeric attributes, without the class. */
+  @Param({"10", "40"})
+  public int numAtts;
+
+  /** the dataset. */
+  protected Instances m_Data;
+
+  /**
+   * Creates 100000 instances with random values, the last attribute is the
+   * class.
+   */
+  @Setup
+  public void setup() {
+    FastVector	atts;
+    FastVector	labels;
+    Instances	header;
+    Random	random;
+    double[]	values;
+    int		i;
+    int		n;
+
+    atts = new FastVector();
+    for (i = 0; i < numAtts; i++)
+      atts.addElement(new Attribute("att" + i));
+    labels = new FastVector();
+    labels.addElement("no");
+    labels.addElement("yes");
+    atts.addElement(new Attribute("class", labels));
+    header = new Instances("benchmark", atts, 0);
+    header.setClassIndex(numAtts);
+
+    if (layout.equals("columns"))
+      m_Data = new ColumnarInstances(header, 100000);
+    else
+      m_Data = new Instances(header, 100000);
+    random = new Random(1);
+    for (n = 0; n < 100000; n++) {
+      values = new double[numAtts + 1];
+      for (i = 0; i < numAtts; i++)
+	values[i] = random.nextGaussian();
+      values[numAtts] = values[0] + values[1] > 0 ? 1 : 0;
+      m_Data.add(new Instance(1.0, values));
+    }
+  }
+
+  /**
+   * Computes the statistics of all attributes.
+   *
+   * @return		the statistics of the last attribute
+   */
+  @Benchmark
+  public AttributeStats attributeStats() {
+    AttributeStats	result;
+    int			i;
+
+    result = null;
+    for (i = 0; i < numAtts; i++)
+      result = m_Data.attributeStats(i);
+
+    return result;
+  }
+
+  /**
+   * Computes the median of all attributes.
+   *
+   * @return		the sum of the medians
+   */
+  @Benchmark
+  public double kthSmallestValue() {
+    double	result;
+    int		i;
+
+    result = 0;
+    for (i = 0; i < numAtts; i++)
+      result += m_Data.kthSmallestValue(i, m_Data.numInstances() / 2);
+
+    return result;
+  }
+
+  /**
+   * Computes the mean and the variance of all attributes.
+   *
+   * @return		the sum of the means and variances
+   */
+  @Benchmark
+  public double moments() {
+    double	result;
+    int		i;
+
+    result = 0;
+    for (i = 0; i < numAtts; i++)
+      result += m_Data.meanOrMode(i) + m_Data.variance(i);
+
+    return result;
+  }
+
+  /**
+   * Builds a DecisionStump.
+   *
+   * @return		the classifier
+   * @throws Exception	if building fails
+   */
+  @Benchmark
+  public DecisionStump decisionStump() throws Exception {
+    DecisionStump	result;
+
+    result = new DecisionStump();
+    result.buildClassifier(m_Data);
+
+    return result;
+  }
+}
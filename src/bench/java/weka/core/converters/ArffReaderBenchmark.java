@@ -0,0 +1,161 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+/*
+ * Copyright (C) 2015 University of Waikato, Hamilton, NZ
+ */
+
+package weka.core.converters;
+
+import weka.core.Instances;
+import weka.core.converters.ArffLoader.ArffReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading a generated file with numeric and nominal attributes with
+ * ArffReader and with FastArffReader.
+ *
+ * @version $Revision: 1.0 $
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArffReaderBenchmark {
+
+  /** the file. */
+  protected File m_File;
+
+  /**
+   * Writes a file with random numeric values, every fourth attribute is
+   * nominal.
+   *
+   * @param file	the file to write
+   * @param num		the number of instances
+   * @param numAtts	the number of attributes
+   * @throws Exception	if writing fails
+   */
+  protected static void generate(File file, int num, int numAtts) throws Exception {
+    BufferedWriter	writer;
+    Random		random;
+    int			i;
+    int			n;
+
+    random = new Random(1);
+    writer = new BufferedWriter(new FileWriter(file));
+    writer.write("@relation benchmark\n\n");
+    for (i = 0; i < numAtts; i++) {
+      if (i % 4 == 3)
+	writer.write("@attribute att" + i + " {red,green,blue}\n");
+      else
+	writer.write("@attribute att" + i + " numeric\n");
+    }
+    writer.write("\n@data\n");
+    for (n = 0; n < num; n++) {
+      for (i = 0; i < numAtts; i++) {
+	if (i > 0)
+	  writer.write(',');
+	if (i % 4 == 3)
+	  writer.write(random.nextBoolean() ? "red" : "blue");
+	else if (random.nextInt(50) == 0)
+	  writer.write('?');
+	else
+	  writer.write(Double.toString(Math.round(random.nextGaussian() * 1e6) / 1e4));
+      }
+      writer.write('\n');
+    }
+    writer.close();
+  }
+
+  /**
+   * Writes 100000 instances with 40 attributes.
+   *
+   * @throws Exception	if writing fails
+   */
+  @Setup
+  public void setup() throws Exception {
+    m_File = File.createTempFile("benchmark", ".arff");
+    generate(m_File, 100000, 40);
+  }
+
+  /**
+   * Deletes the file.
+   */
+  @TearDown
+  public void tearDown() {
+    m_File.delete();
+  }
+
+  /**
+   * Reads the file with ArffReader.
+   *
+   * @return		the data
+   * @throws Exception	if reading fails
+   */
+  @Benchmark
+  public Instances arffReader() throws Exception {
+    BufferedReader	reader;
+
+    reader = new BufferedReader(new FileReader(m_File));
+    try {
+      return new ArffReader(reader).getData();
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Reads the file with FastArffReader.
+   *
+   * @return		the data
+   * @throws Exception	if reading fails
+   */
+  @Benchmark
+  public Instances fastArffReader() throws Exception {
+    FileInputStream	stream;
+
+    stream = new FileInputStream(m_File);
+    try {
+      return new FastArffReader(stream).getData();
+    }
+    finally {
+      stream.close();
+    }
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+/*
+ * Copyright (C) 2015 University of Waikato, Hamilton, NZ
+ */
+
+package weka.core.converters;
+
+import weka.core.Instances;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading a generated ARFF file with ArffLoader and FastArffReader, and the
+ * same data as CSV file with CSVLoader, on one and on several threads (the
+ * number of execution slots of the loaders).
+ *
+ * @version $Revision: 1.0 $
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelLoaderBenchmark {
+
+  /** the number of execution slots of the loaders. */
+  @Param({"1", "4"})
+  public int threads;
+
+  /** the ARFF file. */
+  protected File m_Arff;
+
+  /** the CSV file. */
+  protected File m_CSV;
+
+  /**
+   * Writes 100000 instances with 40 attributes as ARFF and as CSV file.
+   *
+   * @throws Exception	if writing fails
+   */
+  @Setup
+  public void setup() throws Exception {
+    ArffLoader	loader;
+    CSVSaver	saver;
+
+    m_Arff = File.createTempFile("benchmark", ".arff");
+    m_CSV  = File.createTempFile("benchmark", ".csv");
+    ArffReaderBenchmark.generate(m_Arff, 100000, 40);
+    loader = new ArffLoader();
+    loader.setFile(m_Arff);
+    saver = new CSVSaver();
+    saver.setInstances(loader.getDataSet());
+    saver.setFile(m_CSV);
+    saver.writeBatch();
+  }
+
+  /**
+   * Deletes the files.
+   */
+  @TearDown
+  public void tearDown() {
+    m_Arff.delete();
+    m_CSV.delete();
+  }
+
+  /**
+   * Loads the ARFF file with FastArffReader.
+   *
+   * @return		the data
+   * @throws Exception	if loading fails
+   */
+  @Benchmark
+  public Instances arff() throws Exception {
+    ArffLoader	loader;
+
+    loader = new ArffLoader();
+    loader.setUseFastReader(true);
+    loader.setNumExecutionSlots(threads);
+    loader.setFile(m_Arff);
+
+    return loader.getDataSet();
+  }
+
+  /**
+   * Loads the CSV file.
+   *
+   * @return		the data
+   * @throws Exception	if loading fails
+   */
+  @Benchmark
+  public Instances csv() throws Exception {
+    CSVLoader	loader;
+
+    loader = new CSVLoader();
+    loader.setNumExecutionSlots(threads);
+    loader.setFile(m_CSV);
+
+    return loader.getDataSet();
+  }
+}
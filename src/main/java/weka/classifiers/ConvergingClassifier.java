@@ -0,0 +1,40 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+/*
+ *    ConvergingClassifier.java
+ *    Copyright (C) 2015 University of Waikato, Hamilton, New Zealand
+ *
+ */
+
+package weka.classifiers;
+
+/**
+ * Interface to an iterative classifier that stops training by itself, e.g.
+ * when it converged or reached its maximum number of iterations. Callers
+ * that drive the iterations can then stop calling next.
+ */
+public interface ConvergingClassifier
+  extends IterativeClassifier {
+
+  /**
+   * Returns whether the training started by initClassifier has finished,
+   * so that further calls of next do nothing.
+   *
+   * @return true if training has finished
+   */
+  boolean hasConverged();
+}
@@ -47,6 +47,7 @@ import weka.classifiers.evaluation.NominalPrediction;
 import weka.classifiers.evaluation.ThresholdCurve;
 import weka.classifiers.pmml.consumer.PMMLClassifier;
 import weka.classifiers.xml.XMLClassifier;
+import weka.core.BatchPredictor;
 import weka.core.Drawable;
 import weka.core.FastVector;
 import weka.core.Instance;
@@ -56,6 +57,7 @@ import weka.core.OptionHandler;
 import weka.core.Range;
 import weka.core.RevisionHandler;
 import weka.core.RevisionUtils;
+import weka.core.SerializationHelper;
 import weka.core.Summarizable;
 import weka.core.Utils;
 import weka.core.Version;
@@ -311,6 +313,12 @@ public class Evaluation implements Summarizable, RevisionHandler {
    */
   protected static final double MIN_SF_PROB = Double.MIN_VALUE;
 
+  /**
+   * The number of instances passed to a BatchPredictor in one call, only
+   * this many test instances are copied at a time.
+   */
+  protected static final int BATCH_SIZE = 1000;
+
   /** Total entropy of prior predictions */
   protected double m_SumPriorEntropy;
 
@@ -916,6 +924,10 @@ public class Evaluation implements Summarizable, RevisionHandler {
             // successfully loaded earlier in the code
             objectInputStream = null;
             xmlInputStream = null;
+          } else if (SerializationHelper.isBinaryModel(objectInputFileName)) {
+            // binary ann model, read further down
+            objectInputStream = null;
+            xmlInputStream = null;
           } else {
             InputStream is = new FileInputStream(objectInputFileName);
             if (objectInputFileName.endsWith(".gz")) {
@@ -1115,6 +1127,9 @@ public class Evaluation implements Summarizable, RevisionHandler {
         // would null otherwise)!
         classifier = (Classifier) KOML.read(xmlInputStream);
         xmlInputStream.close();
+      } else if (!objectInputFileName.endsWith(".xml")
+          && SerializationHelper.isBinaryModel(objectInputFileName)) {
+        classifier = (Classifier) SerializationHelper.read(objectInputFileName);
       }
     }
 
@@ -1476,6 +1491,30 @@ public class Evaluation implements Summarizable, RevisionHandler {
 
     // Need to be able to collect predictions if appropriate (for AUC)
 
+    if (classifier instanceof BatchPredictor) {
+      // predict one block per call, without the class values
+      for (int start = 0; start < data.numInstances(); start += BATCH_SIZE) {
+        int n = Math.min(BATCH_SIZE, data.numInstances() - start);
+        Instances classMissing = new Instances(data, start, n);
+        for (int i = 0; i < n; i++) {
+          classMissing.instance(i).setClassMissing();
+        }
+        double[][] dists =
+          ((BatchPredictor) classifier).distributionsForInstances(classMissing);
+
+        for (int i = 0; i < n; i++) {
+          Instance inst = data.instance(start + i);
+          predictions[start + i] =
+            evaluateModelOnceAndRecordPrediction(dists[i], inst);
+          if (buff != null) {
+            buff.append(predictionText(inst, start + i, attsToOutput,
+              printDist, predictions[start + i], dists[i]));
+          }
+        }
+      }
+      return predictions;
+    }
+
     for (int i = 0; i < data.numInstances(); i++) {
       predictions[i] =
         evaluateModelOnceAndRecordPrediction(classifier, data.instance(i));
@@ -3263,6 +3302,37 @@ public class Evaluation implements Summarizable, RevisionHandler {
 
     throws Exception {
 
+    Instance withMissing = (Instance) inst.copy();
+    withMissing.setDataset(inst.dataset());
+    withMissing.setMissing(withMissing.classIndex());
+    double predValue = classifier.classifyInstance(withMissing);
+    double[] dist = null;
+    if (inst.dataset().classAttribute().isNominal()
+      && !Instance.isMissingValue(predValue)) {
+      dist = classifier.distributionForInstance(withMissing);
+    }
+
+    return predictionText(inst, instNum, attributesToOutput,
+      printDistribution, predValue, dist);
+  }
+
+  /**
+   * store a prediction that has already been made as a string
+   * 
+   * @param inst the instance to generate text from
+   * @param instNum the index in the dataset
+   * @param attributesToOutput the indices of the attributes to output
+   * @param printDistribution prints the complete distribution for nominal
+   *          classes, not just the predicted value
+   * @param predValue the predicted value
+   * @param dist the predicted class distribution, only used for a nominal
+   *          class and a predicted value that isn't missing
+   * @return the prediction as a String
+   */
+  protected static String predictionText(Instance inst, int instNum,
+    Range attributesToOutput, boolean printDistribution, double predValue,
+    double[] dist) {
+
     StringBuffer result = new StringBuffer();
     int width = 10;
     int prec = 3;
@@ -3270,7 +3340,6 @@ public class Evaluation implements Summarizable, RevisionHandler {
     Instance withMissing = (Instance) inst.copy();
     withMissing.setDataset(inst.dataset());
     withMissing.setMissing(withMissing.classIndex());
-    double predValue = classifier.classifyInstance(withMissing);
 
     // index
     result.append(Utils.padLeft("" + (instNum + 1), 6));
@@ -3323,7 +3392,6 @@ public class Evaluation implements Summarizable, RevisionHandler {
           result.append(" " + "?");
         } else {
           result.append(" ");
-          double[] dist = classifier.distributionForInstance(withMissing);
           for (int n = 0; n < dist.length; n++) {
             if (n > 0) {
               result.append(",");
@@ -3339,9 +3407,7 @@ public class Evaluation implements Summarizable, RevisionHandler {
           result.append(" " + "?");
         } else {
           result.append(" "
-            + Utils.doubleToString(
-              classifier.distributionForInstance(withMissing)[(int) predValue],
-              prec));
+            + Utils.doubleToString(dist[(int) predValue], prec));
         }
       }
     }
@@ -0,0 +1,152 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+/*
+ *    TrainingEvent.java
+ *    Copyright (C) 2015 University of Waikato, Hamilton, New Zealand
+ *
+ */
+
+package weka.classifiers;
+
+import weka.core.Utils;
+
+import java.util.EventObject;
+
+/**
+ * The progress of an iterative learner, sent to {@link TrainingListener}s.
+ * Times and allocations cover the period since the previous event, i.e.
+ * one epoch for {@link TrainingListener#epochFinished(TrainingEvent)}.
+ *
+ * @see TrainingMetrics
+ */
+public class TrainingEvent extends EventObject {
+
+  /** for serialization */
+  private static final long serialVersionUID = -2938061587241350127L;
+
+  /** the number of completed epochs */
+  protected int m_Epoch;
+
+  /** the training loss of the period, NaN if unknown */
+  protected double m_Loss;
+
+  /** the number of training updates in the period */
+  protected long m_Instances;
+
+  /** the wall clock time of the period in nanoseconds */
+  protected long m_Elapsed;
+
+  /** the time per phase in nanoseconds, see TrainingMetrics */
+  protected long[] m_Phases;
+
+  /** the bytes allocated by the training thread, -1 if unknown */
+  protected long m_AllocatedBytes;
+
+  /**
+   * Creates a new event.
+   *
+   * @param source the classifier that is being trained
+   * @param epoch the number of completed epochs
+   * @param loss the training loss of the period
+   * @param instances the number of training updates in the period
+   * @param elapsed the wall clock time of the period in nanoseconds
+   * @param phases the time per phase in nanoseconds
+   * @param allocatedBytes the bytes allocated by the training thread
+   */
+  public TrainingEvent(Object source, int epoch, double loss, long instances,
+      long elapsed, long[] phases, long allocatedBytes) {
+    super(source);
+    m_Epoch = epoch;
+    m_Loss = loss;
+    m_Instances = instances;
+    m_Elapsed = elapsed;
+    m_Phases = phases;
+    m_AllocatedBytes = allocatedBytes;
+  }
+
+  /**
+   * @return the number of completed epochs
+   */
+  public int getEpoch() {
+    return m_Epoch;
+  }
+
+  /**
+   * @return the training loss of the period, NaN if unknown
+   */
+  public double getLoss() {
+    return m_Loss;
+  }
+
+  /**
+   * @return the number of training updates in the period
+   */
+  public long getInstances() {
+    return m_Instances;
+  }
+
+  /**
+   * @return the training updates per second in the period
+   */
+  public double getInstancesPerSecond() {
+    return m_Elapsed > 0 ? m_Instances * 1e9 / m_Elapsed : 0;
+  }
+
+  /**
+   * @return the wall clock time of the period in milliseconds
+   */
+  public double getElapsedMillis() {
+    return m_Elapsed / 1e6;
+  }
+
+  /**
+   * Returns the time spent in one phase of training.
+   *
+   * @param phase one of the phase constants of TrainingMetrics
+   * @return the time in milliseconds
+   */
+  public double getPhaseMillis(int phase) {
+    return m_Phases[phase] / 1e6;
+  }
+
+  /**
+   * @return the bytes allocated by the training thread in the period, -1
+   * if the JVM does not measure it
+   */
+  public long getAllocatedBytes() {
+    return m_AllocatedBytes;
+  }
+
+  /**
+   * Returns a one line summary, e.g. for a log or status bar.
+   *
+   * @return the summary
+   */
+  public String toString() {
+    StringBuffer result = new StringBuffer();
+    result.append("epoch " + m_Epoch);
+    if (!Double.isNaN(m_Loss))
+      result.append(", loss " + Utils.doubleToString(m_Loss, 6));
+    result.append(", " + Utils.doubleToString(getInstancesPerSecond(), 0) + " inst/s");
+    for (int i = 0; i < m_Phases.length; i++)
+      result.append(", " + TrainingMetrics.PHASES[i] + " "
+          + Utils.doubleToString(getPhaseMillis(i), 1) + " ms");
+    if (m_AllocatedBytes >= 0)
+      result.append(", " + m_AllocatedBytes / 1024 + " KB allocated");
+    return result.toString();
+  }
+}
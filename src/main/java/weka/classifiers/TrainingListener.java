@@ -0,0 +1,57 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+/*
+ *    TrainingListener.java
+ *    Copyright (C) 2015 University of Waikato, Hamilton, New Zealand
+ *
+ */
+
+package weka.classifiers;
+
+import java.util.EventListener;
+
+/**
+ * Interface to something that follows the progress of an iterative
+ * learner while buildClassifier runs, e.g. to print it on the command line
+ * or to show it in the status area of the KnowledgeFlow.
+ * The methods are called on the training thread and should return quickly.
+ *
+ * @see TrainingListenerHandler
+ */
+public interface TrainingListener extends EventListener {
+
+  /**
+   * Called when buildClassifier starts, before any preprocessing.
+   *
+   * @param e the event, without metrics
+   */
+  void trainingStarted(TrainingEvent e);
+
+  /**
+   * Called after every completed epoch.
+   *
+   * @param e the metrics of the epoch
+   */
+  void epochFinished(TrainingEvent e);
+
+  /**
+   * Called when training ends, also when it stops early.
+   *
+   * @param e the metrics since the last completed epoch, if any
+   */
+  void trainingFinished(TrainingEvent e);
+}
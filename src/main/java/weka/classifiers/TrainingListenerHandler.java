@@ -0,0 +1,45 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+/*
+ *    TrainingListenerHandler.java
+ *    Copyright (C) 2015 University of Waikato, Hamilton, New Zealand
+ *
+ */
+
+package weka.classifiers;
+
+/**
+ * Interface to a classifier that reports its training progress to
+ * {@link TrainingListener}s. Listeners are not serialized with the model.
+ */
+public interface TrainingListenerHandler {
+
+  /**
+   * Adds a listener that is notified by the following calls to
+   * buildClassifier.
+   *
+   * @param l the listener to add
+   */
+  void addTrainingListener(TrainingListener l);
+
+  /**
+   * Removes a listener.
+   *
+   * @param l the listener to remove
+   */
+  void removeTrainingListener(TrainingListener l);
+}
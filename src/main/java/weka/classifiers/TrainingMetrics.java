@@ -0,0 +1,261 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+/*
+ *    TrainingMetrics.java
+ *    Copyright (C) 2015 University of Waikato, Hamilton, New Zealand
+ *
+ */
+
+package weka.classifiers;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.Vector;
+
+/**
+ * Collects the progress of one buildClassifier call and sends it to
+ * {@link TrainingListener}s. Learners only create it when someone listens
+ * (see {@link #create(Object, Vector, boolean)}), and guard every
+ * measurement with a null check, so training without listeners pays one
+ * branch per measurement point. Timing a phase:
+ * <pre>
+ * long start = metrics != null ? System.nanoTime() : 0;
+ * ... forward pass ...
+ * if (metrics != null) start = metrics.add(TrainingMetrics.FORWARD, start);
+ * ... backward pass ...
+ * if (metrics != null) metrics.add(TrainingMetrics.BACKWARD, start);
+ * </pre>
+ * Allocated bytes are those of the calling thread, measured with the
+ * HotSpot extension of the thread MXBean, which is looked up by reflection;
+ * work done on other threads is not included.
+ */
+public class TrainingMetrics {
+
+  /** preprocessing: filtering or transforming the training data */
+  public static final int FILTER = 0;
+
+  /** forward passes of training updates */
+  public static final int FORWARD = 1;
+
+  /** weight updates; includes the forward pass of fused mini-batch steps */
+  public static final int BACKWARD = 2;
+
+  /** error evaluation for convergence checks and validation */
+  public static final int ERROR = 3;
+
+  /** the names of the phases, by constant */
+  public static final String[] PHASES = {"filter", "forward", "backward", "error"};
+
+  /** the thread MXBean, null if it can't measure allocated bytes */
+  protected static final ThreadMXBean THREADS;
+
+  /** the getThreadAllocatedBytes(long) method of THREADS, null if not available */
+  protected static final Method ALLOCATED_BYTES;
+
+  static {
+    ThreadMXBean threads = null;
+    Method allocatedBytes = null;
+    try {
+      Class<?> hotspot = Class.forName("com.sun.management.ThreadMXBean");
+      threads = ManagementFactory.getThreadMXBean();
+      if (hotspot.isInstance(threads)
+          && ((Boolean) hotspot.getMethod("isThreadAllocatedMemorySupported").invoke(threads)).booleanValue())
+        allocatedBytes = hotspot.getMethod("getThreadAllocatedBytes", long.class);
+    } catch (Throwable t) {
+      // not a HotSpot JVM, allocated bytes are unknown
+    }
+    THREADS = allocatedBytes != null ? threads : null;
+    ALLOCATED_BYTES = allocatedBytes;
+  }
+
+  /** the classifier that is being trained */
+  protected Object m_Source;
+
+  /** the listeners */
+  protected TrainingListener[] m_Listeners;
+
+  /** the number of completed epochs */
+  protected int m_Epoch;
+
+  /** the training updates since the last event */
+  protected long m_Instances;
+
+  /** the start of the period of the next event */
+  protected long m_Start;
+
+  /** the time per phase since the last event */
+  protected long[] m_Phases = new long[PHASES.length];
+
+  /** the allocated bytes of the thread at the start of the period */
+  protected long m_Allocated;
+
+  /**
+   * Prints the progress to a stream, one line per event.
+   */
+  public static class Printer implements TrainingListener {
+
+    /** the stream to print to */
+    protected PrintStream m_Out;
+
+    /**
+     * @param out the stream to print to
+     */
+    public Printer(PrintStream out) {
+      m_Out = out;
+    }
+
+    public void trainingStarted(TrainingEvent e) {
+      m_Out.println(name(e) + ": training started");
+    }
+
+    public void epochFinished(TrainingEvent e) {
+      m_Out.println(name(e) + ": " + e);
+    }
+
+    public void trainingFinished(TrainingEvent e) {
+      m_Out.println(name(e) + ": training finished, " + e);
+    }
+
+    /**
+     * @param e the event
+     * @return the class name of the source without package
+     */
+    protected String name(TrainingEvent e) {
+      return e.getSource().getClass().getName().replaceAll(".*\\.", "");
+    }
+  }
+
+  /**
+   * Creates the metrics for one buildClassifier call.
+   *
+   * @param source the classifier that is being trained
+   * @param listeners the registered listeners, may be null
+   * @param print whether to print the progress to stderr as well
+   * @return the metrics, or null if nobody listens
+   */
+  public static TrainingMetrics create(Object source,
+      Vector<TrainingListener> listeners, boolean print) {
+    Vector<TrainingListener> all = new Vector<TrainingListener>();
+    if (listeners != null)
+      all.addAll(listeners);
+    if (print)
+      all.add(new Printer(System.err));
+    if (all.size() == 0)
+      return null;
+    return new TrainingMetrics(source, all.toArray(new TrainingListener[all.size()]));
+  }
+
+  /**
+   * Creates the metrics and notifies the listeners that training started.
+   *
+   * @param source the classifier that is being trained
+   * @param listeners the listeners
+   */
+  protected TrainingMetrics(Object source, TrainingListener[] listeners) {
+    m_Source = source;
+    m_Listeners = listeners;
+    reset();
+    TrainingEvent e = new TrainingEvent(source, 0, Double.NaN, 0, 0, new long[PHASES.length], -1);
+    for (int i = 0; i < m_Listeners.length; i++)
+      m_Listeners[i].trainingStarted(e);
+  }
+
+  /**
+   * @return the bytes allocated by the calling thread so far, -1 if unknown
+   */
+  protected static long allocated() {
+    if (THREADS == null)
+      return -1;
+    try {
+      return ((Long) ALLOCATED_BYTES.invoke(THREADS,
+          Long.valueOf(Thread.currentThread().getId()))).longValue();
+    } catch (Exception e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Starts a new period.
+   */
+  protected void reset() {
+    m_Instances = 0;
+    for (int i = 0; i < m_Phases.length; i++)
+      m_Phases[i] = 0;
+    m_Allocated = allocated();
+    m_Start = System.nanoTime();
+  }
+
+  /**
+   * Adds the time since <code>start</code> to a phase.
+   *
+   * @param phase the phase constant
+   * @param start the start of the measurement, from System.nanoTime()
+   * @return the current time, to start the next measurement with
+   */
+  public long add(int phase, long start) {
+    long now = System.nanoTime();
+    m_Phases[phase] += now - start;
+    return now;
+  }
+
+  /**
+   * Counts training updates.
+   *
+   * @param count the number of instances trained on
+   */
+  public void instances(long count) {
+    m_Instances += count;
+  }
+
+  /**
+   * Ends an epoch and notifies the listeners.
+   *
+   * @param loss the training loss of the epoch, NaN if unknown
+   */
+  public void epochFinished(double loss) {
+    m_Epoch++;
+    TrainingEvent e = event(loss);
+    for (int i = 0; i < m_Listeners.length; i++)
+      m_Listeners[i].epochFinished(e);
+    reset();
+  }
+
+  /**
+   * Notifies the listeners that training ended. The event covers the work
+   * since the last completed epoch.
+   *
+   * @param loss the training loss since the last epoch, NaN if unknown
+   */
+  public void finished(double loss) {
+    TrainingEvent e = event(loss);
+    for (int i = 0; i < m_Listeners.length; i++)
+      m_Listeners[i].trainingFinished(e);
+  }
+
+  /**
+   * @param loss the loss of the period
+   * @return the event for the current period
+   */
+  protected TrainingEvent event(double loss) {
+    long allocated = allocated();
+    return new TrainingEvent(m_Source, m_Epoch, loss, m_Instances,
+        System.nanoTime() - m_Start, m_Phases.clone(),
+        m_Allocated >= 0 && allocated >= 0 ? allocated - m_Allocated : -1);
+  }
+}
@@ -0,0 +1,249 @@
+/*
+ *    BinaryModel.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ *
+ *    Compact binary file format for trained MLP networks
+ */
+
+package weka.classifiers.ann;
+
+import weka.classifiers.ann.engine.DenseNetwork;
+import weka.core.Instances;
+import weka.core.SerializationHelper;
+import weka.core.Utils;
+import weka.filters.unsupervised.attribute.Normalize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Reads and writes trained {@link MLP} networks in a compact, versioned
+ * binary format instead of Java serialization of the Node/Links graph.
+ * <p/>
+ * Layout, all numbers little-endian:
+ * <pre>
+ * bytes    "WANN" (magic)
+ * int      format version (2)
+ * int      flags, bit 0 = biases
+ * int      number of layers, followed by the size of every layer
+ * string   MLP options
+ * string   training header in ARFF format
+ * int      class index of the header
+ * int      length of the serialized InputTransformer, followed by the
+ *          bytes (0 if the model does not use filters)
+ * padding  up to a multiple of 8 bytes
+ * double[] weights of every layer, laid out as in DenseNetwork
+ * </pre>
+ * Strings are an int byte count followed by UTF-8 bytes. The input
+ * transformer is small and kept as Java serialization inside the file.
+ * Version 1 files kept the NominalToBinary and Normalize filters there
+ * instead; they are converted when read.
+ * <p/>
+ * {@link #read(File)} maps the file read-only and the loaded network reads
+ * its weights from the mapping, so processes that load the same file share
+ * the weights through the page cache. A loaded model always uses the DENSE
+ * engine, which predicts exactly like the GRAPH engine it may have been
+ * trained with. {@link SerializationHelper#read(String)} recognizes the
+ * format by its magic number.
+ */
+public class BinaryModel {
+
+    /** the first four bytes of every binary model */
+    public static final byte[] MAGIC = SerializationHelper.BINARY_MODEL_MAGIC;
+
+    /** the version written by this class */
+    public static final int VERSION = 2;
+
+    private static final int FLAG_BIAS = 1;
+
+    /** Writes the trained model to the given file. */
+    public static void write(MLP model, File file) throws Exception {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            write(model, out);
+        } finally {
+            out.close();
+        }
+    }
+
+    /** Writes the trained model to the given stream, which is not closed. */
+    public static void write(MLP model, OutputStream out) throws Exception {
+        DenseNetwork network = model.denseNetwork();
+        if (network == null)
+            throw new Exception("Model has not been trained.");
+
+        byte[] options = Utils.joinOptions(model.getOptions()).getBytes("UTF-8");
+        byte[] header = new Instances(model.getHeader(), 0).toString().getBytes("UTF-8");
+        byte[] filters = new byte[0];
+        if (model.getUseFilter()) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream oos = new ObjectOutputStream(bytes);
+            oos.writeObject(model.getTransformer());
+            oos.close();
+            filters = bytes.toByteArray();
+        }
+
+        int numLayers = network.numLayers();
+        int size = 4 + 4 + 4 + 4 + 4 * numLayers
+                + 4 + options.length + 4 + header.length + 4 + 4 + filters.length;
+        int padded = (size + 7) & ~7;
+
+        ByteBuffer meta = ByteBuffer.allocate(padded).order(ByteOrder.LITTLE_ENDIAN);
+        meta.put(MAGIC);
+        meta.putInt(VERSION);
+        meta.putInt(network.hasBias() ? FLAG_BIAS : 0);
+        meta.putInt(numLayers);
+        for (int l = 0; l < numLayers; l++)
+            meta.putInt(network.layerSize(l));
+        meta.putInt(options.length).put(options);
+        meta.putInt(header.length).put(header);
+        meta.putInt(model.getHeader().classIndex());
+        meta.putInt(filters.length).put(filters);
+        meta.position(0);
+
+        WritableByteChannel channel = Channels.newChannel(out);
+        writeFully(channel, meta);
+        for (int l = 0; l < numLayers - 1; l++) {
+            ByteBuffer layer = ByteBuffer.allocate(network.layerLength(l) * 8).order(ByteOrder.LITTLE_ENDIAN);
+            network.writeLayer(l, layer.asDoubleBuffer());
+            writeFully(channel, layer);
+        }
+        out.flush();
+    }
+
+    private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    /**
+     * Loads a model by mapping the file read-only. The weights are not
+     * copied until the model is trained further or serialized.
+     */
+    public static MLP read(File file) throws Exception {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            FileChannel channel = in.getChannel();
+            // mapping tetap berlaku setelah channel ditutup
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(buffer, true);
+        } finally {
+            in.close();
+        }
+    }
+
+    /** Loads a model from a stream, copying the weights to the heap. */
+    public static MLP read(InputStream in) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] chunk = new byte[64 * 1024];
+        int n;
+        while ((n = in.read(chunk)) > 0)
+            bytes.write(chunk, 0, n);
+        return read(ByteBuffer.wrap(bytes.toByteArray()), false);
+    }
+
+    /** Whether the bytes start with the magic number of the format. */
+    public static boolean isBinaryModel(byte[] start) {
+        if (start.length < MAGIC.length)
+            return false;
+        for (int i = 0; i < MAGIC.length; i++)
+            if (start[i] != MAGIC[i])
+                return false;
+        return true;
+    }
+
+    private static MLP read(ByteBuffer buffer, boolean shared) throws Exception {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(magic);
+        if (!isBinaryModel(magic))
+            throw new IOException("Not a binary ann model.");
+        int version = buffer.getInt();
+        if (version > VERSION)
+            throw new IOException("Unsupported binary model version " + version + ", expected at most " + VERSION + ".");
+
+        int flags = buffer.getInt();
+        int[] sizes = new int[buffer.getInt()];
+        for (int l = 0; l < sizes.length; l++)
+            sizes[l] = buffer.getInt();
+        String options = readString(buffer);
+        Instances header = new Instances(new StringReader(readString(buffer)));
+        header.setClassIndex(buffer.getInt());
+        InputTransformer transformer = null;
+        byte[] filterBytes = new byte[buffer.getInt()];
+        buffer.get(filterBytes);
+        if (filterBytes.length > 0) {
+            ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(filterBytes));
+            Object filters = ois.readObject();
+            ois.close();
+            // versi 1: NominalToBinary dan Normalize
+            if (version == 1)
+                transformer = InputTransformer.fromFilters(header, (Normalize) ((Object[]) filters)[1]);
+            else
+                transformer = (InputTransformer) filters;
+        }
+        buffer.position((buffer.position() + 7) & ~7);
+
+        boolean bias = (flags & FLAG_BIAS) != 0;
+        DoubleBuffer[] layers = new DoubleBuffer[sizes.length - 1];
+        for (int l = 0; l < layers.length; l++) {
+            int length = sizes[l] * sizes[l + 1] + (bias ? sizes[l + 1] : 0);
+            ByteBuffer slice = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+            slice.limit(length * 8);
+            layers[l] = slice.asDoubleBuffer();
+            buffer.position(buffer.position() + length * 8);
+        }
+
+        DenseNetwork network;
+        if (shared) {
+            network = new DenseNetwork(sizes, bias, layers);
+        } else {
+            network = new DenseNetwork(sizes, bias);
+            for (int l = 0; l < layers.length; l++)
+                network.readLayer(l, layers[l]);
+        }
+
+        MLP model = new MLP();
+        model.setOptions(Utils.splitOptions(options));
+        if (transformer == null)
+            transformer = new InputTransformer(new Instances(header, 0), false);
+        model.restore(header, network, transformer, filterBytes.length > 0);
+        return model;
+    }
+
+    private static String readString(ByteBuffer buffer) throws IOException {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    /**
+     * Converts a serialized MLP into the binary format. Usage:<p/>
+     * java weka.classifiers.ann.BinaryModel &lt;serialized model&gt; &lt;binary model&gt;
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Usage: java " + BinaryModel.class.getName() + " <serialized model> <binary model>");
+            System.exit(1);
+        }
+        Object model = SerializationHelper.read(args[0]);
+        if (!(model instanceof MLP))
+            throw new Exception("Not an MLP: " + model.getClass().getName());
+        write((MLP) model, new File(args[1]));
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ *    Checkpoint.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ *
+ *    Checkpoints of MLP training runs
+ */
+
+package weka.classifiers.ann;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The state of an {@link MLP} training run at the end of an epoch: the
+ * model with its weights, optimizer and momentum state and input
+ * transformer, the random number generator, the convergence monitor and the
+ * number of updates done so far. Resuming from a checkpoint continues
+ * exactly where the run stopped.
+ * <p/>
+ * A {@link Writer} serializes checkpoints in memory on the training thread,
+ * so that they hold a consistent state, and writes them to disk on a
+ * background thread. A checkpoint that is still waiting when the next one
+ * arrives is replaced by it. Files are written next to the target and
+ * renamed over it, so a run that is killed while writing leaves the
+ * previous checkpoint intact. Where a rename can't replace a file (e.g. on
+ * Windows) the previous checkpoint is deleted first, which leaves a short
+ * window without a checkpoint.
+ */
+public class Checkpoint implements Serializable {
+
+    private static final long serialVersionUID = -2648019316552730418L;
+
+    private MLP model;
+    private Random random;
+    private ConvergenceMonitor monitor;
+    private int iteration;
+    private int numInstances;
+
+    Checkpoint(MLP model, Random random, ConvergenceMonitor monitor, int iteration, int numInstances) {
+        this.model = model;
+        this.random = random;
+        this.monitor = monitor;
+        this.iteration = iteration;
+        this.numInstances = numInstances;
+    }
+
+    /** The model at the time of the checkpoint. */
+    public MLP getModel() {
+        return model;
+    }
+
+    /** The random number generator of the model. */
+    public Random getRandom() {
+        return random;
+    }
+
+    /** The convergence monitor of the run. */
+    public ConvergenceMonitor getMonitor() {
+        return monitor;
+    }
+
+    /** The number of updates done, a multiple of the number of instances. */
+    public int getIteration() {
+        return iteration;
+    }
+
+    /** The number of training instances per epoch, without validation. */
+    public int getNumInstances() {
+        return numInstances;
+    }
+
+    /** Reads a checkpoint written by a {@link Writer}. */
+    public static Checkpoint read(File file) throws Exception {
+        ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            return (Checkpoint) in.readObject();
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Writes the checkpoints of one training run to a file.
+     */
+    public static class Writer {
+
+        private final File file;
+        private final ExecutorService executor;
+        // checkpoint terbaru yang belum ditulis, null jika tidak ada
+        private final AtomicReference<byte[]> pending = new AtomicReference<byte[]>();
+        private volatile IOException error;
+
+        private final Runnable flush = new Runnable() {
+            public void run() {
+                byte[] data = pending.getAndSet(null);
+                if (data == null || error != null)
+                    return;
+                try {
+                    writeFile(data);
+                } catch (IOException e) {
+                    error = e;
+                }
+            }
+        };
+
+        public Writer(File file) {
+            this.file = file;
+            executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "MLP-checkpoint");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+
+        /**
+         * Serializes the checkpoint and queues it for writing. Throws the
+         * error of an earlier write that failed.
+         */
+        public void write(Checkpoint checkpoint) throws IOException {
+            if (error != null)
+                throw error;
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream oos = new ObjectOutputStream(bytes);
+            oos.writeObject(checkpoint);
+            oos.close();
+            // checkpoint yang masih menunggu diganti, flush yang sudah dijadwalkan menulis yang terbaru
+            if (pending.getAndSet(bytes.toByteArray()) == null)
+                executor.execute(flush);
+        }
+
+        private void writeFile(byte[] data) throws IOException {
+            File tmp = new File(file.getPath() + ".tmp");
+            FileOutputStream out = new FileOutputStream(tmp);
+            try {
+                out.write(data);
+                out.getFD().sync();
+            } finally {
+                out.close();
+            }
+            // renameTo tidak bisa menimpa file di semua platform, hapus dulu lalu coba lagi
+            if (!tmp.renameTo(file) && !(file.delete() && tmp.renameTo(file)))
+                throw new IOException("Could not rename " + tmp + " to " + file);
+        }
+
+        /**
+         * Waits until the queued checkpoint is on disk and stops the writer
+         * thread. Throws the error of a write that failed.
+         */
+        public void close() throws IOException {
+            shutdown();
+            if (error != null)
+                throw error;
+        }
+
+        /**
+         * Waits until the queued checkpoint is on disk and stops the writer
+         * thread, without reporting errors. Used when training failed.
+         */
+        public void shutdown() {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
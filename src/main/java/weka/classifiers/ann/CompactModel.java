@@ -0,0 +1,241 @@
+/*
+ *    CompactModel.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ *
+ *    Inference-only float32 / int8 export of trained MLP, PTR and DR models
+ */
+
+package weka.classifiers.ann;
+
+import weka.classifiers.Classifier;
+import weka.classifiers.ann.engine.CompactNetwork;
+import weka.classifiers.ann.engine.DenseNetwork;
+import weka.core.BatchPredictor;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.RevisionUtils;
+import weka.core.SerializedObject;
+import weka.core.Utils;
+
+/**
+ * Scores with a {@link CompactNetwork} copy of a trained {@link MLP},
+ * {@link PTR} or {@link DR}: float32 weights, or int8 weights when a
+ * calibration sample is given to {@link #export(Classifier, Instances)}.
+ * PTR and DR are exported as a network with one layer of weights and their
+ * activation function. The model only predicts; it cannot be trained.
+ * <p/>
+ * {@link #report(Classifier, CompactModel, Instances)} measures how much the
+ * reduced precision costs on a test set. Classification is safe to call
+ * from many threads.
+ */
+public class CompactModel extends Classifier implements BatchPredictor {
+
+    // untuk serialisasi
+    private static final long serialVersionUID = 4418950237326087140L;
+
+    private Instances header;
+    private InputTransformer transformer;
+    private CompactNetwork network;
+    private boolean perceptron; // true = PTR/DR, output adalah hasil fungsi aktivasi
+    private String source;
+    private transient volatile ThreadLocal<CompactNetwork.Scratch> scratch;
+
+    private CompactModel() { }
+
+    /** Exports the trained model with float32 weights. */
+    public static CompactModel export(Classifier model) throws Exception {
+        return export(model, null);
+    }
+
+    /**
+     * Exports the trained model. If <code>calibration</code> is not null the
+     * weights are quantized to int8, with input ranges calibrated on these
+     * instances, which have the format of the training data.
+     */
+    public static CompactModel export(Classifier model, Instances calibration) throws Exception {
+        CompactModel compact = new CompactModel();
+        DenseNetwork dense;
+        InputTransformer transformer;
+        if (model instanceof MLP) {
+            MLP mlp = (MLP) model;
+            dense = mlp.denseNetwork();
+            compact.header = mlp.getHeader();
+            transformer = mlp.getTransformer();
+        } else if (model instanceof PTR) {
+            PTR ptr = (PTR) model;
+            dense = ptr.denseNetwork();
+            compact.header = ptr.getHeader();
+            transformer = ptr.getTransformer();
+            compact.perceptron = true;
+        } else if (model instanceof DR) {
+            DR dr = (DR) model;
+            dense = dr.denseNetwork();
+            compact.header = dr.getHeader();
+            transformer = dr.getTransformer();
+            compact.perceptron = true;
+        } else {
+            throw new Exception("Only MLP, PTR and DR can be exported, not " + model.getClass().getName() + ".");
+        }
+        if (dense == null)
+            throw new Exception("Model has not been trained.");
+
+        // disalin agar updateClassifier pada model asli tidak mengubah model ini
+        compact.transformer = (InputTransformer) new SerializedObject(transformer).getObject();
+        compact.network = new CompactNetwork(dense);
+        compact.source = model.getClass().getName().replaceAll(".*\\.", "");
+
+        if (calibration != null) {
+            compact.network.quantize(compact.transformer.transform(calibration), calibration.numInstances());
+        }
+        return compact;
+    }
+
+    public void buildClassifier(Instances data) throws Exception {
+        throw new Exception("CompactModel only predicts, export a trained MLP, PTR or DR instead.");
+    }
+
+    public CompactNetwork getNetwork() {
+        return network;
+    }
+
+    public double classifyInstance(Instance instance) throws Exception {
+        return toPrediction(output(instance));
+    }
+
+    public double[] distributionForInstance(Instance instance) throws Exception {
+        return toDistribution(output(instance), 0);
+    }
+
+    /**
+     * Predicts a whole block of instances, which is transformed into one
+     * input matrix.
+     */
+    public double[][] distributionsForInstances(Instances data) throws Exception {
+        int numRows = data.numInstances();
+        int numOutputs = network.layerSize(network.numLayers() - 1);
+        double[] outputs = new double[numRows * numOutputs];
+        network.predictBatch(transformer.transform(data), numRows, outputs);
+
+        double[][] dists = new double[numRows][];
+        for (int r = 0; r < numRows; r++)
+            dists[r] = toDistribution(outputs, r * numOutputs);
+        return dists;
+    }
+
+    private double[] output(Instance instance) throws Exception {
+        double[] result = new double[network.layerSize(network.numLayers() - 1)];
+        network.predict(transformer.transform(instance), 0, result, 0, scratch());
+        return result;
+    }
+
+    private CompactNetwork.Scratch scratch() {
+        ThreadLocal<CompactNetwork.Scratch> local = scratch;
+        if (local == null) {
+            synchronized (this) {
+                if (scratch == null) {
+                    final CompactNetwork net = network;
+                    scratch = new ThreadLocal<CompactNetwork.Scratch>() {
+                        protected CompactNetwork.Scratch initialValue() {
+                            return net.newScratch();
+                        }
+                    };
+                }
+                local = scratch;
+            }
+        }
+        return local.get();
+    }
+
+    // sama dengan MLP: argmax untuk kelas nominal, PTR/DR: hasil fungsi aktivasi
+    private double toPrediction(double[] result) {
+        if (perceptron || result.length == 1)
+            return result[0];
+        int maxIndex = 0;
+        for (int l = 1; l < result.length; l++) {
+            if (result[maxIndex] < result[l])
+                maxIndex = l;
+        }
+        return maxIndex;
+    }
+
+    private double[] toDistribution(double[] outputs, int offset) {
+        if (perceptron)
+            return Predictions.distribution(outputs[offset], header.classAttribute());
+        if (!header.classAttribute().isNominal())
+            return new double[]{outputs[offset]};
+
+        int numOutputs = network.layerSize(network.numLayers() - 1);
+        double[] dist = new double[numOutputs];
+        double sum = 0;
+        for (int l = 0; l < numOutputs; l++) {
+            dist[l] = outputs[offset + l];
+            sum += dist[l];
+        }
+        if (sum > 0) {
+            for (int l = 0; l < numOutputs; l++)
+                dist[l] /= sum;
+        }
+        return dist;
+    }
+
+    /**
+     * Compares the predictions of the original model and its export on the
+     * given instances: accuracy (nominal class) or RMSE (numeric class) of
+     * both, how often they agree and the largest difference between their
+     * distributions.
+     */
+    public static String report(Classifier reference, CompactModel compact, Instances data) throws Exception {
+        boolean nominal = data.classAttribute().isNominal();
+        double[][] dists = compact.distributionsForInstances(data);
+        int n = data.numInstances();
+        double refScore = 0, compactScore = 0, agree = 0, maxDiff = 0;
+        for (int i = 0; i < n; i++) {
+            Instance instance = data.instance(i);
+            double[] refDist = reference.distributionForInstance(instance);
+            for (int j = 0; j < refDist.length; j++)
+                maxDiff = Math.max(maxDiff, Math.abs(refDist[j] - dists[i][j]));
+
+            double refPrediction = reference.classifyInstance(instance);
+            double compactPrediction = compact.classifyInstance(instance);
+            if (nominal) {
+                refScore += refPrediction == instance.classValue() ? 1 : 0;
+                compactScore += compactPrediction == instance.classValue() ? 1 : 0;
+                agree += refPrediction == compactPrediction ? 1 : 0;
+            } else {
+                refScore += Math.pow(refPrediction - instance.classValue(), 2);
+                compactScore += Math.pow(compactPrediction - instance.classValue(), 2);
+                agree += Math.abs(refPrediction - compactPrediction) < 1e-3 ? 1 : 0;
+            }
+        }
+
+        StringBuilder builder = new StringBuilder();
+        builder.append("COMPACT MODEL REPORT (").append(compact.network).append(")\n");
+        if (nominal) {
+            double refAccuracy = 100 * refScore / n;
+            double compactAccuracy = 100 * compactScore / n;
+            builder.append("   ACCURACY ORIGINAL = ").append(Utils.doubleToString(refAccuracy, 4)).append(" %\n");
+            builder.append("   ACCURACY COMPACT  = ").append(Utils.doubleToString(compactAccuracy, 4)).append(" %\n");
+            builder.append("   ACCURACY DROP     = ").append(Utils.doubleToString(refAccuracy - compactAccuracy, 4)).append(" %\n");
+        } else {
+            builder.append("   RMSE ORIGINAL = ").append(Utils.doubleToString(Math.sqrt(refScore / n), 6)).append("\n");
+            builder.append("   RMSE COMPACT  = ").append(Utils.doubleToString(Math.sqrt(compactScore / n), 6)).append("\n");
+        }
+        builder.append("   AGREEMENT = ").append(Utils.doubleToString(100 * agree / n, 4)).append(" %\n");
+        builder.append("   MAX DISTRIBUTION DIFFERENCE = ").append(Utils.doubleToString(maxDiff, 8)).append("\n");
+        return builder.toString();
+    }
+
+    public String toString() {
+        if (network == null)
+            return "COMPACT MODEL: not exported";
+        return "COMPACT " + source + " MODEL\n" + "   NETWORK = " + network + "\n";
+    }
+
+    public String globalInfo() {
+        return "Inference-only float32 / int8 copy of a trained MLP, PTR or DR";
+    }
+
+    public String getRevision() {
+        return RevisionUtils.extract("$Revision: 1 $");
+    }
+}
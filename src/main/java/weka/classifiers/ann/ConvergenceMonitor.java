@@ -0,0 +1,233 @@
+/*
+ *    ConvergenceMonitor.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ *
+ *    Convergence checks shared by the PTR, DR and MLP training loops
+ */
+
+package weka.classifiers.ann;
+
+import weka.classifiers.TrainingMetrics;
+import weka.core.Instances;
+
+import java.io.Serializable;
+import java.util.Random;
+
+/**
+ * Decides when an iterative ann learner has converged without
+ * re-classifying the whole training set after every update.
+ * <p/>
+ * The learner reports the squared error of every instance it trains on
+ * (computed from the prediction it already made for the update) through
+ * {@link #record(double)}. The monitor accumulates these and checks the error
+ * either every <code>checkInterval</code> updates or, when the interval is 0,
+ * once per epoch. The error of a check is the sum of the recorded errors
+ * extrapolated to the size of the training set, or, when a validation split is
+ * used, the error on the held-out instances scaled the same way. Either way
+ * it is comparable to the full-dataset error the learners used before.
+ * <p/>
+ * With a patience &gt; 0 training also stops after that many checks without
+ * improvement, and {@link #finish()} restores the weights of the best check.
+ * <p/>
+ * With {@link #setMetrics(TrainingMetrics)} the monitor also reports the
+ * loss (half the sum of the recorded squared errors) and the number of
+ * updates of every epoch, and times the error evaluations.
+ * <p/>
+ * A monitor is serialized into MLP checkpoints together with the weights;
+ * {@link #resume(Learner, int)} continues it where it stopped.
+ */
+public class ConvergenceMonitor implements Serializable {
+
+    private static final long serialVersionUID = 7315924417268532890L;
+
+    /**
+     * Callbacks into the learner that is being monitored.
+     */
+    public interface Learner {
+        /** Returns half the sum of squared errors on the given data. */
+        double error(Instances data) throws Exception;
+
+        /** Returns a copy of the current weights. */
+        Object saveWeights();
+
+        /** Restores weights returned by {@link #saveWeights()}. */
+        void restoreWeights(Object weights);
+    }
+
+    private double minError;
+    private int checkInterval;
+    private int patience;
+
+    // tidak ikut checkpoint, diisi lagi oleh split() dan resume()
+    private transient Learner learner;
+    private transient Instances validation;
+    private int numTraining;
+
+    private double windowError;
+    private int windowCount;
+    private long updates;
+
+    private double lastError = Double.MAX_VALUE;
+    private double bestError = Double.MAX_VALUE;
+    private Object bestWeights;
+    private int checksSinceBest;
+    private boolean stopped;
+
+    // null jika tidak ada TrainingListener
+    private transient TrainingMetrics metrics;
+    private double epochError;
+    private int epochCount;
+
+    /**
+     * @param minError      training stops once a check reports an error
+     *                      less than or equal to this value
+     * @param checkInterval number of updates between checks, 0 = once per epoch
+     * @param patience      number of checks without improvement before
+     *                      training stops, 0 = no early stopping
+     */
+    public ConvergenceMonitor(double minError, int checkInterval, int patience) {
+        this.minError = minError;
+        this.checkInterval = checkInterval;
+        this.patience = patience;
+    }
+
+    /**
+     * Holds out <code>percent</code> percent of the data (chosen with the
+     * given random number generator) for validation and returns the rest.
+     * Returns the data unchanged if percent is 0.
+     */
+    public Instances split(Instances data, double percent, Random random) {
+        validation = null;
+        int valSize = (int) Math.round(data.numInstances() * percent / 100.0);
+        if (percent <= 0 || valSize == 0 || valSize >= data.numInstances())
+            return data;
+
+        Instances shuffled = new Instances(data);
+        shuffled.randomize(random);
+        validation = new Instances(shuffled, 0, valSize);
+        return new Instances(shuffled, valSize, shuffled.numInstances() - valSize);
+    }
+
+    /**
+     * Starts monitoring a learner that trains on <code>numTraining</code>
+     * instances per epoch.
+     */
+    public void start(Learner learner, int numTraining) {
+        this.learner = learner;
+        this.numTraining = numTraining;
+        windowError = 0;
+        windowCount = 0;
+        updates = 0;
+        lastError = Double.MAX_VALUE;
+        bestError = Double.MAX_VALUE;
+        bestWeights = null;
+        checksSinceBest = 0;
+        stopped = false;
+        epochError = 0;
+        epochCount = 0;
+    }
+
+    /**
+     * Continues monitoring with the state restored from a checkpoint written
+     * at an epoch boundary. The validation set must have been split off again
+     * with the same data, percentage and seed.
+     */
+    public void resume(Learner learner, int numTraining) {
+        this.learner = learner;
+        this.numTraining = numTraining;
+        epochError = 0;
+        epochCount = 0;
+    }
+
+    /**
+     * Reports the progress of the following training to the given metrics,
+     * or to nobody if null.
+     */
+    public void setMetrics(TrainingMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Records the squared error of one training update and runs a check if
+     * one is due.
+     */
+    public void record(double squaredError) throws Exception {
+        windowError += squaredError;
+        windowCount++;
+        updates++;
+
+        int interval = checkInterval > 0 ? checkInterval : numTraining;
+        if (updates % interval == 0)
+            check();
+
+        if (metrics != null) {
+            epochError += squaredError;
+            epochCount++;
+            if (epochCount == numTraining) {
+                metrics.instances(epochCount);
+                metrics.epochFinished(epochError / 2);
+                epochError = 0;
+                epochCount = 0;
+            }
+        }
+    }
+
+    private void check() throws Exception {
+        double error;
+        if (validation != null) {
+            long start = metrics != null ? System.nanoTime() : 0;
+            error = learner.error(validation) * numTraining / validation.numInstances();
+            if (metrics != null)
+                metrics.add(TrainingMetrics.ERROR, start);
+        } else {
+            error = windowError / 2 * numTraining / windowCount;
+        }
+        windowError = 0;
+        windowCount = 0;
+        lastError = error;
+
+        if (error <= minError)
+            stopped = true;
+
+        if (patience > 0) {
+            if (error < bestError) {
+                bestError = error;
+                bestWeights = learner.saveWeights();
+                checksSinceBest = 0;
+            } else if (++checksSinceBest >= patience) {
+                stopped = true;
+            }
+        }
+    }
+
+    /**
+     * Whether the learner should stop training.
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * The error of the most recent check.
+     */
+    public double getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Restores the best weights seen if early stopping is enabled and the
+     * final weights are worse.
+     */
+    public void finish() {
+        if (bestWeights != null && lastError > bestError)
+            learner.restoreWeights(bestWeights);
+        if (metrics != null) {
+            metrics.instances(epochCount);
+            metrics.finished(epochCount > 0 ? epochError / 2 : Double.NaN);
+        }
+        bestWeights = null;
+        learner = null;
+        validation = null;
+        metrics = null;
+    }
+}
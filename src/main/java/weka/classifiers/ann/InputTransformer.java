@@ -0,0 +1,391 @@
+/*
+ *    InputTransformer.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ *
+ *    Fused NominalToBinary + Normalize preprocessing of the ann classifiers
+ */
+
+package weka.classifiers.ann;
+
+import weka.core.Attribute;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.SparseInstance;
+import weka.filters.unsupervised.attribute.Normalize;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Maps a raw instance straight into a <code>double[]</code> of network
+ * inputs: all attributes except the class, in order. With filtering the
+ * result is the same as running the instance through NominalToBinary and
+ * Normalize with their default options:
+ * <ul>
+ *   <li>nominal attributes with more than two values become one input per
+ *   value (1 for the value of the instance, 0 otherwise)</li>
+ *   <li>nominal attributes with two values become one input, their value
+ *   index</li>
+ *   <li>every input is then scaled to [0, 1] with its minimum and maximum
+ *   over the training data; inputs that are constant or never seen
+ *   become 0</li>
+ *   <li>missing values stay missing</li>
+ * </ul>
+ * Without filtering every attribute is passed on as its value. The offsets
+ * of the inputs and the scale factors are computed once, so transforming
+ * an instance into a reused buffer allocates nothing. Transforming is safe
+ * from many threads, except concurrently with {@link #update(Instance)}.
+ * <p/>
+ * The sparse transforms produce the same inputs as {@link SparseInputs},
+ * visiting only the values a {@link SparseInstance} stores plus the few
+ * attributes whose value 0 does not become all zero inputs (e.g. nominal
+ * attributes with one input per value, attributes whose minimum is not
+ * 0).
+ */
+public class InputTransformer implements Serializable {
+
+    // untuk serialisasi
+    private static final long serialVersionUID = 3920475511286302718L;
+
+    private int classIndex;
+    // index kelas di antara atribut hasil filter
+    private int inputClassIndex;
+    // index input pertama dan jumlah input untuk setiap atribut, -1 untuk kelas
+    private int[] offsets;
+    private int[] widths;
+    private int numInputs;
+    // per input: dinormalisasi atau tidak, minimum, maksimum dan 1 / (max - min), 0 jika konstan
+    private boolean[] normalized;
+    private double[] min;
+    private double[] max;
+    private double[] scale;
+    // buffer per thread untuk transform(Instance)
+    private transient volatile ThreadLocal<double[]> buffers;
+    private transient volatile ThreadLocal<SparseInputs> sparseBuffers;
+    // atribut yang nilai 0-nya menjadi input bukan 0, null jika harus dihitung ulang
+    private transient volatile int[] nonZero;
+
+    /**
+     * Computes the layout for the format of <code>data</code> and, with
+     * filtering, the ranges of the numeric attributes in one pass over the
+     * instances, without copying them.
+     */
+    public InputTransformer(Instances data, boolean filter) {
+        layout(data, filter);
+        if (filter && isSparse(data)) {
+            widenSparse(data);
+        } else if (filter) {
+            for (int r = 0; r < data.numInstances(); r++)
+                widen(data.instance(r));
+        }
+        for (int k = 0; k < numInputs; k++)
+            rescale(k);
+    }
+
+    /**
+     * Rebuilds the transformation of the NominalToBinary and Normalize
+     * filters that models trained before InputTransformer kept.
+     */
+    static InputTransformer fromFilters(Instances header, Normalize normalize) {
+        InputTransformer transformer = new InputTransformer(new Instances(header, 0), true);
+        double[] filterMin = normalize.getMinArray();
+        double[] filterMax = normalize.getMaxArray();
+        for (int k = 0; k < transformer.numInputs; k++) {
+            // index Normalize termasuk atribut kelas
+            int f = k < transformer.classIndex() || transformer.classIndex() < 0 ? k : k + 1;
+            transformer.min[k] = filterMin[f];
+            transformer.max[k] = filterMax[f];
+            transformer.rescale(k);
+        }
+        transformer.nonZero = null;
+        return transformer;
+    }
+
+    /**
+     * Whether the data consists of sparse instances, for which the sparse
+     * transforms are faster.
+     */
+    public static boolean isSparse(Instances data) {
+        return data.numInstances() > 0 && data.instance(0) instanceof SparseInstance;
+    }
+
+    private void layout(Instances format, boolean filter) {
+        int numAttributes = format.numAttributes();
+        classIndex = format.classIndex();
+        offsets = new int[numAttributes];
+        widths = new int[numAttributes];
+        numInputs = 0;
+        inputClassIndex = -1;
+        for (int a = 0; a < numAttributes; a++) {
+            if (a == classIndex) {
+                offsets[a] = -1;
+                inputClassIndex = numInputs;
+                continue;
+            }
+            Attribute att = format.attribute(a);
+            offsets[a] = numInputs;
+            widths[a] = filter && att.isNominal() && att.numValues() > 2 ? att.numValues() : 1;
+            numInputs += widths[a];
+        }
+
+        // Normalize menskalakan semua atribut hasil NominalToBinary, termasuk input per nilai
+        normalized = new boolean[numInputs];
+        min = new double[numInputs];
+        max = new double[numInputs];
+        scale = new double[numInputs];
+        if (filter) {
+            Arrays.fill(normalized, true);
+            Arrays.fill(min, Double.NaN);
+        }
+    }
+
+    // sama dengan Normalize: nilai 0 jika rentang kosong atau belum ada data
+    private void rescale(int k) {
+        if (!normalized[k])
+            return;
+        scale[k] = Double.isNaN(min[k]) || max[k] == min[k] ? 0 : 1.0 / (max[k] - min[k]);
+    }
+
+    private boolean widen(Instance instance) {
+        boolean changed = false;
+        for (int a = 0; a < offsets.length; a++) {
+            if (widenAttribute(a, instance.value(a)))
+                changed = true;
+        }
+        return changed;
+    }
+
+    // rentang semua input dari atribut a dengan nilai value
+    private boolean widenAttribute(int a, double value) {
+        int k = offsets[a];
+        if (k < 0 || !normalized[k] || Instance.isMissingValue(value))
+            return false;
+        int width = widths[a];
+        if (width == 1)
+            return widen(k, value);
+        boolean changed = false;
+        for (int v = 0; v < width; v++) {
+            if (widen(k + v, v == (int) value ? 1 : 0))
+                changed = true;
+        }
+        return changed;
+    }
+
+    // hanya nilai yang disimpan, atribut yang tidak disimpan di suatu instance bernilai 0
+    private void widenSparse(Instances data) {
+        int[] stored = new int[offsets.length];
+        for (int r = 0; r < data.numInstances(); r++) {
+            Instance instance = data.instance(r);
+            for (int p = 0; p < instance.numValues(); p++) {
+                int a = instance.index(p);
+                stored[a]++;
+                widenAttribute(a, instance.valueSparse(p));
+            }
+        }
+        for (int a = 0; a < offsets.length; a++) {
+            if (stored[a] < data.numInstances())
+                widenAttribute(a, 0);
+        }
+    }
+
+    private boolean widen(int k, double value) {
+        if (Instance.isMissingValue(value))
+            return false;
+        if (Double.isNaN(min[k])) {
+            min[k] = max[k] = value;
+            return true;
+        } else if (value < min[k]) {
+            min[k] = value;
+            return true;
+        } else if (value > max[k]) {
+            max[k] = value;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Widens the ranges of the numeric attributes so that they include the
+     * values of the instance, for training on a stream. A transformer built
+     * on no data starts from the first instance.
+     */
+    public void update(Instance instance) {
+        if (widen(instance)) {
+            for (int k = 0; k < numInputs; k++)
+                rescale(k);
+            nonZero = null;
+        }
+    }
+
+    /** Number of network inputs. */
+    public int numInputs() {
+        return numInputs;
+    }
+
+    /**
+     * Index of the class among the filtered attributes, i.e. the number of
+     * inputs before it, or -1 if the data has no class.
+     */
+    public int classIndex() {
+        return inputClassIndex;
+    }
+
+    /**
+     * Input v of attribute a for the value, which is not missing: the value
+     * itself or, for one input per value, 1 or 0, then normalized.
+     */
+    private double input(int a, int v, double value) {
+        int k = offsets[a] + v;
+        double x = widths[a] == 1 ? value : v == (int) value ? 1 : 0;
+        if (!normalized[k])
+            return x;
+        // sama dengan Normalize: 0 jika rentang kosong atau belum ada data
+        return scale[k] == 0 ? 0 : (x - min[k]) * scale[k];
+    }
+
+    /** Writes the inputs for the instance to input[offset..offset+numInputs()). */
+    public void transform(Instance instance, double[] input, int offset) {
+        for (int a = 0; a < offsets.length; a++) {
+            int k = offsets[a];
+            if (k < 0)
+                continue;
+
+            double value = instance.value(a);
+            int width = widths[a];
+            if (Instance.isMissingValue(value)) {
+                for (int v = 0; v < width; v++)
+                    input[offset + k + v] = value;
+            } else {
+                for (int v = 0; v < width; v++)
+                    input[offset + k + v] = input(a, v, value);
+            }
+        }
+    }
+
+    /**
+     * Returns the inputs for the instance in a buffer owned by the calling
+     * thread, which is overwritten by its next call.
+     */
+    public double[] transform(Instance instance) {
+        ThreadLocal<double[]> local = buffers;
+        if (local == null) {
+            synchronized (this) {
+                if (buffers == null) {
+                    final int length = numInputs;
+                    buffers = new ThreadLocal<double[]>() {
+                        protected double[] initialValue() {
+                            return new double[length];
+                        }
+                    };
+                }
+                local = buffers;
+            }
+        }
+        double[] input = local.get();
+        transform(instance, input, 0);
+        return input;
+    }
+
+    /** Returns the inputs of all instances as a row-major matrix. */
+    public double[] transform(Instances data) {
+        double[] inputs = new double[data.numInstances() * numInputs];
+        for (int r = 0; r < data.numInstances(); r++)
+            transform(data.instance(r), inputs, r * numInputs);
+        return inputs;
+    }
+
+    private int[] nonZero() {
+        int[] list = nonZero;
+        if (list == null) {
+            list = new int[offsets.length];
+            int n = 0;
+            for (int a = 0; a < offsets.length; a++) {
+                if (offsets[a] < 0)
+                    continue;
+                for (int v = 0; v < widths[a]; v++) {
+                    if (input(a, v, 0) != 0) {
+                        list[n++] = a;
+                        break;
+                    }
+                }
+            }
+            int[] shrunk = new int[n];
+            System.arraycopy(list, 0, shrunk, 0, n);
+            list = shrunk;
+            nonZero = list;
+        }
+        return list;
+    }
+
+    // input bukan 0 dari nilai atribut a, input yang hilang tetap NaN
+    private void add(int a, double value, SparseInputs rows) {
+        int k = offsets[a];
+        int width = widths[a];
+        if (Instance.isMissingValue(value)) {
+            for (int v = 0; v < width; v++)
+                rows.add(k + v, value);
+        } else {
+            for (int v = 0; v < width; v++) {
+                double x = input(a, v, value);
+                if (x != 0)
+                    rows.add(k + v, x);
+            }
+        }
+    }
+
+    /**
+     * Appends the inputs for the instance to <code>rows</code> as a new row.
+     * Only the values the instance stores and the attributes whose value 0
+     * gives a non-zero input are visited.
+     */
+    public void transform(Instance instance, SparseInputs rows) {
+        int[] zeros = nonZero();
+        int z = 0;
+        int numValues = instance.numValues();
+        for (int p = 0; p < numValues; p++) {
+            int a = instance.index(p);
+            // atribut sebelum a tidak disimpan, jadi bernilai 0
+            while (z < zeros.length && zeros[z] < a)
+                add(zeros[z++], 0, rows);
+            if (z < zeros.length && zeros[z] == a)
+                z++;
+            if (offsets[a] >= 0)
+                add(a, instance.valueSparse(p), rows);
+        }
+        while (z < zeros.length)
+            add(zeros[z++], 0, rows);
+        rows.endRow();
+    }
+
+    /**
+     * Returns the inputs for the instance as the only row of a buffer owned
+     * by the calling thread, which is overwritten by its next call.
+     */
+    public SparseInputs transformSparse(Instance instance) {
+        ThreadLocal<SparseInputs> local = sparseBuffers;
+        if (local == null) {
+            synchronized (this) {
+                if (sparseBuffers == null) {
+                    sparseBuffers = new ThreadLocal<SparseInputs>() {
+                        protected SparseInputs initialValue() {
+                            return new SparseInputs();
+                        }
+                    };
+                }
+                local = sparseBuffers;
+            }
+        }
+        SparseInputs rows = local.get();
+        rows.clear();
+        transform(instance, rows);
+        return rows;
+    }
+
+    /** Returns the inputs of all instances, one row per instance. */
+    public SparseInputs transformSparse(Instances data) {
+        SparseInputs rows = new SparseInputs();
+        for (int r = 0; r < data.numInstances(); r++)
+            transform(data.instance(r), rows);
+        return rows;
+    }
+}
@@ -9,26 +9,44 @@
 package weka.classifiers.ann;
 
 import weka.classifiers.Classifier;
+import weka.classifiers.ConvergingClassifier;
+import weka.classifiers.TrainingListener;
+import weka.classifiers.TrainingListenerHandler;
+import weka.classifiers.TrainingMetrics;
+import weka.classifiers.UpdateableClassifier;
+import weka.classifiers.ann.engine.Activation;
+import weka.classifiers.ann.engine.DenseNetwork;
 import weka.classifiers.ann.engine.Links;
 import weka.classifiers.ann.engine.Node;
+import weka.classifiers.ann.engine.Optimizer;
+import weka.classifiers.ann.engine.Schedule;
 import weka.core.*;
 import weka.core.Capabilities.Capability;
-import weka.filters.Filter;
 import weka.filters.unsupervised.attribute.NominalToBinary;
 import weka.filters.unsupervised.attribute.Normalize;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Random;
 import java.util.Vector;
 import java.util.Enumeration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
-public class MLP extends Classifier implements OptionHandler, WeightedInstancesHandler {
+public class MLP extends Classifier implements OptionHandler, WeightedInstancesHandler, BatchPredictor, Randomizable, UpdateableClassifier,
+        TrainingListenerHandler, ConvergingClassifier {
     ////// DATA YANG BERKAITAN DENGAN MODEL
     private ArrayList<ArrayList<Node>> hidden;
     private ArrayList<Node> input;
     private ArrayList<Node> output;
     private HashMap<Node,Integer> inputIndex, outputIndex;
     private HashMap<Integer,HashMap<Node,Integer>> hiddenIndex;
+    private DenseNetwork network;
+    private Instances header;
+    // buffer per thread untuk classifyInstance dengan engine DENSE
+    private transient volatile ThreadLocal<Scratch> scratch;
 
     private double momentum = 0.0;
     private float learningrate = 0.1f;
@@ -39,131 +57,711 @@ public class MLP extends Classifier implements OptionHandler, WeightedInstancesH
     private boolean useFilter = false;
     private int initOption = 0;
     private double initValue = 0.0;
+    private int initScheme = 0; // 0 = UNIFORM, 1 = XAVIER, 2 = HE
+    private int seed = 1;
+    private boolean useBias = true;
+    // sumber bilangan acak untuk inisialisasi bobot, dibuat ulang dari seed
+    private transient Random random;
     private double deltaMSE = 0.0;
+    private int engine = 0; // 0 = GRAPH, 1 = DENSE
+    private int checkInterval = 0; // 0 = SETIAP EPOCH
+    private double validationPercent = 0;
+    private int patience = 0;
+    private int batchSize = 1; // 1 = ONLINE, 0 = FULL BATCH
+    private int numThreads = 1; // 0 = SEMUA PROSESOR
+    private int outputLayer = 0; // 0 = SIGMOID, 1 = SOFTMAX, 2 = TANH, 3 = RELU, 4 = LEAKY_RELU, 5 = LINEAR
+    private int hiddenActivation = Activation.SIGMOID; // 0 - 4, lihat Activation
+    private boolean approximate = false;
+    private int optimizer = Optimizer.SGD; // 0 = SGD, 1 = NESTEROV, 2 = RMSPROP, 3 = ADAM
+    private int schedule = Schedule.CONSTANT; // 0 = CONSTANT, 1 = STEP, 2 = COSINE
+    private double decayEpochs = 10;
+    private double warmupEpochs = 0;
+    // learning rate untuk update berikutnya menurut schedule
+    private transient double rate;
+    private boolean printProgress = false;
+    private transient Vector<TrainingListener> listeners;
+    // hanya selama buildClassifier, null jika tidak ada listener
+    private transient TrainingMetrics metrics;
+    private String checkpointFile = ""; // "" = TANPA CHECKPOINT
+    private int checkpointInterval = 1; // dalam epoch
+    private boolean resume = false;
+    private double dropout = 0; // 0 = TANPA DROPOUT
+    private double weightDecay = 0; // 0 = TANPA L2
+    private double clipNorm = 0; // 0 = TANPA CLIPPING
+    // hanya selama buildClassifier, null jika checkpointFile kosong
+    private transient Checkpoint.Writer checkpoints;
+    // training yang sedang berjalan, dari initClassifier sampai done
+    private transient Run run;
     ///////////////////////////////////////
-    private NominalToBinary nominalToBinary = new NominalToBinary();
-    private Normalize normalize = new Normalize();
+    private InputTransformer transformer;
+    // hanya untuk model lama yang dilatih sebelum ada InputTransformer
+    private NominalToBinary nominalToBinary;
+    private Normalize normalize;
     //////////////////////////////////////
 
 
     // untuk serialisasi
     private static final long serialVersionUID = -5990607817048210779L;
 
+    // bobot awal untuk layer bobot ke-layer, bias selalu dimulai dari 0
+    private double nextWeight(int layer){
+        if (initOption != 0)
+            return initValue;
+
+        int fanIn = layerSize(layer);
+        int fanOut = layerSize(layer + 1);
+        switch (initScheme){
+            case 1: // Xavier/Glorot, uniform pada [-a, a]
+                double a = Math.sqrt(6.0 / (fanIn + fanOut));
+                return a * (2 * random.nextDouble() - 1);
+            case 2: // He, normal dengan varians 2 / fanIn
+                return random.nextGaussian() * Math.sqrt(2.0 / fanIn);
+            default:
+                return random.nextDouble()*(random.nextDouble() > 0.5 ? 1 : -1);
+        }
+    }
+
     private void initWeight(){
         for(Node i : this.input){
             for(Node h : this.hidden.get(0)){
-                if (initOption == 0)
-                    i.forbind(h, Math.random()*(Math.random() > 0.5 ? 1 : -1));
-                else
-                    i.forbind(h, initValue);
+                i.forbind(h, nextWeight(0));
             }
         }
         for(int i = 1; i < this.hidden.size(); i++){
             for(Node h : this.hidden.get(i-1)){
                 for(Node hto : this.hidden.get(i)){
-                    if (initOption == 0)
-                        h.forbind(hto, Math.random()*(Math.random() > 0.5 ? 1 : -1));
-                    else
-                        h.forbind(hto, initValue);
+                    h.forbind(hto, nextWeight(i));
                 }
             }
         }
         for(Node h : this.hidden.get(this.hidden.size()-1)){
             for(Node o : this.output){
-                if (initOption == 0)
-                    h.forbind(o, Math.random()*(Math.random() > 0.5 ? 1 : -1));
-                else
-                    h.forbind(o, initValue);
+                h.forbind(o, nextWeight(this.hidden.size()));
+            }
+        }
+    }
+
+    // urutan pengisian bobot sama dengan initWeight() agar kedua engine identik
+    private void initDenseWeight(){
+        for (int l = 0; l < network.numLayers() - 1; l++){
+            for (int from = 0; from < network.layerSize(l); from++){
+                for (int to = 0; to < network.layerSize(l + 1); to++){
+                    network.setWeight(l, from, to, nextWeight(l));
+                }
             }
         }
     }
 
+    private double weight(int layer, int from, int to){
+        if (engine == 1)
+            return network.getWeight(layer, from, to);
+        if (layer == 0)
+            return input.get(from).getForbundetTil().get(to).getV();
+        return hidden.get(layer - 1).get(from).getForbundetTil().get(to).getV();
+    }
+
+    private void setWeight(int layer, int from, int to, double v){
+        if (engine == 1)
+            network.setWeight(layer, from, to, v);
+        else if (layer == 0)
+            input.get(from).getForbundetTil().get(to).setV(v);
+        else
+            hidden.get(layer - 1).get(from).getForbundetTil().get(to).setV(v);
+    }
+
+    // bias unit ke-to pada layer layer + 1
+    private double bias(int layer, int to){
+        if (engine == 1)
+            return network.getBias(layer, to);
+        if (layer == hiddenLayers)
+            return output.get(to).getBias();
+        return hidden.get(layer).get(to).getBias();
+    }
+
+    private void setBias(int layer, int to, double v){
+        if (engine == 1)
+            network.setBias(layer, to, v);
+        else if (layer == hiddenLayers)
+            output.get(to).setBias(v);
+        else
+            hidden.get(layer).get(to).setBias(v);
+    }
+
     private double[] nominalize(double in){
         double out[] = new double[outPerceptron];
+        nominalize(in, out, 0);
+        return out;
+    }
 
+    private void nominalize(double in, double[] out, int offset){
         if (outPerceptron == 1){
-            out[0] = in;
+            out[offset] = in;
         }else{
+            // softmax dilatih dengan cross entropy, target harus berjumlah 1
+            boolean softmax = engine == 1 && network.isSoftmax();
             for (int i = 0; i < outPerceptron; i++){
-                out[i] = 0.01;
+                out[offset + i] = softmax ? 0.0 : 0.01;
             }
-            out[(int)in] = 0.99;
+            out[offset + (int)in] = softmax ? 1.0 : 0.99;
         }
-        return out;
     }
 
-    private double calculateError(Instances instances) throws Exception{
+    // package-private untuk benchmark JMH
+    double calculateError(Instances instances) throws Exception{
         double tmp_error = 0;
         int sumInstances = instances.numInstances();
 
         for (int i = 0; i < sumInstances ; i++){
-            tmp_error += Math.pow( instances.instance(i).classValue() - classifyInstance(instances.instance(i)) , 2);
+            double out = toPrediction(output(instances.instance(i)));
+            tmp_error += Math.pow( instances.instance(i).classValue() - out , 2);
         }
         return tmp_error / 2;
     }
 
-    private double[] genInput(Instance instance){
-        int it = 0;
-        double[] input = new double[instance.numAttributes() - 1];
-        for (int i = 0; i < instance.numAttributes(); i++){
-            if (i != instance.classIndex()){
-                input[it] = instance.value(i);
-                it++;
-            }
+    private int layerSize(int layer){
+        if (layer == 0)
+            return numInputs();
+        if (layer == hiddenLayers + 1)
+            return outPerceptron;
+        return hiddenPerceptrons;
+    }
+
+    private double[] saveWeights(){
+        int size = 0;
+        for (int l = 0; l <= hiddenLayers; l++)
+            size += layerSize(l) * layerSize(l + 1) + (useBias ? layerSize(l + 1) : 0);
+
+        double[] w = new double[size];
+        int c = 0;
+        for (int l = 0; l <= hiddenLayers; l++) {
+            for (int from = 0; from < layerSize(l); from++)
+                for (int to = 0; to < layerSize(l + 1); to++)
+                    w[c++] = weight(l, from, to);
+            if (useBias)
+                for (int to = 0; to < layerSize(l + 1); to++)
+                    w[c++] = bias(l, to);
+        }
+        return w;
+    }
+
+    private void restoreWeights(double[] w){
+        int c = 0;
+        for (int l = 0; l <= hiddenLayers; l++) {
+            for (int from = 0; from < layerSize(l); from++)
+                for (int to = 0; to < layerSize(l + 1); to++)
+                    setWeight(l, from, to, w[c++]);
+            if (useBias)
+                for (int to = 0; to < layerSize(l + 1); to++)
+                    setBias(l, to, w[c++]);
         }
-        return input;
+    }
+
+    /** Keadaan training antara dua epoch: data, input hasil transformasi dan posisi. */
+    private static class Run {
+        Instances instances;
+        // matriks input, atau null jika input ada di rows
+        double[] inputs;
+        SparseInputs rows;
+        ConvergenceMonitor monitor;
+        Schedule rates;
+        int it;
+        int iterateTo;
+        // hanya untuk batch training
+        int size;
+        int threads;
+        ExecutorService executor;
     }
 
     public void buildClassifier(Instances _instances) throws Exception {
+        initClassifier(_instances);
+        try {
+            while (trainEpoch());
+            done();
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Prepares the data and the initial network (or the state of the
+     * checkpoint to resume from) without training. Each call of
+     * {@link #next(int)} then trains one epoch, and {@link #done()} ends the
+     * run, so a run can be stopped and continued at any epoch boundary.
+     * buildClassifier is the same as calling next until maxIteration epochs
+     * are done or training converged.
+     */
+    public void initClassifier(Instances _instances) throws Exception {
+        release();
+        metrics = TrainingMetrics.create(this, listeners, printProgress);
+        if (checkpointFile.length() > 0)
+            checkpoints = new Checkpoint.Writer(new File(checkpointFile));
+        try {
+            run = start(_instances);
+        } catch (Exception e) {
+            release();
+            throw e;
+        }
+    }
+
+    /**
+     * Trains the next epoch; does nothing once maxIteration epochs are done
+     * or training converged. The epochs are counted by the run, the
+     * iteration index is not used.
+     */
+    public void next(int iteration) throws Exception {
+        if (run == null)
+            throw new Exception("initClassifier must be called before next.");
+        trainEpoch();
+    }
+
+    /** Whether maxIteration epochs are done or training converged, false without a run. */
+    public boolean hasConverged() {
+        return run != null && finished(run);
+    }
+
+    /**
+     * Ends the run: restores the best weights if early stopping is used and
+     * writes the last checkpoint.
+     */
+    public void done() throws Exception {
+        if (run == null)
+            return;
+        try {
+            run.monitor.finish();
+            if (checkpoints != null)
+                checkpoints.close();
+        } finally {
+            release();
+        }
+    }
+
+    /** A copy of the model and options, without the state of a running training. */
+    public Object clone() throws CloneNotSupportedException {
+        try {
+            return Classifier.makeCopy(this);
+        } catch (Exception e) {
+            throw new CloneNotSupportedException(e.getMessage());
+        }
+    }
+
+    // thread, writer dan metrics dari run dilepas, juga jika training gagal
+    private void release() {
+        if (run != null && run.executor != null)
+            run.executor.shutdownNow();
+        run = null;
+        metrics = null;
+        if (checkpoints != null)
+            checkpoints.shutdown();
+        checkpoints = null;
+    }
+
+    private Run start(Instances _instances) throws Exception {
         Instances instances = _instances;
         getCapabilities().testWithFail(_instances);
+        header = new Instances(_instances, 0);
+        if (batchSize != 1 && engine != 1)
+            throw new Exception("Batch training requires the DENSE engine (-E 1).");
+        if (numThreads != 1 && batchSize == 1)
+            throw new Exception("Parallel training requires batch training (-B 0 or -B > 1).");
+        if (outputLayer == 1 && engine != 1)
+            throw new Exception("Softmax output requires the DENSE engine (-E 1).");
+        if (hiddenActivation < Activation.SIGMOID || hiddenActivation > Activation.LINEAR)
+            throw new Exception("Hidden activation must be between 0 and 4.");
+        if (outputLayer < 0 || outputLayer > 5)
+            throw new Exception("Output layer must be between 0 and 5.");
+        if (optimizer != Optimizer.SGD && engine != 1)
+            throw new Exception("Optimizers other than SGD require the DENSE engine (-E 1).");
+        if (initScheme < 0 || initScheme > 2)
+            throw new Exception("Init scheme must be between 0 and 2.");
+        if (checkpointInterval < 1)
+            throw new Exception("Checkpoint interval must be at least 1 epoch.");
+        if (dropout < 0 || dropout >= 1)
+            throw new Exception("Dropout must be at least 0 and below 1.");
+        if (weightDecay < 0 || clipNorm < 0)
+            throw new Exception("Weight decay and clip norm must not be negative.");
+        if ((dropout > 0 || weightDecay > 0 || clipNorm > 0) && engine != 1)
+            throw new Exception("Dropout, weight decay and gradient clipping require the DENSE engine (-E 1).");
+        Schedule rates = new Schedule(schedule, decayEpochs, warmupEpochs);
+
+        Checkpoint resumed = null;
+        if (resume && checkpointFile.length() > 0 && new File(checkpointFile).exists())
+            resumed = Checkpoint.read(new File(checkpointFile));
 
         /* FILTERING OPTIONS  */
-        if (useFilter) {
-            nominalToBinary.setInputFormat(instances);
-            instances = Filter.useFilter(instances, nominalToBinary);
-            normalize.setInputFormat(instances);
-            instances = Filter.useFilter(instances, normalize);
-        }
+        // rentang normalisasi dari semua data, sebelum data validasi dipisahkan
+        long start = metrics != null ? System.nanoTime() : 0;
+        nominalToBinary = null;
+        normalize = null;
+        if (resumed == null)
+            transformer = new InputTransformer(instances, useFilter);
 
-        int i = 0; int it = 0;
+        ConvergenceMonitor monitor = resumed != null ? resumed.getMonitor()
+                : new ConvergenceMonitor(deltaMSE, checkInterval, patience);
+        instances = monitor.split(instances, validationPercent, new Random(seed));
+
+        int it = 0;
         int sumInstances = instances.numInstances();
-        int sumAttributes = instances.numAttributes();
         int iterateTo = maxIteration * sumInstances;
-        if (instances.classAttribute().isNominal())
-            outPerceptron = instances.classAttribute().numValues();
+        if (resumed != null) {
+            resume(resumed, sumInstances);
+            it = resumed.getIteration();
+        } else {
+            random = new Random(seed);
+            if (instances.classAttribute().isNominal())
+                outPerceptron = instances.classAttribute().numValues();
+            else
+                outPerceptron = 1;
+            prepare(transformer.numInputs(), hiddenPerceptrons, outPerceptron, hiddenLayers);
+        }
+        // semua input dihitung sekali, satu baris per instance
+        // data sparse disimpan sebagai SparseInputs, bukan matriks N x numInputs
+        SparseInputs rows = null;
+        double[] inputs = null;
+        if (InputTransformer.isSparse(instances))
+            rows = transformer.transformSparse(instances);
+        else
+            inputs = transformer.transform(instances);
+        if (metrics != null)
+            metrics.add(TrainingMetrics.FILTER, start);
+
+        monitor.setMetrics(metrics);
+        ConvergenceMonitor.Learner learner = new ConvergenceMonitor.Learner() {
+            public double error(Instances data) throws Exception {
+                return calculateError(data);
+            }
+
+            public Object saveWeights() {
+                return MLP.this.saveWeights();
+            }
 
-        prepare(sumAttributes - 1, hiddenPerceptrons, outPerceptron, hiddenLayers);
+            public void restoreWeights(Object weights) {
+                MLP.this.restoreWeights((double[]) weights);
+            }
+        };
+        if (resumed != null)
+            monitor.resume(learner, sumInstances);
+        else
+            monitor.start(learner, sumInstances);
+
+        Run run = new Run();
+        run.instances = instances;
+        run.inputs = inputs;
+        run.rows = rows;
+        run.monitor = monitor;
+        run.rates = rates;
+        run.it = it;
+        run.iterateTo = iterateTo;
+        if (batchSize != 1) {
+            run.size = (batchSize <= 0 || batchSize > sumInstances) ? sumInstances : batchSize;
+            run.threads = numThreads > 0 ? numThreads : Runtime.getRuntime().availableProcessors();
+            if (run.threads > 1) {
+                run.executor = Executors.newFixedThreadPool(run.threads, new ThreadFactory() {
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r, "MLP-worker");
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
+            }
+        }
+        return run;
+    }
 
-        double curError = 1;
+    // true jika training sudah selesai, next tidak melatih lagi
+    private boolean finished(Run r) {
+        return r.it >= r.iterateTo || r.monitor.isStopped();
+    }
 
-        while (it < iterateTo && curError > deltaMSE) {
-            double input[] = genInput(instances.instance(i));
-            double target[] = nominalize(instances.instance(i).classValue());
+    // satu epoch, false tanpa training jika training sudah selesai
+    private boolean trainEpoch() throws Exception {
+        Run r = run;
+        if (finished(r))
+            return false;
+        int sumInstances = r.instances.numInstances();
+        // it selalu kelipatan jumlah instance di awal epoch
+        int to = Math.min(r.iterateTo, r.it + sumInstances);
+        if (batchSize != 1)
+            r.it = trainBatches(r.instances, r.inputs, r.rows, r.monitor, r.it, to, r.rates, r.size, r.executor, r.threads);
+        else
+            r.it = trainOnline(r.instances, r.inputs, r.rows, r.monitor, r.it, to, r.rates);
+        return true;
+    }
 
-            train(input, target);
+    // inputs adalah matriks input, atau null jika input ada di rows
+    private int trainOnline(Instances instances, double[] inputs, SparseInputs rows, ConvergenceMonitor monitor, int from,
+                            int iterateTo, Schedule rates) throws Exception {
+        int numInputs = numInputs();
+        int sumInstances = instances.numInstances();
+        double input[] = new double[numInputs];
+        int i = 0; int it = from;
+        while (it < iterateTo && !monitor.isStopped()) {
+            Instance instance = instances.instance(i);
+            double target[] = nominalize(instance.classValue());
+            rate = rates.rate(learningrate, (double) (it + 1) / sumInstances, maxIteration);
+
+            // output sebelum update dipakai untuk menghitung error
+            double out;
+            if (rows != null) {
+                out = toPrediction(train(rows, i, input, target));
+            } else {
+                System.arraycopy(inputs, i * numInputs, input, 0, numInputs);
+                out = toPrediction(train(input, target));
+            }
+            monitor.record(Math.pow(instance.classValue() - out, 2));
 
-            curError = calculateError(instances);
             i = (++i) % sumInstances;
             it++;
+            checkpoint(monitor, it, sumInstances);
         }
+        return it;
     }
 
+    // keadaan training dari checkpoint, opsi lain tetap dari objek ini
+    private void resume(Checkpoint checkpoint, int sumInstances) throws Exception {
+        MLP saved = checkpoint.getModel();
+        if (!saved.header.equalHeaders(header) || checkpoint.getNumInstances() != sumInstances
+                || saved.engine != engine || saved.hiddenLayers != hiddenLayers
+                || saved.hiddenPerceptrons != hiddenPerceptrons || saved.useBias != useBias
+                || saved.useFilter != useFilter || saved.outputLayer != outputLayer
+                || saved.hiddenActivation != hiddenActivation || saved.approximate != approximate
+                || saved.optimizer != optimizer)
+            throw new Exception("Checkpoint " + checkpointFile + " was written for other data or another network.");
+
+        hidden = saved.hidden;
+        input = saved.input;
+        output = saved.output;
+        inputIndex = saved.inputIndex;
+        outputIndex = saved.outputIndex;
+        hiddenIndex = saved.hiddenIndex;
+        network = saved.network;
+        scratch = null;
+        outPerceptron = saved.outPerceptron;
+        transformer = saved.transformer;
+        random = checkpoint.getRandom();
+        regularize();
+    }
+
+    // network memakai random milik MLP agar mask dropout ikut checkpoint
+    private void regularize(){
+        if (network == null)
+            return;
+        network.setDropout(dropout, random);
+        network.setWeightDecay(weightDecay);
+        network.setClipNorm(clipNorm);
+    }
+
+    // checkpoint di akhir setiap checkpointInterval epoch
+    private void checkpoint(ConvergenceMonitor monitor, int it, int sumInstances) throws Exception {
+        if (checkpoints == null || it % (checkpointInterval * sumInstances) != 0)
+            return;
+        checkpoints.write(new Checkpoint(this, random, monitor, it, sumInstances));
+    }
+
+
+    /**
+     * One online gradient descent step on a single instance at the base
+     * learning rate, for training on a stream. buildClassifier must have been
+     * called before, on the data seen so far or on an empty set with the same
+     * format. With filters the normalization ranges grow with the stream
+     * instead of coming from a pass over all the data; memory does not grow
+     * with the number of instances. Must not run concurrently with
+     * classification.
+     */
+    public void updateClassifier(Instance _instance) throws Exception {
+        if (_instance.classIsMissing())
+            return;
+
+        InputTransformer t = transformer();
+        if (useFilter)
+            t.update(_instance);
+
+        rate = learningrate;
+        if (_instance instanceof SparseInstance)
+            train(t.transformSparse(_instance), 0, new double[numInputs()], nominalize(_instance.classValue()));
+        else
+            train(t.transform(_instance), nominalize(_instance.classValue()));
+    }
+
+    // batch tidak melewati batas epoch, sehingga setiap instance dipakai sekali per epoch
+    // all adalah matriks input, atau null jika input ada di rows
+    private int trainBatches(Instances instances, double[] all, SparseInputs rows, ConvergenceMonitor monitor, int from,
+                              int iterateTo, Schedule rates, int size, ExecutorService executor, int threads)
+            throws Exception {
+        int sumInstances = instances.numInstances();
+        int numInputs = numInputs();
+        double[] inputs = new double[size * numInputs];
+        double[] targets = new double[size * outPerceptron];
+        double[] result = new double[outPerceptron];
+
+        // from selalu kelipatan jumlah instance, batch dimulai dari awal epoch
+        int i = 0; int it = from;
+        while (it < iterateTo && !monitor.isStopped()) {
+            int count = Math.min(size, sumInstances - i);
+            if (rows != null) {
+                for (int b = 0; b < count; b++)
+                    rows.densify(i + b, inputs, b * numInputs, numInputs);
+            } else {
+                System.arraycopy(all, i * numInputs, inputs, 0, count * numInputs);
+            }
+            for (int b = 0; b < count; b++) {
+                nominalize(instances.instance(i + b).classValue(), targets, b * outPerceptron);
+            }
+
+            rate = rates.rate(learningrate, (double) (it + count) / sumInstances, maxIteration);
+            // forward dan backward dihitung bersama per shard, dicatat sebagai BACKWARD
+            long start = metrics != null ? System.nanoTime() : 0;
+            double[] outputs = network.trainBatch(inputs, targets, count, rate, momentum, executor, threads);
+            if (metrics != null)
+                metrics.add(TrainingMetrics.BACKWARD, start);
+            for (int b = 0; b < count; b++) {
+                System.arraycopy(outputs, b * outPerceptron, result, 0, outPerceptron);
+                double out = toPrediction(result);
+                monitor.record(Math.pow(instances.instance(i + b).classValue() - out, 2));
+            }
 
+            i = (i + count) % sumInstances;
+            it += count;
+            checkpoint(monitor, it, sumInstances);
+        }
+        return it;
+    }
+
+    /**
+     * Classifies an instance. Safe to call from many threads on one trained
+     * model. With the DENSE engine every thread works in its own reusable
+     * buffers, so no arrays are allocated per call; the GRAPH engine keeps
+     * state in its nodes and is used one thread at a time.
+     */
     public double classifyInstance(Instance _instance) throws Exception{
-        Instance instance = _instance;
+        return toPrediction(output(_instance));
+    }
 
-        /* FILTERING OPTIONS  */
-        if (useFilter){
-            nominalToBinary.input(instance);
-            instance = nominalToBinary.output();
-            normalize.input(instance);
-            instance = normalize.output();
+    /**
+     * Returns the class probabilities: the softmax outputs, or the sigmoid
+     * outputs normalized to sum to one. Same thread safety as
+     * {@link #classifyInstance(Instance)}.
+     */
+    public double[] distributionForInstance(Instance instance) throws Exception {
+        return toDistribution(output(instance));
+    }
+
+    // untuk engine DENSE hasilnya adalah buffer milik thread ini
+    private double[] output(Instance instance) throws Exception{
+        if (engine == 1){
+            Scratch s = scratch();
+            if (instance instanceof SparseInstance){
+                SparseInputs row = s.sparse;
+                row.clear();
+                transformer().transform(instance, row);
+                return network.predictSparse(row.indices(), row.values(), row.start(0), row.end(0), s.layers);
+            }
+            transformer().transform(instance, s.layers[0], 0);
+            return network.predict(s.layers);
+        }
+
+        // engine GRAPH menyimpan hasil sementara di Node
+        synchronized (this) {
+            return classify(transformer().transform(instance));
+        }
+    }
+
+    private double[] toDistribution(double[] result){
+        if (!header.classAttribute().isNominal())
+            return new double[]{result[0]};
+
+        double[] dist = new double[outPerceptron];
+        double sum = 0;
+        for (int l = 0; l < outPerceptron; l++){
+            dist[l] = result[l];
+            sum += result[l];
+        }
+        if (sum > 0){
+            for (int l = 0; l < outPerceptron; l++){
+                dist[l] /= sum;
+            }
+        }
+        return dist;
+    }
+
+    /**
+     * Predicts a whole block of instances: the block is transformed into
+     * one input matrix and the DENSE engine evaluates it as matrix products.
+     */
+    public double[][] distributionsForInstances(Instances data) throws Exception {
+        if (engine == 1 && InputTransformer.isSparse(data)){
+            double[][] dists = new double[data.numInstances()][];
+            for (int r = 0; r < dists.length; r++)
+                dists[r] = distributionForInstance(data.instance(r));
+            return dists;
+        }
+        return distributions(transformer().transform(data), data.numInstances());
+    }
+
+    /**
+     * Predicts a row-major matrix with one instance per row that holds the
+     * values of all attributes except the class, in the order and encoding of
+     * the training data.
+     */
+    public double[][] distributionsForRows(double[] rows, int numRows) throws Exception {
+        if (useFilter)
+            return distributionsForInstances(Predictions.toInstances(header, rows, numRows));
+        return distributions(rows, numRows);
+    }
+
+    private double[][] distributions(double[] inputs, int numRows){
+        int numInputs = numInputs();
+        double[][] dists = new double[numRows][];
+        if (engine == 1){
+            double[] result = new double[outPerceptron];
+            double[] outputs = new double[numRows * outPerceptron];
+            network.predictBatch(inputs, numRows, outputs);
+            for (int r = 0; r < numRows; r++){
+                System.arraycopy(outputs, r * outPerceptron, result, 0, outPerceptron);
+                dists[r] = toDistribution(result);
+            }
+            return dists;
+        }
+
+        // engine GRAPH menyimpan hasil sementara di Node
+        synchronized (this) {
+            double[] input = new double[numInputs];
+            for (int r = 0; r < numRows; r++){
+                System.arraycopy(inputs, r * numInputs, input, 0, numInputs);
+                dists[r] = toDistribution(classify(input));
+            }
         }
+        return dists;
+    }
+
+    // buffer satu thread: satu array per layer dan input bukan 0 dari instance sparse
+    private static class Scratch {
+        final double[][] layers;
+        final SparseInputs sparse = new SparseInputs();
+
+        Scratch(DenseNetwork network){
+            layers = network.newScratch();
+        }
+    }
 
-        double input[] = genInput(instance);
-        double result[] = classify(input);
+    private Scratch scratch(){
+        ThreadLocal<Scratch> local = scratch;
+        if (local == null){
+            synchronized (this) {
+                if (scratch == null){
+                    final DenseNetwork net = network;
+                    scratch = new ThreadLocal<Scratch>() {
+                        protected Scratch initialValue() {
+                            return new Scratch(net);
+                        }
+                    };
+                }
+                local = scratch;
+            }
+        }
+        return local.get();
+    }
 
+    private double toPrediction(double[] result){
         if (outPerceptron > 1){
             int maxIndex = 0; double maxVal = 0;
             for (int l = 0; l < outPerceptron ; l++){
@@ -181,6 +779,9 @@ public class MLP extends Classifier implements OptionHandler, WeightedInstancesH
     }
 
     private double[] classify(double[] input) {
+        if (engine == 1)
+            return network.predict(input);
+
         for(int i = 0; i < input.length; i++){
             this.input.get(i).input(input[i]);
         }
@@ -202,11 +803,50 @@ public class MLP extends Classifier implements OptionHandler, WeightedInstancesH
         return retur;
     }
 
-    private void train(double[] input, double[] target){
-        for(int i = 0; i < input.length; i++){
-            this.input.get(i).input(input[i]);
+    // baris row dari rows, engine GRAPH memakai input sebagai buffer
+    private double[] train(SparseInputs rows, int row, double[] input, double[] target){
+        if (engine != 1){
+            rows.densify(row, input, 0, input.length);
+            return train(input, target);
         }
-        backpropagate(target);
+
+        TrainingMetrics m = metrics;
+        long start = m != null ? System.nanoTime() : 0;
+        double[] r = network.trainForwardSparse(rows.indices(), rows.values(), rows.start(row), rows.end(row));
+        if (m != null)
+            start = m.add(TrainingMetrics.FORWARD, start);
+        network.trainBackward(target, rate, momentum);
+        if (m != null)
+            m.add(TrainingMetrics.BACKWARD, start);
+        return r;
+    }
+
+    // mengembalikan output jaringan sebelum bobot diupdate
+    private double[] train(double[] input, double[] target){
+        TrainingMetrics m = metrics;
+        long start = m != null ? System.nanoTime() : 0;
+        double[] r;
+        if (engine == 1){
+            r = network.trainForward(input);
+        } else {
+            for(int i = 0; i < input.length; i++){
+                this.input.get(i).input(input[i]);
+            }
+            r = new double[this.output.size()];
+            for(int i = 0; i < r.length; i++){
+                r[i] = this.output.get(i).getSenesteOutput();
+            }
+        }
+        if (m != null)
+            start = m.add(TrainingMetrics.FORWARD, start);
+
+        if (engine == 1)
+            network.trainBackward(target, rate, momentum);
+        else
+            backpropagate(target);
+        if (m != null)
+            m.add(TrainingMetrics.BACKWARD, start);
+        return r;
     }
 
     private void backpropagate(double[] exp){
@@ -214,44 +854,49 @@ public class MLP extends Classifier implements OptionHandler, WeightedInstancesH
 
         int c = 0;
         for(Node o : this.output){
-            error[c] = o.getSenesteOutput()*(1.0-o.getSenesteOutput())*(exp[this.outputIndex.get(o)]-o.getSenesteOutput());
+            error[c] = o.getFunction().derivative(o.getSenesteOutput())*(exp[this.outputIndex.get(o)]-o.getSenesteOutput());
             c++;
         }
         for(Node h : this.hidden.get(this.hidden.size()-1)){
             for(Links s : h.getForbundetTil()){
                 double v = s.getV();
                 double p = s.getP();
-                s.setV(v + this.learningrate * h.getSenesteOutput() * error[this.outputIndex.get(s.getTil())] + momentum * p);
-                s.setP(this.learningrate * h.getSenesteOutput() * error[this.outputIndex.get(s.getTil())] + momentum * p);
+                s.setV(v + this.rate * error[this.outputIndex.get(s.getTil())] * h.getSenesteOutput() + momentum * p);
+                s.setP(this.rate * error[this.outputIndex.get(s.getTil())] * h.getSenesteOutput() + momentum * p);
             }
         }
+        updateBias(this.output, error);
         double[] oerror = error.clone();
         error = new double[this.hidden.get(0).size()];
 
         for(int i = this.hidden.size()-1; i > 0; i--){
+            // error layer i+1 masih dibutuhkan selama menghitung error layer i
+            double[] next = error;
+            error = new double[this.hidden.get(i).size()];
             c = 0;
             for(Node h : this.hidden.get(i)){
-                double p = h.getSenesteOutput()*(1-h.getSenesteOutput());
+                double p = h.getFunction().derivative(h.getSenesteOutput());
                 double k = 0;
                 for(Links s : h.getForbundetTil()){
                     if(i == this.hidden.size()-1){
                         k = k+oerror[this.outputIndex.get(s.getTil())]*s.getV();
                     }
                     else{
-                        k = k+error[this.hiddenIndex.get(i+1).get(s.getTil())]*s.getV();
+                        k = k+next[this.hiddenIndex.get(i+1).get(s.getTil())]*s.getV();
                     }
                 }
                 error[c] = p*k;
                 c++;
             }
+            updateBias(this.hidden.get(i), error);
             for(Node h : this.hidden.get(i-1)){
                 for(Links s : h.getForbundetTil()){
                     double v = s.getV();
                     double p = s.getP();
 
                     int index = this.hiddenIndex.get(i).get(s.getTil());
-                    s.setV(v + this.learningrate * error[index] * h.getSenesteInput() + momentum * p);
-                    s.setP(this.learningrate * error[index] * h.getSenesteInput() + momentum * p);
+                    s.setV(v + this.rate * error[index] * h.getSenesteOutput() + momentum * p);
+                    s.setP(this.rate * error[index] * h.getSenesteOutput() + momentum * p);
                 }
             }
         }
@@ -259,7 +904,7 @@ public class MLP extends Classifier implements OptionHandler, WeightedInstancesH
         c = 0;
         double[] t = error.clone();
         for(Node h : this.hidden.get(0)){
-            double p = h.getSenesteOutput()*(1.0-h.getSenesteOutput());
+            double p = h.getFunction().derivative(h.getSenesteOutput());
             double k = 0;
             for(Links s : h.getForbundetTil()){
                 if(this.hidden.size() == 1){
@@ -272,17 +917,62 @@ public class MLP extends Classifier implements OptionHandler, WeightedInstancesH
             t[c] = k*p;
             c++;
         }
+        updateBias(this.hidden.get(0), t);
         for(Node i : this.input){
             for(Links s : i.getForbundetTil()){
                 double v = s.getV();
                 double p = s.getP();
-                s.setV(v + this.learningrate * t[this.hiddenIndex.get(0).get(s.getTil())] * i.getSenesteInput() + momentum * p);
-                s.setP(this.learningrate * t[this.hiddenIndex.get(0).get(s.getTil())] * i.getSenesteInput() + momentum * p);
+                s.setV(v + this.rate * t[this.hiddenIndex.get(0).get(s.getTil())] * i.getSenesteInput() + momentum * p);
+                s.setP(this.rate * t[this.hiddenIndex.get(0).get(s.getTil())] * i.getSenesteInput() + momentum * p);
             }
         }
     }
 
+    private void updateBias(ArrayList<Node> layer, double[] error){
+        if (!useBias)
+            return;
+        for (int j = 0; j < layer.size(); j++){
+            Node n = layer.get(j);
+            double p = n.getBiasP();
+            n.setBias(n.getBias() + this.rate * error[j] + momentum * p);
+            n.setBiasP(this.rate * error[j] + momentum * p);
+        }
+    }
+
+    private Activation hiddenFunction(){
+        return Activation.forType(hiddenActivation, approximate);
+    }
+
+    // output layer SOFTMAX memakai sigmoid jika output node cuma satu
+    private Activation outputFunction(){
+        if (outputLayer <= 1)
+            return Activation.forType(Activation.SIGMOID, approximate);
+        return Activation.forType(outputLayer - 1, approximate);
+    }
+
     private void prepare(int input, int hidden, int output, int numberOfHiddenLayers){
+        if (engine == 1){
+            int[] sizes = new int[numberOfHiddenLayers + 2];
+            sizes[0] = input;
+            for (int i = 1; i <= numberOfHiddenLayers; i++){
+                sizes[i] = hidden;
+            }
+            sizes[sizes.length - 1] = output;
+
+            this.network = new DenseNetwork(sizes, useBias);
+            this.network.setSoftmax(outputLayer == 1 && output > 1);
+            this.network.setActivations(hiddenFunction(), outputFunction());
+            this.network.setOptimizer(Optimizer.forType(optimizer));
+            regularize();
+            this.scratch = null;
+            this.hidden = null;
+            this.input = null;
+            this.output = null;
+            initDenseWeight();
+            return;
+        }
+        this.network = null;
+
         this.hiddenIndex = new HashMap<Integer,HashMap<Node,Integer>>();
         this.inputIndex = new HashMap<Node,Integer>();
         this.outputIndex = new HashMap<Node,Integer>();
@@ -300,10 +990,11 @@ public class MLP extends Classifier implements OptionHandler, WeightedInstancesH
         }
 
         // Tambah Hidden Layers
+        Activation hiddenFunction = hiddenFunction();
         for(int i = 1; i <= numberOfHiddenLayers; i++){
             ArrayList<Node> a = new ArrayList<Node>();
             for(int j = 1; j <= hidden; j++){
-                a.add(new Node(true));
+                a.add(new Node(hiddenFunction));
             }
             this.hidden.add(a);
         }
@@ -316,8 +1007,9 @@ public class MLP extends Classifier implements OptionHandler, WeightedInstancesH
         }
 
         // Tambah Output Layers
+        Activation outputFunction = outputFunction();
         for(int i = 1; i <= output; i++){
-            this.output.add(new Node(true));
+            this.output.add(new Node(outputFunction));
         }
         for(Node o : this.output){
             this.outputIndex.put(o, this.output.indexOf(o));
@@ -356,6 +1048,128 @@ public class MLP extends Classifier implements OptionHandler, WeightedInstancesH
                         +"\t(Default = 0, input 1 to use filter).",
                 "F", 1,"-F <use filter>"));
 
+        newVector.addElement(new Option(
+                "\tTraining engine (GRAPH or DENSE).\n"
+                        +"\t(Default = GRAPH, 0 = GRAPH, 1 = DENSE).",
+                "E", 1,"-E <engine>"));
+
+        newVector.addElement(new Option(
+                "\tNumber of updates between convergence checks.\n"
+                        +"\t(Default = 0, check once per epoch).",
+                "C", 1,"-C <check interval>"));
+
+        newVector.addElement(new Option(
+                "\tPercentage of the data held out for validation.\n"
+                        +"\t(Default = 0, no validation set).",
+                "V", 1,"-V <validation percent>"));
+
+        newVector.addElement(new Option(
+                "\tNumber of checks without improvement before training stops.\n"
+                        +"\t(Default = 0, no early stopping).",
+                "P", 1,"-P <patience>"));
+
+        newVector.addElement(new Option(
+                "\tNumber of instances per gradient update, requires the DENSE engine.\n"
+                        +"\t(Default = 1, online updates, 0 = full batch).",
+                "B", 1,"-B <batch size>"));
+
+        newVector.addElement(new Option(
+                "\tNumber of threads that share each batch, requires batch training.\n"
+                        +"\t(Default = 1, 0 = number of available processors).",
+                "T", 1,"-T <threads>"));
+
+        newVector.addElement(new Option(
+                "\tOutput layer, SOFTMAX requires the DENSE engine and a nominal class.\n"
+                        +"\t(Default = SIGMOID, 0 = SIGMOID with squared error, 1 = SOFTMAX with cross entropy,\n"
+                        +"\t2 = TANH, 3 = RELU, 4 = LEAKY_RELU, 5 = LINEAR with squared error).",
+                "O", 1,"-O <output layer>"));
+
+        newVector.addElement(new Option(
+                "\tActivation function of the hidden layers.\n"
+                        +"\t(Default = SIGMOID, 0 = SIGMOID, 1 = TANH, 2 = RELU, 3 = LEAKY_RELU, 4 = LINEAR).",
+                "A", 1,"-A <hidden activation>"));
+
+        newVector.addElement(new Option(
+                "\tUse table lookup approximations of SIGMOID and TANH.\n"
+                        +"\t(Default = 0, input 1 to approximate, absolute error below 2e-6).",
+                "Q", 1,"-Q <approximate>"));
+
+        newVector.addElement(new Option(
+                "\tOptimizer, optimizers other than SGD require the DENSE engine.\n"
+                        +"\t(Default = SGD, 0 = SGD with momentum, 1 = NESTEROV, 2 = RMSPROP, 3 = ADAM).",
+                "G", 1,"-G <optimizer>"));
+
+        newVector.addElement(new Option(
+                "\tLearning rate schedule.\n"
+                        +"\t(Default = CONSTANT, 0 = CONSTANT, 1 = STEP, halves the rate every -X epochs,\n"
+                        +"\t2 = COSINE, decays the rate to 0 over -M epochs).",
+                "K", 1,"-K <schedule>"));
+
+        newVector.addElement(new Option(
+                "\tEpochs between two decays of the STEP schedule.\n"
+                        +"\t(Default = 10).",
+                "X", 1,"-X <decay epochs>"));
+
+        newVector.addElement(new Option(
+                "\tEpochs of linear learning rate warm-up.\n"
+                        +"\t(Default = 0, no warm-up).",
+                "W", 1,"-W <warm-up epochs>"));
+
+        newVector.addElement(new Option(
+                "\tUse bias units.\n"
+                        +"\t(Default = 1, input 0 to train without biases).",
+                "U", 1,"-U <use bias>"));
+
+        newVector.addElement(new Option(
+                "\tRandom weight initialization scheme, used with random initial weights.\n"
+                        +"\t(Default = UNIFORM, 0 = UNIFORM on [-1, 1], 1 = XAVIER, 2 = HE).",
+                "I", 1,"-I <init scheme>"));
+
+        newVector.addElement(new Option(
+                "\tRandom number seed.\n"
+                        +"\t(Default = 1).",
+                "S", 1,"-S <seed>"));
+
+        newVector.addElement(new Option(
+                "\tPrint loss, speed, time per phase and allocations of every epoch to stderr.\n"
+                        +"\t(Default = 0, input 1 to print).",
+                "Y", 1,"-Y <print progress>"));
+
+        newVector.addElement(new Option(
+                "\tFile to write a checkpoint of the training state to.\n"
+                        +"\t(Default = no checkpoints).",
+                "J", 1,"-J <checkpoint file>"));
+
+        newVector.addElement(new Option(
+                "\tEpochs between two checkpoints.\n"
+                        +"\t(Default = 1).",
+                "Z", 1,"-Z <checkpoint interval>"));
+
+        newVector.addElement(new Option(
+                "\tResume training from the checkpoint file if it exists.\n"
+                        +"\t(Default = 0, input 1 to resume).",
+                "R", 1,"-R <resume>"));
+
+        newVector.addElement(new Option(
+                "\tDropout rate of the hidden units (DENSE engine only).\n"
+                        +"\t(Default = 0, no dropout).",
+                "D", 1,"-D <dropout>"));
+
+        newVector.addElement(new Option(
+                "\tFactor of the L2 penalty on the weights (DENSE engine only).\n"
+                        +"\t(Default = 0, no penalty).",
+                "w", 1,"-w <weight decay>"));
+
+        newVector.addElement(new Option(
+                "\tLargest gradient norm of a layer, larger gradients are scaled down (DENSE engine only).\n"
+                        +"\t(Default = 0, no clipping).",
+                "c", 1,"-c <clip norm>"));
+
+        newVector.addElement(new Option(
+                "\tMomentum of the weight updates.\n"
+                        +"\t(Default = 0).",
+                "m", 1,"-m <momentum>"));
+
 
         return newVector.elements();
     }
@@ -380,6 +1194,10 @@ public class MLP extends Classifier implements OptionHandler, WeightedInstancesH
         return "Numbers of Hidden Layers. Default = 1";
     }
 
+    public String hiddenPerceptronsTipText() {
+        return "Number of Hidden Perceptrons in each Hidden Layer. Default = 1";
+    }
+
     public String useFilterTipText() {
         return "Use filter. Default = 0, input 1 to use filter";
     }
@@ -388,6 +1206,102 @@ public class MLP extends Classifier implements OptionHandler, WeightedInstancesH
         return "Initial weight. Input `a` to Random, input number to init with number";
     }
 
+    public String engineTipText() {
+        return "Training engine. 0 = GRAPH (Node/Links objects), 1 = DENSE (flat weight arrays, faster on wide networks)";
+    }
+
+    public String checkIntervalTipText() {
+        return "Number of updates between convergence checks. Default = 0, check once per epoch";
+    }
+
+    public String validationPercentTipText() {
+        return "Percentage of the training data held out to measure the error at each check. Default = 0, use the training error";
+    }
+
+    public String patienceTipText() {
+        return "Number of checks without improvement before training stops, the best weights are restored. Default = 0, no early stopping";
+    }
+
+    public String batchSizeTipText() {
+        return "Number of instances whose averaged gradient is applied in one update (DENSE engine only). Default = 1 (online), 0 = full batch";
+    }
+
+    public String numThreadsTipText() {
+        return "Number of threads that compute the gradient of each batch (batch training only). Default = 1, 0 = number of available processors";
+    }
+
+    public String outputLayerTipText() {
+        return "Output layer. 0 = SIGMOID units trained with squared error, 1 = SOFTMAX trained with cross entropy (DENSE engine, nominal class only), "
+                + "2 = TANH, 3 = RELU, 4 = LEAKY_RELU, 5 = LINEAR units trained with squared error";
+    }
+
+    public String useBiasTipText() {
+        return "Whether every hidden and output unit has a learnable bias. Default = true";
+    }
+
+    public String initSchemeTipText() {
+        return "Scheme for random initial weights. 0 = UNIFORM on [-1, 1], 1 = XAVIER (uniform, scaled by fan in and fan out), 2 = HE (normal, scaled by fan in)";
+    }
+
+    public String seedTipText() {
+        return "Random number seed for the initial weights and the validation split. Default = 1";
+    }
+
+    public String printProgressTipText() {
+        return "Print loss, instances per second, time per phase and allocated bytes of every epoch to stderr. Default = false";
+    }
+
+    public String checkpointFileTipText() {
+        return "File that the weights, optimizer state, epoch, random state and filter parameters are written to "
+                + "in the background every checkpointInterval epochs. Default = empty, no checkpoints";
+    }
+
+    public String checkpointIntervalTipText() {
+        return "Number of epochs between two checkpoints. Default = 1";
+    }
+
+    public String resumeTipText() {
+        return "Continue training from the checkpoint file instead of starting over, if the file exists. Default = false";
+    }
+
+    public String dropoutTipText() {
+        return "Probability that a hidden unit is dropped in a training step; the kept units are scaled up, "
+                + "so predictions use all units unchanged. DENSE engine only. Default = 0";
+    }
+
+    public String weightDecayTipText() {
+        return "Factor of the L2 penalty on the weights (not the biases), added to the gradient. DENSE engine only. Default = 0";
+    }
+
+    public String clipNormTipText() {
+        return "Largest norm of the gradient of one layer in one update; larger gradients are scaled down to it. "
+                + "DENSE engine only. Default = 0, no clipping";
+    }
+
+    public String optimizerTipText() {
+        return "Optimizer. 0 = SGD with momentum, 1 = NESTEROV, 2 = RMSPROP, 3 = ADAM (other than SGD: DENSE engine only)";
+    }
+
+    public String scheduleTipText() {
+        return "Learning rate schedule. 0 = CONSTANT, 1 = STEP (halves the rate every decayEpochs epochs), 2 = COSINE (decays to 0 over maxIteration epochs)";
+    }
+
+    public String decayEpochsTipText() {
+        return "Epochs between two decays of the STEP schedule. Default = 10";
+    }
+
+    public String warmupEpochsTipText() {
+        return "Epochs over which the learning rate rises linearly from 0. Default = 0";
+    }
+
+    public String hiddenActivationTipText() {
+        return "Activation function of the hidden layers. 0 = SIGMOID, 1 = TANH, 2 = RELU, 3 = LEAKY_RELU, 4 = LINEAR";
+    }
+
+    public String approximateTipText() {
+        return "Use table lookup approximations of SIGMOID (absolute error below 1e-6) and TANH (below 2e-6)";
+    }
+
     public String momentumTipText(){
         return "Momentum that is used to update weight (to avoid local maxima). Enter numeric value (0.0 - 1.0)";
     }
@@ -418,6 +1332,201 @@ public class MLP extends Classifier implements OptionHandler, WeightedInstancesH
         return "" + initValue;
     }
 
+    public void setEngine(int a){
+        engine = a;
+    }
+
+    public int getEngine(){
+        return engine;
+    }
+
+    public void setCheckInterval(int a){
+        checkInterval = a;
+    }
+
+    public int getCheckInterval(){
+        return checkInterval;
+    }
+
+    public void setValidationPercent(double a){
+        validationPercent = a;
+    }
+
+    public double getValidationPercent(){
+        return validationPercent;
+    }
+
+    public void setPatience(int a){
+        patience = a;
+    }
+
+    public int getPatience(){
+        return patience;
+    }
+
+    public void setBatchSize(int a){
+        batchSize = a;
+    }
+
+    public int getBatchSize(){
+        return batchSize;
+    }
+
+    public void setNumThreads(int a){
+        numThreads = a;
+    }
+
+    public int getNumThreads(){
+        return numThreads;
+    }
+
+    public void setUseBias(boolean a){
+        useBias = a;
+    }
+
+    public boolean getUseBias(){
+        return useBias;
+    }
+
+    public void setInitScheme(int a){
+        initScheme = a;
+    }
+
+    public int getInitScheme(){
+        return initScheme;
+    }
+
+    public void setSeed(int a){
+        seed = a;
+    }
+
+    public int getSeed(){
+        return seed;
+    }
+
+    public void setPrintProgress(boolean a){
+        printProgress = a;
+    }
+
+    public boolean getPrintProgress(){
+        return printProgress;
+    }
+
+    public void setCheckpointFile(String a){
+        checkpointFile = a;
+    }
+
+    public String getCheckpointFile(){
+        return checkpointFile;
+    }
+
+    public void setCheckpointInterval(int a){
+        checkpointInterval = a;
+    }
+
+    public int getCheckpointInterval(){
+        return checkpointInterval;
+    }
+
+    public void setResume(boolean a){
+        resume = a;
+    }
+
+    public boolean getResume(){
+        return resume;
+    }
+
+    public void setDropout(double a){
+        dropout = a;
+    }
+
+    public double getDropout(){
+        return dropout;
+    }
+
+    public void setWeightDecay(double a){
+        weightDecay = a;
+    }
+
+    public double getWeightDecay(){
+        return weightDecay;
+    }
+
+    public void setClipNorm(double a){
+        clipNorm = a;
+    }
+
+    public double getClipNorm(){
+        return clipNorm;
+    }
+
+    public synchronized void addTrainingListener(TrainingListener l){
+        if (listeners == null)
+            listeners = new Vector<TrainingListener>();
+        listeners.add(l);
+    }
+
+    public synchronized void removeTrainingListener(TrainingListener l){
+        if (listeners != null)
+            listeners.remove(l);
+    }
+
+    public void setOptimizer(int a){
+        optimizer = a;
+    }
+
+    public int getOptimizer(){
+        return optimizer;
+    }
+
+    public void setSchedule(int a){
+        schedule = a;
+    }
+
+    public int getSchedule(){
+        return schedule;
+    }
+
+    public void setDecayEpochs(double a){
+        decayEpochs = a;
+    }
+
+    public double getDecayEpochs(){
+        return decayEpochs;
+    }
+
+    public void setWarmupEpochs(double a){
+        warmupEpochs = a;
+    }
+
+    public double getWarmupEpochs(){
+        return warmupEpochs;
+    }
+
+    public void setHiddenActivation(int a){
+        hiddenActivation = a;
+    }
+
+    public int getHiddenActivation(){
+        return hiddenActivation;
+    }
+
+    public void setApproximate(boolean a){
+        approximate = a;
+    }
+
+    public boolean getApproximate(){
+        return approximate;
+    }
+
+    public void setOutputLayer(int a){
+        outputLayer = a;
+    }
+
+    public int getOutputLayer(){
+        return outputLayer;
+    }
+
     public void setMomentum(double a){
         momentum = a;
     }
@@ -504,6 +1613,168 @@ public class MLP extends Classifier implements OptionHandler, WeightedInstancesH
             hiddenLayers = 1;
         }
 
+        String engineString = Utils.getOption('E', options);
+        if (engineString.length() != 0) {
+            engine = new Integer(engineString).intValue();
+        } else {
+            engine = 0;
+        }
+
+        String checkString = Utils.getOption('C', options);
+        if (checkString.length() != 0) {
+            checkInterval = new Integer(checkString).intValue();
+        } else {
+            checkInterval = 0;
+        }
+
+        String validationString = Utils.getOption('V', options);
+        if (validationString.length() != 0) {
+            validationPercent = new Double(validationString).doubleValue();
+        } else {
+            validationPercent = 0;
+        }
+
+        String patienceString = Utils.getOption('P', options);
+        if (patienceString.length() != 0) {
+            patience = new Integer(patienceString).intValue();
+        } else {
+            patience = 0;
+        }
+
+        String batchString = Utils.getOption('B', options);
+        if (batchString.length() != 0) {
+            batchSize = new Integer(batchString).intValue();
+        } else {
+            batchSize = 1;
+        }
+
+        String threadString = Utils.getOption('T', options);
+        if (threadString.length() != 0) {
+            numThreads = new Integer(threadString).intValue();
+        } else {
+            numThreads = 1;
+        }
+
+        String outputString = Utils.getOption('O', options);
+        if (outputString.length() != 0) {
+            outputLayer = new Integer(outputString).intValue();
+        } else {
+            outputLayer = 0;
+        }
+
+        String hiddenActivationString = Utils.getOption('A', options);
+        if (hiddenActivationString.length() != 0) {
+            hiddenActivation = new Integer(hiddenActivationString).intValue();
+        } else {
+            hiddenActivation = Activation.SIGMOID;
+        }
+
+        String approximateString = Utils.getOption('Q', options);
+        if (approximateString.length() != 0) {
+            approximate = new Integer(approximateString).intValue() == 1;
+        } else {
+            approximate = false;
+        }
+
+        String optimizerString = Utils.getOption('G', options);
+        if (optimizerString.length() != 0) {
+            optimizer = new Integer(optimizerString).intValue();
+        } else {
+            optimizer = Optimizer.SGD;
+        }
+
+        String scheduleString = Utils.getOption('K', options);
+        if (scheduleString.length() != 0) {
+            schedule = new Integer(scheduleString).intValue();
+        } else {
+            schedule = Schedule.CONSTANT;
+        }
+
+        String decayString = Utils.getOption('X', options);
+        if (decayString.length() != 0) {
+            decayEpochs = new Double(decayString).doubleValue();
+        } else {
+            decayEpochs = 10;
+        }
+
+        String warmupString = Utils.getOption('W', options);
+        if (warmupString.length() != 0) {
+            warmupEpochs = new Double(warmupString).doubleValue();
+        } else {
+            warmupEpochs = 0;
+        }
+
+        String biasString = Utils.getOption('U', options);
+        if (biasString.length() != 0) {
+            useBias = new Integer(biasString).intValue() == 1;
+        } else {
+            useBias = true;
+        }
+
+        String schemeString = Utils.getOption('I', options);
+        if (schemeString.length() != 0) {
+            initScheme = new Integer(schemeString).intValue();
+        } else {
+            initScheme = 0;
+        }
+
+        String seedString = Utils.getOption('S', options);
+        if (seedString.length() != 0) {
+            seed = new Integer(seedString).intValue();
+        } else {
+            seed = 1;
+        }
+
+        String progressString = Utils.getOption('Y', options);
+        if (progressString.length() != 0) {
+            printProgress = new Integer(progressString).intValue() == 1;
+        } else {
+            printProgress = false;
+        }
+
+        checkpointFile = Utils.getOption('J', options);
+
+        String intervalString = Utils.getOption('Z', options);
+        if (intervalString.length() != 0) {
+            checkpointInterval = new Integer(intervalString).intValue();
+        } else {
+            checkpointInterval = 1;
+        }
+
+        String resumeString = Utils.getOption('R', options);
+        if (resumeString.length() != 0) {
+            resume = new Integer(resumeString).intValue() == 1;
+        } else {
+            resume = false;
+        }
+
+        String dropoutString = Utils.getOption('D', options);
+        if (dropoutString.length() != 0) {
+            dropout = new Double(dropoutString).doubleValue();
+        } else {
+            dropout = 0;
+        }
+
+        String weightDecayString = Utils.getOption('w', options);
+        if (weightDecayString.length() != 0) {
+            weightDecay = new Double(weightDecayString).doubleValue();
+        } else {
+            weightDecay = 0;
+        }
+
+        String clipString = Utils.getOption('c', options);
+        if (clipString.length() != 0) {
+            clipNorm = new Double(clipString).doubleValue();
+        } else {
+            clipNorm = 0;
+        }
+
+        String momentumString = Utils.getOption('m', options);
+        if (momentumString.length() != 0) {
+            momentum = new Double(momentumString).doubleValue();
+        } else {
+            momentum = 0;
+        }
 
         Utils.checkForRemainingOptions(options);
     }
@@ -514,13 +1785,39 @@ public class MLP extends Classifier implements OptionHandler, WeightedInstancesH
     }
 
     public String [] getOptions() {
-        String [] options = new String [10];
+        String [] options = new String [58];
         int current = 0;
         options[current++] = "-L"; options[current++] = "" + learningrate;
         options[current++] = "-H"; options[current++] = "" + hiddenPerceptrons;
         options[current++] = "-M"; options[current++] = "" + maxIteration;
         options[current++] = "-N"; options[current++] = "" + hiddenLayers;
         options[current++] = "-F"; options[current++] = "" + booleanint(useFilter);
+        options[current++] = "-E"; options[current++] = "" + engine;
+        options[current++] = "-C"; options[current++] = "" + checkInterval;
+        options[current++] = "-V"; options[current++] = "" + validationPercent;
+        options[current++] = "-P"; options[current++] = "" + patience;
+        options[current++] = "-B"; options[current++] = "" + batchSize;
+        options[current++] = "-T"; options[current++] = "" + numThreads;
+        options[current++] = "-O"; options[current++] = "" + outputLayer;
+        options[current++] = "-A"; options[current++] = "" + hiddenActivation;
+        options[current++] = "-Q"; options[current++] = "" + booleanint(approximate);
+        options[current++] = "-G"; options[current++] = "" + optimizer;
+        options[current++] = "-K"; options[current++] = "" + schedule;
+        options[current++] = "-X"; options[current++] = "" + decayEpochs;
+        options[current++] = "-W"; options[current++] = "" + warmupEpochs;
+        options[current++] = "-U"; options[current++] = "" + booleanint(useBias);
+        options[current++] = "-I"; options[current++] = "" + initScheme;
+        options[current++] = "-S"; options[current++] = "" + seed;
+        options[current++] = "-Y"; options[current++] = "" + booleanint(printProgress);
+        if (checkpointFile.length() > 0) {
+            options[current++] = "-J"; options[current++] = checkpointFile;
+        }
+        options[current++] = "-Z"; options[current++] = "" + checkpointInterval;
+        options[current++] = "-R"; options[current++] = "" + booleanint(resume);
+        options[current++] = "-D"; options[current++] = "" + dropout;
+        options[current++] = "-w"; options[current++] = "" + weightDecay;
+        options[current++] = "-c"; options[current++] = "" + clipNorm;
+        options[current++] = "-m"; options[current++] = "" + momentum;
 
         while (current < options.length) {
             options[current++] = "";
@@ -545,6 +1842,9 @@ public class MLP extends Classifier implements OptionHandler, WeightedInstancesH
         //result.enable(Capability.DATE_CLASS);
         //result.enable(Capability.MISSING_CLASS_VALUES);
 
+        // updateClassifier dimulai dari model tanpa data
+        result.setMinimumNumberInstances(0);
+
         return result;
     }
 
@@ -555,27 +1855,38 @@ public class MLP extends Classifier implements OptionHandler, WeightedInstancesH
 
 
     public String toString() {
+        if (header == null)
+            return "MLP: No model built yet.";
+
         StringBuilder builder = new StringBuilder();
         builder.append("MULTI LAYER PERCEPTRON\n");
         builder.append("----------------------\n");
         builder.append("Configuration : \n");
-        builder.append("   INPUT NODE : "); builder.append(input.size());builder.append("\n");
+        builder.append("   ENGINE : "); builder.append(engine == 1 ? "DENSE" : "GRAPH");builder.append("\n");
+        builder.append("   INPUT NODE : "); builder.append(numInputs());builder.append("\n");
         builder.append("   HIDDEN LAYERS : ");builder.append(hiddenLayers);builder.append("\n");
         builder.append("   HIDDEN NODE EACH LAYER : ");builder.append(hiddenPerceptrons);builder.append("\n");
-        builder.append("   OUTPUT NODE : ");builder.append(outPerceptron);builder.append("\n\n");
+        builder.append("   OUTPUT NODE : ");builder.append(outPerceptron);builder.append("\n");
+        builder.append("   HIDDEN ACTIVATION : ");builder.append(Activation.NAMES[hiddenActivation]);builder.append("\n");
+        builder.append("   OUTPUT LAYER : ");builder.append(engine == 1 && network.isSoftmax() ? "SOFTMAX" : outputFunction().toString());builder.append("\n");
+        builder.append("   APPROXIMATE : ");builder.append(approximate);builder.append("\n");
+        builder.append("   OPTIMIZER : ");builder.append(Optimizer.NAMES[optimizer]);builder.append("\n");
+        builder.append("   SCHEDULE : ");builder.append(new Schedule(schedule, decayEpochs, warmupEpochs));builder.append("\n");
+        if (dropout > 0 || weightDecay > 0 || clipNorm > 0) {
+            builder.append("   REGULARIZATION : ");builder.append("DROPOUT " + dropout + ", L2 " + weightDecay + ", CLIP " + clipNorm);builder.append("\n");
+        }
+        builder.append("   INIT : ");builder.append(initOption == 0 ? new String[]{"UNIFORM", "XAVIER", "HE"}[initScheme] + " (seed " + seed + ")" : "" + initValue);builder.append("\n\n");
 
 
         builder.append("INPUT LAYER WEIGHTS : \n");
-        for (int i = 0 ; i < input.size(); i++){
-            ArrayList<Links> links = input.get(i).getForbundetTil();
-
+        for (int i = 0 ; i < numInputs(); i++){
             for (int j = 0 ; j < hiddenPerceptrons; j++){
                 builder.append("   W[");
                 builder.append(i);
                 builder.append(",");
                 builder.append(j);
                 builder.append("] = ");
-                builder.append(links.get(j).getV());
+                builder.append(weight(0, i, j));
                 builder.append("\n");
             }
         }
@@ -587,8 +1898,6 @@ public class MLP extends Classifier implements OptionHandler, WeightedInstancesH
             builder.append(": \n");
 
             for (int i = 0 ; i < hiddenPerceptrons; i++){
-                ArrayList<Links> links = hidden.get(l).get(i).getForbundetTil();
-
                 if (l == hiddenLayers - 1){
                     for (int j = 0 ; j < outPerceptron; j++){
                         builder.append("     W[");
@@ -596,7 +1905,7 @@ public class MLP extends Classifier implements OptionHandler, WeightedInstancesH
                         builder.append(",");
                         builder.append(j);
                         builder.append("] = ");
-                        builder.append(links.get(j).getV());
+                        builder.append(weight(l + 1, i, j));
                         builder.append("\n");
                     }
                 }else{
@@ -606,7 +1915,7 @@ public class MLP extends Classifier implements OptionHandler, WeightedInstancesH
                         builder.append(",");
                         builder.append(j);
                         builder.append("] = ");
-                        builder.append(links.get(j).getV());
+                        builder.append(weight(l + 1, i, j));
                         builder.append("\n");
                     }
                 }
@@ -614,10 +1923,95 @@ public class MLP extends Classifier implements OptionHandler, WeightedInstancesH
             }
         }
 
+        if (useBias){
+            builder.append("BIASES : \n");
+            for (int l = 0; l <= hiddenLayers; l++){
+                builder.append("  LAYER ");
+                builder.append((l + 1));
+                builder.append(": \n");
+                for (int j = 0; j < layerSize(l + 1); j++){
+                    builder.append("     B[");
+                    builder.append(j);
+                    builder.append("] = ");
+                    builder.append(bias(l, j));
+                    builder.append("\n");
+                }
+            }
+        }
+
         return builder.toString();
     }
 
 
+    // untuk BinaryModel: bobot dalam bentuk DENSE, model GRAPH dikonversi
+    DenseNetwork denseNetwork(){
+        if (engine == 1)
+            return network;
+
+        int[] sizes = new int[hiddenLayers + 2];
+        for (int l = 0; l < sizes.length; l++)
+            sizes[l] = layerSize(l);
+        DenseNetwork dense = new DenseNetwork(sizes, useBias);
+        for (int l = 0; l <= hiddenLayers; l++) {
+            for (int from = 0; from < sizes[l]; from++)
+                for (int to = 0; to < sizes[l + 1]; to++)
+                    dense.setWeight(l, from, to, weight(l, from, to));
+            if (useBias)
+                for (int to = 0; to < sizes[l + 1]; to++)
+                    dense.setBias(l, to, bias(l, to));
+        }
+        return dense;
+    }
+
+    Instances getHeader(){
+        return header;
+    }
+
+    InputTransformer getTransformer(){
+        return transformer();
+    }
+
+    // model lama menyimpan filter yang sudah dilatih, bukan InputTransformer
+    private InputTransformer transformer(){
+        if (transformer == null) {
+            if (useFilter && normalize != null)
+                transformer = InputTransformer.fromFilters(header, normalize);
+            else
+                transformer = new InputTransformer(new Instances(header, 0), false);
+        }
+        return transformer;
+    }
+
+    /**
+     * Installs a trained network loaded by BinaryModel. The options must be
+     * set before; the model always uses the DENSE engine afterwards.
+     */
+    void restore(Instances header, DenseNetwork network, InputTransformer transformer, boolean useFilter){
+        this.header = header;
+        this.engine = 1;
+        this.network = network;
+        this.hidden = null;
+        this.input = null;
+        this.output = null;
+        this.scratch = null;
+        this.hiddenLayers = network.numLayers() - 2;
+        this.hiddenPerceptrons = network.layerSize(1);
+        this.outPerceptron = network.layerSize(network.numLayers() - 1);
+        this.useBias = network.hasBias();
+        network.setSoftmax(outputLayer == 1 && outPerceptron > 1);
+        network.setActivations(hiddenFunction(), outputFunction());
+        this.useFilter = useFilter;
+        this.transformer = transformer;
+        this.nominalToBinary = null;
+        this.normalize = null;
+    }
+
+    private int numInputs(){
+        if (engine == 1)
+            return network.layerSize(0);
+        return input.size();
+    }
+
     public MLP() { }
 
     // Mengembalikan informasi mengenai classifier ini
@@ -8,32 +8,58 @@
 package weka.classifiers.ann;
 
 import weka.classifiers.Classifier;
+import weka.classifiers.ConvergingClassifier;
+import weka.classifiers.TrainingListener;
+import weka.classifiers.TrainingListenerHandler;
+import weka.classifiers.TrainingMetrics;
+import weka.classifiers.UpdateableClassifier;
+import weka.classifiers.ann.engine.Activation;
+import weka.classifiers.ann.engine.DenseNetwork;
+import weka.core.BatchPredictor;
 import weka.core.Capabilities;
 import weka.core.Instance;
 import weka.core.Instances;
 import weka.core.Option;
 import weka.core.OptionHandler;
+import weka.core.Randomizable;
 import weka.core.RevisionUtils;
+import weka.core.SparseInstance;
 import weka.core.Utils;
 import weka.core.WeightedInstancesHandler;
 import weka.core.Capabilities.Capability;
-import weka.filters.Filter;
 import weka.filters.unsupervised.attribute.NominalToBinary;
 import weka.filters.unsupervised.attribute.Normalize;
 
+import java.util.Random;
 import java.util.Vector;
 import java.util.Enumeration;
 
-public class PTR extends Classifier implements OptionHandler, WeightedInstancesHandler {
+public class PTR extends Classifier implements OptionHandler, WeightedInstancesHandler, BatchPredictor, Randomizable, UpdateableClassifier,
+        TrainingListenerHandler, ConvergingClassifier {
     ////// DATA YANG BERKAITAN DENGAN MODEL
     private float learningRate = 0.1f;
     private int maxIteration = 30;
     private float weights[];
     private int activationFunction = 0; // 0 = SIGN, 1 = STEP, 2 = SIGMOID
     private double stepThreshold = 0;
+    private Activation function;
+    private int checkInterval = 0; // 0 = SETIAP EPOCH
+    private double validationPercent = 0;
+    private int patience = 0;
+    // seed untuk memisahkan data validasi
+    private int seed = 1;
+    private boolean printProgress = false;
+    private transient Vector<TrainingListener> listeners;
+    // hanya selama buildClassifier, null jika tidak ada listener
+    private transient TrainingMetrics metrics;
+    // training yang sedang berjalan, dari initClassifier sampai done
+    private transient Run run;
     ///////////////////////////////////////
-    private NominalToBinary nominalToBinary = new NominalToBinary();
-    private Normalize normalize = new Normalize();
+    private Instances header;
+    private InputTransformer transformer;
+    // hanya untuk model lama yang dilatih sebelum ada InputTransformer
+    private NominalToBinary nominalToBinary;
+    private Normalize normalize;
     //////////////////////////////////////
 
 
@@ -41,90 +67,313 @@ public class PTR extends Classifier implements OptionHandler, WeightedInstancesH
     private static final long serialVersionUID = -5990607817048210779L;
 
 
-    private double calculateError(Instances instances) throws Exception{
+    // package-private untuk benchmark JMH
+    double calculateError(Instances instances) throws Exception{
         double tmp_error = 0;
         int sumInstances = instances.numInstances();
 
         for (int i = 0; i < sumInstances ; i++){
-            tmp_error += Math.pow( instances.instance(i).classValue() - classifyInstance(instances.instance(i)) , 2);
+            tmp_error += Math.pow( instances.instance(i).classValue() - classify(transformer, instances.instance(i)) , 2);
         }
         return tmp_error / 2;
     }
 
-    public void buildClassifier(Instances _instances) throws Exception {
+    private ConvergenceMonitor.Learner learner() {
+        return new ConvergenceMonitor.Learner() {
+            public double error(Instances data) throws Exception {
+                return calculateError(data);
+            }
+
+            public Object saveWeights() {
+                return weights.clone();
+            }
+
+            public void restoreWeights(Object w) {
+                weights = (float[]) w;
+            }
+        };
+    }
+
+    /** Keadaan training antara dua epoch. */
+    private static class Run {
         Instances instances;
+        // matriks input, atau null jika input ada di rows
+        double[] inputs;
+        SparseInputs rows;
+        ConvergenceMonitor monitor;
+        int it;
+    }
+
+    public void buildClassifier(Instances _instances) throws Exception {
+        initClassifier(_instances);
+        try {
+            while (trainEpoch());
+            done();
+        } finally {
+            run = null;
+            metrics = null;
+        }
+    }
+
+    /**
+     * Prepares the data and the zero weights without training. Each call of
+     * {@link #next(int)} then trains one epoch and {@link #done()} ends the
+     * run; buildClassifier is the same as calling next until maxIteration updates are done or training converged.
+     */
+    public void initClassifier(Instances _instances) throws Exception {
+        metrics = TrainingMetrics.create(this, listeners, printProgress);
+        try {
+            run = start(_instances);
+        } catch (Exception e) {
+            metrics = null;
+            throw e;
+        }
+    }
+
+    /**
+     * Trains the next epoch; does nothing once training is finished. The
+     * iteration index is not used.
+     */
+    public void next(int iteration) throws Exception {
+        if (run == null)
+            throw new Exception("initClassifier must be called before next.");
+        trainEpoch();
+    }
+
+    /** Whether maxIteration updates are done or training converged, false without a run. */
+    public boolean hasConverged() {
+        return run != null && finished(run);
+    }
+
+    /** Ends the run, restoring the best weights if early stopping is used. */
+    public void done() throws Exception {
+        if (run == null)
+            return;
+        try {
+            run.monitor.finish();
+        } finally {
+            run = null;
+            metrics = null;
+        }
+    }
+
+    /** A copy of the model and options, without the state of a running training. */
+    public Object clone() throws CloneNotSupportedException {
+        try {
+            return Classifier.makeCopy(this);
+        } catch (Exception e) {
+            throw new CloneNotSupportedException(e.getMessage());
+        }
+    }
+
+    private Run start(Instances _instances) throws Exception {
         getCapabilities().testWithFail(_instances);
+        header = new Instances(_instances, 0);
+        function = function();
+        nominalToBinary = null;
+        normalize = null;
 
-        nominalToBinary.setInputFormat(_instances);
-        instances = Filter.useFilter(_instances, nominalToBinary);
-        normalize.setInputFormat(instances);
-        instances = Filter.useFilter(instances, normalize);
+        // rentang normalisasi dari semua data, sebelum data validasi dipisahkan
+        long start = metrics != null ? System.nanoTime() : 0;
+        transformer = new InputTransformer(_instances, true);
 
-        int i = 0; int it = 0;
-        int sumInstances = instances.numInstances();
-        int sumAttributes = instances.numAttributes();
+        ConvergenceMonitor monitor = new ConvergenceMonitor(0, checkInterval, patience);
+        Instances instances = monitor.split(_instances, validationPercent, new Random(seed));
 
+        int sumInstances = instances.numInstances();
+        int numInputs = transformer.numInputs();
+        // data sparse disimpan sebagai SparseInputs, bukan matriks N x numInputs
+        SparseInputs rows = null;
+        double[] inputs = null;
+        if (InputTransformer.isSparse(instances))
+            rows = transformer.transformSparse(instances);
+        else
+            inputs = transformer.transform(instances);
+        if (metrics != null)
+            metrics.add(TrainingMetrics.FILTER, start);
+
+        // bobot tetap dibuat tanpa data, untuk dilatih dengan updateClassifier
+        // satu bobot per atribut hasil filter, termasuk atribut kelas yang tidak dipakai
+        weights = new float[numInputs + 1];
         if (sumInstances > 0) {
-            weights = new float[sumAttributes];
-            double curError = 1;
+            monitor.setMetrics(metrics);
+            monitor.start(learner(), sumInstances);
+        }
 
-            while (it < maxIteration && curError > 0) {
-                double out = classifyInstance(instances.instance(i));
-                double correction = instances.instance(i).classValue() - out;
+        Run run = new Run();
+        run.instances = instances;
+        run.inputs = inputs;
+        run.rows = rows;
+        run.monitor = monitor;
+        return run;
+    }
 
-                //System.out.printf("Iterasi %d: (TARGET: %f, OUT: %f)\n", i, instances.instance(i).classValue(), out);
+    // true jika training sudah selesai, next tidak melatih lagi
+    private boolean finished(Run r) {
+        return r.instances.numInstances() == 0 || r.it >= maxIteration || r.monitor.isStopped();
+    }
 
+    // satu epoch (maxIteration dihitung per instance), false tanpa training jika training sudah selesai
+    private boolean trainEpoch() throws Exception {
+        Run r = run;
+        if (finished(r))
+            return false;
+        int sumInstances = r.instances.numInstances();
+        int numInputs = transformer.numInputs();
+        int to = Math.min(maxIteration, r.it + sumInstances);
+        int i = 0;
+        while (r.it < to && !r.monitor.isStopped()) {
+            double target = r.instances.instance(i).classValue();
+            double correction = r.rows != null ? update(r.rows, i, target) : update(r.inputs, i * numInputs, target);
+            r.monitor.record(correction * correction);
+
+            i++;
+            r.it++;
+        }
+        return true;
+    }
 
-                //System.out.printf("   NEW WEIGHT: ");
 
-                for (int j = 0; j < sumAttributes; j++){
-                    if (j != instances.instance(i).classIndex()){
-                        weights[j] = weights[j] + (float)(correction * instances.instance(i).value(j) * learningRate);
-                        //System.out.printf(" %f,", weights[j]);
-                    }
-                }
-                curError = calculateError(instances);
-                //System.out.printf("\n   Error: %f\n\n", curError);
+    // satu langkah perceptron training rule
+    private double update(double[] input, int offset, double target){
+        TrainingMetrics m = metrics;
+        long start = m != null ? System.nanoTime() : 0;
+        double out = activate(sigma(input, offset));
+        double correction = target - out;
+        if (m != null)
+            start = m.add(TrainingMetrics.FORWARD, start);
+        int c = transformer.classIndex();
+        for (int i = 0; i < transformer.numInputs(); i++){
+            int j = i < c ? i : i + 1;
+            weights[j] = weights[j] + (float)(correction * input[offset + i] * learningRate);
+        }
+        if (m != null)
+            m.add(TrainingMetrics.BACKWARD, start);
+        return correction;
+    }
 
-                i = (++i) % sumInstances;
-                it++;
-            }
+    // langkah yang sama, hanya bobot input bukan 0 yang berubah
+    private double update(SparseInputs rows, int row, double target){
+        TrainingMetrics m = metrics;
+        long start = m != null ? System.nanoTime() : 0;
+        int from = rows.start(row);
+        int to = rows.end(row);
+        double out = activate(sigma(rows, row));
+        double correction = target - out;
+        if (m != null)
+            start = m.add(TrainingMetrics.FORWARD, start);
+        int c = transformer.classIndex();
+        int[] indices = rows.indices();
+        double[] values = rows.values();
+        for (int p = from; p < to; p++){
+            int i = indices[p];
+            int j = i < c ? i : i + 1;
+            weights[j] = weights[j] + (float)(correction * values[p] * learningRate);
         }
+        if (m != null)
+            m.add(TrainingMetrics.BACKWARD, start);
+        return correction;
+    }
+
+    /**
+     * One perceptron training rule step on a single instance, for training
+     * on a stream. buildClassifier must have been called before, on the data
+     * seen so far or on an empty set with the same format. The normalization
+     * ranges grow with the stream instead of coming from a pass over all the
+     * data; memory does not grow with the number of instances.
+     */
+    public void updateClassifier(Instance instance) throws Exception {
+        if (instance.classIsMissing())
+            return;
+
+        InputTransformer t = transformer();
+        t.update(instance);
+        if (instance instanceof SparseInstance)
+            update(t.transformSparse(instance), 0, instance.classValue());
+        else
+            update(t.transform(instance), 0, instance.classValue());
     }
 
+    public double classifyInstance(Instance instance) throws Exception{
+        return classify(transformer(), instance);
+    }
 
-    public double classifyInstance(Instance _instance) throws Exception{
-        Instance instance;
+    // instance sparse hanya melewati input bukan 0
+    private double classify(InputTransformer t, Instance instance){
+        if (instance instanceof SparseInstance)
+            return activate(sigma(t.transformSparse(instance), 0));
+        return activate(sigma(t.transform(instance), 0));
+    }
 
-        nominalToBinary.input(_instance);
-        instance = nominalToBinary.output();
-        normalize.input(instance);
-        instance = normalize.output();
+    // bobot atribut kelas dilewati
+    private double sigma(double[] input, int offset){
+        int c = transformer.classIndex();
+        double sigma = 0;
+        for (int i = 0; i < transformer.numInputs(); i++){
+            sigma += weights[i < c ? i : i + 1] * input[offset + i];
+        }
+        return sigma;
+    }
 
-        int numAttr = instance.numAttributes();
+    private double sigma(SparseInputs rows, int row){
+        int c = transformer.classIndex();
+        int[] indices = rows.indices();
+        double[] values = rows.values();
         double sigma = 0;
-        for (int i = 0; i < numAttr; i++){
-            if (i != instance.classIndex()){
-                sigma += weights[i] * instance.value(i);
-            }
+        for (int p = rows.start(row); p < rows.end(row); p++){
+            int i = indices[p];
+            sigma += weights[i < c ? i : i + 1] * values[p];
         }
+        return sigma;
+    }
+
+    private double activate(double sigma){
+        return activationFunction().apply(sigma);
+    }
 
+    private Activation function(){
         switch (activationFunction){
-            case 0: // fungsi sign
-                if (sigma > 0) return 1;
-                else if (sigma < 0) return -1;
-                else return 0;
-
-            case 1: // fungsi step
-                if (sigma > stepThreshold)
-                    return 1;
-                else
-                    return 0;
-            default: // fungsi sigmoid
-                return (1/( 1 + Math.pow(Math.E,(-1* sigma))));
+            case 0:
+                return new Activation.Sign();
+            case 1:
+                return new Activation.Step(stepThreshold);
+            default:
+                return new Activation.Sigmoid();
         }
     }
 
+    // model lama menyimpan filter yang sudah dilatih, bukan InputTransformer
+    private InputTransformer transformer(){
+        if (transformer == null && normalize != null)
+            transformer = InputTransformer.fromFilters(header, normalize);
+        return transformer;
+    }
+
+
+    public double[] distributionForInstance(Instance instance) throws Exception {
+        return Predictions.distribution(classifyInstance(instance), instance.classAttribute());
+    }
+
+    /**
+     * Predicts a whole block of instances.
+     */
+    public double[][] distributionsForInstances(Instances data) throws Exception {
+        InputTransformer t = transformer();
+        double[][] dists = new double[data.numInstances()][];
+        for (int r = 0; r < dists.length; r++){
+            dists[r] = Predictions.distribution(classify(t, data.instance(r)), header.classAttribute());
+        }
+        return dists;
+    }
+
+    /**
+     * Predicts a row-major matrix with one instance per row that holds the
+     * values of all attributes except the class, in the order and encoding of
+     * the training data.
+     */
+    public double[][] distributionsForRows(double[] rows, int numRows) throws Exception {
+        return distributionsForInstances(Predictions.toInstances(header, rows, numRows));
+    }
 
     public Enumeration listOptions() {
 
@@ -147,6 +396,26 @@ public class PTR extends Classifier implements OptionHandler, WeightedInstancesH
                 +"\t(Default = 0.1).",
                 "L", 1,"-L <learning rate>"));
 
+        newVector.addElement(new Option(
+                "\tNumber of updates between convergence checks.\n"
+                        +"\t(Default = 0, check once per epoch).",
+                "C", 1,"-C <check interval>"));
+        newVector.addElement(new Option(
+                "\tPercentage of the data held out for validation.\n"
+                        +"\t(Default = 0, no validation set).",
+                "V", 1,"-V <validation percent>"));
+        newVector.addElement(new Option(
+                "\tNumber of checks without improvement before training stops.\n"
+                        +"\t(Default = 0, no early stopping).",
+                "P", 1,"-P <patience>"));
+        newVector.addElement(new Option(
+                "\tRandom number seed for the validation split.\n"
+                        +"\t(Default = 1).",
+                "S", 1,"-S <seed>"));
+        newVector.addElement(new Option(
+                "\tPrint loss, speed, time per phase and allocations of every epoch to stderr.\n"
+                        +"\t(Default = 0, input 1 to print).",
+                "Y", 1,"-Y <print progress>"));
         return newVector.elements();
     }
 
@@ -162,10 +431,85 @@ public class PTR extends Classifier implements OptionHandler, WeightedInstancesH
         return "Learning rate that is used by the algorithm. Default = 0";
     }
 
+    public String stepThresholdTipText() {
+        return "Threshold that is used by the step function (if its used). Default = 0";
+    }
+
     public String learningRateTipText() {
         return "Learning rate that is used by the algorithm. Default = 0.1";
     }
 
+    public String checkIntervalTipText() {
+        return "Number of updates between convergence checks. Default = 0, check once per epoch";
+    }
+
+    public String validationPercentTipText() {
+        return "Percentage of the training data held out to measure the error at each check. Default = 0, use the training error";
+    }
+
+    public String patienceTipText() {
+        return "Number of checks without improvement before training stops, the best weights are restored. Default = 0, no early stopping";
+    }
+
+    public String seedTipText() {
+        return "Random number seed for the validation split. Default = 1";
+    }
+
+    public String printProgressTipText() {
+        return "Print loss, instances per second, time per phase and allocated bytes of every epoch to stderr. Default = false";
+    }
+
+    public void setCheckInterval(int a) {
+        checkInterval = a;
+    }
+
+    public int getCheckInterval() {
+        return checkInterval;
+    }
+
+    public void setValidationPercent(double a) {
+        validationPercent = a;
+    }
+
+    public double getValidationPercent() {
+        return validationPercent;
+    }
+
+    public void setPatience(int a) {
+        patience = a;
+    }
+
+    public int getPatience() {
+        return patience;
+    }
+
+    public void setSeed(int a) {
+        seed = a;
+    }
+
+    public int getSeed() {
+        return seed;
+    }
+
+    public void setPrintProgress(boolean a) {
+        printProgress = a;
+    }
+
+    public boolean getPrintProgress() {
+        return printProgress;
+    }
+
+    public synchronized void addTrainingListener(TrainingListener l) {
+        if (listeners == null)
+            listeners = new Vector<TrainingListener>();
+        listeners.add(l);
+    }
+
+    public synchronized void removeTrainingListener(TrainingListener l) {
+        if (listeners != null)
+            listeners.remove(l);
+    }
+
     public void setLearningRate(float a) {
         learningRate = a;
     }
@@ -224,22 +568,62 @@ public class PTR extends Classifier implements OptionHandler, WeightedInstancesH
 
         String thresholdString = Utils.getOption('T', options);
         if (thresholdString.length() != 0) {
-            stepThreshold = new Integer(thresholdString).intValue();
+            stepThreshold = new Double(thresholdString).doubleValue();
         } else {
             stepThreshold = 0;
         }
 
+        String checkString = Utils.getOption('C', options);
+        if (checkString.length() != 0) {
+            checkInterval = new Integer(checkString).intValue();
+        } else {
+            checkInterval = 0;
+        }
+
+        String validationString = Utils.getOption('V', options);
+        if (validationString.length() != 0) {
+            validationPercent = new Double(validationString).doubleValue();
+        } else {
+            validationPercent = 0;
+        }
+
+        String patienceString = Utils.getOption('P', options);
+        if (patienceString.length() != 0) {
+            patience = new Integer(patienceString).intValue();
+        } else {
+            patience = 0;
+        }
+
+        String seedString = Utils.getOption('S', options);
+        if (seedString.length() != 0) {
+            seed = new Integer(seedString).intValue();
+        } else {
+            seed = 1;
+        }
+
+        String progressString = Utils.getOption('Y', options);
+        if (progressString.length() != 0) {
+            printProgress = new Integer(progressString).intValue() == 1;
+        } else {
+            printProgress = false;
+        }
+
         Utils.checkForRemainingOptions(options);
     }
 
   
     public String [] getOptions() {
-        String [] options = new String [8];
+        String [] options = new String [18];
         int current = 0;
         options[current++] = "-L"; options[current++] = "" + learningRate;
         options[current++] = "-F"; options[current++] = "" + activationFunction;
         options[current++] = "-M"; options[current++] = "" + maxIteration;
         options[current++] = "-T"; options[current++] = "" + stepThreshold;
+        options[current++] = "-C"; options[current++] = "" + checkInterval;
+        options[current++] = "-V"; options[current++] = "" + validationPercent;
+        options[current++] = "-P"; options[current++] = "" + patience;
+        options[current++] = "-S"; options[current++] = "" + seed;
+        options[current++] = "-Y"; options[current++] = "" + (printProgress ? 1 : 0);
 
         while (current < options.length) {
           options[current++] = "";
@@ -264,6 +648,9 @@ public class PTR extends Classifier implements OptionHandler, WeightedInstancesH
         //result.enable(Capability.DATE_CLASS);
         //result.enable(Capability.MISSING_CLASS_VALUES);
 
+        // updateClassifier dimulai dari model tanpa data
+        result.setMinimumNumberInstances(0);
+
         return result;
     }
 
@@ -277,6 +664,9 @@ public class PTR extends Classifier implements OptionHandler, WeightedInstancesH
     }
   
 	public String toString() {
+        if (weights == null)
+            return "PTR: No model built yet.";
+
         StringBuilder builder = new StringBuilder();
         builder.append("PERCEPTRON TRAINING RULE MODEL\n");
         builder.append("------------------------------\n");
@@ -294,6 +684,37 @@ public class PTR extends Classifier implements OptionHandler, WeightedInstancesH
         return builder.toString();
 	}
 
+
+    // untuk CompactModel: bobot sebagai jaringan satu layer tanpa bias
+    DenseNetwork denseNetwork(){
+        if (weights == null)
+            return null;
+        int classIndex = transformer().classIndex();
+        DenseNetwork dense = new DenseNetwork(new int[]{weights.length - 1, 1}, false);
+        for (int i = 0, k = 0; i < weights.length; i++){
+            if (i != classIndex)
+                dense.setWeight(0, k++, 0, weights[i]);
+        }
+        Activation f = activationFunction();
+        dense.setActivations(f, f);
+        return dense;
+    }
+
+    private Activation activationFunction(){
+        // model lama belum menyimpan fungsi aktivasi
+        if (function == null)
+            function = function();
+        return function;
+    }
+
+    Instances getHeader(){
+        return header;
+    }
+
+    InputTransformer getTransformer(){
+        return transformer();
+    }
+
   
 
 	// Mengembalikan informasi mengenai classifier ini
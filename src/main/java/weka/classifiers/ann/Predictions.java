@@ -0,0 +1,59 @@
+/*
+ *    Predictions.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ *
+ *    Helpers shared by the batch scoring paths of PTR, DR and MLP
+ */
+
+package weka.classifiers.ann;
+
+import weka.core.Attribute;
+import weka.core.Instance;
+import weka.core.Instances;
+
+final class Predictions {
+
+    private Predictions() {
+    }
+
+    /**
+     * Turns a classification into a distribution the way
+     * Classifier.distributionForInstance does. Nominal predictions outside
+     * the range of class values (e.g. -1 from the SIGN function) give an
+     * empty distribution.
+     */
+    static double[] distribution(double classification, Attribute classAttribute) {
+        if (!classAttribute.isNominal())
+            return new double[]{classification};
+
+        double[] dist = new double[classAttribute.numValues()];
+        if (!Instance.isMissingValue(classification)) {
+            int c = (int) classification;
+            if (c >= 0 && c < dist.length)
+                dist[c] = 1.0;
+        }
+        return dist;
+    }
+
+    /**
+     * Builds instances in the format of <code>header</code> from a row-major
+     * matrix that holds the values of all attributes except the class.
+     */
+    static Instances toInstances(Instances header, double[] rows, int numRows) {
+        int numAttributes = header.numAttributes();
+        int width = header.classIndex() < 0 ? numAttributes : numAttributes - 1;
+        Instances data = new Instances(header, numRows);
+
+        for (int r = 0; r < numRows; r++) {
+            double[] values = new double[numAttributes];
+            for (int a = 0, k = r * width; a < numAttributes; a++) {
+                if (a == header.classIndex())
+                    values[a] = Instance.missingValue();
+                else
+                    values[a] = rows[k++];
+            }
+            data.add(new Instance(1.0, values));
+        }
+        return data;
+    }
+}
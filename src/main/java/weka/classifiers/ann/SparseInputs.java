@@ -0,0 +1,98 @@
+/*
+ *    SparseInputs.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ *
+ *    Network inputs of sparse instances in compressed sparse row form
+ */
+
+package weka.classifiers.ann;
+
+import java.util.Arrays;
+
+/**
+ * The network inputs of a number of instances in compressed sparse row
+ * form: the non-zero inputs of row <code>r</code> are at the positions
+ * <code>start(r)..end(r)</code> of {@link #indices()} (the input index, in
+ * increasing order) and {@link #values()}. Inputs that are not listed are 0.
+ * Filled by {@link InputTransformer#transform(weka.core.Instance, SparseInputs)},
+ * so that training and scoring on sparse data cost time and memory in
+ * proportion to the number of non-zero values instead of the number of
+ * attributes.
+ */
+public class SparseInputs {
+
+    private int numRows;
+    // awal setiap baris, baris ke-numRows adalah baris yang sedang diisi
+    private int[] rows = new int[16];
+    // jumlah nilai, termasuk baris yang sedang diisi
+    private int size;
+    private int[] indices = new int[64];
+    private double[] values = new double[64];
+
+    /** Number of rows. */
+    public int numRows() {
+        return numRows;
+    }
+
+    /** Position of the first input of the row. */
+    public int start(int row) {
+        return rows[row];
+    }
+
+    /** Position after the last input of the row. */
+    public int end(int row) {
+        return rows[row + 1];
+    }
+
+    /** The input indices, valid up to end(numRows() - 1). */
+    public int[] indices() {
+        return indices;
+    }
+
+    /** The input values, valid up to end(numRows() - 1). */
+    public double[] values() {
+        return values;
+    }
+
+    /** Removes all rows, keeping the buffers. */
+    public void clear() {
+        numRows = 0;
+        size = 0;
+    }
+
+    // menambah input ke baris yang sedang diisi
+    void add(int index, double value) {
+        if (size == indices.length) {
+            int[] newIndices = new int[size * 2];
+            double[] newValues = new double[size * 2];
+            System.arraycopy(indices, 0, newIndices, 0, size);
+            System.arraycopy(values, 0, newValues, 0, size);
+            indices = newIndices;
+            values = newValues;
+        }
+        indices[size] = index;
+        values[size] = value;
+        size++;
+    }
+
+    // baris yang sedang diisi selesai, baris berikutnya dimulai
+    void endRow() {
+        if (numRows + 2 > rows.length) {
+            int[] newRows = new int[rows.length * 2];
+            System.arraycopy(rows, 0, newRows, 0, numRows + 1);
+            rows = newRows;
+        }
+        numRows++;
+        rows[numRows] = size;
+    }
+
+    /**
+     * Writes the inputs of the row, including the zeros, to
+     * dst[offset..offset+numInputs).
+     */
+    public void densify(int row, double[] dst, int offset, int numInputs) {
+        Arrays.fill(dst, offset, offset + numInputs, 0);
+        for (int p = rows[row]; p < rows[row + 1]; p++)
+            dst[offset + indices[p]] = values[p];
+    }
+}
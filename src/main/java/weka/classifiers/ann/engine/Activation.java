@@ -0,0 +1,333 @@
+/*
+ *    Activation.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ *
+ *    Activation functions shared by the ann classifiers
+ */
+
+package weka.classifiers.ann.engine;
+
+import java.io.Serializable;
+
+/**
+ * Activation function of a layer of units. The derivative is expressed
+ * through the output <code>y = apply(x)</code>, because that is what
+ * backpropagation keeps for every unit.
+ * <p/>
+ * The bulk methods are overridden by every differentiable function so that
+ * the loop over a layer calls a single, inlinable implementation.
+ * <p/>
+ * {@link #forType(int, boolean)} can return table based approximations of
+ * sigmoid and tanh: the sigmoid is linearly interpolated in a table over
+ * [-16, 16] with a step of 1/128, which keeps the absolute error below 1e-6
+ * (interpolation error h^2/8 * max|s''| &lt; 7.3e-7, tail error
+ * s(-16) &lt; 1.2e-7). tanh is computed as 2s(2x) - 1, so its absolute error is
+ * below 2e-6.
+ */
+public abstract class Activation implements Serializable {
+    private static final long serialVersionUID = -3815294671048203415L;
+
+    public static final int SIGMOID = 0;
+    public static final int TANH = 1;
+    public static final int RELU = 2;
+    public static final int LEAKY_RELU = 3;
+    public static final int LINEAR = 4;
+    public static final int SIGN = 5;
+    public static final int STEP = 6;
+
+    /** names of the types, indexed by type */
+    public static final String[] NAMES = {"SIGMOID", "TANH", "RELU", "LEAKY_RELU", "LINEAR", "SIGN", "STEP"};
+
+    /** slope of the leaky ReLU for negative inputs */
+    public static final double LEAKY_SLOPE = 0.01;
+
+    /**
+     * Returns the function of the given type. With <code>approximate</code>
+     * sigmoid and tanh are looked up in a table, the other types are exact.
+     * STEP uses a threshold of 0, see {@link Step}.
+     */
+    public static Activation forType(int type, boolean approximate){
+        switch (type){
+            case SIGMOID:
+                return approximate ? (Activation) new FastSigmoid() : new Sigmoid();
+            case TANH:
+                return approximate ? (Activation) new FastTanh() : new Tanh();
+            case RELU:
+                return new ReLU();
+            case LEAKY_RELU:
+                return new LeakyReLU(LEAKY_SLOPE);
+            case LINEAR:
+                return new Linear();
+            case SIGN:
+                return new Sign();
+            case STEP:
+                return new Step(0);
+            default:
+                throw new IllegalArgumentException("Unknown activation function: " + type);
+        }
+    }
+
+    public static Activation forType(int type){
+        return forType(type, false);
+    }
+
+    /** f(x) */
+    public abstract double apply(double x);
+
+    /** f'(x) for y = f(x) */
+    public abstract double derivative(double y);
+
+    /** Replaces v[from..to) with f(v[from..to)). */
+    public void apply(double[] v, int from, int to){
+        for (int k = from; k < to; k++){
+            v[k] = apply(v[k]);
+        }
+    }
+
+    /** Multiplies e[from..to) with f' at the outputs y[from..to). */
+    public void multiplyDerivative(double[] y, double[] e, int from, int to){
+        for (int k = from; k < to; k++){
+            e[k] *= derivative(y[k]);
+        }
+    }
+
+    public abstract String toString();
+
+    public static class Sigmoid extends Activation {
+        private static final long serialVersionUID = 4092385810328446310L;
+
+        public double apply(double x){
+            return 1.0 / (1.0 + Math.exp(-x));
+        }
+
+        public double derivative(double y){
+            return y * (1.0 - y);
+        }
+
+        public void apply(double[] v, int from, int to){
+            for (int k = from; k < to; k++){
+                v[k] = 1.0 / (1.0 + Math.exp(-v[k]));
+            }
+        }
+
+        public void multiplyDerivative(double[] y, double[] e, int from, int to){
+            for (int k = from; k < to; k++){
+                e[k] *= y[k] * (1.0 - y[k]);
+            }
+        }
+
+        public String toString(){
+            return "SIGMOID";
+        }
+    }
+
+    public static class Tanh extends Activation {
+        private static final long serialVersionUID = -1206153950914838617L;
+
+        public double apply(double x){
+            return Math.tanh(x);
+        }
+
+        public double derivative(double y){
+            return 1.0 - y * y;
+        }
+
+        public void apply(double[] v, int from, int to){
+            for (int k = from; k < to; k++){
+                v[k] = Math.tanh(v[k]);
+            }
+        }
+
+        public void multiplyDerivative(double[] y, double[] e, int from, int to){
+            for (int k = from; k < to; k++){
+                e[k] *= 1.0 - y[k] * y[k];
+            }
+        }
+
+        public String toString(){
+            return "TANH";
+        }
+    }
+
+    public static class ReLU extends Activation {
+        private static final long serialVersionUID = 6741097390183640264L;
+
+        public double apply(double x){
+            return x > 0 ? x : 0;
+        }
+
+        public double derivative(double y){
+            return y > 0 ? 1 : 0;
+        }
+
+        public void apply(double[] v, int from, int to){
+            for (int k = from; k < to; k++){
+                if (v[k] < 0)
+                    v[k] = 0;
+            }
+        }
+
+        public void multiplyDerivative(double[] y, double[] e, int from, int to){
+            for (int k = from; k < to; k++){
+                if (y[k] <= 0)
+                    e[k] = 0;
+            }
+        }
+
+        public String toString(){
+            return "RELU";
+        }
+    }
+
+    public static class LeakyReLU extends Activation {
+        private static final long serialVersionUID = -2468217463104759330L;
+
+        private double slope;
+
+        public LeakyReLU(double slope){
+            this.slope = slope;
+        }
+
+        public double apply(double x){
+            return x > 0 ? x : slope * x;
+        }
+
+        public double derivative(double y){
+            return y > 0 ? 1 : slope;
+        }
+
+        public void apply(double[] v, int from, int to){
+            for (int k = from; k < to; k++){
+                if (v[k] < 0)
+                    v[k] *= slope;
+            }
+        }
+
+        public void multiplyDerivative(double[] y, double[] e, int from, int to){
+            for (int k = from; k < to; k++){
+                if (y[k] <= 0)
+                    e[k] *= slope;
+            }
+        }
+
+        public String toString(){
+            return "LEAKY_RELU";
+        }
+    }
+
+    public static class Linear extends Activation {
+        private static final long serialVersionUID = 3360870932117296001L;
+
+        public double apply(double x){
+            return x;
+        }
+
+        public double derivative(double y){
+            return 1;
+        }
+
+        public void apply(double[] v, int from, int to){
+        }
+
+        public void multiplyDerivative(double[] y, double[] e, int from, int to){
+        }
+
+        public String toString(){
+            return "LINEAR";
+        }
+    }
+
+    /** -1, 0 or 1. Not differentiable, the derivative is 0. */
+    public static class Sign extends Activation {
+        private static final long serialVersionUID = 7719420133680932615L;
+
+        public double apply(double x){
+            if (x > 0) return 1;
+            else if (x < 0) return -1;
+            else return 0;
+        }
+
+        public double derivative(double y){
+            return 0;
+        }
+
+        public String toString(){
+            return "SIGN";
+        }
+    }
+
+    /** 1 above the threshold, 0 otherwise. Not differentiable, the derivative is 0. */
+    public static class Step extends Activation {
+        private static final long serialVersionUID = -8427051167232598047L;
+
+        private double threshold;
+
+        public Step(double threshold){
+            this.threshold = threshold;
+        }
+
+        public double apply(double x){
+            return x > threshold ? 1 : 0;
+        }
+
+        public double derivative(double y){
+            return 0;
+        }
+
+        public String toString(){
+            return "STEP";
+        }
+    }
+
+    // tabel sigmoid untuk FastSigmoid dan FastTanh
+    private static final double RANGE = 16;
+    private static final double SCALE = 128;
+    private static final double[] TABLE = new double[(int) (2 * RANGE * SCALE) + 1];
+    static {
+        for (int i = 0; i < TABLE.length; i++){
+            TABLE[i] = 1.0 / (1.0 + Math.exp(-(i / SCALE - RANGE)));
+        }
+    }
+
+    /** Sigmoid interpolated in the lookup table, absolute error below 1e-6. */
+    static double fastSigmoid(double x){
+        if (x <= -RANGE)
+            return 0;
+        if (x >= RANGE)
+            return 1;
+        double p = (x + RANGE) * SCALE;
+        int i = (int) p;
+        double a = TABLE[i];
+        return a + (p - i) * (TABLE[i + 1] - a);
+    }
+
+    /** Table based sigmoid, absolute error below 1e-6. */
+    public static class FastSigmoid extends Sigmoid {
+        private static final long serialVersionUID = -5102778323451794520L;
+
+        public double apply(double x){
+            return fastSigmoid(x);
+        }
+
+        public void apply(double[] v, int from, int to){
+            for (int k = from; k < to; k++){
+                v[k] = fastSigmoid(v[k]);
+            }
+        }
+    }
+
+    /** Table based tanh, absolute error below 2e-6. */
+    public static class FastTanh extends Tanh {
+        private static final long serialVersionUID = 1853306458123609786L;
+
+        public double apply(double x){
+            return 2 * fastSigmoid(2 * x) - 1;
+        }
+
+        public void apply(double[] v, int from, int to){
+            for (int k = from; k < to; k++){
+                v[k] = 2 * fastSigmoid(2 * v[k]) - 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ *    CompactNetwork.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ *
+ *    Inference-only feed forward network with float32 or int8 weights
+ */
+
+package weka.classifiers.ann.engine;
+
+import java.io.Serializable;
+
+/**
+ * Read-only copy of a trained {@link DenseNetwork} for scoring, in the same
+ * layout: the weights of unit <code>j</code> of layer <code>l+1</code> are
+ * row <code>j</code> of layer <code>l</code>. The weights and activations
+ * are float32, which halves the memory of the weights and the bandwidth of
+ * every dot product.
+ * <p/>
+ * {@link #quantize(double[], int)} converts the weights further to int8 with
+ * post-training, symmetric quantization:
+ * <ul>
+ *   <li>every weight row gets its own scale, max|w| / 127</li>
+ *   <li>the inputs of every layer get one scale, max|x| / 127 over a
+ *   calibration sample; values outside the calibrated range saturate</li>
+ *   <li>a unit sums the products of the int8 values in an int and rescales
+ *   the sum once, the biases stay float32</li>
+ * </ul>
+ * The activation functions and the softmax are computed in float32.
+ */
+public class CompactNetwork implements Serializable {
+    private static final long serialVersionUID = -6372810158247360942L;
+
+    private int[] sizes;
+    private boolean bias;
+    private boolean softmax;
+    private Activation hiddenActivation;
+    private Activation outputActivation;
+    private float[][] biases;
+
+    // bobot float32, null setelah quantize()
+    private float[][] weights;
+
+    // bobot int8 dan skalanya, null sebelum quantize()
+    private byte[][] quantized;
+    private float[] inputScales;
+    // inputScales[l] * skala baris bobot j
+    private float[][] sumScales;
+
+    /** Copies the weights of the network, rounded to float32. */
+    public CompactNetwork(DenseNetwork network){
+        int numLayers = network.numLayers();
+        sizes = new int[numLayers];
+        for (int l = 0; l < numLayers; l++){
+            sizes[l] = network.layerSize(l);
+        }
+        bias = network.hasBias();
+        softmax = network.isSoftmax();
+        hiddenActivation = network.getHiddenActivation();
+        outputActivation = network.getOutputActivation();
+
+        weights = new float[numLayers - 1][];
+        biases = new float[numLayers - 1][];
+        for (int l = 0; l < numLayers - 1; l++){
+            int nIn = sizes[l];
+            int nOut = sizes[l + 1];
+            float[] w = new float[nIn * nOut];
+            float[] b = new float[nOut];
+            for (int j = 0; j < nOut; j++){
+                for (int i = 0; i < nIn; i++){
+                    w[j * nIn + i] = (float) network.getWeight(l, i, j);
+                }
+                b[j] = bias ? (float) network.getBias(l, j) : 0f;
+            }
+            weights[l] = w;
+            biases[l] = b;
+        }
+    }
+
+    /**
+     * Quantizes the weights to int8. The input scales are calibrated on
+     * <code>count</code> inputs, a row-major matrix with one example per row,
+     * which are run through the float32 network. The float32 weights are
+     * released afterwards.
+     */
+    public void quantize(double[] inputs, int count){
+        if (quantized != null)
+            throw new IllegalStateException("Network is already quantized.");
+        if (count < 1)
+            throw new IllegalArgumentException("Calibration needs at least one example.");
+
+        int layers = sizes.length - 1;
+        float[] maxInput = new float[layers];
+        Scratch scratch = newScratch();
+        for (int r = 0; r < count; r++){
+            float[] in = scratch.activations[0];
+            for (int i = 0; i < sizes[0]; i++){
+                in[i] = (float) inputs[r * sizes[0] + i];
+            }
+            for (int l = 0; l < layers; l++){
+                float[] x = scratch.activations[l];
+                for (int i = 0; i < sizes[l]; i++){
+                    maxInput[l] = Math.max(maxInput[l], Math.abs(x[i]));
+                }
+                layer(l, scratch);
+            }
+        }
+
+        quantized = new byte[layers][];
+        inputScales = new float[layers];
+        sumScales = new float[layers][];
+        for (int l = 0; l < layers; l++){
+            int nIn = sizes[l];
+            int nOut = sizes[l + 1];
+            float[] w = weights[l];
+            byte[] q = new byte[nIn * nOut];
+            inputScales[l] = scale(maxInput[l]);
+            sumScales[l] = new float[nOut];
+            for (int j = 0, off = 0; j < nOut; j++, off += nIn){
+                float max = 0;
+                for (int i = 0; i < nIn; i++){
+                    max = Math.max(max, Math.abs(w[off + i]));
+                }
+                float s = scale(max);
+                for (int i = 0; i < nIn; i++){
+                    q[off + i] = toInt8(w[off + i] / s);
+                }
+                sumScales[l][j] = inputScales[l] * s;
+            }
+            quantized[l] = q;
+        }
+        weights = null;
+    }
+
+    // skala untuk nilai mutlak maksimum max, 1 jika semua nilai 0
+    private static float scale(float max){
+        return max > 0 ? max / 127f : 1f;
+    }
+
+    private static byte toInt8(float v){
+        int q = Math.round(v);
+        if (q > 127) q = 127;
+        else if (q < -127) q = -127;
+        return (byte) q;
+    }
+
+    public boolean isQuantized(){
+        return quantized != null;
+    }
+
+    public int numLayers(){
+        return sizes.length;
+    }
+
+    public int layerSize(int layer){
+        return sizes[layer];
+    }
+
+    /** Bytes used by the weights, biases and scales. */
+    public long sizeInBytes(){
+        long bytes = 0;
+        for (int l = 0; l < sizes.length - 1; l++){
+            bytes += 4L * biases[l].length;
+            if (quantized != null)
+                bytes += quantized[l].length + 4L * sumScales[l].length + 4;
+            else
+                bytes += 4L * weights[l].length;
+        }
+        return bytes;
+    }
+
+    /**
+     * Buffers for one thread: the float32 activations of every layer and the
+     * int8 copy of the input of the current layer.
+     */
+    public static final class Scratch {
+        final float[][] activations;
+        final byte[] input;
+
+        Scratch(int[] sizes){
+            activations = new float[sizes.length][];
+            int max = 0;
+            for (int l = 0; l < sizes.length; l++){
+                activations[l] = new float[sizes[l]];
+                max = Math.max(max, sizes[l]);
+            }
+            input = new byte[max];
+        }
+    }
+
+    public Scratch newScratch(){
+        return new Scratch(sizes);
+    }
+
+    /**
+     * Runs <code>input</code> through the network and writes the output
+     * activations to <code>output</code>. Only the caller's scratch buffers
+     * are written, so threads with their own scratch may call this
+     * concurrently.
+     */
+    public void predict(double[] input, int inOff, double[] output, int outOff, Scratch scratch){
+        float[] in = scratch.activations[0];
+        for (int i = 0; i < sizes[0]; i++){
+            in[i] = (float) input[inOff + i];
+        }
+        for (int l = 0; l < sizes.length - 1; l++){
+            layer(l, scratch);
+        }
+        float[] out = scratch.activations[sizes.length - 1];
+        for (int j = 0; j < out.length; j++){
+            output[outOff + j] = out[j];
+        }
+    }
+
+    /**
+     * Predicts <code>count</code> inputs, a row-major matrix with one example
+     * per row, and writes the outputs row-major into <code>outputs</code>.
+     */
+    public void predictBatch(double[] inputs, int count, double[] outputs){
+        Scratch scratch = newScratch();
+        int nIn = sizes[0];
+        int nOut = sizes[sizes.length - 1];
+        for (int r = 0; r < count; r++){
+            predict(inputs, r * nIn, outputs, r * nOut, scratch);
+        }
+    }
+
+    // layer l -> l+1 dari scratch.activations[l] ke scratch.activations[l+1]
+    private void layer(int l, Scratch scratch){
+        float[] in = scratch.activations[l];
+        float[] out = scratch.activations[l + 1];
+        int nIn = sizes[l];
+        int nOut = sizes[l + 1];
+        float[] b = biases[l];
+
+        if (quantized == null){
+            float[] w = weights[l];
+            for (int j = 0, off = 0; j < nOut; j++, off += nIn){
+                out[j] = dot(w, off, in, nIn) + b[j];
+            }
+        } else {
+            byte[] w = quantized[l];
+            byte[] q = scratch.input;
+            float inv = 1f / inputScales[l];
+            for (int i = 0; i < nIn; i++){
+                q[i] = toInt8(in[i] * inv);
+            }
+            float[] s = sumScales[l];
+            for (int j = 0, off = 0; j < nOut; j++, off += nIn){
+                out[j] = dot(w, off, q, nIn) * s[j] + b[j];
+            }
+        }
+
+        if (softmax && l == sizes.length - 2){
+            softmax(out, nOut);
+        } else {
+            Activation f = l == sizes.length - 2 ? outputActivation : hiddenActivation;
+            for (int j = 0; j < nOut; j++){
+                out[j] = (float) f.apply(out[j]);
+            }
+        }
+    }
+
+    // empat jumlah parsial agar penjumlahan float tidak saling menunggu
+    private static float dot(float[] w, int off, float[] x, int n){
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < n; i += 4){
+            s0 += w[off + i] * x[i];
+            s1 += w[off + i + 1] * x[i + 1];
+            s2 += w[off + i + 2] * x[i + 2];
+            s3 += w[off + i + 3] * x[i + 3];
+        }
+        for (; i < n; i++){
+            s0 += w[off + i] * x[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    private static int dot(byte[] w, int off, byte[] x, int n){
+        int sum = 0;
+        for (int i = 0; i < n; i++){
+            sum += w[off + i] * x[i];
+        }
+        return sum;
+    }
+
+    private static void softmax(float[] z, int n){
+        float max = z[0];
+        for (int j = 1; j < n; j++){
+            if (z[j] > max)
+                max = z[j];
+        }
+        float total = 0;
+        for (int j = 0; j < n; j++){
+            z[j] = (float) Math.exp(z[j] - max);
+            total += z[j];
+        }
+        for (int j = 0; j < n; j++){
+            z[j] /= total;
+        }
+    }
+
+    public String toString(){
+        StringBuilder s = new StringBuilder();
+        for (int l = 0; l < sizes.length; l++){
+            s.append(l == 0 ? "" : "-").append(sizes[l]);
+        }
+        s.append(quantized != null ? ", int8" : ", float32");
+        s.append(", ").append(sizeInBytes()).append(" bytes");
+        return s.toString();
+    }
+}
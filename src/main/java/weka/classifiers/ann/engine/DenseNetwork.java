@@ -0,0 +1,1049 @@
+/*
+ *    DenseNetwork.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ *
+ *    Fully connected feed forward network stored as flat weight arrays
+ */
+
+package weka.classifiers.ann.engine;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Feed forward network that keeps the weights (and the {@link Optimizer} state) of each
+ * layer in one contiguous <code>double[]</code> instead of a graph of
+ * {@link Node} and {@link Links} objects. The weight from unit <code>i</code>
+ * of layer <code>l</code> to unit <code>j</code> of layer <code>l+1</code> is
+ * stored at <code>weights[l][j * sizes[l] + i]</code>, so the forward pass of
+ * a unit is a single sequential dot product. With biases the bias of unit
+ * <code>j</code> of layer <code>l+1</code> follows the weights, at
+ * <code>weights[l][sizes[l] * sizes[l+1] + j]</code>, so gradients and
+ * optimizer state cover it without extra arrays.
+ * <p/>
+ * Online training follows the same update rule as the {@link Node} graph:
+ * the outgoing weights of a layer are updated before its error term is
+ * computed. Batch training ({@link #trainBatch}) keeps the activations and
+ * errors of a whole batch as row-major matrices and computes each layer as a
+ * matrix product, applying the averaged gradient once per batch.
+ * <p/>
+ * A network can also read its weights straight from buffers, e.g. a
+ * read-only memory-mapped model file shared by several processes. Such a
+ * network predicts without copying the weights; they are copied to the heap
+ * the first time they are modified or the network is serialized.
+ * <p/>
+ * Sparse inputs, given as the indices and values of the non-zero inputs,
+ * are multiplied with the first layer only at those indices. Online
+ * training on a sparse input also updates only their weights when the
+ * optimizer leaves weights with a zero gradient unchanged (see
+ * {@link Optimizer#skipsZeroGradients(double)}); otherwise the first layer
+ * is updated densely so that the result stays the same.
+ * <p/>
+ * Training can be regularized with inverted dropout on the hidden units
+ * (the kept units are scaled by 1 / (1 - rate) during training, so
+ * prediction does not change), an L2 penalty on the weights (not the
+ * biases) that is added to the gradient before the optimizer sees it, and
+ * clipping of the gradient norm of every layer. With regularization an
+ * online step computes the gradient of a layer into a buffer and applies it
+ * like a batch of one.
+ */
+public class DenseNetwork implements Serializable {
+    private static final long serialVersionUID = 2817359051773530924L;
+
+    private int[] sizes;
+    private boolean bias;
+    private double[][] weights;
+    // bobot read-only di luar heap, null jika bobot ada di weights
+    private transient DoubleBuffer[] shared;
+    private Optimizer optimizer = new Optimizer.Momentum();
+    private boolean softmax = false;
+    private Activation hiddenActivation = new Activation.Sigmoid();
+    private Activation outputActivation = new Activation.Sigmoid();
+    private double dropout = 0;
+    // sumber mask dropout, milik learner agar ikut checkpoint
+    private Random random;
+    private double weightDecay = 0;
+    private double clipNorm = 0; // 0 = TANPA CLIPPING
+
+    // buffer untuk training, outputs[0] adalah input
+    private transient double[][] outputs;
+    private transient double[][] errors;
+    // output hidden sebelum dropout dan mask dropout (0 atau 1 / (1 - dropout)) per layer
+    private transient double[][] raw;
+    private transient double[][] masks;
+    // gradien satu layer untuk langkah online dengan regularisasi
+    private transient double[][] gradients;
+    // mask dropout satu batch, baris demi baris, dipakai bersama oleh semua shard
+    private transient double[][] batchMasks;
+    // input sparse dari trainForwardSparse, null jika input ada di outputs[0]
+    private transient int[] sparseIndices;
+    private transient double[] sparseValues;
+    private transient int sparseFrom, sparseTo;
+
+    // buffer untuk batch training, satu shard per thread
+    private transient Shard[] shards;
+    private transient double[] batchResult;
+
+    /** number of rows/columns processed per tile in the batch kernels */
+    private static final int TILE = 64;
+
+    /** number of rows scored together by predictBatch */
+    private static final int BLOCK = 256;
+
+    public DenseNetwork(int[] sizes){
+        this(sizes, false);
+    }
+
+    /**
+     * @param sizes number of units per layer, starting with the inputs
+     * @param bias  whether every non-input unit has a learnable bias
+     */
+    public DenseNetwork(int[] sizes, boolean bias){
+        this.sizes = sizes.clone();
+        this.bias = bias;
+        this.weights = new double[sizes.length - 1][];
+        for (int l = 0; l < weights.length; l++){
+            weights[l] = new double[sizes[l] * sizes[l + 1] + (bias ? sizes[l + 1] : 0)];
+        }
+    }
+
+    /**
+     * Creates a network that reads its weights from the given buffers, one
+     * per layer, laid out like the weight arrays (see the class comment).
+     * The buffers are only read.
+     */
+    public DenseNetwork(int[] sizes, boolean bias, DoubleBuffer[] layers){
+        this.sizes = sizes.clone();
+        this.bias = bias;
+        if (layers.length != sizes.length - 1)
+            throw new IllegalArgumentException("Expected " + (sizes.length - 1) + " layers, got " + layers.length);
+        for (int l = 0; l < layers.length; l++){
+            if (layers[l].remaining() != layerLength(l))
+                throw new IllegalArgumentException("Layer " + l + " has " + layers[l].remaining()
+                        + " weights instead of " + layerLength(l));
+        }
+        this.shared = new DoubleBuffer[layers.length];
+        for (int l = 0; l < layers.length; l++){
+            shared[l] = layers[l].slice();
+        }
+    }
+
+    /** Whether the weights are still read from the buffers given to the constructor. */
+    public boolean isShared(){
+        return shared != null;
+    }
+
+    /** Number of weights (including biases) between layer l and l+1. */
+    public int layerLength(int layer){
+        return sizes[layer] * sizes[layer + 1] + (bias ? sizes[layer + 1] : 0);
+    }
+
+    /** Copies the weights between layer l and l+1 to dst. */
+    public void writeLayer(int layer, DoubleBuffer dst){
+        if (shared != null)
+            dst.put(shared[layer].duplicate());
+        else
+            dst.put(weights[layer]);
+    }
+
+    /** Replaces the weights between layer l and l+1 with the ones in src. */
+    public void readLayer(int layer, DoubleBuffer src){
+        materialize();
+        src.get(weights[layer]);
+    }
+
+    // salin bobot ke heap sebelum diubah
+    private void materialize(){
+        if (shared == null)
+            return;
+        double[][] w = new double[shared.length][];
+        for (int l = 0; l < w.length; l++){
+            w[l] = new double[layerLength(l)];
+            shared[l].duplicate().get(w[l]);
+        }
+        weights = w;
+        shared = null;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        materialize();
+        out.defaultWriteObject();
+    }
+
+    /**
+     * Sets whether the output layer is a softmax trained with cross entropy
+     * instead of sigmoid units trained with squared error.
+     */
+    public void setSoftmax(boolean softmax){
+        this.softmax = softmax;
+    }
+
+    public boolean isSoftmax(){
+        return softmax;
+    }
+
+    /**
+     * Sets the activation functions of the hidden units and of the output
+     * units. The output function is not used with a softmax output layer.
+     */
+    public void setActivations(Activation hidden, Activation output){
+        this.hiddenActivation = hidden;
+        this.outputActivation = output;
+    }
+
+    public Activation getHiddenActivation(){
+        return hiddenActivation;
+    }
+
+    public Activation getOutputActivation(){
+        return outputActivation;
+    }
+
+    private Activation activation(int layer){
+        return layer == sizes.length - 1 ? outputActivation : hiddenActivation;
+    }
+
+    /**
+     * Sets the rule that turns gradients into weight updates. The momentum
+     * passed to the training methods is handed to the optimizer.
+     */
+    public void setOptimizer(Optimizer optimizer){
+        this.optimizer = optimizer;
+        optimizer.reset();
+    }
+
+    public Optimizer getOptimizer(){
+        return optimizer;
+    }
+
+    /**
+     * Drops every hidden unit with the given probability in each training
+     * step, drawing the masks from <code>random</code>. 0 disables dropout.
+     */
+    public void setDropout(double rate, Random random){
+        this.dropout = rate;
+        this.random = random;
+    }
+
+    public double getDropout(){
+        return dropout;
+    }
+
+    /** Sets the factor of the L2 penalty on the weights, 0 = none. */
+    public void setWeightDecay(double decay){
+        this.weightDecay = decay;
+    }
+
+    public double getWeightDecay(){
+        return weightDecay;
+    }
+
+    /**
+     * Sets the largest norm the gradient of a layer may have; larger
+     * gradients are scaled down to it. 0 disables clipping.
+     */
+    public void setClipNorm(double norm){
+        this.clipNorm = norm;
+    }
+
+    public double getClipNorm(){
+        return clipNorm;
+    }
+
+    private boolean regularized(){
+        return weightDecay > 0 || clipNorm > 0;
+    }
+
+    private void startStep(){
+        int[] lengths = new int[weights.length];
+        for (int l = 0; l < weights.length; l++){
+            lengths[l] = weights[l].length;
+        }
+        optimizer.init(lengths);
+        optimizer.step();
+    }
+
+    public int numLayers(){
+        return sizes.length;
+    }
+
+    public int layerSize(int layer){
+        return sizes[layer];
+    }
+
+    public double getWeight(int layer, int from, int to){
+        if (shared != null)
+            return shared[layer].get(to * sizes[layer] + from);
+        return weights[layer][to * sizes[layer] + from];
+    }
+
+    public void setWeight(int layer, int from, int to, double v){
+        materialize();
+        weights[layer][to * sizes[layer] + from] = v;
+    }
+
+    public boolean hasBias(){
+        return bias;
+    }
+
+    /** Bias of unit <code>to</code> of layer <code>layer + 1</code>. */
+    public double getBias(int layer, int to){
+        if (!bias)
+            return 0;
+        if (shared != null)
+            return shared[layer].get(sizes[layer] * sizes[layer + 1] + to);
+        return weights[layer][sizes[layer] * sizes[layer + 1] + to];
+    }
+
+    public void setBias(int layer, int to, double v){
+        materialize();
+        weights[layer][sizes[layer] * sizes[layer + 1] + to] = v;
+    }
+
+    /**
+     * Runs the input through the network and returns a new array with the
+     * activations of the output layer. The activations are computed in
+     * buffers allocated by the call, so concurrent calls are safe.
+     */
+    public double[] predict(double[] input){
+        double[][] scratch = newScratch();
+        System.arraycopy(input, 0, scratch[0], 0, sizes[0]);
+        return predict(scratch);
+    }
+
+    /**
+     * Allocates the buffers used by {@link #predict(double[][])}: one array
+     * per layer, the first one receives the input.
+     */
+    public double[][] newScratch(){
+        double[][] scratch = new double[sizes.length][];
+        for (int l = 0; l < sizes.length; l++){
+            scratch[l] = new double[sizes[l]];
+        }
+        return scratch;
+    }
+
+    /**
+     * Runs the input stored in <code>scratch[0]</code> through the network
+     * and returns the output activations, which are stored in the last array
+     * of <code>scratch</code>. Only the caller's buffers are written, so any
+     * number of threads may call this concurrently with their own scratch
+     * buffers as long as no thread trains the network at the same time.
+     */
+    public double[] predict(double[][] scratch){
+        forward(scratch);
+        return scratch[scratch.length - 1];
+    }
+
+    /**
+     * One online gradient descent step on a single training example. Returns
+     * the output activations computed before the update; the array is reused
+     * by the next call.
+     */
+    public double[] train(double[] input, double[] target, double learningRate, double momentum){
+        double[] result = trainForward(input);
+        trainBackward(target, learningRate, momentum);
+        return result;
+    }
+
+    /**
+     * The forward half of {@link #train(double[], double[], double, double)},
+     * for learners that time the two passes separately. Must be followed by
+     * {@link #trainBackward(double[], double, double)}.
+     */
+    public double[] trainForward(double[] input){
+        materialize();
+        ensureBuffers();
+        sparseIndices = null;
+        System.arraycopy(input, 0, outputs[0], 0, sizes[0]);
+        forward(outputs, 0, true);
+        return outputs[outputs.length - 1];
+    }
+
+    /**
+     * Runs the sparse input whose non-zero values are
+     * <code>values[from..to)</code> at the input indices
+     * <code>indices[from..to)</code> (in increasing order) through the
+     * network and returns the output activations, which are stored in the
+     * last array of <code>scratch</code>. Same thread safety as
+     * {@link #predict(double[][])}; <code>scratch[0]</code> is not used.
+     */
+    public double[] predictSparse(int[] indices, double[] values, int from, int to, double[][] scratch){
+        forwardSparse(indices, values, from, to, scratch, false);
+        return scratch[scratch.length - 1];
+    }
+
+    /**
+     * The forward half of an online step on a sparse input, see
+     * {@link #predictSparse}. Must be followed by
+     * {@link #trainBackward(double[], double, double)}; the arrays must not
+     * change until then.
+     */
+    public double[] trainForwardSparse(int[] indices, double[] values, int from, int to){
+        materialize();
+        ensureBuffers();
+        sparseIndices = indices;
+        sparseValues = values;
+        sparseFrom = from;
+        sparseTo = to;
+        forwardSparse(indices, values, from, to, outputs, true);
+        return outputs[outputs.length - 1];
+    }
+
+    /**
+     * Backpropagates the error of the last {@link #trainForward(double[])}
+     * and updates the weights.
+     */
+    public void trainBackward(double[] target, double learningRate, double momentum){
+        backpropagate(target, learningRate, momentum);
+    }
+
+    /**
+     * Runs <code>count</code> inputs (a row-major matrix, one example per row)
+     * through the network and writes the output activations row-major into
+     * <code>outputs</code>. The rows are processed in blocks as matrix
+     * products in buffers owned by the call, so concurrent calls are safe.
+     */
+    public void predictBatch(double[] inputs, int count, double[] outputs){
+        int block = Math.min(count, BLOCK);
+        int last = sizes.length - 1;
+        double[][] buffers = new double[sizes.length][];
+        for (int l = 0; l < sizes.length; l++){
+            buffers[l] = new double[block * sizes[l]];
+        }
+
+        for (int start = 0; start < count; start += block){
+            int n = Math.min(block, count - start);
+            System.arraycopy(inputs, start * sizes[0], buffers[0], 0, n * sizes[0]);
+            forwardBatch(buffers, n);
+            System.arraycopy(buffers[last], 0, outputs, start * sizes[last], n * sizes[last]);
+        }
+    }
+
+    /**
+     * One gradient descent step on a batch of <code>count</code> examples.
+     * <code>inputs</code> and <code>targets</code> are row-major matrices with
+     * one example per row. The gradient is averaged over the batch. Returns
+     * the output activations (row-major, computed before the update); the
+     * array is reused by the next call.
+     */
+    public double[] trainBatch(double[] inputs, double[] targets, int count, double learningRate, double momentum){
+        try {
+            return trainBatch(inputs, targets, count, learningRate, momentum, null, 1);
+        } catch (Exception e) {
+            // tidak terjadi: tanpa executor semua shard dihitung di thread ini
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Same as {@link #trainBatch(double[], double[], int, double, double)},
+     * but splits the batch into <code>numShards</code> contiguous shards whose
+     * gradients are computed on the given executor, each with its own
+     * buffers. The shard gradients are summed in shard order, so the result
+     * only depends on the inputs and the number of shards.
+     */
+    public double[] trainBatch(double[] inputs, double[] targets, int count, double learningRate, double momentum,
+                               ExecutorService executor, int numShards) throws Exception {
+        materialize();
+        int n = Math.max(1, Math.min(numShards, count));
+        ensureShards(n);
+        if (batchResult == null || batchResult.length < count * sizes[sizes.length - 1])
+            batchResult = new double[count * sizes[sizes.length - 1]];
+
+        if (dropout > 0)
+            maskBatch(count);
+        for (int s = 0; s < n; s++){
+            shards[s].assign(inputs, targets, count * s / n, count * (s + 1) / n);
+        }
+        run(executor, Arrays.<Callable<Void>>asList(shards).subList(0, n));
+
+        startStep();
+        double scale = 1.0 / count;
+        if (n == 1 && !regularized()){
+            for (int l = 0; l < weights.length; l++){
+                optimizer.update(l, weights[l], shards[0].gradients[l], 0, weights[l].length, scale, learningRate, momentum);
+            }
+        } else if (!regularized()){
+            List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+            for (int l = 0; l < weights.length; l++){
+                int length = weights[l].length;
+                for (int s = 0; s < n; s++){
+                    tasks.add(new Reduction(l, n, length * s / n, length * (s + 1) / n, scale, learningRate, momentum));
+                }
+            }
+            run(executor, tasks);
+        } else {
+            // norm gradien satu layer baru diketahui setelah semua shard dijumlahkan
+            List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+            for (int l = 0; l < weights.length && n > 1; l++){
+                int length = weights[l].length;
+                for (int s = 0; s < n; s++){
+                    tasks.add(new Reduction(l, n, length * s / n, length * (s + 1) / n, 0, 0, 0));
+                }
+            }
+            run(executor, tasks);
+            for (int l = 0; l < weights.length; l++){
+                double[] g = shards[0].gradients[l];
+                optimizer.update(l, weights[l], g, 0, g.length, regularize(l, g, scale), learningRate, momentum);
+            }
+        }
+        return batchResult;
+    }
+
+    /**
+     * Adds the L2 penalty to the summed gradient g of layer l, whose update
+     * is scaled by <code>scale</code>, and returns the scale that clips the
+     * norm of the scaled gradient to clipNorm.
+     */
+    private double regularize(int l, double[] g, double scale){
+        double[] w = weights[l];
+        int numWeights = sizes[l] * sizes[l + 1];
+        if (weightDecay > 0){
+            // descent direction, jadi penalti dikurangkan; dibagi scale karena update mengalikannya lagi
+            double f = weightDecay / scale;
+            for (int k = 0; k < numWeights; k++){
+                g[k] -= f * w[k];
+            }
+        }
+        if (clipNorm > 0){
+            double sum = 0;
+            for (int k = 0; k < g.length; k++){
+                sum += g[k] * g[k];
+            }
+            double norm = scale * Math.sqrt(sum);
+            if (norm > clipNorm)
+                return scale * clipNorm / norm;
+        }
+        return scale;
+    }
+
+    // inverted dropout: unit dibuang dengan peluang dropout, sisanya dikali 1 / (1 - dropout)
+    private void mask(double[] mask, int n){
+        double keep = 1 / (1 - dropout);
+        for (int i = 0; i < n; i++){
+            mask[i] = random.nextDouble() < dropout ? 0 : keep;
+        }
+    }
+
+    // mask semua baris batch dibuat di thread pemanggil, agar hasil tidak bergantung pada jumlah shard
+    private void maskBatch(int count){
+        if (sizes.length < 3)
+            return;
+        if (batchMasks == null || batchMasks[1].length < count * sizes[1]){
+            batchMasks = new double[sizes.length - 1][];
+            for (int l = 1; l < sizes.length - 1; l++){
+                batchMasks[l] = new double[count * sizes[l]];
+            }
+        }
+        for (int l = 1; l < sizes.length - 1; l++){
+            mask(batchMasks[l], count * sizes[l]);
+        }
+    }
+
+    // simpan output sebelum dropout di raw lalu kalikan dengan mask[off..off+n)
+    private static void drop(double[] out, double[] raw, double[] mask, int off, int n){
+        for (int i = 0; i < n; i++){
+            raw[i] = out[i];
+            out[i] *= mask[off + i];
+        }
+    }
+
+    private static void run(ExecutorService executor, List<Callable<Void>> tasks) throws Exception {
+        if (executor == null || tasks.size() == 1){
+            for (Callable<Void> task : tasks){
+                task.call();
+            }
+            return;
+        }
+
+        List<Future<Void>> futures = new ArrayList<Future<Void>>(tasks.size());
+        for (Callable<Void> task : tasks){
+            futures.add(executor.submit(task));
+        }
+        try {
+            for (Future<Void> f : futures){
+                f.get();
+            }
+        } catch (ExecutionException e) {
+            for (Future<Void> f : futures){
+                f.cancel(true);
+            }
+            if (e.getCause() instanceof Exception)
+                throw (Exception) e.getCause();
+            throw e;
+        }
+    }
+
+    private void ensureShards(int n){
+        if (shards == null || shards.length < n){
+            Shard[] old = shards;
+            shards = new Shard[n];
+            for (int s = 0; s < n; s++){
+                shards[s] = (old != null && s < old.length) ? old[s] : new Shard();
+            }
+        }
+    }
+
+    /**
+     * Computes the summed gradient of a contiguous range of batch rows into
+     * its own buffers, reading but never writing the weights.
+     */
+    private class Shard implements Callable<Void> {
+        private int capacity;
+        private double[][] outputs;
+        private double[][] errors;
+        private double[][] gradients;
+        // output hidden sebelum dropout
+        private double[][] raw;
+
+        private double[] inputs;
+        private double[] targets;
+        private int from;
+        private int to;
+
+        private void assign(double[] inputs, double[] targets, int from, int to){
+            this.inputs = inputs;
+            this.targets = targets;
+            this.from = from;
+            this.to = to;
+        }
+
+        private void ensureBuffers(int count){
+            if (outputs == null || capacity < count){
+                capacity = count;
+                outputs = new double[sizes.length][];
+                errors = new double[sizes.length][];
+                for (int l = 0; l < sizes.length; l++){
+                    outputs[l] = new double[count * sizes[l]];
+                    errors[l] = new double[count * sizes[l]];
+                }
+                raw = null;
+            }
+            if (dropout > 0 && raw == null){
+                raw = new double[sizes.length][];
+                for (int l = 1; l < sizes.length - 1; l++){
+                    raw[l] = new double[capacity * sizes[l]];
+                }
+            }
+            if (gradients == null){
+                gradients = new double[weights.length][];
+                for (int l = 0; l < weights.length; l++){
+                    gradients[l] = new double[weights[l].length];
+                }
+            }
+        }
+
+        public Void call(){
+            int count = to - from;
+            ensureBuffers(count);
+            int last = sizes.length - 1;
+
+            System.arraycopy(inputs, from * sizes[0], outputs[0], 0, count * sizes[0]);
+            forwardBatch(outputs, count, dropout > 0 ? raw : null, from);
+
+            double[] out = outputs[last];
+            double[] err = errors[last];
+            int tOff = from * sizes[last];
+            outputError(out, targets, tOff, err, count * sizes[last]);
+            System.arraycopy(out, 0, batchResult, tOff, count * sizes[last]);
+
+            for (int l = last - 1; l >= 0; l--){
+                double[] in = outputs[l];
+                double[] down = errors[l + 1];
+                int nIn = sizes[l];
+                int nOut = sizes[l + 1];
+
+                // gradien = down^T x in
+                double[] g = gradients[l];
+                Arrays.fill(g, 0);
+                for (int b = 0; b < count; b++){
+                    int inOff = b * nIn;
+                    int downOff = b * nOut;
+                    for (int j = 0, off = 0; j < nOut; j++, off += nIn){
+                        double e = down[downOff + j];
+                        if (e == 0)
+                            continue;
+                        for (int i = 0; i < nIn; i++){
+                            g[off + i] += e * in[inOff + i];
+                        }
+                    }
+                }
+                if (bias){
+                    int b0 = nIn * nOut;
+                    for (int b = 0; b < count; b++){
+                        for (int j = 0; j < nOut; j++){
+                            g[b0 + j] += down[b * nOut + j];
+                        }
+                    }
+                }
+
+                // error layer l = (down x w) * f'(in), dengan bobot sebelum update
+                if (l > 0){
+                    double[] w = weights[l];
+                    double[] cur = errors[l];
+                    Arrays.fill(cur, 0, count * nIn, 0);
+                    for (int b = 0; b < count; b++){
+                        int curOff = b * nIn;
+                        int downOff = b * nOut;
+                        for (int j = 0, off = 0; j < nOut; j++, off += nIn){
+                            double e = down[downOff + j];
+                            for (int i = 0; i < nIn; i++){
+                                cur[curOff + i] += w[off + i] * e;
+                            }
+                        }
+                    }
+                    if (dropout > 0){
+                        hiddenActivation.multiplyDerivative(raw[l], cur, 0, count * nIn);
+                        double[] mask = batchMasks[l];
+                        for (int k = 0, m = from * nIn; k < count * nIn; k++, m++){
+                            cur[k] *= mask[m];
+                        }
+                    } else {
+                        hiddenActivation.multiplyDerivative(in, cur, 0, count * nIn);
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Sums the shard gradients of a range of one layer's weights in shard
+     * order and applies the update to that range, or only sums them if the
+     * scale is 0.
+     */
+    private class Reduction implements Callable<Void> {
+        private int layer, numShards, from, to;
+        private double scale, rate, momentum;
+
+        private Reduction(int layer, int numShards, int from, int to, double scale, double rate, double momentum){
+            this.layer = layer;
+            this.numShards = numShards;
+            this.from = from;
+            this.to = to;
+            this.scale = scale;
+            this.rate = rate;
+            this.momentum = momentum;
+        }
+
+        public Void call(){
+            double[] g = shards[0].gradients[layer];
+            for (int s = 1; s < numShards; s++){
+                double[] other = shards[s].gradients[layer];
+                for (int k = from; k < to; k++){
+                    g[k] += other[k];
+                }
+            }
+            // scale 0: hanya menjumlahkan, update menunggu regularisasi seluruh layer
+            if (scale != 0)
+                optimizer.update(layer, weights[layer], g, from, to, scale, rate, momentum);
+            return null;
+        }
+    }
+
+    private void forwardBatch(double[][] outputs, int count){
+        forwardBatch(outputs, count, null, 0);
+    }
+
+    // dengan raw != null dropout dipakai, mask baris pertama adalah baris row dari batchMasks
+    private void forwardBatch(double[][] outputs, int count, double[][] raw, int row){
+        if (shared != null){
+            forwardShared(outputs, count);
+            return;
+        }
+        for (int l = 0; l < weights.length; l++){
+            multiplyTransposed(outputs[l], weights[l], outputs[l + 1], count, sizes[l], sizes[l + 1]);
+            double[] out = outputs[l + 1];
+            int nOut = sizes[l + 1];
+            if (bias){
+                double[] w = weights[l];
+                int b0 = sizes[l] * nOut;
+                for (int b = 0; b < count; b++){
+                    for (int j = 0, off = b * nOut; j < nOut; j++){
+                        out[off + j] += w[b0 + j];
+                    }
+                }
+            }
+            activate(l, out, count);
+            if (raw != null && l + 1 < sizes.length - 1)
+                drop(out, raw[l + 1], batchMasks[l + 1], row * nOut, count * nOut);
+        }
+    }
+
+    private void forwardShared(double[][] outputs, int count){
+        forwardShared(outputs, count, 0);
+    }
+
+    // forward pass untuk count baris dengan bobot dari buffer, mulai dari layer first
+    private void forwardShared(double[][] outputs, int count, int first){
+        for (int l = first; l < shared.length; l++){
+            DoubleBuffer w = shared[l];
+            double[] in = outputs[l];
+            double[] out = outputs[l + 1];
+            int nIn = sizes[l];
+            int nOut = sizes[l + 1];
+            int b0 = nIn * nOut;
+
+            for (int b = 0; b < count; b++){
+                int inOff = b * nIn;
+                int outOff = b * nOut;
+                for (int j = 0, off = 0; j < nOut; j++, off += nIn){
+                    double sum = 0;
+                    for (int i = 0; i < nIn; i++){
+                        sum += w.get(off + i) * in[inOff + i];
+                    }
+                    out[outOff + j] = bias ? sum + w.get(b0 + j) : sum;
+                }
+            }
+            activate(l, out, count);
+        }
+    }
+
+    // fungsi aktivasi (atau softmax) untuk sum count baris hasil layer l -> l+1
+    private void activate(int l, double[] out, int count){
+        int nOut = sizes[l + 1];
+        if (softmax && l == sizes.length - 2){
+            for (int b = 0; b < count; b++){
+                softmax(out, b * nOut, nOut);
+            }
+        } else {
+            activation(l + 1).apply(out, 0, count * nOut);
+        }
+    }
+
+    /**
+     * Replaces n sums starting at off with their softmax. The largest sum is
+     * subtracted before exponentiating so that exp() cannot overflow.
+     */
+    private static void softmax(double[] z, int off, int n){
+        double max = z[off];
+        for (int j = 1; j < n; j++){
+            if (z[off + j] > max)
+                max = z[off + j];
+        }
+        double total = 0;
+        for (int j = 0; j < n; j++){
+            z[off + j] = Math.exp(z[off + j] - max);
+            total += z[off + j];
+        }
+        for (int j = 0; j < n; j++){
+            z[off + j] /= total;
+        }
+    }
+
+    /**
+     * Error term (negative gradient of the loss with respect to the sums) of
+     * n outputs: units with squared error give f'(o)(t-o), softmax with
+     * cross entropy simplifies to t-o.
+     */
+    private void outputError(double[] out, double[] target, int tOff, double[] err, int n){
+        for (int k = 0; k < n; k++){
+            err[k] = target[tOff + k] - out[k];
+        }
+        if (!softmax)
+            outputActivation.multiplyDerivative(out, err, 0, n);
+    }
+
+    /**
+     * c[b][j] = sum_i a[b][i] * w[j][i] for a (rows x nIn) and w (nOut x nIn),
+     * tiled so that a block of weight rows stays in cache for many inputs.
+     */
+    private static void multiplyTransposed(double[] a, double[] w, double[] c, int rows, int nIn, int nOut){
+        for (int j0 = 0; j0 < nOut; j0 += TILE){
+            int j1 = Math.min(j0 + TILE, nOut);
+            for (int b = 0; b < rows; b++){
+                int aOff = b * nIn;
+                int cOff = b * nOut;
+                for (int j = j0, wOff = j0 * nIn; j < j1; j++, wOff += nIn){
+                    double sum = 0;
+                    for (int i = 0; i < nIn; i++){
+                        sum += a[aOff + i] * w[wOff + i];
+                    }
+                    c[cOff + j] = sum;
+                }
+            }
+        }
+    }
+
+    private void ensureBuffers(){
+        if (outputs == null){
+            outputs = new double[sizes.length][];
+            errors = new double[sizes.length][];
+            for (int l = 0; l < sizes.length; l++){
+                outputs[l] = new double[sizes[l]];
+                errors[l] = new double[sizes[l]];
+            }
+        }
+        if (dropout > 0 && raw == null){
+            raw = new double[sizes.length][];
+            masks = new double[sizes.length][];
+            for (int l = 1; l < sizes.length - 1; l++){
+                raw[l] = new double[sizes[l]];
+                masks[l] = new double[sizes[l]];
+            }
+        }
+        if (regularized() && gradients == null){
+            gradients = new double[weights.length][];
+            for (int l = 0; l < weights.length; l++){
+                gradients[l] = new double[weights[l].length];
+            }
+        }
+    }
+
+    private void forward(double[][] outputs){
+        forward(outputs, 0, false);
+    }
+
+    // forward pass mulai dari layer first -> first+1, dengan dropout jika train
+    private void forward(double[][] outputs, int first, boolean train){
+        if (shared != null){
+            forwardShared(outputs, 1, first);
+            return;
+        }
+        for (int l = first; l < weights.length; l++){
+            double[] w = weights[l];
+            double[] in = outputs[l];
+            double[] out = outputs[l + 1];
+            int nIn = sizes[l];
+            int nOut = sizes[l + 1];
+
+            int b0 = nIn * nOut;
+            for (int j = 0, off = 0; j < nOut; j++, off += nIn){
+                double sum = 0;
+                for (int i = 0; i < nIn; i++){
+                    sum += w[off + i] * in[i];
+                }
+                out[j] = bias ? sum + w[b0 + j] : sum;
+            }
+            activate(l, out, 1);
+            dropout(l + 1, out, train);
+        }
+    }
+
+    // dropout pada unit hidden layer h dari satu langkah online
+    private void dropout(int h, double[] out, boolean train){
+        if (!train || dropout == 0 || h == sizes.length - 1)
+            return;
+        mask(masks[h], sizes[h]);
+        drop(out, raw[h], masks[h], 0, sizes[h]);
+    }
+
+    // layer 0 -> 1 hanya untuk input bukan 0, lalu layer berikutnya seperti biasa
+    private void forwardSparse(int[] indices, double[] values, int from, int to, double[][] outputs, boolean train){
+        double[] out = outputs[1];
+        int nIn = sizes[0];
+        int nOut = sizes[1];
+        int b0 = nIn * nOut;
+        if (shared != null){
+            DoubleBuffer w = shared[0];
+            for (int j = 0, off = 0; j < nOut; j++, off += nIn){
+                double sum = 0;
+                for (int q = from; q < to; q++){
+                    sum += w.get(off + indices[q]) * values[q];
+                }
+                out[j] = bias ? sum + w.get(b0 + j) : sum;
+            }
+        } else {
+            double[] w = weights[0];
+            for (int j = 0, off = 0; j < nOut; j++, off += nIn){
+                double sum = 0;
+                for (int q = from; q < to; q++){
+                    sum += w[off + indices[q]] * values[q];
+                }
+                out[j] = bias ? sum + w[b0 + j] : sum;
+            }
+        }
+        activate(0, out, 1);
+        dropout(1, out, train);
+        forward(outputs, 1, train);
+    }
+
+    private void backpropagate(double[] target, double learningRate, double momentum){
+        int last = sizes.length - 1;
+        double[] out = outputs[last];
+        double[] err = errors[last];
+        outputError(out, target, 0, err, sizes[last]);
+        startStep();
+
+        for (int l = last - 1; l >= 0; l--){
+            double[] w = weights[l];
+            double[] in = outputs[l];
+            double[] down = errors[l + 1];
+            int nIn = sizes[l];
+            int nOut = sizes[l + 1];
+
+            // update bobot l -> l+1
+            if (l == 0 && sparseIndices != null){
+                if (optimizer.skipsZeroGradients(momentum) && !regularized()){
+                    for (int j = 0, off = 0; j < nOut; j++, off += nIn){
+                        optimizer.updateSparseRow(l, w, off, nIn, sparseIndices, sparseValues, sparseFrom, sparseTo,
+                                down[j], learningRate, momentum);
+                    }
+                } else {
+                    Arrays.fill(in, 0);
+                    for (int q = sparseFrom; q < sparseTo; q++){
+                        in[sparseIndices[q]] = sparseValues[q];
+                    }
+                    sparseIndices = null;
+                }
+            }
+            if (regularized()){
+                double[] g = gradients[l];
+                for (int j = 0, off = 0; j < nOut; j++, off += nIn){
+                    double e = down[j];
+                    for (int i = 0; i < nIn; i++){
+                        g[off + i] = e * in[i];
+                    }
+                }
+                if (bias)
+                    System.arraycopy(down, 0, g, nIn * nOut, nOut);
+                optimizer.update(l, w, g, 0, g.length, regularize(l, g, 1.0), learningRate, momentum);
+            } else {
+                if (l > 0 || sparseIndices == null){
+                    for (int j = 0, off = 0; j < nOut; j++, off += nIn){
+                        optimizer.updateRow(l, w, off, in, nIn, down[j], learningRate, momentum);
+                    }
+                }
+                if (bias)
+                    optimizer.updateRow(l, w, nIn * nOut, down, nOut, 1.0, learningRate, momentum);
+            }
+
+            // error layer l memakai bobot yang sudah diupdate
+            if (l > 0){
+                double[] cur = errors[l];
+                for (int i = 0; i < nIn; i++){
+                    cur[i] = 0;
+                }
+                for (int j = 0, off = 0; j < nOut; j++, off += nIn){
+                    double e = down[j];
+                    for (int i = 0; i < nIn; i++){
+                        cur[i] += w[off + i] * e;
+                    }
+                }
+                if (dropout > 0){
+                    // turunan dari output sebelum dropout, unit yang dibuang tidak meneruskan error
+                    hiddenActivation.multiplyDerivative(raw[l], cur, 0, nIn);
+                    double[] mask = masks[l];
+                    for (int i = 0; i < nIn; i++){
+                        cur[i] *= mask[i];
+                    }
+                } else {
+                    hiddenActivation.multiplyDerivative(in, cur, 0, nIn);
+                }
+            }
+        }
+        sparseIndices = null;
+        sparseValues = null;
+    }
+}
@@ -9,8 +9,16 @@ public class Node implements Serializable {
 	private int antalTriggered = 0, antallinkstil = 0;
 	private double senesteinput = 0, senesteoutput = 0, sum;
 	private ArrayList<Links> forbundetTil;
+	private Activation function;
+	private double bias = 0, biasP = 0;
 	public Node(boolean act){
-		this.act = act;
+		this(act ? new Activation.Sigmoid() : null);
+	}
+
+	// function null = node input tanpa fungsi aktivasi
+	public Node(Activation function){
+		this.act = function != null;
+		this.function = function;
 		this.forbundetTil = new ArrayList<Links>();
 	}
 	
@@ -38,20 +46,16 @@ public class Node implements Serializable {
 	}
 	
 	public void test(){
-		for(Links n : this.forbundetTil){
-			if(this.act){
-				n.getTil().input(activation(this.sum)*n.getV());
-			}
-			else{
-				n.getTil().input(this.sum*n.getV());
-			}
-		}
+		// aktivasi dihitung sekali, bukan sekali per link
 		if(this.act){
-			this.senesteoutput = activation(this.sum);
+			this.senesteoutput = activation();
 		}
 		else{
 			this.senesteoutput = this.sum;
 		}
+		for(Links n : this.forbundetTil){
+			n.getTil().input(this.senesteoutput*n.getV());
+		}
 		this.sum = 0.0;
 		this.antalTriggered = 0;
 	}
@@ -69,7 +73,31 @@ public class Node implements Serializable {
 		return retur;
 	}
 
-    private static double activation(double x){
-        return 1.0/(1+Math.pow(Math.E, -x));
-    }
+	public double getBias(){
+		return this.bias;
+	}
+
+	public void setBias(double bias){
+		this.bias = bias;
+	}
+
+	// momentum untuk bias, sama seperti Links.p
+	public double getBiasP(){
+		return this.biasP;
+	}
+
+	public void setBiasP(double biasP){
+		this.biasP = biasP;
+	}
+
+	public Activation getFunction(){
+		return this.function;
+	}
+
+	private double activation(){
+		// model lama tidak menyimpan fungsi aktivasi, selalu sigmoid
+		if (this.function == null)
+			this.function = new Activation.Sigmoid();
+		return this.function.apply(this.sum + this.bias);
+	}
 }
\ No newline at end of file
@@ -0,0 +1,319 @@
+/*
+ *    Optimizer.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ *
+ *    Weight update rules for DenseNetwork
+ */
+
+package weka.classifiers.ann.engine;
+
+import java.io.Serializable;
+
+/**
+ * Turns gradients into weight updates. The state of an optimizer (momentum
+ * terms, running averages of squared gradients) is kept in flat arrays
+ * parallel to the weight arrays of {@link DenseNetwork}, one per layer.
+ * <p/>
+ * Gradients are passed as descent directions, i.e. the negative gradient of
+ * the loss, the same sign the backpropagation errors have. Updates of
+ * disjoint ranges of a layer may run concurrently; {@link #step()} must be
+ * called once, by a single thread, before the updates of every training
+ * step.
+ */
+public abstract class Optimizer implements Serializable {
+    private static final long serialVersionUID = 6037146258413950712L;
+
+    public static final int SGD = 0;
+    public static final int NESTEROV = 1;
+    public static final int RMSPROP = 2;
+    public static final int ADAM = 3;
+
+    /** names of the types, indexed by type */
+    public static final String[] NAMES = {"SGD", "NESTEROV", "RMSPROP", "ADAM"};
+
+    protected double[][] first;
+    protected double[][] second;
+    protected long steps;
+
+    public static Optimizer forType(int type){
+        switch (type){
+            case SGD:
+                return new Momentum();
+            case NESTEROV:
+                return new Nesterov();
+            case RMSPROP:
+                return new RMSProp();
+            case ADAM:
+                return new Adam();
+            default:
+                throw new IllegalArgumentException("Unknown optimizer: " + type);
+        }
+    }
+
+    /**
+     * Allocates zeroed state for weight arrays of the given lengths, unless
+     * the state already matches them.
+     */
+    public void init(int[] lengths){
+        if (first != null && first.length == lengths.length){
+            boolean same = true;
+            for (int l = 0; l < lengths.length && same; l++){
+                same = first[l].length == lengths[l];
+            }
+            if (same)
+                return;
+        }
+        first = new double[lengths.length][];
+        second = usesSecondMoment() ? new double[lengths.length][] : null;
+        for (int l = 0; l < lengths.length; l++){
+            first[l] = new double[lengths[l]];
+            if (second != null)
+                second[l] = new double[lengths[l]];
+        }
+        steps = 0;
+    }
+
+    /** Clears the state, e.g. after the weights were reinitialized. */
+    public void reset(){
+        first = null;
+        second = null;
+        steps = 0;
+    }
+
+    protected boolean usesSecondMoment(){
+        return false;
+    }
+
+    /** Starts a new training step. */
+    public void step(){
+        steps++;
+    }
+
+    /**
+     * Updates w[from..to) of a layer with the gradient scale * g[from..to).
+     */
+    public abstract void update(int layer, double[] w, double[] g, int from, int to,
+                                double scale, double rate, double momentum);
+
+    /**
+     * Updates the n weights of one unit, w[off..off+n), whose gradient is
+     * e * in[0..n). Used by online training, where the gradient of a layer is
+     * an outer product that never needs to be stored.
+     */
+    public abstract void updateRow(int layer, double[] w, int off, double[] in, int n, double e,
+                                   double rate, double momentum);
+
+    /**
+     * Whether a zero gradient leaves a weight and the state the update reads
+     * unchanged, so that an update may skip the weights of the inputs that
+     * are 0. Only then may {@link #updateSparseRow} be used.
+     */
+    public boolean skipsZeroGradients(double momentum){
+        return false;
+    }
+
+    /**
+     * Like {@link #updateRow}, for an input of n values that is 0 except for
+     * values[from..to) at the indices indices[from..to). Optimizers for which
+     * {@link #skipsZeroGradients} holds visit only the weights of those
+     * inputs; this implementation expands the input and calls updateRow.
+     */
+    public void updateSparseRow(int layer, double[] w, int off, int n, int[] indices, double[] values, int from, int to,
+                                double e, double rate, double momentum){
+        double[] in = new double[n];
+        for (int q = from; q < to; q++){
+            in[indices[q]] = values[q];
+        }
+        updateRow(layer, w, off, in, n, e, rate, momentum);
+    }
+
+    public abstract String toString();
+
+    /** Gradient descent with classical momentum. */
+    public static class Momentum extends Optimizer {
+        private static final long serialVersionUID = -1769230812406734715L;
+
+        public void update(int layer, double[] w, double[] g, int from, int to,
+                           double scale, double rate, double momentum){
+            double[] p = first[layer];
+            double r = rate * scale;
+            for (int k = from; k < to; k++){
+                double d = r * g[k];
+                w[k] = w[k] + d + momentum * p[k];
+                p[k] = d + momentum * p[k];
+            }
+        }
+
+        public void updateRow(int layer, double[] w, int off, double[] in, int n, double e,
+                              double rate, double momentum){
+            double[] p = first[layer];
+            double s = rate * e;
+            for (int i = 0; i < n; i++){
+                double d = s * in[i];
+                w[off + i] = w[off + i] + d + momentum * p[off + i];
+                p[off + i] = d + momentum * p[off + i];
+            }
+        }
+
+        // tanpa momentum, langkah dengan gradien 0 tidak mengubah bobot
+        public boolean skipsZeroGradients(double momentum){
+            return momentum == 0;
+        }
+
+        // p bobot yang dilewati tidak dinolkan, p hanya dibaca jika momentum > 0
+        public void updateSparseRow(int layer, double[] w, int off, int n, int[] indices, double[] values, int from, int to,
+                                    double e, double rate, double momentum){
+            double[] p = first[layer];
+            double s = rate * e;
+            for (int q = from; q < to; q++){
+                int k = off + indices[q];
+                double d = s * values[q];
+                w[k] = w[k] + d;
+                p[k] = d;
+            }
+        }
+
+        public String toString(){
+            return "SGD";
+        }
+    }
+
+    /** Nesterov accelerated gradient, in the form that only needs the gradient at w. */
+    public static class Nesterov extends Optimizer {
+        private static final long serialVersionUID = 3570925818263021736L;
+
+        public void update(int layer, double[] w, double[] g, int from, int to,
+                           double scale, double rate, double momentum){
+            double[] p = first[layer];
+            double r = rate * scale;
+            for (int k = from; k < to; k++){
+                double d = r * g[k];
+                p[k] = momentum * p[k] + d;
+                w[k] += momentum * p[k] + d;
+            }
+        }
+
+        public void updateRow(int layer, double[] w, int off, double[] in, int n, double e,
+                              double rate, double momentum){
+            double[] p = first[layer];
+            double s = rate * e;
+            for (int i = 0; i < n; i++){
+                double d = s * in[i];
+                p[off + i] = momentum * p[off + i] + d;
+                w[off + i] += momentum * p[off + i] + d;
+            }
+        }
+
+        public boolean skipsZeroGradients(double momentum){
+            return momentum == 0;
+        }
+
+        public void updateSparseRow(int layer, double[] w, int off, int n, int[] indices, double[] values, int from, int to,
+                                    double e, double rate, double momentum){
+            double[] p = first[layer];
+            double s = rate * e;
+            for (int q = from; q < to; q++){
+                int k = off + indices[q];
+                double d = s * values[q];
+                p[k] = d;
+                w[k] += d;
+            }
+        }
+
+        public String toString(){
+            return "NESTEROV";
+        }
+    }
+
+    /** RMSProp with decay 0.9. The momentum argument is not used. */
+    public static class RMSProp extends Optimizer {
+        private static final long serialVersionUID = -4810664738012397214L;
+
+        private static final double DECAY = 0.9;
+        private static final double EPSILON = 1e-8;
+
+        protected boolean usesSecondMoment(){
+            return true;
+        }
+
+        public void update(int layer, double[] w, double[] g, int from, int to,
+                           double scale, double rate, double momentum){
+            double[] s = second[layer];
+            for (int k = from; k < to; k++){
+                double d = scale * g[k];
+                s[k] = DECAY * s[k] + (1 - DECAY) * d * d;
+                w[k] += rate * d / (Math.sqrt(s[k]) + EPSILON);
+            }
+        }
+
+        public void updateRow(int layer, double[] w, int off, double[] in, int n, double e,
+                              double rate, double momentum){
+            double[] s = second[layer];
+            for (int i = 0; i < n; i++){
+                int k = off + i;
+                double d = e * in[i];
+                s[k] = DECAY * s[k] + (1 - DECAY) * d * d;
+                w[k] += rate * d / (Math.sqrt(s[k]) + EPSILON);
+            }
+        }
+
+        public String toString(){
+            return "RMSPROP";
+        }
+    }
+
+    /** Adam with beta1 = 0.9 and beta2 = 0.999. The momentum argument is not used. */
+    public static class Adam extends Optimizer {
+        private static final long serialVersionUID = 2254168430651139806L;
+
+        private static final double BETA1 = 0.9;
+        private static final double BETA2 = 0.999;
+        private static final double EPSILON = 1e-8;
+
+        // koreksi bias untuk step sekarang, dihitung sekali di step()
+        private double correction1 = 1, correction2 = 1;
+
+        protected boolean usesSecondMoment(){
+            return true;
+        }
+
+        public void step(){
+            super.step();
+            correction1 = 1 - Math.pow(BETA1, steps);
+            correction2 = 1 - Math.pow(BETA2, steps);
+        }
+
+        public void update(int layer, double[] w, double[] g, int from, int to,
+                           double scale, double rate, double momentum){
+            double[] m = first[layer];
+            double[] v = second[layer];
+            double r = rate / correction1;
+            double c = 1 / correction2;
+            for (int k = from; k < to; k++){
+                double d = scale * g[k];
+                m[k] = BETA1 * m[k] + (1 - BETA1) * d;
+                v[k] = BETA2 * v[k] + (1 - BETA2) * d * d;
+                w[k] += r * m[k] / (Math.sqrt(v[k] * c) + EPSILON);
+            }
+        }
+
+        public void updateRow(int layer, double[] w, int off, double[] in, int n, double e,
+                              double rate, double momentum){
+            double[] m = first[layer];
+            double[] v = second[layer];
+            double r = rate / correction1;
+            double c = 1 / correction2;
+            for (int i = 0; i < n; i++){
+                int k = off + i;
+                double d = e * in[i];
+                m[k] = BETA1 * m[k] + (1 - BETA1) * d;
+                v[k] = BETA2 * v[k] + (1 - BETA2) * d * d;
+                w[k] += r * m[k] / (Math.sqrt(v[k] * c) + EPSILON);
+            }
+        }
+
+        public String toString(){
+            return "ADAM";
+        }
+    }
+}
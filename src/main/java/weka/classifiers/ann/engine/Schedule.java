@@ -0,0 +1,83 @@
+/*
+ *    Schedule.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ *
+ *    Learning rate schedules for the ann classifiers
+ */
+
+package weka.classifiers.ann.engine;
+
+import java.io.Serializable;
+
+/**
+ * Learning rate as a function of training progress, measured in (fractional)
+ * epochs. The base rate is scaled by
+ * <ul>
+ *   <li>CONSTANT: 1</li>
+ *   <li>STEP: 0.5 after every <code>decayEpochs</code> epochs</li>
+ *   <li>COSINE: (1 + cos(pi * epoch / epochs)) / 2, from 1 down to 0 at the
+ *   end of training</li>
+ * </ul>
+ * and during the first <code>warmupEpochs</code> epochs additionally by a
+ * linear warm-up from 0 to 1.
+ */
+public class Schedule implements Serializable {
+    private static final long serialVersionUID = -2617047985093618257L;
+
+    public static final int CONSTANT = 0;
+    public static final int STEP = 1;
+    public static final int COSINE = 2;
+
+    /** names of the types, indexed by type */
+    public static final String[] NAMES = {"CONSTANT", "STEP", "COSINE"};
+
+    /** factor applied by the STEP schedule after every decay interval */
+    public static final double STEP_FACTOR = 0.5;
+
+    private int type;
+    private double decayEpochs;
+    private double warmupEpochs;
+
+    public Schedule(int type, double decayEpochs, double warmupEpochs){
+        if (type < CONSTANT || type > COSINE)
+            throw new IllegalArgumentException("Unknown schedule: " + type);
+        this.type = type;
+        this.decayEpochs = decayEpochs;
+        this.warmupEpochs = warmupEpochs;
+    }
+
+    /**
+     * Returns the learning rate after <code>epoch</code> of
+     * <code>epochs</code> epochs of training.
+     */
+    public double rate(double base, double epoch, double epochs){
+        double rate = base;
+        switch (type){
+            case STEP:
+                if (decayEpochs > 0)
+                    rate *= Math.pow(STEP_FACTOR, Math.floor(epoch / decayEpochs));
+                break;
+            case COSINE:
+                if (epochs > 0)
+                    rate *= 0.5 * (1 + Math.cos(Math.PI * Math.min(epoch / epochs, 1)));
+                break;
+        }
+        if (epoch < warmupEpochs)
+            rate *= epoch / warmupEpochs;
+        return rate;
+    }
+
+    /** Whether the rate is always the base rate. */
+    public boolean isConstant(){
+        return type == CONSTANT && warmupEpochs <= 0;
+    }
+
+    public String toString(){
+        String s = NAMES[type];
+        if (type == STEP)
+            s += " (every " + decayEpochs + " epochs)";
+        if (warmupEpochs > 0)
+            s += ", warm-up " + warmupEpochs + " epochs";
+        return s;
+    }
+}
@@ -22,6 +22,9 @@
 package weka.classifiers.functions;
 
 import weka.classifiers.Classifier;
+import weka.classifiers.TrainingListener;
+import weka.classifiers.TrainingListenerHandler;
+import weka.classifiers.TrainingMetrics;
 import weka.classifiers.functions.neural.LinearUnit;
 import weka.classifiers.functions.neural.NeuralConnection;
 import weka.classifiers.functions.neural.NeuralNode;
@@ -140,6 +143,10 @@ import javax.swing.JTextField;
  *  Learning rate decay will occur.
  *  (Set this to cause the learning rate to decay).</pre>
  * 
+ * <pre> -Y
+ *  The progress of every epoch will be printed to stderr.
+ *  (Loss, instances per second, time per phase, allocations).</pre>
+ * 
  <!-- options-end -->
  *
  * @author Malcolm Ware (mfw4@cs.waikato.ac.nz)
@@ -147,7 +154,8 @@ import javax.swing.JTextField;
  */
 public class MultilayerPerceptron 
   extends Classifier 
-  implements OptionHandler, WeightedInstancesHandler, Randomizable {
+  implements OptionHandler, WeightedInstancesHandler, Randomizable,
+             TrainingListenerHandler {
   
   /** for serialization */
   private static final long serialVersionUID = -5990607817048210779L;
@@ -993,6 +1001,15 @@ public class MultilayerPerceptron
   /** This flag states that the user wants the learning rate to decay. */
   private boolean m_decay;
 
+  /** This flag states that the progress is printed to stderr. */
+  private boolean m_printProgress;
+
+  /** The training listeners, not serialized. */
+  private transient Vector<TrainingListener> m_listeners;
+
+  /** The metrics of the running buildClassifier call, null if nobody listens. */
+  private transient TrainingMetrics m_metrics;
+
   /** This is the learning rate for the network. */
   private double m_learningRate;
 
@@ -1076,6 +1093,7 @@ public class MultilayerPerceptron
     m_momentum = .2;
     m_reset = true;
     m_decay = false;
+    m_printProgress = false;
   }
 
   /**
@@ -1092,6 +1110,43 @@ public class MultilayerPerceptron
     return m_decay;
   }
 
+  /**
+   * @param p True if the progress of every epoch should be printed to stderr.
+   */
+  public void setPrintProgress(boolean p) {
+    m_printProgress = p;
+  }
+
+  /**
+   * @return the flag for printing the progress of every epoch.
+   */
+  public boolean getPrintProgress() {
+    return m_printProgress;
+  }
+
+  /**
+   * Adds a listener that follows the following calls to buildClassifier.
+   *
+   * @param l the listener to add
+   */
+  public synchronized void addTrainingListener(TrainingListener l) {
+    if (m_listeners == null) {
+      m_listeners = new Vector<TrainingListener>();
+    }
+    m_listeners.add(l);
+  }
+
+  /**
+   * Removes a training listener.
+   *
+   * @param l the listener to remove
+   */
+  public synchronized void removeTrainingListener(TrainingListener l) {
+    if (m_listeners != null) {
+      m_listeners.remove(l);
+    }
+  }
+
   /**
    * This sets the network up to be able to reset itself with the current 
    * settings and the learning rate at half of what it is currently. This
@@ -1755,6 +1810,29 @@ public class MultilayerPerceptron
    * @throws Exception if can't build classification properly.
    */
   public void buildClassifier(Instances i) throws Exception {
+    // a reset calls buildClassifier again, the metrics are kept
+    boolean outer = m_metrics == null;
+    if (outer) {
+      m_metrics = TrainingMetrics.create(this, m_listeners, m_printProgress);
+    }
+    try {
+      build(i);
+    } finally {
+      if (outer && m_metrics != null) {
+        m_metrics.finished(Double.NaN);
+      }
+      if (outer) {
+        m_metrics = null;
+      }
+    }
+  }
+
+  /**
+   * Builds and trains the network, see buildClassifier.
+   * @param i The training data.
+   * @throws Exception if can't build classification properly.
+   */
+  private void build(Instances i) throws Exception {
 
     // can classifier handle the data?
     getCapabilities().testWithFail(i);
@@ -1797,6 +1875,7 @@ public class MultilayerPerceptron
     m_stopIt = true;
     m_stopped = true;
     m_accepted = false;    
+    long start = m_metrics != null ? System.nanoTime() : 0;
     m_instances = new Instances(i);
     m_random = new Random(m_randomSeed);
     m_instances.randomize(m_random);
@@ -1812,6 +1891,9 @@ public class MultilayerPerceptron
  
     
     setClassType(m_instances);
+    if (m_metrics != null) {
+      m_metrics.add(TrainingMetrics.FILTER, start);
+    }
     
 
    
@@ -1948,8 +2030,12 @@ public class MultilayerPerceptron
 	   
 	  //this is where the network updating (and training occurs, for the
 	  //training set
+	  start = m_metrics != null ? System.nanoTime() : 0;
 	  resetNetwork();
 	  calculateOutputs();
+	  if (m_metrics != null) {
+	    start = m_metrics.add(TrainingMetrics.FORWARD, start);
+	  }
 	  tempRate = m_learningRate * m_currentInstance.weight();  
 	  if (m_decay) {
 	    tempRate /= noa;
@@ -1958,11 +2044,16 @@ public class MultilayerPerceptron
 	  right += (calculateErrors() / m_instances.numClasses()) *
 	    m_currentInstance.weight();
 	  updateNetworkWeights(tempRate, m_momentum);
+	  if (m_metrics != null) {
+	    m_metrics.add(TrainingMetrics.BACKWARD, start);
+	    m_metrics.instances(1);
+	  }
 	  
 	}
 	
       }
       right /= totalWeight;
+      double trainError = right;
       if (Double.isInfinite(right) || Double.isNaN(right)) {
 	if (!m_reset) {
 	  m_instances = null;
@@ -1986,6 +2077,7 @@ public class MultilayerPerceptron
 
       ////////////////////////do validation testing if applicable
       if (m_valSize != 0) {
+	start = m_metrics != null ? System.nanoTime() : 0;
 	right = 0;
 	for (int nob = 0; nob < valSet.numInstances(); nob++) {
 	  m_currentInstance = valSet.instance(nob);
@@ -2001,6 +2093,9 @@ public class MultilayerPerceptron
 	  }
 	  
 	}
+	if (m_metrics != null) {
+	  m_metrics.add(TrainingMetrics.ERROR, start);
+	}
 	
 	if (right < lastRight) {
 	  
@@ -2027,6 +2122,9 @@ public class MultilayerPerceptron
       }
       m_epoch = noa;
       m_error = right;
+      if (m_metrics != null) {
+	m_metrics.epochFinished(trainError);
+      }
       //shows what the neuralnet is upto if a gui exists. 
       updateDisplay();
       //This junction controls what state the gui is in at the end of each
@@ -2222,6 +2320,10 @@ public class MultilayerPerceptron
               "\tLearning rate decay will occur.\n"
 	      +"\t(Set this to cause the learning rate to decay).",
 	      "D", 0,"-D"));
+    newVector.addElement(new Option(
+              "\tThe progress of every epoch will be printed to stderr.\n"
+	      +"\t(Loss, instances per second, time per phase, allocations).",
+	      "Y", 0,"-Y"));
     
     
     return newVector.elements();
@@ -2294,6 +2396,10 @@ public class MultilayerPerceptron
    *  Learning rate decay will occur.
    *  (Set this to cause the learning rate to decay).</pre>
    * 
+   * <pre> -Y
+   *  The progress of every epoch will be printed to stderr.
+   *  (Loss, instances per second, time per phase, allocations).</pre>
+   * 
    <!-- options-end -->
    *
    * @param options the list of options as an array of strings
@@ -2380,6 +2486,7 @@ public class MultilayerPerceptron
     } else {
       setDecay(false);
     }
+    setPrintProgress(Utils.getFlag('Y', options));
     
     Utils.checkForRemainingOptions(options);
   }
@@ -2391,7 +2498,7 @@ public class MultilayerPerceptron
    */
   public String [] getOptions() {
 
-    String [] options = new String [21];
+    String [] options = new String [22];
     int current = 0;
     options[current++] = "-L"; options[current++] = "" + getLearningRate(); 
     options[current++] = "-M"; options[current++] = "" + getMomentum();
@@ -2421,6 +2528,9 @@ public class MultilayerPerceptron
     if (getDecay()) {
       options[current++] = "-D";
     }
+    if (getPrintProgress()) {
+      options[current++] = "-Y";
+    }
 
     
     while (current < options.length) {
@@ -2676,6 +2786,14 @@ public class MultilayerPerceptron
       " fail the training process and return an error message.";
   }
   
+  /**
+   * @return a string to describe the printProgress option.
+   */
+  public String printProgressTipText() {
+    return "Print the training loss, instances per second, time per phase"
+      + " and allocated bytes of every epoch to stderr.";
+  }
+
   /**
    * @return a string to describe the Decay option.
    */
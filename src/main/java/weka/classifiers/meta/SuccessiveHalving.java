@@ -0,0 +1,875 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+/*
+ *    SuccessiveHalving.java
+ *    Copyright (C) 2015 University of Waikato, Hamilton, New Zealand
+ *
+ */
+
+package weka.classifiers.meta;
+
+import weka.classifiers.Classifier;
+import weka.classifiers.ConvergingClassifier;
+import weka.classifiers.Evaluation;
+import weka.classifiers.IterativeClassifier;
+import weka.classifiers.RandomizableSingleClassifierEnhancer;
+import weka.core.Capabilities;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.Option;
+import weka.core.OptionHandler;
+import weka.core.RevisionUtils;
+import weka.core.Utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Random;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ <!-- globalinfo-start -->
+ * Selects classifier parameters from a grid with successive halving. Every
+ * candidate is trained for a few epochs on part of the training data and
+ * evaluated on the rest; only the best 1/eta of the candidates are trained
+ * further, for eta times as many epochs, until one is left. The base
+ * classifier must be an IterativeClassifier (e.g. MLP, PTR or DR), whose
+ * training continues where the previous round stopped. Candidates of a
+ * round are trained in parallel. The selected parameters are used to build
+ * the final model on all the training data.
+ * <p/>
+ <!-- globalinfo-end -->
+ *
+ <!-- options-start -->
+ * Valid options are: <p/>
+ *
+ * <pre> -P &lt;classifier parameter&gt;
+ *  Classifier parameter options, as in CVParameterSelection.
+ *  eg: "L 0.1 0.5 5" searches the option -L from 0.1 to 0.5
+ *  in 5 steps. An R at the end rounds the values. This
+ *  parameter may be supplied more than once to search the
+ *  grid of several options.</pre>
+ *
+ * <pre> -E &lt;reduction factor&gt;
+ *  Factor by which the candidates are reduced and the
+ *  epochs increased every round (default 3).</pre>
+ *
+ * <pre> -M &lt;min epochs&gt;
+ *  Epochs of the first round (default 1).</pre>
+ *
+ * <pre> -V &lt;validation percent&gt;
+ *  Percentage of the training data used to evaluate the
+ *  candidates (default 25).</pre>
+ *
+ * <pre> -num-slots &lt;num&gt;
+ *  Number of candidates trained in parallel (default 1).</pre>
+ *
+ * <pre> -S &lt;num&gt;
+ *  Random number seed.
+ *  (default 1)</pre>
+ *
+ * <pre> -D
+ *  If set, classifier is run in debug mode and
+ *  may output additional info to the console</pre>
+ *
+ * <pre> -W
+ *  Full name of base classifier.
+ *  (default: weka.classifiers.ann.MLP)</pre>
+ *
+ <!-- options-end -->
+ *
+ * Options after -- are passed to the designated sub-classifier. <p>
+ *
+ * @version $Revision: 1.0 $
+ */
+public class SuccessiveHalving
+  extends RandomizableSingleClassifierEnhancer {
+
+  /** for serialization */
+  static final long serialVersionUID = 5403381736172594916L;
+
+  /**
+   * A searched parameter: the option name and the values of the grid.
+   */
+  protected static class Parameter
+    implements java.io.Serializable {
+
+    /** for serialization */
+    static final long serialVersionUID = -3617519216853924174L;
+
+    /** the option name, without the dash */
+    protected String m_Name;
+
+    /** lower bound */
+    protected double m_Lower;
+
+    /** upper bound */
+    protected double m_Upper;
+
+    /** number of values */
+    protected int m_Steps;
+
+    /** whether the values are rounded to integers */
+    protected boolean m_Round;
+
+    /**
+     * Parses a parameter in CVParameterSelection format: name, lower
+     * bound, upper bound, number of steps and an optional R.
+     *
+     * @param param the parameter definition
+     * @throws Exception if the definition is malformed
+     */
+    public Parameter(String param) throws Exception {
+      String[] parts = param.trim().split(" +");
+      if (parts.length < 4 || parts.length > 5) {
+        throw new Exception("Parameter " + param
+            + ": four or five components expected!");
+      }
+      m_Name = parts[0];
+      try {
+        m_Lower = Double.parseDouble(parts[1]);
+        m_Upper = Double.parseDouble(parts[2]);
+        m_Steps = Integer.parseInt(parts[3]);
+      } catch (NumberFormatException e) {
+        throw new Exception("Parameter " + param
+            + ": numeric bounds and number of steps expected");
+      }
+      if (m_Upper < m_Lower || m_Steps < 1) {
+        throw new Exception("Parameter " + param
+            + ": upper bound below lower bound or no steps");
+      }
+      if (parts.length == 5 && parts[4].equals("R")) {
+        m_Round = true;
+      }
+    }
+
+    /**
+     * Returns the k-th value of the grid as an option value.
+     *
+     * @param k the index of the value
+     * @return the value as string
+     */
+    public String value(int k) {
+      double value = m_Steps == 1 ? m_Lower
+        : m_Lower + k * (m_Upper - m_Lower) / (m_Steps - 1);
+      if (m_Round) {
+        value = Math.rint(value);
+      }
+      if (value == (int) value) {
+        return Utils.doubleToString(value, 4);
+      }
+      return "" + value;
+    }
+
+    /**
+     * Returns the parameter in the format of the constructor.
+     *
+     * @return the parameter as string
+     */
+    public String toString() {
+      return m_Name + " " + m_Lower + " " + m_Upper + " " + m_Steps
+        + (m_Round ? " R" : "");
+    }
+  }
+
+  /**
+   * A candidate of the search with the state of its training run.
+   */
+  protected static class Candidate {
+
+    /** index in the grid, breaks ties */
+    protected int m_Index;
+
+    /** the options that are searched */
+    protected String[] m_Options;
+
+    /** the classifier, trained by the rounds so far */
+    protected Classifier m_Classifier;
+
+    /** epochs trained so far */
+    protected int m_Epochs;
+
+    /** whether the classifier has finished training, e.g. converged */
+    protected boolean m_Finished;
+
+    /** validation error after the last round */
+    protected double m_Error;
+
+    /** nanoseconds spent training */
+    protected long m_Nanos;
+  }
+
+  /** The parameters to search */
+  protected Vector<Parameter> m_Parameters = new Vector<Parameter>();
+
+  /** The factor by which candidates are reduced every round */
+  protected int m_ReductionFactor = 3;
+
+  /** The epochs of the first round */
+  protected int m_MinEpochs = 1;
+
+  /** The percentage of the data used to evaluate candidates */
+  protected double m_ValidationPercent = 25;
+
+  /** The number of candidates trained in parallel */
+  protected int m_NumExecutionSlots = 1;
+
+  /** The options of the selected candidate */
+  protected String[] m_BestClassifierOptions;
+
+  /** One line per round of the last search */
+  protected Vector<String> m_Rounds = new Vector<String>();
+
+  /** Number of candidates of the last search */
+  protected int m_NumCandidates;
+
+  /** Total number of epochs trained by the last search */
+  protected int m_SearchEpochs;
+
+  /** Wall clock seconds of the last search */
+  protected double m_SearchSeconds;
+
+  /** Seconds of building the final model */
+  protected double m_FinalSeconds;
+
+  /** Estimated seconds of training every candidate like the final model */
+  protected double m_ExhaustiveSeconds;
+
+  /**
+   * Constructor.
+   */
+  public SuccessiveHalving() {
+    m_Classifier = new weka.classifiers.ann.MLP();
+  }
+
+  /**
+   * String describing default classifier.
+   *
+   * @return the default classifier classname
+   */
+  protected String defaultClassifierString() {
+    return "weka.classifiers.ann.MLP";
+  }
+
+  /**
+   * Returns a string describing this classifier
+   * @return a description of the classifier suitable for
+   * displaying in the explorer/experimenter gui
+   */
+  public String globalInfo() {
+    return "Selects classifier parameters from a grid with successive halving. "
+      + "Every candidate is trained for a few epochs on part of the training "
+      + "data and evaluated on the rest; only the best 1/eta of the candidates "
+      + "are trained further, for eta times as many epochs, until one is left. "
+      + "The base classifier must be an IterativeClassifier (e.g. MLP, PTR or "
+      + "DR), whose training continues where the previous round stopped. "
+      + "Candidates of a round are trained in parallel. The selected parameters "
+      + "are used to build the final model on all the training data.";
+  }
+
+  /**
+   * Returns an enumeration describing the available options.
+   *
+   * @return an enumeration of all the available options.
+   */
+  public Enumeration listOptions() {
+
+    Vector newVector = new Vector(5);
+
+    newVector.addElement(new Option(
+	      "\tClassifier parameter options, as in CVParameterSelection.\n"
+	      + "\teg: \"L 0.1 0.5 5\" searches the option -L from 0.1 to 0.5\n"
+	      + "\tin 5 steps. An R at the end rounds the values. This\n"
+	      + "\tparameter may be supplied more than once to search the\n"
+	      + "\tgrid of several options.",
+	      "P", 1, "-P <classifier parameter>"));
+    newVector.addElement(new Option(
+	      "\tFactor by which the candidates are reduced and the\n"
+	      + "\tepochs increased every round (default 3).",
+	      "E", 1, "-E <reduction factor>"));
+    newVector.addElement(new Option(
+	      "\tEpochs of the first round (default 1).",
+	      "M", 1, "-M <min epochs>"));
+    newVector.addElement(new Option(
+	      "\tPercentage of the training data used to evaluate the\n"
+	      + "\tcandidates (default 25).",
+	      "V", 1, "-V <validation percent>"));
+    newVector.addElement(new Option(
+	      "\tNumber of candidates trained in parallel (default 1).",
+	      "num-slots", 1, "-num-slots <num>"));
+
+    Enumeration enu = super.listOptions();
+    while (enu.hasMoreElements()) {
+      newVector.addElement(enu.nextElement());
+    }
+    return newVector.elements();
+  }
+
+  /**
+   * Parses a given list of options. Valid options are listed in the class
+   * comment.
+   *
+   * @param options the list of options as an array of strings
+   * @throws Exception if an option is not supported
+   */
+  public void setOptions(String[] options) throws Exception {
+
+    String param;
+    m_Parameters = new Vector<Parameter>();
+    do {
+      param = Utils.getOption('P', options);
+      if (param.length() != 0) {
+	addParameter(param);
+      }
+    } while (param.length() != 0);
+
+    String factor = Utils.getOption('E', options);
+    setReductionFactor(factor.length() != 0 ? Integer.parseInt(factor) : 3);
+
+    String epochs = Utils.getOption('M', options);
+    setMinEpochs(epochs.length() != 0 ? Integer.parseInt(epochs) : 1);
+
+    String percent = Utils.getOption('V', options);
+    setValidationPercent(percent.length() != 0 ? Double.parseDouble(percent) : 25);
+
+    String slots = Utils.getOption("num-slots", options);
+    setNumExecutionSlots(slots.length() != 0 ? Integer.parseInt(slots) : 1);
+
+    super.setOptions(options);
+  }
+
+  /**
+   * Gets the current settings of the Classifier.
+   *
+   * @return an array of strings suitable for passing to setOptions
+   */
+  public String [] getOptions() {
+
+    String[] superOptions = super.getOptions();
+    String[] options = new String[superOptions.length + m_Parameters.size() * 2 + 8];
+
+    int current = 0;
+    for (int i = 0; i < m_Parameters.size(); i++) {
+      options[current++] = "-P"; options[current++] = "" + m_Parameters.elementAt(i);
+    }
+    options[current++] = "-E"; options[current++] = "" + getReductionFactor();
+    options[current++] = "-M"; options[current++] = "" + getMinEpochs();
+    options[current++] = "-V"; options[current++] = "" + getValidationPercent();
+    options[current++] = "-num-slots"; options[current++] = "" + getNumExecutionSlots();
+
+    System.arraycopy(superOptions, 0, options, current,
+		     superOptions.length);
+
+    return options;
+  }
+
+  /**
+   * Adds a parameter to the grid.
+   *
+   * @param param the parameter in CVParameterSelection format
+   * @throws Exception if the parameter is malformed
+   */
+  public void addParameter(String param) throws Exception {
+    m_Parameters.addElement(new Parameter(param));
+  }
+
+  /**
+   * Returns the tip text for this property
+   * @return tip text for this property suitable for
+   * displaying in the explorer/experimenter gui
+   */
+  public String parametersTipText() {
+    return "Parameters to search, in CVParameterSelection format: option name, "
+      + "lower bound, upper bound, number of steps and optionally R to round.";
+  }
+
+  /**
+   * Gets the parameters to search.
+   *
+   * @return the parameters as strings
+   */
+  public Object[] getParameters() {
+    Object[] params = new Object[m_Parameters.size()];
+    for (int i = 0; i < params.length; i++) {
+      params[i] = m_Parameters.elementAt(i).toString();
+    }
+    return params;
+  }
+
+  /**
+   * Sets the parameters to search.
+   *
+   * @param params the parameters as strings
+   * @throws Exception if a parameter is malformed
+   */
+  public void setParameters(Object[] params) throws Exception {
+    Vector<Parameter> parameters = new Vector<Parameter>();
+    for (int i = 0; i < params.length; i++) {
+      parameters.addElement(new Parameter((String) params[i]));
+    }
+    m_Parameters = parameters;
+  }
+
+  /**
+   * Returns the tip text for this property
+   * @return tip text for this property suitable for
+   * displaying in the explorer/experimenter gui
+   */
+  public String reductionFactorTipText() {
+    return "Factor by which the candidates are reduced and the epochs increased every round.";
+  }
+
+  /**
+   * Gets the reduction factor.
+   *
+   * @return the reduction factor
+   */
+  public int getReductionFactor() {
+    return m_ReductionFactor;
+  }
+
+  /**
+   * Sets the reduction factor.
+   *
+   * @param factor the reduction factor, at least 2
+   * @throws Exception if the factor is below 2
+   */
+  public void setReductionFactor(int factor) throws Exception {
+    if (factor < 2) {
+      throw new Exception("Reduction factor must be at least 2!");
+    }
+    m_ReductionFactor = factor;
+  }
+
+  /**
+   * Returns the tip text for this property
+   * @return tip text for this property suitable for
+   * displaying in the explorer/experimenter gui
+   */
+  public String minEpochsTipText() {
+    return "Epochs every candidate is trained for in the first round.";
+  }
+
+  /**
+   * Gets the epochs of the first round.
+   *
+   * @return the epochs of the first round
+   */
+  public int getMinEpochs() {
+    return m_MinEpochs;
+  }
+
+  /**
+   * Sets the epochs of the first round.
+   *
+   * @param epochs the epochs, at least 1
+   * @throws Exception if epochs is below 1
+   */
+  public void setMinEpochs(int epochs) throws Exception {
+    if (epochs < 1) {
+      throw new Exception("Number of epochs must be at least 1!");
+    }
+    m_MinEpochs = epochs;
+  }
+
+  /**
+   * Returns the tip text for this property
+   * @return tip text for this property suitable for
+   * displaying in the explorer/experimenter gui
+   */
+  public String validationPercentTipText() {
+    return "Percentage of the training data held out to evaluate the candidates.";
+  }
+
+  /**
+   * Gets the validation percentage.
+   *
+   * @return the validation percentage
+   */
+  public double getValidationPercent() {
+    return m_ValidationPercent;
+  }
+
+  /**
+   * Sets the validation percentage.
+   *
+   * @param percent the percentage, above 0 and below 100
+   * @throws Exception if the percentage is out of range
+   */
+  public void setValidationPercent(double percent) throws Exception {
+    if (percent <= 0 || percent >= 100) {
+      throw new Exception("Validation percentage must be above 0 and below 100!");
+    }
+    m_ValidationPercent = percent;
+  }
+
+  /**
+   * Returns the tip text for this property
+   * @return tip text for this property suitable for
+   * displaying in the explorer/experimenter gui
+   */
+  public String numExecutionSlotsTipText() {
+    return "Number of candidates trained in parallel. The result does not depend on it.";
+  }
+
+  /**
+   * Gets the number of candidates trained in parallel.
+   *
+   * @return the number of execution slots
+   */
+  public int getNumExecutionSlots() {
+    return m_NumExecutionSlots;
+  }
+
+  /**
+   * Sets the number of candidates trained in parallel.
+   *
+   * @param slots the number of execution slots, at least 1
+   * @throws Exception if slots is below 1
+   */
+  public void setNumExecutionSlots(int slots) throws Exception {
+    if (slots < 1) {
+      throw new Exception("Number of execution slots must be at least 1!");
+    }
+    m_NumExecutionSlots = slots;
+  }
+
+  /**
+   * Returns (a copy of) the best options found for the classifier.
+   *
+   * @return the best options
+   */
+  public String[] getBestClassifierOptions() {
+    return (String[]) m_BestClassifierOptions.clone();
+  }
+
+  /**
+   * Returns the estimated seconds an exhaustive grid search would have
+   * spent training, see {@link #toString()}.
+   *
+   * @return the estimated seconds
+   */
+  public double getExhaustiveSeconds() {
+    return m_ExhaustiveSeconds;
+  }
+
+  /**
+   * Returns the wall clock seconds of the last search, without building
+   * the final model.
+   *
+   * @return the seconds of the search
+   */
+  public double getSearchSeconds() {
+    return m_SearchSeconds;
+  }
+
+  /**
+   * Returns default capabilities of the classifier.
+   *
+   * @return      the capabilities of this classifier
+   */
+  public Capabilities getCapabilities() {
+    Capabilities result = super.getCapabilities();
+
+    result.setMinimumNumberInstances(2);
+
+    return result;
+  }
+
+  /**
+   * Returns the options of all candidates of the grid, each with the
+   * searched options first.
+   *
+   * @param fixed the options of the base classifier that are not searched
+   * @return the options of every candidate
+   */
+  protected List<String[]> grid(String[] fixed) {
+    List<String[]> grid = new ArrayList<String[]>();
+    int n = m_Parameters.size();
+    int[] k = new int[n];
+    while (true) {
+      String[] options = new String[2 * n + fixed.length];
+      for (int p = 0; p < n; p++) {
+	Parameter param = m_Parameters.elementAt(p);
+	options[2 * p] = "-" + param.m_Name;
+	options[2 * p + 1] = param.value(k[p]);
+      }
+      System.arraycopy(fixed, 0, options, 2 * n, fixed.length);
+      grid.add(options);
+
+      // next combination, the last parameter changes fastest
+      int p = n - 1;
+      while (p >= 0 && ++k[p] == m_Parameters.elementAt(p).m_Steps) {
+	k[p] = 0;
+	p--;
+      }
+      if (p < 0) {
+	return grid;
+      }
+    }
+  }
+
+  /**
+   * Runs the tasks on the executor, or on this thread if there is none,
+   * and rethrows the first failure.
+   *
+   * @param executor the executor, may be null
+   * @param tasks the tasks
+   * @throws Exception if a task failed
+   */
+  protected void run(ExecutorService executor, List<Callable<Object>> tasks)
+    throws Exception {
+
+    if (executor == null) {
+      for (Callable<Object> task : tasks) {
+	task.call();
+      }
+      return;
+    }
+    List<Future<Object>> futures = executor.invokeAll(tasks);
+    for (Future<Object> future : futures) {
+      try {
+	future.get();
+      } catch (java.util.concurrent.ExecutionException e) {
+	if (e.getCause() instanceof Exception) {
+	  throw (Exception) e.getCause();
+	}
+	throw e;
+      }
+    }
+  }
+
+  /**
+   * Generates the classifier.
+   *
+   * @param instances set of instances serving as training data
+   * @throws Exception if the classifier has not been generated successfully
+   */
+  public void buildClassifier(Instances instances) throws Exception {
+
+    // can classifier handle the data?
+    getCapabilities().testWithFail(instances);
+
+    // remove instances with missing class
+    Instances data = new Instances(instances);
+    data.deleteWithMissingClass();
+
+    if (!(m_Classifier instanceof OptionHandler)
+	|| !(m_Classifier instanceof IterativeClassifier)) {
+      throw new IllegalArgumentException("Base classifier should be OptionHandler and IterativeClassifier.");
+    }
+
+    // options of the base classifier without the searched ones
+    String[] fixed = ((OptionHandler) m_Classifier).getOptions();
+    for (int i = 0; i < m_Parameters.size(); i++) {
+      Utils.getOption(m_Parameters.elementAt(i).m_Name, fixed);
+    }
+    List<String[]> grid = grid(fixed);
+    m_NumCandidates = grid.size();
+    m_Rounds = new Vector<String>();
+    m_SearchEpochs = 0;
+
+    Instances shuffled = new Instances(data);
+    shuffled.randomize(new Random(m_Seed));
+    int numValidation = Math.max(1, (int) Math.round(shuffled.numInstances() * m_ValidationPercent / 100));
+    int numTrain = shuffled.numInstances() - numValidation;
+    final Instances train = new Instances(shuffled, 0, numTrain);
+    final Instances validation = new Instances(shuffled, numTrain, numValidation);
+
+    long searchStart = System.nanoTime();
+    List<Candidate> alive = new ArrayList<Candidate>();
+    for (int i = 0; i < grid.size(); i++) {
+      Candidate candidate = new Candidate();
+      candidate.m_Index = i;
+      candidate.m_Options = grid.get(i);
+      candidate.m_Classifier = Classifier.makeCopy(m_Classifier);
+      ((OptionHandler) candidate.m_Classifier).setOptions((String[]) candidate.m_Options.clone());
+      alive.add(candidate);
+    }
+    List<Candidate> all = new ArrayList<Candidate>(alive);
+
+    ExecutorService executor = null;
+    if (m_NumExecutionSlots > 1) {
+      executor = Executors.newFixedThreadPool(m_NumExecutionSlots, new ThreadFactory() {
+	public Thread newThread(Runnable r) {
+	  Thread t = new Thread(r, "SuccessiveHalving-worker");
+	  t.setDaemon(true);
+	  return t;
+	}
+      });
+    }
+    try {
+      int epochs = m_MinEpochs;
+      for (int round = 1; ; round++) {
+	final int budget = epochs;
+	List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+	for (final Candidate candidate : alive) {
+	  tasks.add(new Callable<Object>() {
+	    public Object call() throws Exception {
+	      IterativeClassifier classifier = (IterativeClassifier) candidate.m_Classifier;
+	      long start = System.nanoTime();
+	      if (candidate.m_Epochs == 0) {
+		classifier.initClassifier(train);
+	      }
+	      while (!candidate.m_Finished && candidate.m_Epochs < budget) {
+		if ((classifier instanceof ConvergingClassifier)
+		    && ((ConvergingClassifier) classifier).hasConverged()) {
+		  candidate.m_Finished = true;
+		} else {
+		  classifier.next(candidate.m_Epochs);
+		  candidate.m_Epochs++;
+		}
+	      }
+	      candidate.m_Nanos += System.nanoTime() - start;
+	      Evaluation evaluation = new Evaluation(train);
+	      evaluation.evaluateModel(candidate.m_Classifier, validation);
+	      candidate.m_Error = evaluation.errorRate();
+	      return null;
+	    }
+	  });
+	}
+	run(executor, tasks);
+
+	// ties go to the candidate that comes first in the grid
+	Collections.sort(alive, new Comparator<Candidate>() {
+	  public int compare(Candidate a, Candidate b) {
+	    if (a.m_Error != b.m_Error) {
+	      return a.m_Error < b.m_Error ? -1 : 1;
+	    }
+	    return a.m_Index - b.m_Index;
+	  }
+	});
+	m_Rounds.addElement("Round " + round + ": " + alive.size() + " candidate(s), "
+			    + budget + " epoch(s), best validation error "
+			    + Utils.doubleToString(alive.get(0).m_Error, 6, 4));
+	if (m_Debug) {
+	  System.err.println(m_Rounds.lastElement());
+	}
+
+	int keep = Math.max(1, alive.size() / m_ReductionFactor);
+	for (int i = keep; i < alive.size(); i++) {
+	  ((IterativeClassifier) alive.get(i).m_Classifier).done();
+	  alive.get(i).m_Classifier = null;
+	}
+	alive = new ArrayList<Candidate>(alive.subList(0, keep));
+	if (alive.size() == 1) {
+	  break;
+	}
+	epochs *= m_ReductionFactor;
+      }
+    } finally {
+      if (executor != null) {
+	executor.shutdownNow();
+      }
+    }
+    Candidate best = alive.get(0);
+    ((IterativeClassifier) best.m_Classifier).done();
+    best.m_Classifier = null;
+    m_SearchSeconds = (System.nanoTime() - searchStart) / 1e9;
+    m_BestClassifierOptions = best.m_Options;
+
+    long finalStart = System.nanoTime();
+    ((OptionHandler) m_Classifier).setOptions((String[]) m_BestClassifierOptions.clone());
+    m_Classifier.buildClassifier(data);
+    m_FinalSeconds = (System.nanoTime() - finalStart) / 1e9;
+
+    // estimate: every candidate trained as long as the final model
+    double bestNanosPerEpoch = (double) best.m_Nanos / Math.max(1, best.m_Epochs);
+    double exhaustive = 0;
+    for (Candidate candidate : all) {
+      m_SearchEpochs += candidate.m_Epochs;
+      exhaustive += m_FinalSeconds * ((double) candidate.m_Nanos / Math.max(1, candidate.m_Epochs)) / bestNanosPerEpoch;
+    }
+    m_ExhaustiveSeconds = exhaustive;
+  }
+
+  /**
+   * Predicts the class distribution for the given test instance.
+   *
+   * @param instance the instance to be classified
+   * @return the predicted class value
+   * @throws Exception if an error occurred during the prediction
+   */
+  public double[] distributionForInstance(Instance instance) throws Exception {
+
+    return m_Classifier.distributionForInstance(instance);
+  }
+
+  /**
+   * Returns a description of the search and the selected classifier. The
+   * time of an exhaustive grid search is estimated by assuming every
+   * candidate would train as many epochs as the final model, at the time
+   * per epoch measured in the search.
+   *
+   * @return description of the selected classifier as a string
+   */
+  public String toString() {
+
+    if (m_BestClassifierOptions == null)
+      return "SuccessiveHalving: No model built yet.";
+
+    StringBuffer result = new StringBuffer();
+    result.append("Successive halving parameter selection.\n");
+    result.append("Classifier: " + m_Classifier.getClass().getName() + "\n");
+    for (int i = 0; i < m_Parameters.size(); i++) {
+      Parameter param = m_Parameters.elementAt(i);
+      result.append("Parameter: '-" + param.m_Name + "' ranged from "
+		    + param.m_Lower + " to " + param.m_Upper + " with "
+		    + param.m_Steps + " steps\n");
+    }
+    result.append(m_NumCandidates + " candidates, reduction factor "
+		  + m_ReductionFactor + "\n");
+    for (int i = 0; i < m_Rounds.size(); i++) {
+      result.append(m_Rounds.elementAt(i) + "\n");
+    }
+    result.append("Epochs trained: " + m_SearchEpochs + "\n");
+    result.append("Search time: " + Utils.doubleToString(m_SearchSeconds, 3)
+		  + " s, final model: " + Utils.doubleToString(m_FinalSeconds, 3) + " s\n");
+    result.append("Estimated exhaustive grid search: "
+		  + Utils.doubleToString(m_ExhaustiveSeconds, 3) + " s, saved "
+		  + Utils.doubleToString(m_ExhaustiveSeconds - m_SearchSeconds, 3) + " s\n");
+    result.append("Classifier Options: "
+		  + Utils.joinOptions(m_BestClassifierOptions)
+		  + "\n\n" + m_Classifier.toString());
+    return result.toString();
+  }
+
+  /**
+   * Returns the revision string.
+   *
+   * @return		the revision
+   */
+  public String getRevision() {
+    return RevisionUtils.extract("$Revision: 1.0 $");
+  }
+
+  /**
+   * Main method for testing this class.
+   *
+   * @param argv the options
+   */
+  public static void main(String [] argv) {
+    runClassifier(new SuccessiveHalving(), argv);
+  }
+}
@@ -26,6 +26,7 @@ import weka.classifiers.Classifier;
 import weka.classifiers.Sourcable;
 import weka.core.Attribute;
 import weka.core.Capabilities;
+import weka.core.ColumnarInstances;
 import weka.core.ContingencyTables;
 import weka.core.Instance;
 import weka.core.Instances;
@@ -75,6 +76,15 @@ public class DecisionStump
   /** The instances used for training. */
   private Instances m_Instances;
 
+  /** The class values of the training instances. */
+  private double[] m_ClassValues;
+
+  /** The weights of the training instances. */
+  private double[] m_Weights;
+
+  /** The training instances in the order of the last sorted attribute. */
+  private int[] m_Order;
+
   /** a ZeroR model in case no model can be built from the data */
   private Classifier m_ZeroR;
     
@@ -131,7 +141,11 @@ public class DecisionStump
     getCapabilities().testWithFail(instances);
 
     // remove instances with missing class
-    instances = new Instances(instances);
+    if (instances instanceof ColumnarInstances) {
+      instances = new ColumnarInstances(instances);
+    } else {
+      instances = new Instances(instances);
+    }
     instances.deleteWithMissingClass();
     
     // only class? -> build ZeroR model
@@ -149,7 +163,15 @@ public class DecisionStump
     
     double[][] bestDist = new double[3][instances.numClasses()];
 
-    m_Instances = new Instances(instances);
+    // The split searches scan columns instead of instances, and sort
+    // m_Order instead of the instances themselves
+    m_Instances = instances;
+    m_ClassValues = m_Instances.attributeToDoubleArray(m_Instances.classIndex());
+    m_Weights = m_Instances.weightsToDoubleArray();
+    m_Order = new int[m_Instances.numInstances()];
+    for (int i = 0; i < m_Order.length; i++) {
+      m_Order[i] = i;
+    }
 
     if (m_Instances.classAttribute().isNominal()) {
       numClasses = m_Instances.numClasses();
@@ -205,6 +227,9 @@ public class DecisionStump
     
     // Save memory
     m_Instances = new Instances(m_Instances, 0);
+    m_ClassValues = null;
+    m_Weights = null;
+    m_Order = null;
   }
 
   /**
@@ -419,17 +444,18 @@ public class DecisionStump
     double[] sumCounts = new double[m_Instances.numClasses()];
     double[][] bestDist = new double[3][m_Instances.numClasses()];
     int numMissing = 0;
+    double[] values = m_Instances.attributeToDoubleArray(index);
 
     // Compute counts for all the values
-    for (int i = 0; i < m_Instances.numInstances(); i++) {
-      Instance inst = m_Instances.instance(i);
-      if (inst.isMissing(index)) {
+    for (int i = 0; i < m_Order.length; i++) {
+      int inst = m_Order[i];
+      if (Instance.isMissingValue(values[inst])) {
 	numMissing++;
 	counts[m_Instances.attribute(index).numValues()]
-	  [(int)inst.classValue()] += inst.weight();
+	  [(int)m_ClassValues[inst]] += m_Weights[inst];
       } else {
-	counts[(int)inst.value(index)][(int)inst.classValue()] += inst
-	  .weight();
+	counts[(int)values[inst]][(int)m_ClassValues[inst]] += 
+	  m_Weights[inst];
       }
     }
 
@@ -488,24 +514,24 @@ public class DecisionStump
       totalSumOfWeights = 0, totalSum = 0;
     double[] sumsSquares = new double[3], sumOfWeights = new double[3];
     double[][] bestDist = new double[3][1];
+    double[] values = m_Instances.attributeToDoubleArray(index);
 
     // Compute counts for all the values
-    for (int i = 0; i < m_Instances.numInstances(); i++) {
-      Instance inst = m_Instances.instance(i);
-      if (inst.isMissing(index)) {
-	m_Distribution[2][0] += inst.classValue() * inst.weight();
-	sumsSquares[2] += inst.classValue() * inst.classValue() 
-	  * inst.weight();
-	sumOfWeights[2] += inst.weight();
+    for (int i = 0; i < m_Order.length; i++) {
+      int inst = m_Order[i];
+      double classValue = m_ClassValues[inst], weight = m_Weights[inst];
+      if (Instance.isMissingValue(values[inst])) {
+	m_Distribution[2][0] += classValue * weight;
+	sumsSquares[2] += classValue * classValue * weight;
+	sumOfWeights[2] += weight;
       } else {
-	weightsPerValue[(int)inst.value(index)] += inst.weight();
-	sumsPerValue[(int)inst.value(index)] += inst.classValue() 
-	  * inst.weight();
-	sumsSquaresPerValue[(int)inst.value(index)] += 
-	  inst.classValue() * inst.classValue() * inst.weight();
+	weightsPerValue[(int)values[inst]] += weight;
+	sumsPerValue[(int)values[inst]] += classValue * weight;
+	sumsSquaresPerValue[(int)values[inst]] += 
+	  classValue * classValue * weight;
       }
-      totalSumOfWeights += inst.weight();
-      totalSum += inst.classValue() * inst.weight();
+      totalSumOfWeights += weight;
+      totalSum += classValue * weight;
     }
 
     // Check if the total weight is zero
@@ -579,14 +605,15 @@ public class DecisionStump
     int numMissing = 0;
     double[] sum = new double[m_Instances.numClasses()];
     double[][] bestDist = new double[3][m_Instances.numClasses()];
+    double[] values = m_Instances.attributeToDoubleArray(index);
 
     // Compute counts for all the values
-    for (int i = 0; i < m_Instances.numInstances(); i++) {
-      Instance inst = m_Instances.instance(i);
-      if (!inst.isMissing(index)) {
-	m_Distribution[1][(int)inst.classValue()] += inst.weight();
+    for (int i = 0; i < m_Order.length; i++) {
+      int inst = m_Order[i];
+      if (!Instance.isMissingValue(values[inst])) {
+	m_Distribution[1][(int)m_ClassValues[inst]] += m_Weights[inst];
       } else {
-	m_Distribution[2][(int)inst.classValue()] += inst.weight();
+	m_Distribution[2][(int)m_ClassValues[inst]] += m_Weights[inst];
 	numMissing++;
       }
     }
@@ -599,16 +626,16 @@ public class DecisionStump
     }
 
     // Sort instances
-    m_Instances.sort(index);
+    sort(values);
     
     // Make split counts for each possible split and evaluate
-    for (int i = 0; i < m_Instances.numInstances() - (numMissing + 1); i++) {
-      Instance inst = m_Instances.instance(i);
-      Instance instPlusOne = m_Instances.instance(i + 1);
-      m_Distribution[0][(int)inst.classValue()] += inst.weight();
-      m_Distribution[1][(int)inst.classValue()] -= inst.weight();
-      if (inst.value(index) < instPlusOne.value(index)) {
-	currCutPoint = (inst.value(index) + instPlusOne.value(index)) / 2.0;
+    for (int i = 0; i < m_Order.length - (numMissing + 1); i++) {
+      int inst = m_Order[i];
+      int instPlusOne = m_Order[i + 1];
+      m_Distribution[0][(int)m_ClassValues[inst]] += m_Weights[inst];
+      m_Distribution[1][(int)m_ClassValues[inst]] -= m_Weights[inst];
+      if (values[inst] < values[instPlusOne]) {
+	currCutPoint = (values[inst] + values[instPlusOne]) / 2.0;
 	currVal = ContingencyTables.entropyConditionedOnRows(m_Distribution);
 	if (currVal < bestVal) {
 	  m_SplitPoint = currCutPoint;
@@ -645,24 +672,24 @@ public class DecisionStump
     double[] sumsSquares = new double[3], sumOfWeights = new double[3];
     double[][] bestDist = new double[3][1];
     double totalSum = 0, totalSumOfWeights = 0;
+    double[] values = m_Instances.attributeToDoubleArray(index);
 
     // Compute counts for all the values
-    for (int i = 0; i < m_Instances.numInstances(); i++) {
-      Instance inst = m_Instances.instance(i);
-      if (!inst.isMissing(index)) {
-	m_Distribution[1][0] += inst.classValue() * inst.weight();
-	sumsSquares[1] += inst.classValue() * inst.classValue() 
-	  * inst.weight();
-	sumOfWeights[1] += inst.weight();
+    for (int i = 0; i < m_Order.length; i++) {
+      int inst = m_Order[i];
+      double classValue = m_ClassValues[inst], weight = m_Weights[inst];
+      if (!Instance.isMissingValue(values[inst])) {
+	m_Distribution[1][0] += classValue * weight;
+	sumsSquares[1] += classValue * classValue * weight;
+	sumOfWeights[1] += weight;
       } else {
-	m_Distribution[2][0] += inst.classValue() * inst.weight();
-	sumsSquares[2] += inst.classValue() * inst.classValue() 
-	  * inst.weight();
-	sumOfWeights[2] += inst.weight();
+	m_Distribution[2][0] += classValue * weight;
+	sumsSquares[2] += classValue * classValue * weight;
+	sumOfWeights[2] += weight;
 	numMissing++;
       }
-      totalSumOfWeights += inst.weight();
-      totalSum += inst.classValue() * inst.weight();
+      totalSumOfWeights += weight;
+      totalSum += classValue * weight;
     }
 
     // Check if the total weight is zero
@@ -671,20 +698,21 @@ public class DecisionStump
     }
 
     // Sort instances
-    m_Instances.sort(index);
+    sort(values);
     
     // Make split counts for each possible split and evaluate
-    for (int i = 0; i < m_Instances.numInstances() - (numMissing + 1); i++) {
-      Instance inst = m_Instances.instance(i);
-      Instance instPlusOne = m_Instances.instance(i + 1);
-      m_Distribution[0][0] += inst.classValue() * inst.weight();
-      sumsSquares[0] += inst.classValue() * inst.classValue() * inst.weight();
-      sumOfWeights[0] += inst.weight();
-      m_Distribution[1][0] -= inst.classValue() * inst.weight();
-      sumsSquares[1] -= inst.classValue() * inst.classValue() * inst.weight();
-      sumOfWeights[1] -= inst.weight();
-      if (inst.value(index) < instPlusOne.value(index)) {
-	currCutPoint = (inst.value(index) + instPlusOne.value(index)) / 2.0;
+    for (int i = 0; i < m_Order.length - (numMissing + 1); i++) {
+      int inst = m_Order[i];
+      int instPlusOne = m_Order[i + 1];
+      double classValue = m_ClassValues[inst], weight = m_Weights[inst];
+      m_Distribution[0][0] += classValue * weight;
+      sumsSquares[0] += classValue * classValue * weight;
+      sumOfWeights[0] += weight;
+      m_Distribution[1][0] -= classValue * weight;
+      sumsSquares[1] -= classValue * classValue * weight;
+      sumOfWeights[1] -= weight;
+      if (values[inst] < values[instPlusOne]) {
+	currCutPoint = (values[inst] + values[instPlusOne]) / 2.0;
 	currVal = variance(m_Distribution, sumsSquares, sumOfWeights);
 	if (currVal < bestVal) {
 	  m_SplitPoint = currCutPoint;
@@ -704,6 +732,32 @@ public class DecisionStump
     return bestVal;
   }
 
+  /**
+   * Sorts m_Order on the given attribute values, in the same way as
+   * Instances.sort(int) sorts the instances.
+   * 
+   * @param values the attribute values of the training instances
+   */
+  private void sort(double[] values) {
+
+    double[] vals = new double[m_Order.length];
+    for (int i = 0; i < vals.length; i++) {
+      double val = values[m_Order[i]];
+      if (Instance.isMissingValue(val)) {
+	vals[i] = Double.MAX_VALUE;
+      } else {
+	vals[i] = val;
+      }
+    }
+
+    int[] sortOrder = Utils.sortWithNoMissingValues(vals);
+    int[] order = new int[vals.length];
+    for (int i = 0; i < vals.length; i++) {
+      order[i] = m_Order[sortOrder[i]];
+    }
+    m_Order = order;
+  }
+
   /**
    * Computes variance for subsets.
    * 
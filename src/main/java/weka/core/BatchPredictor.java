@@ -0,0 +1,47 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+/*
+ *    BatchPredictor.java
+ *    Copyright (C) 2015 University of Waikato, Hamilton, New Zealand
+ *
+ */
+
+package weka.core;
+
+/**
+ * Interface to something that can produce the predictions for a whole set of
+ * instances in one call more efficiently than one instance at a time, e.g.
+ * by preprocessing the block once and evaluating it as matrix products.
+ * weka.classifiers.Evaluation uses this path automatically when the
+ * classifier implements it.
+ *
+ * @version $Revision: 1 $
+ */
+public interface BatchPredictor {
+
+  /**
+   * Returns the class distributions for all the given instances, in the same
+   * order. The instances must have the same format as the training data. For
+   * a numeric class each distribution holds the predicted value only.
+   * Implementations must not use the class values of the instances.
+   *
+   * @param insts the instances to predict
+   * @return one distribution per instance
+   * @throws Exception if the predictions can't be computed
+   */
+  double[][] distributionsForInstances(Instances insts) throws Exception;
+}
@@ -0,0 +1,306 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+/*
+ *    ColumnarInstance.java
+ *    Copyright (C) 2015 University of Waikato, Hamilton, New Zealand
+ *
+ */
+
+package weka.core;
+
+/**
+ * A view of one row of a ColumnarInstances dataset. The view holds no
+ * values of its own: values and the weight are read from and written to the
+ * columns of the dataset, so a view costs a few bytes regardless of the
+ * number of attributes. Setting a value through the view changes the value
+ * in the dataset, just like setting a value of an instance obtained with
+ * Instances.instance(int) does. Copies made with copy() or
+ * <code>new Instance(instance)</code> are ordinary instances that do not
+ * share values with the dataset.<p>
+ *
+ * A view stays attached to its row when the dataset is sorted, shuffled or
+ * stratified, and keeps its values when the row is deleted from the dataset.
+ * Inserting or deleting an attribute of a view that has no access to a
+ * dataset copies its values first, so that the view no longer shares them
+ * with the dataset.
+ *
+ * @version $Revision: 1.0 $
+ * @see ColumnarInstances
+ */
+public class ColumnarInstance
+  extends Instance {
+
+  /** for serialization */
+  private static final long serialVersionUID = -3270371870932545413L;
+
+  /** the columns the values are stored in. */
+  protected ColumnarInstances.Columns m_Columns;
+
+  /** the row of this instance in the columns. */
+  protected int m_Row;
+
+  /**
+   * Creates a view of a row.
+   *
+   * @param dataset the dataset the instance has access to
+   * @param columns the columns the values are stored in
+   * @param row the row in the columns
+   */
+  ColumnarInstance(Instances dataset, ColumnarInstances.Columns columns, int row) {
+
+    m_Dataset = dataset;
+    m_Columns = columns;
+    m_Row = row;
+  }
+
+  /**
+   * Produces a shallow copy of this instance. The copy is an ordinary
+   * instance with its own values and has access to the same dataset.
+   *
+   * @return the copy
+   */
+  public Object copy() {
+
+    Instance result = new Instance(weight(), toDoubleArray());
+    result.m_Dataset = m_Dataset;
+    return result;
+  }
+
+  /**
+   * Tests if a specific value is "missing".
+   *
+   * @param attIndex the attribute's index
+   * @return true if the value is "missing"
+   */
+  public boolean isMissing(int attIndex) {
+
+    return Double.isNaN(m_Columns.value(attIndex, m_Row));
+  }
+
+  /**
+   * Tests if a specific value is "missing". Does the same thing as
+   * isMissing().
+   *
+   * @param indexOfIndex the index of the attribute's index
+   * @return true if the value is "missing"
+   */
+  public boolean isMissingSparse(int indexOfIndex) {
+
+    return isMissing(indexOfIndex);
+  }
+
+  /**
+   * Returns the number of attributes.
+   *
+   * @return the number of attributes as an integer
+   */
+  public int numAttributes() {
+
+    return m_Columns.numAttributes();
+  }
+
+  /**
+   * Returns the number of values present. Always the same as
+   * numAttributes().
+   *
+   * @return the number of values
+   */
+  public int numValues() {
+
+    return m_Columns.numAttributes();
+  }
+
+  /**
+   * Replaces all missing values in the instance with the values contained
+   * in the given array.
+   *
+   * @param array containing the means and modes
+   * @throws IllegalArgumentException if numbers of attributes are unequal
+   */
+  public void replaceMissingValues(double[] array) {
+
+    if ((array == null) || (array.length != numAttributes())) {
+      throw new IllegalArgumentException("Unequal number of attributes!");
+    }
+    for (int i = 0; i < array.length; i++) {
+      if (isMissing(i)) {
+        m_Columns.setValue(i, m_Row, array[i]);
+      }
+    }
+  }
+
+  /**
+   * Sets a specific value in the instance to the given value (internal
+   * floating-point format).
+   *
+   * @param attIndex the attribute's index
+   * @param value the new attribute value
+   */
+  public void setValue(int attIndex, double value) {
+
+    m_Columns.setValue(attIndex, m_Row, value);
+  }
+
+  /**
+   * Sets a specific value in the instance to the given value. Does the same
+   * thing as setValue().
+   *
+   * @param indexOfIndex the index of the attribute's index
+   * @param value the new attribute value
+   */
+  public void setValueSparse(int indexOfIndex, double value) {
+
+    setValue(indexOfIndex, value);
+  }
+
+  /**
+   * Sets the weight of the instance.
+   *
+   * @param weight the weight
+   */
+  public void setWeight(double weight) {
+
+    m_Columns.setWeight(m_Row, weight);
+  }
+
+  /**
+   * Returns the values of each attribute as an array of doubles.
+   *
+   * @return an array containing all the instance attribute values
+   */
+  public double[] toDoubleArray() {
+
+    double[] result = new double[numAttributes()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = m_Columns.value(i, m_Row);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the description of one instance.
+   *
+   * @return the instance's description as a string
+   */
+  public String toString() {
+
+    StringBuffer text = new StringBuffer(toStringNoWeight());
+
+    if (weight() != 1.0) {
+      text.append(",{" + Utils.doubleToString(weight(), 6) + "}");
+    }
+    return text.toString();
+  }
+
+  /**
+   * Returns the description of one instance without the weight appended.
+   *
+   * @return the instance's description as a string
+   */
+  protected String toStringNoWeight() {
+
+    StringBuffer text = new StringBuffer();
+
+    for (int i = 0; i < numAttributes(); i++) {
+      if (i > 0) {
+        text.append(",");
+      }
+      text.append(toString(i));
+    }
+    return text.toString();
+  }
+
+  /**
+   * Returns an instance's attribute value in internal format.
+   *
+   * @param attIndex the attribute's index
+   * @return the specified value as a double
+   */
+  public double value(int attIndex) {
+
+    return m_Columns.value(attIndex, m_Row);
+  }
+
+  /**
+   * Returns an instance's attribute value in internal format. Does the same
+   * thing as value().
+   *
+   * @param indexOfIndex the index of the attribute's index
+   * @return the specified value as a double
+   */
+  public double valueSparse(int indexOfIndex) {
+
+    return value(indexOfIndex);
+  }
+
+  /**
+   * Returns the instance's weight.
+   *
+   * @return the instance's weight as a double
+   */
+  public double weight() {
+
+    return m_Columns.weight(m_Row);
+  }
+
+  /**
+   * Copies the values and the weight of the row to columns of its own, so
+   * that changes of this instance no longer reach the dataset.
+   *
+   * @return the new columns
+   */
+  protected ColumnarInstances.HeapColumns detach() {
+
+    ColumnarInstances.HeapColumns columns = m_Columns.gather(new int[]{m_Row}, 1);
+    m_Columns = columns;
+    m_Row = 0;
+    return columns;
+  }
+
+  /**
+   * Deletes an attribute at the given position (0 to numAttributes() -
+   * 1). The values are copied first, since the columns are shared with the
+   * dataset.
+   *
+   * @param position the attribute's position
+   */
+  void forceDeleteAttributeAt(int position) {
+
+    detach().deleteColumn(position);
+  }
+
+  /**
+   * Inserts an attribute at the given position (0 to numAttributes()) and
+   * sets its value to be missing. The values are copied first, since the
+   * columns are shared with the dataset.
+   *
+   * @param position the attribute's position
+   */
+  void forceInsertAttributeAt(int position) {
+
+    detach().insertColumn(position);
+  }
+
+  /**
+   * Returns the revision string.
+   *
+   * @return		the revision
+   */
+  public String getRevision() {
+    return RevisionUtils.extract("$Revision: 1.0 $");
+  }
+}
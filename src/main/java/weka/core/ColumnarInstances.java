@@ -0,0 +1,972 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+/*
+ *    ColumnarInstances.java
+ *    Copyright (C) 2015 University of Waikato, Hamilton, New Zealand
+ *
+ */
+
+package weka.core;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of instances that stores its values column by column: one array of
+ * doubles per attribute and one array with the weights, instead of one
+ * Instance object with its own array per row. A dataset with many rows
+ * therefore costs little more than its values, and scanning one attribute
+ * reads consecutive memory.<p>
+ *
+ * instance(int) returns a ColumnarInstance, a view of the row that reads and
+ * writes the columns, so classifiers and filters work on this dataset
+ * unchanged. Sorting, shuffling, stratifying and deleting rows only reorder
+ * an array of row indices, the columns themselves are never moved until
+ * compactify() is called, and views, such as the folds returned by trainCV
+ * and testCV, share the columns with this dataset. The column-scan methods
+ * (attributeToDoubleArray, weightsToDoubleArray, attributeStats,
+ * kthSmallestValue, meanOrMode, variance, ...) read the columns directly
+ * without creating any views.<p>
+ *
+ * Typical usage:
+ * <pre>
+ * Instances data = new ColumnarInstances(DataSource.read(filename));
+ * </pre>
+ *
+ * @version $Revision: 1.0 $
+ * @see ColumnarInstance
+ */
+public class ColumnarInstances
+  extends Instances {
+
+  /** for serialization */
+  private static final long serialVersionUID = 6171583092385404372L;
+
+  /**
+   * Where the values and weights of the rows are stored. Rows are addressed
+   * by their index in the columns, the order of the instances is kept by
+   * the dataset.
+   */
+  abstract static class Columns
+    implements Serializable {
+
+    /** for serialization */
+    private static final long serialVersionUID = -4381948757826531017L;
+
+    /**
+     * Returns the number of attributes.
+     *
+     * @return the number of columns, without the weights
+     */
+    abstract int numAttributes();
+
+    /**
+     * Returns a value.
+     *
+     * @param attIndex the attribute's index
+     * @param row the row in the columns
+     * @return the value
+     */
+    abstract double value(int attIndex, int row);
+
+    /**
+     * Sets a value.
+     *
+     * @param attIndex the attribute's index
+     * @param row the row in the columns
+     * @param value the new value
+     */
+    abstract void setValue(int attIndex, int row, double value);
+
+    /**
+     * Returns a weight.
+     *
+     * @param row the row in the columns
+     * @return the weight
+     */
+    abstract double weight(int row);
+
+    /**
+     * Sets a weight.
+     *
+     * @param row the row in the columns
+     * @param weight the new weight
+     */
+    abstract void setWeight(int row, double weight);
+
+    /**
+     * Copies the values of an attribute for the given rows.
+     *
+     * @param attIndex the attribute's index
+     * @param rows the rows in the columns
+     * @param numRows the number of rows to copy
+     * @param dst the array to copy the values to
+     */
+    abstract void column(int attIndex, int[] rows, int numRows, double[] dst);
+
+    /**
+     * Copies the weights of the given rows.
+     *
+     * @param rows the rows in the columns
+     * @param numRows the number of rows to copy
+     * @param dst the array to copy the weights to
+     */
+    abstract void weights(int[] rows, int numRows, double[] dst);
+
+    /**
+     * Stores the values and the weight of an instance in a new row at the
+     * end of the columns.
+     *
+     * @param instance the instance to store
+     * @return the index of the new row
+     * @throws UnsupportedOperationException if the columns can't grow
+     */
+    abstract int append(Instance instance);
+
+    /**
+     * Returns whether rows can be appended.
+     *
+     * @return true if append() is supported
+     */
+    abstract boolean isGrowable();
+
+    /**
+     * Copies the given rows, in the given order, to new columns on the heap
+     * that have no capacity left.
+     *
+     * @param rows the indices of the rows to copy
+     * @param numRows the number of rows to copy
+     * @return the new columns
+     */
+    HeapColumns gather(int[] rows, int numRows) {
+      HeapColumns result = new HeapColumns(numAttributes(), numRows);
+      for (int i = 0; i < result.m_Values.length; i++) {
+        column(i, rows, numRows, result.m_Values[i]);
+      }
+      weights(rows, numRows, result.m_Weights);
+      result.m_Size = numRows;
+      return result;
+    }
+  }
+
+  /**
+   * Columns stored in arrays on the heap. Rows are only appended, deleted
+   * rows stay in the columns until the dataset is compactified.
+   */
+  static class HeapColumns
+    extends Columns {
+
+    /** for serialization */
+    private static final long serialVersionUID = 2687312985076416190L;
+
+    /** the values, one array per attribute. */
+    double[][] m_Values;
+
+    /** the weights. */
+    double[] m_Weights;
+
+    /** the number of rows stored. */
+    int m_Size;
+
+    /**
+     * Creates empty columns.
+     *
+     * @param numAttributes the number of attributes
+     * @param capacity the number of rows to reserve
+     */
+    HeapColumns(int numAttributes, int capacity) {
+      m_Values = new double[numAttributes][capacity];
+      m_Weights = new double[capacity];
+    }
+
+    int numAttributes() {
+      return m_Values.length;
+    }
+
+    double value(int attIndex, int row) {
+      return m_Values[attIndex][row];
+    }
+
+    void setValue(int attIndex, int row, double value) {
+      m_Values[attIndex][row] = value;
+    }
+
+    double weight(int row) {
+      return m_Weights[row];
+    }
+
+    void setWeight(int row, double weight) {
+      m_Weights[row] = weight;
+    }
+
+    void column(int attIndex, int[] rows, int numRows, double[] dst) {
+      double[] column = m_Values[attIndex];
+      for (int i = 0; i < numRows; i++) {
+        dst[i] = column[rows[i]];
+      }
+    }
+
+    void weights(int[] rows, int numRows, double[] dst) {
+      for (int i = 0; i < numRows; i++) {
+        dst[i] = m_Weights[rows[i]];
+      }
+    }
+
+    int append(Instance instance) {
+      if (m_Size == m_Weights.length) {
+        int capacity = Math.max(16, 2 * m_Size);
+        for (int i = 0; i < m_Values.length; i++) {
+          m_Values[i] = grow(m_Values[i], m_Size, capacity);
+        }
+        m_Weights = grow(m_Weights, m_Size, capacity);
+      }
+      int row = m_Size++;
+      if (instance instanceof SparseInstance) {
+        for (int i = 0; i < m_Values.length; i++) {
+          m_Values[i][row] = 0;
+        }
+        for (int i = 0; i < instance.numValues(); i++) {
+          m_Values[instance.index(i)][row] = instance.valueSparse(i);
+        }
+      } else {
+        for (int i = 0; i < m_Values.length; i++) {
+          m_Values[i][row] = instance.value(i);
+        }
+      }
+      m_Weights[row] = instance.weight();
+      return row;
+    }
+
+    boolean isGrowable() {
+      return true;
+    }
+
+    /**
+     * Copies the first values of an array to a new array.
+     *
+     * @param values the array to copy
+     * @param num the number of values to copy
+     * @param capacity the length of the new array
+     * @return the new array
+     */
+    static double[] grow(double[] values, int num, int capacity) {
+      double[] result = new double[capacity];
+      System.arraycopy(values, 0, result, 0, num);
+      return result;
+    }
+
+    /**
+     * Removes the column of an attribute.
+     *
+     * @param position the attribute's position
+     */
+    void deleteColumn(int position) {
+      double[][] values = new double[m_Values.length - 1][];
+      System.arraycopy(m_Values, 0, values, 0, position);
+      System.arraycopy(m_Values, position + 1, values, position,
+        values.length - position);
+      m_Values = values;
+    }
+
+    /**
+     * Inserts a column with missing values for an attribute.
+     *
+     * @param position the attribute's position
+     */
+    void insertColumn(int position) {
+      double[][] values = new double[m_Values.length + 1][];
+      System.arraycopy(m_Values, 0, values, 0, position);
+      values[position] = new double[m_Weights.length];
+      Arrays.fill(values[position], Instance.missingValue());
+      System.arraycopy(m_Values, position, values, position + 1,
+        m_Values.length - position);
+      m_Values = values;
+    }
+  }
+
+  /** the columns the values are stored in. */
+  protected Columns m_Columns;
+
+  /** the rows of the dataset, in order, as indices into the columns. */
+  protected int[] m_Rows;
+
+  /** the number of instances in the dataset. */
+  protected int m_NumRows;
+
+  /** whether the columns are shared with views or with another dataset. */
+  protected transient boolean m_SharedColumns;
+
+  /**
+   * Creates a columnar copy of the given dataset, with the same header
+   * information and the same instances.
+   *
+   * @param dataset the set to be copied
+   */
+  public ColumnarInstances(Instances dataset) {
+
+    super(dataset, 0);
+
+    if (dataset instanceof ColumnarInstances) {
+      ColumnarInstances source = (ColumnarInstances) dataset;
+      m_Columns = source.m_Columns.gather(source.m_Rows, source.m_NumRows);
+      m_Rows = identity(source.m_NumRows);
+      m_NumRows = source.m_NumRows;
+    } else {
+      allocate(dataset.numInstances());
+      dataset.copyInstances(0, this, dataset.numInstances());
+    }
+  }
+
+  /**
+   * Creates an empty columnar set of instances with the header information
+   * of the given set of instances.
+   *
+   * @param dataset the instances from which the header information is to be
+   *          taken
+   * @param capacity the number of rows to reserve
+   */
+  public ColumnarInstances(Instances dataset, int capacity) {
+
+    super(dataset, capacity);
+  }
+
+  /**
+   * Creates a columnar set of instances by copying a subset of another set.
+   *
+   * @param source the set of instances from which a subset is to be created
+   * @param first the index of the first instance to be copied
+   * @param toCopy the number of instances to be copied
+   * @throws IllegalArgumentException if first and toCopy are out of range
+   */
+  public ColumnarInstances(Instances source, int first, int toCopy) {
+
+    super(source, first, toCopy);
+  }
+
+  /**
+   * Creates an empty columnar set of instances with the given attribute
+   * information.
+   *
+   * @param name the name of the relation
+   * @param attInfo the attribute information
+   * @param capacity the number of rows to reserve
+   */
+  public ColumnarInstances(String name, FastVector attInfo, int capacity) {
+
+    super(name, attInfo, 0);
+    allocate(capacity);
+  }
+
+  /**
+   * Creates a set of instances with the header information of the given
+   * dataset that shares its columns, but has its own rows.
+   *
+   * @param source the dataset whose header and columns are used
+   * @param rows the rows of the new dataset, as indices into the columns
+   */
+  protected ColumnarInstances(ColumnarInstances source, int[] rows) {
+
+    super(source, 0);
+    m_Columns = source.m_Columns;
+    m_Rows = rows;
+    m_NumRows = rows.length;
+    m_SharedColumns = true;
+  }
+
+  /**
+   * Initializes with the header information of the given dataset and
+   * reserves space for the given number of rows.
+   *
+   * @param dataset the dataset to use as template
+   * @param capacity the number of rows to reserve
+   */
+  protected void initialize(Instances dataset, int capacity) {
+
+    super.initialize(dataset, 0);
+    allocate(capacity);
+  }
+
+  /**
+   * Creates empty columns for the current attributes.
+   *
+   * @param capacity the number of rows to reserve
+   */
+  protected void allocate(int capacity) {
+
+    if (capacity < 0) {
+      capacity = 0;
+    }
+    m_Columns = new HeapColumns(numAttributes(), capacity);
+    m_Rows = new int[capacity];
+    m_NumRows = 0;
+  }
+
+  /**
+   * Returns the row indices 0..num-1.
+   *
+   * @param num the number of rows
+   * @return the indices
+   */
+  protected static int[] identity(int num) {
+
+    int[] result = new int[num];
+    for (int i = 0; i < num; i++) {
+      result[i] = i;
+    }
+    return result;
+  }
+
+  /**
+   * Adds one instance to the end of the set. Copies the values and the weight
+   * of the instance into the columns. Does not check if the instance is
+   * compatible with the dataset. Note: String or relational values are not
+   * transferred.
+   *
+   * @param instance the instance to be added
+   */
+  public void add(Instance instance) {
+
+    int row = m_Columns.append(instance);
+    if (m_NumRows == m_Rows.length) {
+      int[] rows = new int[Math.max(16, 2 * m_NumRows)];
+      System.arraycopy(m_Rows, 0, rows, 0, m_NumRows);
+      m_Rows = rows;
+    }
+    m_Rows[m_NumRows++] = row;
+  }
+
+  /**
+   * Compactifies the set of instances. Copies the rows, in their current
+   * order, to new columns without any deleted rows or unused capacity.
+   * Instances obtained before keep referring to the old columns. Columns
+   * that can't grow are left as they are.
+   */
+  public void compactify() {
+
+    if (m_Columns.isGrowable()) {
+      m_Columns = m_Columns.gather(m_Rows, m_NumRows);
+      m_Rows = identity(m_NumRows);
+      m_SharedColumns = false;
+    } else {
+      int[] rows = new int[m_NumRows];
+      System.arraycopy(m_Rows, 0, rows, 0, m_NumRows);
+      m_Rows = rows;
+    }
+  }
+
+  /**
+   * Removes all instances from the set.
+   */
+  public void delete() {
+
+    allocate(0);
+  }
+
+  /**
+   * Removes an instance at the given position from the set.
+   *
+   * @param index the instance's position (index starts with 0)
+   */
+  public void delete(int index) {
+
+    if ((index < 0) || (index >= m_NumRows)) {
+      throw new ArrayIndexOutOfBoundsException(index);
+    }
+    System.arraycopy(m_Rows, index + 1, m_Rows, index, m_NumRows - index - 1);
+    m_NumRows--;
+  }
+
+  /**
+   * Deletes an attribute at the given position (0 to numAttributes() - 1). A
+   * deep copy of the attribute information and of the columns is performed
+   * before the attribute is deleted.
+   *
+   * @param position the attribute's position (position starts with 0)
+   * @throws IllegalArgumentException if the given index is out of range or
+   *           the class attribute is being deleted
+   */
+  public void deleteAttributeAt(int position) {
+
+    if ((position < 0) || (position >= m_Attributes.size())) {
+      throw new IllegalArgumentException("Index out of range");
+    }
+    if (position == m_ClassIndex) {
+      throw new IllegalArgumentException("Can't delete class attribute");
+    }
+    freshAttributeInfo();
+    if (m_ClassIndex > position) {
+      m_ClassIndex--;
+    }
+    m_Attributes.removeElementAt(position);
+    for (int i = position; i < m_Attributes.size(); i++) {
+      Attribute current = (Attribute) m_Attributes.elementAt(i);
+      current.setIndex(current.index() - 1);
+    }
+    HeapColumns columns = m_Columns.gather(m_Rows, m_NumRows);
+    columns.deleteColumn(position);
+    m_Columns = columns;
+    m_Rows = identity(m_NumRows);
+    m_SharedColumns = false;
+  }
+
+  /**
+   * Removes all instances with missing values for a particular attribute
+   * from the dataset.
+   *
+   * @param attIndex the attribute's index (index starts with 0)
+   */
+  public void deleteWithMissing(int attIndex) {
+
+    double[] column = attributeToDoubleArray(attIndex);
+    int count = 0;
+    for (int i = 0; i < m_NumRows; i++) {
+      if (!Instance.isMissingValue(column[i])) {
+        m_Rows[count++] = m_Rows[i];
+      }
+    }
+    m_NumRows = count;
+  }
+
+  /**
+   * Returns an enumeration of all instances in the dataset.
+   *
+   * @return enumeration of all instances in the dataset
+   */
+  public Enumeration enumerateInstances() {
+
+    return new Enumeration() {
+
+      /** the position of the next instance. */
+      protected int m_Next = 0;
+
+      public boolean hasMoreElements() {
+        return m_Next < m_NumRows;
+      }
+
+      public Object nextElement() {
+        if (m_Next >= m_NumRows) {
+          throw new NoSuchElementException();
+        }
+        return instance(m_Next++);
+      }
+    };
+  }
+
+  /**
+   * Returns the first instance in the set.
+   *
+   * @return the first instance in the set
+   */
+  public Instance firstInstance() {
+
+    return instance(0);
+  }
+
+  /**
+   * Inserts an attribute at the given position (0 to numAttributes()) and
+   * sets all values to be missing. Shallow copies the attribute before it is
+   * inserted, and performs a deep copy of the existing attribute information
+   * and of the columns.
+   *
+   * @param att the attribute to be inserted
+   * @param position the attribute's position (position starts with 0)
+   * @throws IllegalArgumentException if the given index is out of range
+   */
+  public void insertAttributeAt(Attribute att, int position) {
+
+    if ((position < 0) || (position > m_Attributes.size())) {
+      throw new IllegalArgumentException("Index out of range");
+    }
+    if (attribute(att.name()) != null) {
+      throw new IllegalArgumentException("Attribute name '" + att.name()
+        + "' already in use at position #" + attribute(att.name()).index());
+    }
+    att = (Attribute) att.copy();
+    freshAttributeInfo();
+    att.setIndex(position);
+    m_Attributes.insertElementAt(att, position);
+    for (int i = position + 1; i < m_Attributes.size(); i++) {
+      Attribute current = (Attribute) m_Attributes.elementAt(i);
+      current.setIndex(current.index() + 1);
+    }
+    HeapColumns columns = m_Columns.gather(m_Rows, m_NumRows);
+    columns.insertColumn(position);
+    m_Columns = columns;
+    m_Rows = identity(m_NumRows);
+    m_SharedColumns = false;
+    if (m_ClassIndex >= position) {
+      m_ClassIndex++;
+    }
+  }
+
+  /**
+   * Returns a view of the instance at the given position.
+   *
+   * @param index the instance's index (index starts with 0)
+   * @return the instance at the given position
+   */
+  public Instance instance(int index) {
+
+    if (index >= m_NumRows) {
+      throw new ArrayIndexOutOfBoundsException(index);
+    }
+    return new ColumnarInstance(this, m_Columns, m_Rows[index]);
+  }
+
+  /**
+   * Returns the last instance in the set.
+   *
+   * @return the last instance in the set
+   */
+  public Instance lastInstance() {
+
+    return instance(m_NumRows - 1);
+  }
+
+  /**
+   * Returns the number of instances in the dataset.
+   *
+   * @return the number of instances in the dataset as an integer
+   */
+  public int numInstances() {
+
+    return m_NumRows;
+  }
+
+  /**
+   * Sorts the instances based on an attribute, in the same order as
+   * Instances.sort(int). Only the row indices are reordered.
+   *
+   * @param attIndex the attribute's index (index starts with 0)
+   */
+  public void sort(int attIndex) {
+
+    double[] vals = attributeToDoubleArray(attIndex);
+    for (int i = 0; i < vals.length; i++) {
+      if (Instance.isMissingValue(vals[i])) {
+        vals[i] = Double.MAX_VALUE;
+      }
+    }
+
+    int[] sortOrder = Utils.sortWithNoMissingValues(vals);
+    int[] rows = new int[m_Rows.length];
+    for (int i = 0; i < vals.length; i++) {
+      rows[i] = m_Rows[sortOrder[i]];
+    }
+    m_Rows = rows;
+  }
+
+  /**
+   * Help function needed for stratification of set.
+   *
+   * @param numFolds the number of folds for the stratification
+   */
+  protected void stratStep(int numFolds) {
+
+    int[] rows = new int[m_Rows.length];
+    int count = 0, start = 0;
+
+    while (count < m_NumRows) {
+      for (int j = start; j < m_NumRows; j += numFolds) {
+        rows[count++] = m_Rows[j];
+      }
+      start++;
+    }
+    m_Rows = rows;
+  }
+
+  /**
+   * Swaps two instances in the set.
+   *
+   * @param i the first instance's index (index starts with 0)
+   * @param j the second instance's index (index starts with 0)
+   */
+  public void swap(int i, int j) {
+
+    int help = m_Rows[i];
+    m_Rows[i] = m_Rows[j];
+    m_Rows[j] = help;
+  }
+
+  /**
+   * Returns a view of the given instances of this dataset, in the given
+   * order. The view shares the columns with this dataset: only the row
+   * indices are copied, so changing an instance of the view changes it in
+   * this dataset too.
+   *
+   * @param indices the indices of the instances, an index may occur more
+   *          than once
+   * @return the view
+   */
+  public Instances view(int[] indices) {
+
+    int[] rows = new int[indices.length];
+    for (int i = 0; i < rows.length; i++) {
+      rows[i] = m_Rows[indices[i]];
+    }
+    m_SharedColumns = true;
+    return new ColumnarInstances(this, rows);
+  }
+
+  /**
+   * Serializes a dataset that shares its columns as a compact copy, so that
+   * rows of other datasets are not serialized along with its own. Columns
+   * that are not on the heap are serialized by reference.
+   *
+   * @return the object to serialize
+   */
+  protected Object writeReplace() {
+
+    if (m_SharedColumns && m_Columns.isGrowable()) {
+      return new ColumnarInstances(this);
+    }
+    return this;
+  }
+
+  /**
+   * Gets the value of all instances in this dataset for a particular
+   * attribute, read directly from the attribute's column.
+   *
+   * @param index the index of the attribute.
+   * @return an array containing the value of the desired attribute for each
+   *         instance in the dataset.
+   */
+  public double[] attributeToDoubleArray(int index) {
+
+    double[] result = new double[m_NumRows];
+    m_Columns.column(index, m_Rows, m_NumRows, result);
+    return result;
+  }
+
+  /**
+   * Gets the weights of all instances in this dataset, read directly from
+   * the weight column.
+   *
+   * @return an array containing the weight of each instance in the dataset.
+   */
+  public double[] weightsToDoubleArray() {
+
+    double[] result = new double[m_NumRows];
+    m_Columns.weights(m_Rows, m_NumRows, result);
+    return result;
+  }
+
+  /**
+   * Calculates summary statistics on the values that appear in this set of
+   * instances for a specified attribute.
+   *
+   * @param index the index of the attribute to summarize (index starts with
+   *          0)
+   * @return an AttributeStats object with it's fields calculated.
+   */
+  public AttributeStats attributeStats(int index) {
+
+    AttributeStats result = new AttributeStats();
+    if (attribute(index).isNominal()) {
+      result.nominalCounts = new int[attribute(index).numValues()];
+    }
+    if (attribute(index).isNumeric()) {
+      result.numericStats = new weka.experiment.Stats();
+    }
+    result.totalCount = m_NumRows;
+
+    double[] attVals = attributeToDoubleArray(index);
+    int[] sorted = Utils.sort(attVals);
+    int currentCount = 0;
+    double prev = Instance.missingValue();
+    for (int j = 0; j < m_NumRows; j++) {
+      double current = attVals[sorted[j]];
+      if (Instance.isMissingValue(current)) {
+        result.missingCount = m_NumRows - j;
+        break;
+      }
+      if (current == prev) {
+        currentCount++;
+      } else {
+        result.addDistinct(prev, currentCount);
+        currentCount = 1;
+        prev = current;
+      }
+    }
+    result.addDistinct(prev, currentCount);
+    result.distinctCount--; // So we don't count "missing" as a value
+    return result;
+  }
+
+  /**
+   * Returns the kth-smallest attribute value of a numeric attribute. Missing
+   * values are treated as Double.MAX_VALUE.
+   *
+   * @param attIndex the attribute's index
+   * @param k the value of k
+   * @return the kth-smallest value
+   */
+  public double kthSmallestValue(int attIndex, int k) {
+
+    if (!attribute(attIndex).isNumeric()) {
+      throw new IllegalArgumentException(
+        "Instances: attribute must be numeric to compute kth-smallest value.");
+    }
+
+    if ((k < 1) || (k > m_NumRows)) {
+      throw new IllegalArgumentException(
+        "Instances: value for k for computing kth-smallest value too large.");
+    }
+
+    double[] vals = attributeToDoubleArray(attIndex);
+    for (int i = 0; i < vals.length; i++) {
+      if (Instance.isMissingValue(vals[i])) {
+        vals[i] = Double.MAX_VALUE;
+      }
+    }
+    return Utils.kthSmallestValue(vals, k);
+  }
+
+  /**
+   * Returns the mean (mode) for a numeric (nominal) attribute as a
+   * floating-point value. Returns 0 if the attribute is neither nominal nor
+   * numeric. If all values are missing it returns zero.
+   *
+   * @param attIndex the attribute's index (index starts with 0)
+   * @return the mean or the mode
+   */
+  public double meanOrMode(int attIndex) {
+
+    if (attribute(attIndex).isNumeric()) {
+      double[] column = attributeToDoubleArray(attIndex);
+      double[] weights = weightsToDoubleArray();
+      double result = 0, found = 0;
+      for (int j = 0; j < m_NumRows; j++) {
+        if (!Instance.isMissingValue(column[j])) {
+          found += weights[j];
+          result += weights[j] * column[j];
+        }
+      }
+      if (found <= 0) {
+        return 0;
+      } else {
+        return result / found;
+      }
+    } else if (attribute(attIndex).isNominal()) {
+      double[] column = attributeToDoubleArray(attIndex);
+      double[] weights = weightsToDoubleArray();
+      int[] counts = new int[attribute(attIndex).numValues()];
+      for (int j = 0; j < m_NumRows; j++) {
+        if (!Instance.isMissingValue(column[j])) {
+          counts[(int) column[j]] += weights[j];
+        }
+      }
+      return Utils.maxIndex(counts);
+    } else {
+      return 0;
+    }
+  }
+
+  /**
+   * Returns the number of distinct values of a given attribute. The value
+   * 'missing' is not counted.
+   *
+   * @param attIndex the attribute (index starts with 0)
+   * @return the number of distinct values of a given attribute
+   */
+  public int numDistinctValues(int attIndex) {
+
+    if (attribute(attIndex).isNumeric()) {
+      double[] attVals = attributeToDoubleArray(attIndex);
+      int[] sorted = Utils.sort(attVals);
+      double prev = 0;
+      int counter = 0;
+      for (int i = 0; i < sorted.length; i++) {
+        double current = attVals[sorted[i]];
+        if (Instance.isMissingValue(current)) {
+          break;
+        }
+        if ((i == 0) || (current > prev)) {
+          prev = current;
+          counter++;
+        }
+      }
+      return counter;
+    } else {
+      return attribute(attIndex).numValues();
+    }
+  }
+
+  /**
+   * Computes the sum of all the instances' weights.
+   *
+   * @return the sum of all the instances' weights as a double
+   */
+  public double sumOfWeights() {
+
+    double[] weights = weightsToDoubleArray();
+    double sum = 0;
+    for (int i = 0; i < m_NumRows; i++) {
+      sum += weights[i];
+    }
+    return sum;
+  }
+
+  /**
+   * Computes the variance for a numeric attribute.
+   *
+   * @param attIndex the numeric attribute (index starts with 0)
+   * @return the variance if the attribute is numeric
+   * @throws IllegalArgumentException if the attribute is not numeric
+   */
+  public double variance(int attIndex) {
+
+    double sum = 0, sumSquared = 0, sumOfWeights = 0;
+
+    if (!attribute(attIndex).isNumeric()) {
+      throw new IllegalArgumentException(
+        "Can't compute variance because attribute is " + "not numeric!");
+    }
+    double[] column = attributeToDoubleArray(attIndex);
+    double[] weights = weightsToDoubleArray();
+    for (int i = 0; i < m_NumRows; i++) {
+      if (!Instance.isMissingValue(column[i])) {
+        sum += weights[i] * column[i];
+        sumSquared += weights[i] * column[i] * column[i];
+        sumOfWeights += weights[i];
+      }
+    }
+    if (sumOfWeights <= 1) {
+      return 0;
+    }
+    double result = (sumSquared - (sum * sum / sumOfWeights))
+      / (sumOfWeights - 1);
+
+    // We don't like negative variance
+    if (result < 0) {
+      return 0;
+    } else {
+      return result;
+    }
+  }
+
+  /**
+   * Returns the revision string.
+   *
+   * @return		the revision
+   */
+  public String getRevision() {
+    return RevisionUtils.extract("$Revision: 1.0 $");
+  }
+}
@@ -1016,18 +1016,19 @@ public class Instances implements Serializable, RevisionHandler {
 
   /**
    * Creates a new dataset of the same size using random sampling with
-   * replacement.
+   * replacement. The new dataset holds shallow copies of the sampled
+   * instances, see view(int[]).
    * 
    * @param random a random number generator
    * @return the new dataset
    */
   public Instances resample(Random random) {
 
-    Instances newData = new Instances(this, numInstances());
-    while (newData.numInstances() < numInstances()) {
-      newData.add(instance(random.nextInt(numInstances())));
+    int[] indices = new int[numInstances()];
+    for (int i = 0; i < indices.length; i++) {
+      indices[i] = random.nextInt(numInstances());
     }
-    return newData;
+    return view(indices);
   }
 
   /**
@@ -1088,7 +1089,9 @@ public class Instances implements Serializable, RevisionHandler {
    * instances in the new dataset are set to one. The length of the weight
    * vector has to be the same as the number of instances in the dataset, and
    * all weights have to be positive. Uses Walker's method, see pp. 232 of
-   * "Stochastic Simulation" by B.D. Ripley (1987).
+   * "Stochastic Simulation" by B.D. Ripley (1987). If all sampled instances
+   * already have weight one, the new dataset holds shallow copies of the
+   * sampled instances, see view(int[]).
    * 
    * @param random a random number generator
    * @param weights the weight vector
@@ -1104,9 +1107,8 @@ public class Instances implements Serializable, RevisionHandler {
       throw new IllegalArgumentException("weights.length != numInstances.");
     }
 
-    Instances newData = new Instances(this, numInstances());
     if (numInstances() == 0) {
-      return newData;
+      return new Instances(this, 0);
     }
 
     // Walker's method, see pp. 232 of "Stochastic Simulation" by B.D. Ripley
@@ -1150,6 +1152,8 @@ public class Instances implements Serializable, RevisionHandler {
       Q[I] += I;
     }
 
+    int[] indices = new int[numInstances()];
+    boolean weighted = false;
     for (int i = 0; i < numInstances(); i++) {
       int ALRV;
       double U = M * random.nextDouble();
@@ -1159,13 +1163,24 @@ public class Instances implements Serializable, RevisionHandler {
       } else {
         ALRV = A[I];
       }
-      newData.add(instance(ALRV));
+      indices[i] = ALRV;
       if (sampled != null) {
         sampled[ALRV] = true;
       }
-      newData.instance(newData.numInstances() - 1).setWeight(1);
+      if (instance(ALRV).weight() != 1) {
+        weighted = true;
+      }
+    }
+    if (!weighted) {
+      return view(indices);
     }
 
+    // the weights have to be reset on copies
+    Instances newData = new Instances(this, numInstances());
+    for (int i = 0; i < indices.length; i++) {
+      newData.add(instance(indices[i]));
+      newData.instance(i).setWeight(1);
+    }
     return newData;
   }
 
@@ -1303,6 +1318,7 @@ public class Instances implements Serializable, RevisionHandler {
 
   /**
    * Creates the test set for one fold of a cross-validation on the dataset.
+   * The test set holds shallow copies of the instances, see view(int[]).
    * 
    * @param numFolds the number of folds in the cross-validation. Must be
    *          greater than 1.
@@ -1315,8 +1331,29 @@ public class Instances implements Serializable, RevisionHandler {
   // @ requires 0 <= numFold && numFold < numFolds;
   public Instances testCV(int numFolds, int numFold) {
 
-    int numInstForFold, first, offset;
-    Instances test;
+    int[] fold = fold(numFolds, numFold);
+    int[] indices = new int[fold[1]];
+    for (int i = 0; i < indices.length; i++) {
+      indices[i] = fold[0] + i;
+    }
+    return view(indices);
+  }
+
+  /**
+   * Returns the position and size of the test set of one fold of a
+   * cross-validation.
+   * 
+   * @param numFolds the number of folds in the cross-validation. Must be
+   *          greater than 1.
+   * @param numFold 0 for the first fold, 1 for the second, ...
+   * @return the index of the first test instance and the number of test
+   *         instances
+   * @throws IllegalArgumentException if the number of folds is less than 2 or
+   *           greater than the number of instances.
+   */
+  protected int[] fold(int numFolds, int numFold) {
+
+    int numInstForFold, offset;
 
     if (numFolds < 2) {
       throw new IllegalArgumentException("Number of folds must be at least 2!");
@@ -1332,10 +1369,8 @@ public class Instances implements Serializable, RevisionHandler {
     } else {
       offset = numInstances() % numFolds;
     }
-    test = new Instances(this, numInstForFold);
-    first = numFold * (numInstances() / numFolds) + offset;
-    copyInstances(first, test, numInstForFold);
-    return test;
+    return new int[] { numFold * (numInstances() / numFolds) + offset,
+      numInstForFold };
   }
 
   /**
@@ -1382,6 +1417,8 @@ public class Instances implements Serializable, RevisionHandler {
 
   /**
    * Creates the training set for one fold of a cross-validation on the dataset.
+   * The training set holds shallow copies of the instances, see
+   * view(int[]).
    * 
    * @param numFolds the number of folds in the cross-validation. Must be
    *          greater than 1.
@@ -1394,30 +1431,15 @@ public class Instances implements Serializable, RevisionHandler {
   // @ requires 0 <= numFold && numFold < numFolds;
   public Instances trainCV(int numFolds, int numFold) {
 
-    int numInstForFold, first, offset;
-    Instances train;
-
-    if (numFolds < 2) {
-      throw new IllegalArgumentException("Number of folds must be at least 2!");
-    }
-    if (numFolds > numInstances()) {
-      throw new IllegalArgumentException(
-        "Can't have more folds than instances!");
+    int[] fold = fold(numFolds, numFold);
+    int[] indices = new int[numInstances() - fold[1]];
+    for (int i = 0; i < fold[0]; i++) {
+      indices[i] = i;
     }
-    numInstForFold = numInstances() / numFolds;
-    if (numFold < numInstances() % numFolds) {
-      numInstForFold++;
-      offset = numFold;
-    } else {
-      offset = numInstances() % numFolds;
+    for (int i = fold[0]; i < indices.length; i++) {
+      indices[i] = i + fold[1];
     }
-    train = new Instances(this, numInstances() - numInstForFold);
-    first = numFold * (numInstances() / numFolds) + offset;
-    copyInstances(0, train, first);
-    copyInstances(first + numInstForFold, train, numInstances() - first
-      - numInstForFold);
-
-    return train;
+    return view(indices);
   }
 
   /**
@@ -1442,6 +1464,30 @@ public class Instances implements Serializable, RevisionHandler {
     return train;
   }
 
+  /**
+   * Returns a new dataset with the given instances of this dataset, in the
+   * given order. The new dataset has the same header information and holds
+   * one shallow copy per index, each with access to the new dataset. A copy
+   * takes over the attribute values of its instance and copies them only
+   * when either of them is changed, so neither a change to the new dataset
+   * nor to this dataset affects the other. ColumnarInstances overrides this
+   * method to share its columns instead of copying the instances.
+   * 
+   * @param indices the indices of the instances, an index may occur more
+   *          than once
+   * @return the new dataset
+   */
+  public Instances view(int[] indices) {
+
+    Instances result = new Instances(this, indices.length);
+    for (int i = 0; i < indices.length; i++) {
+      Instance copy = (Instance) instance(indices[i]).copy();
+      copy.setDataset(result);
+      result.m_Instances.addElement(copy);
+    }
+    return result;
+  }
+
   /**
    * Computes the variance for a numeric attribute.
    * 
@@ -1552,6 +1598,22 @@ public class Instances implements Serializable, RevisionHandler {
     return result;
   }
 
+  /**
+   * Gets the weights of all instances in this dataset. Together with
+   * attributeToDoubleArray(int) this allows scanning the dataset column by
+   * column instead of instance by instance.
+   * 
+   * @return an array containing the weight of each instance in the dataset.
+   */
+  public/* @pure@ */double[] weightsToDoubleArray() {
+
+    double[] result = new double[numInstances()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = instance(i).weight();
+    }
+    return result;
+  }
+
   /**
    * Generates a string summarizing the set of instances. Gives a breakdown for
    * each attribute indicating the number of missing/discrete/unique values and
@@ -0,0 +1,545 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+/*
+ *    MappedInstances.java
+ *    Copyright (C) 2015 University of Waikato, Hamilton, New Zealand
+ *
+ */
+
+package weka.core;
+
+import weka.core.converters.ArffLoader.ArffReader;
+import weka.core.converters.ConverterUtils.DataSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A set of instances whose values are not stored on the heap but in a file
+ * that is mapped into memory, so datasets larger than the heap can be used
+ * for training. The file holds the ARFF header and one column of doubles per
+ * attribute plus one for the weights. Only the pages that are read are
+ * loaded, and they are kept in the page cache of the operating system
+ * instead of the heap: several JVMs that open the same file share the same
+ * memory.<p>
+ *
+ * The file is created once from an ARFF or CSV file with the conversion tool
+ * of this class:
+ * <pre>
+ * java weka.core.MappedInstances -i data.arff -o data.col -c last
+ * </pre>
+ * and opened with:
+ * <pre>
+ * Instances data = new MappedInstances(new File("data.col"));
+ * </pre>
+ *
+ * Like for ColumnarInstances, instances are views of their rows, and
+ * randomize, sort, stratify, trainCV and testCV only permute row indices.
+ * Values and weights can be changed if the file is writable, but the
+ * changes are private to the JVM and never written back to the file; a
+ * read-only file gives read-only instances. The number of rows is fixed:
+ * instances can't be added, copy the dataset to the heap with
+ * <code>new ColumnarInstances(data)</code> first. Inserting or deleting an
+ * attribute copies the data to the heap as well. Only numeric, nominal and
+ * date attributes are supported.<p>
+ *
+ * The file starts with the magic number, the format version, the number of
+ * attributes, the number of rows, the class index and the length of the ARFF
+ * header, followed by the ARFF header itself in UTF-8. After padding to a
+ * multiple of 8 bytes follow the weights and then the values of each
+ * attribute, each column as consecutive doubles. All numbers are stored
+ * little-endian.
+ *
+ * @version $Revision: 1.0 $
+ * @see ColumnarInstances
+ */
+public class MappedInstances
+  extends ColumnarInstances {
+
+  /** for serialization */
+  private static final long serialVersionUID = -2409839117327014431L;
+
+  /** the magic number at the start of the file, "WEKACOL1". */
+  public static final long MAGIC = 0x57454B41434F4C31L;
+
+  /** the version of the file format. */
+  public static final int VERSION = 1;
+
+  /** the length of the fixed part of the file header in bytes. */
+  protected static final int HEADER_SIZE = 32;
+
+  /**
+   * the log2 of the number of doubles mapped per buffer, since a single
+   * buffer can't map more than 2GB.
+   */
+  protected static final int CHUNK_SHIFT = 27;
+
+  /**
+   * Columns mapped from a file. Each column is mapped in chunks of
+   * 2^chunkShift doubles.
+   */
+  static class MappedColumns
+    extends Columns {
+
+    /** for serialization */
+    private static final long serialVersionUID = 5962374925818271702L;
+
+    /** the mapped file. */
+    File m_File;
+
+    /** the number of attributes. */
+    int m_NumAttributes;
+
+    /** the number of rows. */
+    int m_NumRows;
+
+    /** the index of the class attribute, -1 if not set. */
+    int m_ClassIndex;
+
+    /** the position of the weights column in the file. */
+    long m_DataOffset;
+
+    /** the log2 of the number of doubles per chunk. */
+    int m_ChunkShift;
+
+    /** the header of the dataset, only available right after opening. */
+    transient Instances m_Header;
+
+    /** the chunks of the attribute columns. */
+    transient DoubleBuffer[][] m_Values;
+
+    /** the chunks of the weights column. */
+    transient DoubleBuffer[] m_Weights;
+
+    /**
+     * Opens and maps a file.
+     *
+     * @param file the file to open
+     * @param chunkShift the log2 of the number of doubles per chunk
+     * @throws IOException if the file can't be read or has the wrong format
+     */
+    MappedColumns(File file, int chunkShift) throws IOException {
+      m_File = file.getAbsoluteFile();
+      m_ChunkShift = chunkShift;
+
+      RandomAccessFile in = new RandomAccessFile(m_File, "r");
+      try {
+        FileChannel channel = in.getChannel();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE).order(
+          ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, buffer, 0);
+        buffer.flip();
+        if (buffer.getLong() != MAGIC) {
+          throw new IOException(m_File + " is not a mapped instances file!");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+          throw new IOException("Unsupported version " + version + " of "
+            + m_File + "!");
+        }
+        m_NumAttributes = buffer.getInt();
+        long numRows = buffer.getLong();
+        if (numRows > Integer.MAX_VALUE) {
+          throw new IOException(m_File + " has too many rows: " + numRows);
+        }
+        m_NumRows = (int) numRows;
+        m_ClassIndex = buffer.getInt();
+        int headerLength = buffer.getInt();
+
+        buffer = ByteBuffer.allocate(headerLength);
+        readFully(channel, buffer, HEADER_SIZE);
+        m_Header = new ArffReader(new StringReader(new String(buffer.array(),
+          "UTF-8")), 0).getStructure();
+        if (m_Header.numAttributes() != m_NumAttributes) {
+          throw new IOException("Header of " + m_File
+            + " doesn't match the number of columns!");
+        }
+        m_DataOffset = dataOffset(headerLength);
+        long size = m_DataOffset + 8L * (m_NumAttributes + 1) * m_NumRows;
+        if (channel.size() < size) {
+          throw new IOException(m_File + " is truncated!");
+        }
+      } finally {
+        in.close();
+      }
+      map();
+    }
+
+    /**
+     * Maps the columns. The mapping is read-only if the file can't be
+     * written to, and copy-on-write otherwise, so that values can be
+     * changed without changing the file.
+     *
+     * @throws IOException if mapping fails
+     */
+    void map() throws IOException {
+      boolean writable = m_File.canWrite();
+      FileChannel.MapMode mode = writable ? FileChannel.MapMode.PRIVATE
+        : FileChannel.MapMode.READ_ONLY;
+      RandomAccessFile in = new RandomAccessFile(m_File, writable ? "rw" : "r");
+      try {
+        FileChannel channel = in.getChannel();
+        m_Weights = map(channel, mode, m_DataOffset);
+        m_Values = new DoubleBuffer[m_NumAttributes][];
+        for (int i = 0; i < m_NumAttributes; i++) {
+          m_Values[i] = map(channel, mode, m_DataOffset + 8L * (i + 1)
+            * m_NumRows);
+        }
+      } finally {
+        // the mappings stay valid after the channel is closed
+        in.close();
+      }
+    }
+
+    /**
+     * Maps one column in chunks.
+     *
+     * @param channel the channel of the file
+     * @param mode the mapping mode
+     * @param position the position of the column in the file
+     * @return the chunks
+     * @throws IOException if mapping fails
+     */
+    DoubleBuffer[] map(FileChannel channel, FileChannel.MapMode mode,
+      long position) throws IOException {
+      int chunk = 1 << m_ChunkShift;
+      DoubleBuffer[] result = new DoubleBuffer[(m_NumRows + chunk - 1)
+        / chunk];
+      for (int i = 0; i < result.length; i++) {
+        int length = Math.min(chunk, m_NumRows - i * chunk);
+        result[i] = channel
+          .map(mode, position + 8L * i * chunk, 8L * length)
+          .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+      }
+      return result;
+    }
+
+    int numAttributes() {
+      return m_NumAttributes;
+    }
+
+    double value(int attIndex, int row) {
+      return m_Values[attIndex][row >>> m_ChunkShift].get(row
+        & ((1 << m_ChunkShift) - 1));
+    }
+
+    void setValue(int attIndex, int row, double value) {
+      m_Values[attIndex][row >>> m_ChunkShift].put(row
+        & ((1 << m_ChunkShift) - 1), value);
+    }
+
+    double weight(int row) {
+      return m_Weights[row >>> m_ChunkShift].get(row
+        & ((1 << m_ChunkShift) - 1));
+    }
+
+    void setWeight(int row, double weight) {
+      m_Weights[row >>> m_ChunkShift].put(row & ((1 << m_ChunkShift) - 1),
+        weight);
+    }
+
+    void column(int attIndex, int[] rows, int numRows, double[] dst) {
+      DoubleBuffer[] column = m_Values[attIndex];
+      int mask = (1 << m_ChunkShift) - 1;
+      for (int i = 0; i < numRows; i++) {
+        dst[i] = column[rows[i] >>> m_ChunkShift].get(rows[i] & mask);
+      }
+    }
+
+    void weights(int[] rows, int numRows, double[] dst) {
+      int mask = (1 << m_ChunkShift) - 1;
+      for (int i = 0; i < numRows; i++) {
+        dst[i] = m_Weights[rows[i] >>> m_ChunkShift].get(rows[i] & mask);
+      }
+    }
+
+    int append(Instance instance) {
+      throw new UnsupportedOperationException(
+        "Can't add instances to mapped instances, copy them with "
+          + "new ColumnarInstances(data) first!");
+    }
+
+    boolean isGrowable() {
+      return false;
+    }
+
+    /**
+     * Maps the file again after deserialization.
+     *
+     * @param in the stream to read from
+     * @throws IOException if the file can't be mapped
+     * @throws ClassNotFoundException if a class can't be found
+     */
+    private void readObject(ObjectInputStream in) throws IOException,
+      ClassNotFoundException {
+      in.defaultReadObject();
+      map();
+    }
+  }
+
+  /**
+   * Opens a file created by the conversion tool of this class.
+   *
+   * @param file the file to open
+   * @throws IOException if the file can't be read or has the wrong format
+   */
+  public MappedInstances(File file) throws IOException {
+    this(new MappedColumns(file, CHUNK_SHIFT));
+  }
+
+  /**
+   * Opens a file and maps the columns in chunks of the given size.
+   *
+   * @param file the file to open
+   * @param chunkShift the log2 of the number of doubles per chunk
+   * @throws IOException if the file can't be read or has the wrong format
+   */
+  MappedInstances(File file, int chunkShift) throws IOException {
+    this(new MappedColumns(file, chunkShift));
+  }
+
+  /**
+   * Initializes the dataset with the header and columns of an opened file.
+   *
+   * @param columns the opened file
+   */
+  private MappedInstances(MappedColumns columns) {
+
+    super(columns.m_Header, 0);
+    m_Columns = columns;
+    m_Rows = identity(columns.m_NumRows);
+    m_NumRows = columns.m_NumRows;
+    setClassIndex(columns.m_ClassIndex);
+    columns.m_Header = null;
+  }
+
+  /**
+   * Returns the mapped file.
+   *
+   * @return the file
+   */
+  public File getFile() {
+    return ((MappedColumns) m_Columns).m_File;
+  }
+
+  /**
+   * Returns the position of the first column, after the header.
+   *
+   * @param headerLength the length of the ARFF header in bytes
+   * @return the position, aligned to 8 bytes
+   */
+  protected static long dataOffset(int headerLength) {
+    return (HEADER_SIZE + headerLength + 7) & ~7L;
+  }
+
+  /**
+   * Reads from a channel until the buffer is full.
+   *
+   * @param channel the channel to read from
+   * @param buffer the buffer to fill
+   * @param position the position to start reading from
+   * @throws IOException if the channel ends before the buffer is full
+   */
+  protected static void readFully(FileChannel channel, ByteBuffer buffer,
+    long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, position);
+      if (read < 0) {
+        throw new IOException("Unexpected end of file!");
+      }
+      position += read;
+    }
+  }
+
+  /**
+   * Writes the whole buffer to a channel.
+   *
+   * @param channel the channel to write to
+   * @param buffer the buffer to write
+   * @param position the position to start writing at
+   * @throws IOException if writing fails
+   */
+  protected static void writeFully(FileChannel channel, ByteBuffer buffer,
+    long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+  }
+
+  /**
+   * Converts the instances of a data source to a file that can be opened
+   * with MappedInstances. The instances are read one at a time if the
+   * source supports it, written row by row to a temporary file next to the
+   * output file, and transposed into columns block by block, so the dataset
+   * never has to fit on the heap.
+   *
+   * @param source the data source to convert
+   * @param output the file to write
+   * @param classIndex the index of the class attribute, -1 for none
+   * @throws Exception if the source can't be read, has string or relational
+   *           attributes, or the file can't be written
+   */
+  public static void convert(DataSource source, File output, int classIndex)
+    throws Exception {
+
+    Instances structure = source.getStructure();
+    int numAttributes = structure.numAttributes();
+    for (int i = 0; i < numAttributes; i++) {
+      if (structure.attribute(i).isString()
+        || structure.attribute(i).isRelationValued()) {
+        throw new IllegalArgumentException("Attribute '"
+          + structure.attribute(i).name()
+          + "' can't be mapped: only numeric, nominal and date attributes "
+          + "are supported!");
+      }
+    }
+    if (classIndex >= numAttributes) {
+      throw new IllegalArgumentException("Class index out of range: "
+        + (classIndex + 1));
+    }
+
+    // a block of rows, each the weight followed by the values
+    int rowSize = 8 * (numAttributes + 1);
+    int blockRows = Math.max(1, (1 << 20) / rowSize);
+    ByteBuffer rows = ByteBuffer.allocate(blockRows * rowSize).order(
+      ByteOrder.LITTLE_ENDIAN);
+    File temp = File.createTempFile("weka", ".rows", output.getAbsoluteFile()
+      .getParentFile());
+    RandomAccessFile tempFile = new RandomAccessFile(temp, "rw");
+    RandomAccessFile outFile = null;
+    try {
+      FileChannel tempChannel = tempFile.getChannel();
+      long numRows = 0;
+      while (source.hasMoreElements(structure)) {
+        Instance instance = source.nextElement(structure);
+        if (!rows.hasRemaining()) {
+          rows.flip();
+          writeFully(tempChannel, rows, (numRows - blockRows) * rowSize);
+          rows.clear();
+        }
+        rows.putDouble(instance.weight());
+        for (int i = 0; i < numAttributes; i++) {
+          rows.putDouble(instance.value(i));
+        }
+        numRows++;
+      }
+      rows.flip();
+      writeFully(tempChannel, rows, (numRows - rows.remaining() / rowSize)
+        * rowSize);
+      if (numRows > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("Too many instances: " + numRows);
+      }
+
+      byte[] header = new Instances(structure, 0).toString().getBytes("UTF-8");
+      outFile = new RandomAccessFile(output, "rw");
+      outFile.setLength(0);
+      FileChannel outChannel = outFile.getChannel();
+      ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + header.length)
+        .order(ByteOrder.LITTLE_ENDIAN);
+      buffer.putLong(MAGIC);
+      buffer.putInt(VERSION);
+      buffer.putInt(numAttributes);
+      buffer.putLong(numRows);
+      buffer.putInt(classIndex);
+      buffer.putInt(header.length);
+      buffer.put(header);
+      buffer.flip();
+      writeFully(outChannel, buffer, 0);
+
+      // transposes the rows block by block, the weights are column 0
+      long dataOffset = dataOffset(header.length);
+      ByteBuffer column = ByteBuffer.allocate(8 * blockRows).order(
+        ByteOrder.LITTLE_ENDIAN);
+      for (long first = 0; first < numRows; first += blockRows) {
+        int num = (int) Math.min(blockRows, numRows - first);
+        rows.clear();
+        rows.limit(num * rowSize);
+        readFully(tempChannel, rows, first * rowSize);
+        for (int c = 0; c <= numAttributes; c++) {
+          column.clear();
+          for (int r = 0; r < num; r++) {
+            column.putDouble(rows.getDouble(r * rowSize + 8 * c));
+          }
+          column.flip();
+          writeFully(outChannel, column, dataOffset + 8 * (c * numRows + first));
+        }
+      }
+      outFile.setLength(dataOffset + 8 * (numAttributes + 1) * numRows);
+    } finally {
+      tempFile.close();
+      if (outFile != null) {
+        outFile.close();
+      }
+      temp.delete();
+    }
+  }
+
+  /**
+   * Returns the revision string.
+   *
+   * @return		the revision
+   */
+  public String getRevision() {
+    return RevisionUtils.extract("$Revision: 1.0 $");
+  }
+
+  /**
+   * Converts an ARFF or CSV file (or any other format supported by the
+   * converters) to a file that can be opened with MappedInstances.
+   * Options:<p/>
+   *
+   * -i &lt;file&gt; <br/>
+   * The file to convert.<p/>
+   *
+   * -o &lt;file&gt; <br/>
+   * The file to write.<p/>
+   *
+   * -c &lt;first|last|index&gt; <br/>
+   * The 1-based index of the class attribute (default: none).<p/>
+   *
+   * @param args the options
+   */
+  public static void main(String[] args) {
+    try {
+      String input = Utils.getOption('i', args);
+      String output = Utils.getOption('o', args);
+      String classIndex = Utils.getOption('c', args);
+      if ((input.length() == 0) || (output.length() == 0)) {
+        throw new Exception("Usage: " + MappedInstances.class.getName()
+          + " -i <input file> -o <output file> [-c <first|last|index>]");
+      }
+
+      DataSource source = new DataSource(input);
+      int index = -1;
+      if (classIndex.length() != 0) {
+        SingleIndex single = new SingleIndex(classIndex);
+        single.setUpper(source.getStructure().numAttributes() - 1);
+        index = single.getIndex();
+      }
+      convert(source, new File(output), index);
+    } catch (Exception e) {
+      System.err.println(e.getMessage());
+    }
+  }
+}
@@ -23,6 +23,7 @@ package weka.core;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -47,6 +48,12 @@ public class SerializationHelper
 
   /** the field name of serialVersionUID. */
   public final static String SERIAL_VERSION_UID = "serialVersionUID";
+
+  /** the first bytes of a binary ann model, see weka.classifiers.ann.BinaryModel. */
+  public final static byte[] BINARY_MODEL_MAGIC = {'W', 'A', 'N', 'N'};
+
+  /** the class that reads binary ann models. */
+  protected final static String BINARY_MODEL_READER = "weka.classifiers.ann.BinaryModel";
   
   /**
    * checks whether a class is serializable.
@@ -268,9 +275,74 @@ public class SerializationHelper
    * @throws Exception	if deserialization fails
    */
   public static Object read(String filename) throws Exception {
+    if (isBinaryModel(filename))
+      return readBinaryModel(File.class, new File(filename));
     return read(new FileInputStream(filename));
   }
 
+  /**
+   * checks whether the file starts with the magic number of a binary ann
+   * model.
+   * 
+   * @param filename	the file to check
+   * @return		true if the file is a binary ann model
+   * @throws Exception	if the file cannot be read
+   */
+  public static boolean isBinaryModel(String filename) throws Exception {
+    FileInputStream	stream;
+    byte[]		start;
+    int			read;
+    int			n;
+    
+    stream = new FileInputStream(filename);
+    try {
+      start = new byte[BINARY_MODEL_MAGIC.length];
+      read  = 0;
+      while (read < start.length && (n = stream.read(start, read, start.length - read)) > 0)
+	read += n;
+      return (read == start.length) && startsWithMagic(start);
+    }
+    finally {
+      stream.close();
+    }
+  }
+
+  /**
+   * checks whether the bytes are the magic number of a binary ann model.
+   * 
+   * @param start	the first bytes of a file or stream
+   * @return		true if the bytes match
+   */
+  protected static boolean startsWithMagic(byte[] start) {
+    int		i;
+    
+    for (i = 0; i < BINARY_MODEL_MAGIC.length; i++) {
+      if (start[i] != BINARY_MODEL_MAGIC[i])
+	return false;
+    }
+    return true;
+  }
+
+  /**
+   * reads a binary ann model. The reader is looked up by name, so that
+   * weka.core does not depend on the classifiers.
+   * 
+   * @param type	the type of the source, File or InputStream
+   * @param source	the file or stream to read from
+   * @return		the model
+   * @throws Exception	if reading fails
+   */
+  protected static Object readBinaryModel(Class type, Object source) throws Exception {
+    try {
+      return Class.forName(BINARY_MODEL_READER).getMethod("read", new Class[]{type}).invoke(null, new Object[]{source});
+    }
+    catch (java.lang.reflect.InvocationTargetException e) {
+      if (e.getCause() instanceof Exception)
+	throw (Exception) e.getCause();
+      throw e;
+    }
+  }
+
   /**
    * deserializes from the given stream and returns the object from it.
    * 
@@ -285,6 +357,12 @@ public class SerializationHelper
     if (!(stream instanceof BufferedInputStream))
       stream = new BufferedInputStream(stream);
     
+    if (isBinaryModel(stream)) {
+      result = readBinaryModel(InputStream.class, stream);
+      stream.close();
+      return result;
+    }
+    
     ois    = new ObjectInputStream(stream);
     result = ois.readObject();
     ois.close();
@@ -292,6 +370,29 @@ public class SerializationHelper
     return result;
   }
 
+  /**
+   * checks whether the stream starts with the magic number of a binary ann
+   * model, without consuming any bytes.
+   * 
+   * @param stream	the stream to check, must support mark/reset
+   * @return		true if the stream is a binary ann model
+   * @throws IOException	if the stream cannot be read
+   */
+  protected static boolean isBinaryModel(InputStream stream) throws IOException {
+    byte[]	start;
+    int		read;
+    int		n;
+    
+    start = new byte[BINARY_MODEL_MAGIC.length];
+    stream.mark(start.length);
+    read = 0;
+    while (read < start.length && (n = stream.read(start, read, start.length - read)) > 0)
+      read += n;
+    stream.reset();
+    
+    return (read == start.length) && startsWithMagic(start);
+  }
+
   /**
    * deserializes the given file and returns the objects from it.
    * 
@@ -64,7 +64,7 @@ public class SparseInstance
    */
   public SparseInstance(Instance instance) {
     
-    m_Weight = instance.m_Weight;
+    m_Weight = instance.weight();
     m_Dataset = null;
     m_NumAttributes = instance.numAttributes();
     if (instance instanceof SparseInstance) {
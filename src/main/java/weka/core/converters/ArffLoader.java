@@ -31,15 +31,21 @@ import java.io.Reader;
 import java.io.StreamTokenizer;
 import java.io.StringReader;
 import java.net.URL;
+import java.nio.charset.Charset;
 import java.text.ParseException;
+import java.util.Enumeration;
+import java.util.Vector;
 
 import weka.core.Attribute;
 import weka.core.FastVector;
 import weka.core.Instance;
 import weka.core.Instances;
+import weka.core.Option;
+import weka.core.OptionHandler;
 import weka.core.RevisionHandler;
 import weka.core.RevisionUtils;
 import weka.core.SparseInstance;
+import weka.core.Utils;
 
 /**
  * <!-- globalinfo-start --> Reads a source that is in arff (attribute relation
@@ -47,6 +53,22 @@ import weka.core.SparseInstance;
  * <p/>
  * <!-- globalinfo-end -->
  * 
+ * <!-- options-start --> Valid options are:
+ * <p/>
+ * 
+ * <pre>
+ * -F
+ *  Use FastArffReader to read the data.
+ * </pre>
+ * 
+ * <pre>
+ * -num-slots &lt;num&gt;
+ *  Number of threads that parse the data in batch mode,
+ *  implies -F (default 1).
+ * </pre>
+ * 
+ * <!-- options-end -->
+ * 
  * @author Mark Hall (mhall@cs.waikato.ac.nz)
  * @author FracPete (fracpete at waikato dot ac dot nz)
  * @version $Revision: 11137 $
@@ -54,7 +76,8 @@ import weka.core.SparseInstance;
  */
 public class ArffLoader
   extends AbstractFileLoader
-  implements BatchConverter, IncrementalConverter, URLSourcedLoader {
+  implements BatchConverter, IncrementalConverter, URLSourcedLoader,
+  OptionHandler {
 
   /** for serialization */
   static final long serialVersionUID = 2726929550544048587L;
@@ -69,6 +92,15 @@ public class ArffLoader
   /** The reader for the source file. */
   protected transient Reader m_sourceReader = null;
 
+  /** The stream the reader reads from. */
+  protected transient InputStream m_sourceStream = null;
+
+  /** whether to read the data with FastArffReader */
+  protected boolean m_UseFastReader = false;
+
+  /** the number of threads that parse the data in batch mode */
+  protected int m_NumExecutionSlots = 1;
+
   /** The parser for the ARFF file */
   protected transient ArffReader m_ArffReader = null;
 
@@ -123,6 +155,12 @@ public class ArffLoader
     /** the number of lines read so far */
     protected int m_Lines;
 
+    /**
+     * For subclasses that read the data without a StreamTokenizer.
+     */
+    protected ArffReader() {
+    }
+
     /**
      * Reads the data completely from the reader. The data can be accessed via
      * the <code>getData()</code> method.
@@ -870,6 +908,147 @@ public class ArffLoader
       + "format. ";
   }
 
+  /**
+   * Returns an enumeration describing the available options.
+   * 
+   * @return an enumeration of all the available options.
+   */
+  @Override
+  public Enumeration listOptions() {
+    Vector result = new Vector();
+
+    result.addElement(new Option(
+      "\tUse FastArffReader to read the data.", "F", 0, "-F"));
+
+    result.addElement(new Option(
+      "\tNumber of threads that parse the data in batch mode,\n"
+        + "\timplies -F (default 1).", "num-slots", 1, "-num-slots <num>"));
+
+    return result.elements();
+  }
+
+  /**
+   * Parses a given list of options.
+   * <p/>
+   * 
+   * <!-- options-start --> Valid options are:
+   * <p/>
+   * 
+   * <pre>
+   * -F
+   *  Use FastArffReader to read the data.
+   * </pre>
+   * 
+   * <pre>
+   * -num-slots &lt;num&gt;
+   *  Number of threads that parse the data in batch mode,
+   *  implies -F (default 1).
+   * </pre>
+   * 
+   * <!-- options-end -->
+   * 
+   * @param options the list of options as an array of strings
+   * @throws Exception if an option is not supported
+   */
+  @Override
+  public void setOptions(String[] options) throws Exception {
+    String tmpStr;
+
+    setUseFastReader(Utils.getFlag('F', options));
+
+    tmpStr = Utils.getOption("num-slots", options);
+    if (tmpStr.length() != 0) {
+      setNumExecutionSlots(Integer.parseInt(tmpStr));
+    } else {
+      setNumExecutionSlots(1);
+    }
+  }
+
+  /**
+   * Gets the current settings of the Loader.
+   * 
+   * @return an array of strings suitable for passing to setOptions
+   */
+  @Override
+  public String[] getOptions() {
+    Vector<String> result;
+
+    result = new Vector<String>();
+
+    if (getUseFastReader()) {
+      result.add("-F");
+    }
+
+    result.add("-num-slots");
+    result.add("" + getNumExecutionSlots());
+
+    return result.toArray(new String[result.size()]);
+  }
+
+  /**
+   * Returns the tip text for this property
+   * 
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String useFastReaderTipText() {
+    return "Whether to read the data with FastArffReader, which parses the "
+      + "bytes directly instead of using a StreamTokenizer. Only used if the "
+      + "default charset is UTF-8 or an ASCII compatible single-byte charset.";
+  }
+
+  /**
+   * Sets whether to read the data with FastArffReader.
+   * 
+   * @param value true if FastArffReader is to be used
+   */
+  public void setUseFastReader(boolean value) {
+    m_UseFastReader = value;
+  }
+
+  /**
+   * Gets whether the data is read with FastArffReader.
+   * 
+   * @return true if FastArffReader is used
+   */
+  public boolean getUseFastReader() {
+    return m_UseFastReader;
+  }
+
+  /**
+   * Returns the tip text for this property
+   * 
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String numExecutionSlotsTipText() {
+    return "The number of threads that parse chunks of the data in batch "
+      + "mode. More than one implies useFastReader.";
+  }
+
+  /**
+   * Sets the number of threads that parse the data in batch mode.
+   * 
+   * @param value the number of threads
+   * @throws IllegalArgumentException if the number is less than 1
+   */
+  public void setNumExecutionSlots(int value) {
+    if (value < 1) {
+      throw new IllegalArgumentException(
+        "Number of execution slots needs to be >= 1!");
+    }
+    m_NumExecutionSlots = value;
+  }
+
+  /**
+   * Gets the number of threads that parse the data in batch mode.
+   * 
+   * @return the number of threads
+   */
+  public int getNumExecutionSlots() {
+    return m_NumExecutionSlots;
+  }
+
   /**
    * Get the file extension used for arff files
    * 
@@ -993,6 +1172,7 @@ public class ArffLoader
     m_File = (new File(System.getProperty("user.dir"))).getAbsolutePath();
     m_URL = "http://";
 
+    m_sourceStream = in;
     m_sourceReader = new BufferedReader(new InputStreamReader(in));
   }
 
@@ -1011,7 +1191,12 @@ public class ArffLoader
         throw new IOException("No source has been specified");
       }
       try {
-        m_ArffReader = new ArffReader(m_sourceReader, 1);
+        if ((m_UseFastReader || (m_NumExecutionSlots > 1))
+          && FastArffReader.supports(Charset.defaultCharset())) {
+          m_ArffReader = new FastArffReader(m_sourceStream, 1);
+        } else {
+          m_ArffReader = new ArffReader(m_sourceReader, 1);
+        }
         m_structure = m_ArffReader.getStructure();
       } catch (Exception ex) {
         throw new IOException("Unable to determine structure as arff (Reason: "
@@ -1050,8 +1235,13 @@ public class ArffLoader
       // Read all instances
       Instance inst;
       insts = new Instances(m_structure, 0);
-      while ((inst = m_ArffReader.readInstance(m_structure)) != null) {
-        insts.add(inst);
+      if (m_ArffReader instanceof FastArffReader) {
+        ((FastArffReader) m_ArffReader).readInstances(insts,
+          m_NumExecutionSlots);
+      } else {
+        while ((inst = m_ArffReader.readInstance(m_structure)) != null) {
+          insts.add(inst);
+        }
       }
 
       // Instances readIn = new Instances(m_structure);
@@ -29,11 +29,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.StreamTokenizer;
+import java.io.StringReader;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.Hashtable;
 import java.util.Vector;
+import java.util.concurrent.Callable;
 
 import weka.core.Attribute;
 import weka.core.FastVector;
@@ -97,6 +100,11 @@ import weka.core.Utils;
  *  Specify as a comma separated list (e.g. ",' (default: '"')
  * </pre>
  * 
+ * <pre>
+ * -num-slots &lt;num&gt;
+ *  Number of threads that parse the data (default 1).
+ * </pre>
+ * 
  * <!-- options-end -->
  * 
  * @author Mark Hall (mhall@cs.waikato.ac.nz)
@@ -152,6 +160,58 @@ public class CSVLoader extends AbstractFileLoader implements BatchConverter,
   /** enclosure character(s) to use for strings */
   protected String m_Enclosures = "\",\'";
 
+  /** the number of threads that parse the data */
+  protected int m_NumExecutionSlots = 1;
+
+  /** the number of characters in a chunk parsed by one thread */
+  protected int m_ChunkSize = ChunkExecutor.CHUNK_SIZE;
+
+  /**
+   * The rows read from a chunk of lines by one of the threads, with the
+   * nominal values found in them.
+   */
+  protected static class Chunk {
+
+    /** the loader that read the rows and collected the nominal values. */
+    protected CSVLoader m_Loader;
+
+    /** the number of lines. */
+    protected int m_NumLines;
+
+    /** the error, if parsing failed. */
+    protected RowError m_Error;
+  }
+
+  /**
+   * The error of a row with the wrong number of values. The line is kept
+   * apart from the message, so that the error of a chunk can be reported
+   * with the line in the file.
+   */
+  protected static class RowError
+    extends IOException {
+
+    /** for serialization. */
+    private static final long serialVersionUID = -2164391815624806316L;
+
+    /** the message without the line. */
+    protected String m_Text;
+
+    /** the line of the row. */
+    protected int m_Line;
+
+    /**
+     * Initializes the error.
+     * 
+     * @param text the message without the line
+     * @param line the line of the row
+     */
+    public RowError(String text, int line) {
+      super(text + ", line " + line);
+      m_Text = text;
+      m_Line = line;
+    }
+  }
+
   /**
    * default constructor.
    */
@@ -243,6 +303,10 @@ public class CSVLoader extends AbstractFileLoader implements BatchConverter,
           + "\tSpecify as a comma separated list (e.g. \",'"
           + " (default: \",')", "E", 1, "-E <enclosures>"));
 
+    result.addElement(new Option(
+      "\tNumber of threads that parse the data (default 1).", "num-slots", 1,
+      "-num-slots <num>"));
+
     return result.elements();
   }
 
@@ -295,6 +359,11 @@ public class CSVLoader extends AbstractFileLoader implements BatchConverter,
    *  Specify as a comma separated list (e.g. ",' (default: '"')
    * </pre>
    * 
+   * <pre>
+   * -num-slots &lt;num&gt;
+   *  Number of threads that parse the data (default 1).
+   * </pre>
+   * 
    * <!-- options-end -->
    * 
    * @param options the list of options as an array of strings
@@ -334,6 +403,12 @@ public class CSVLoader extends AbstractFileLoader implements BatchConverter,
     if (tmpStr.length() > 0) {
       setEnclosureCharacters(tmpStr);
     }
+    tmpStr = Utils.getOption("num-slots", options);
+    if (tmpStr.length() > 0) {
+      setNumExecutionSlots(Integer.parseInt(tmpStr));
+    } else {
+      setNumExecutionSlots(1);
+    }
   }
 
   /**
@@ -370,6 +445,9 @@ public class CSVLoader extends AbstractFileLoader implements BatchConverter,
     result.add("-E");
     result.add(getEnclosureCharacters());
 
+    result.add("-num-slots");
+    result.add("" + getNumExecutionSlots());
+
     return result.toArray(new String[result.size()]);
   }
 
@@ -536,6 +614,39 @@ public class CSVLoader extends AbstractFileLoader implements BatchConverter,
     return m_MissingValue;
   }
 
+  /**
+   * Returns the tip text for this property.
+   * 
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String numExecutionSlotsTipText() {
+    return "The number of threads that parse chunks of the data.";
+  }
+
+  /**
+   * Sets the number of threads that parse the data.
+   * 
+   * @param value the number of threads
+   * @throws IllegalArgumentException if the number is less than 1
+   */
+  public void setNumExecutionSlots(int value) {
+    if (value < 1) {
+      throw new IllegalArgumentException(
+        "Number of execution slots needs to be >= 1!");
+    }
+    m_NumExecutionSlots = value;
+  }
+
+  /**
+   * Gets the number of threads that parse the data.
+   * 
+   * @return the number of threads
+   */
+  public int getNumExecutionSlots() {
+    return m_NumExecutionSlots;
+  }
+
   /**
    * Returns the tip text for this property.
    * 
@@ -643,8 +754,12 @@ public class CSVLoader extends AbstractFileLoader implements BatchConverter,
 
     m_cumulativeInstances = new FastVector();
     FastVector current;
-    while ((current = getInstance(m_st)) != null) {
-      m_cumulativeInstances.addElement(current);
+    if (m_NumExecutionSlots > 1) {
+      readChunks();
+    } else {
+      while ((current = getInstance(m_st)) != null) {
+        m_cumulativeInstances.addElement(current);
+      }
     }
 
     FastVector atts = new FastVector(m_structure.numAttributes());
@@ -738,6 +853,207 @@ public class CSVLoader extends AbstractFileLoader implements BatchConverter,
     return dataSet;
   }
 
+  /**
+   * Reads the rest of the source in chunks of lines that are parsed on
+   * several threads. The rows and the nominal values are merged in the order
+   * of the file, so the result is the same as when reading on one thread.
+   * 
+   * @throws IOException if reading or parsing fails
+   */
+  protected void readChunks() throws IOException {
+    ArrayList<Chunk> chunks = new ArrayList<Chunk>();
+    ChunkExecutor<Chunk> executor = new ChunkExecutor<Chunk>(
+      m_NumExecutionSlots, "CSVLoader");
+    try {
+      int lineNo = m_st.lineno() - 1;
+      char[] buffer = new char[m_ChunkSize];
+      int length = 0;
+      boolean eof = false;
+      while (!eof || (length > 0)) {
+        while (!eof && (length < buffer.length)) {
+          int read = m_sourceReader.read(buffer, length, buffer.length - length);
+          if (read < 0) {
+            eof = true;
+          } else {
+            length += read;
+          }
+        }
+
+        // split off the complete lines, a \r at the end may be followed by
+        // a \n
+        int end = length;
+        if (!eof) {
+          while ((end > 0) && (buffer[end - 1] != '\n')) {
+            end--;
+          }
+          if (end == 0) {
+            end = length - 1;
+            while ((end > 0) && (buffer[end - 1] != '\r')) {
+              end--;
+            }
+          }
+          if (end == 0) {
+            char[] grown = new char[2 * buffer.length];
+            System.arraycopy(buffer, 0, grown, 0, length);
+            buffer = grown;
+            continue;
+          }
+        }
+        String lines = new String(buffer, 0, end);
+        System.arraycopy(buffer, end, buffer, 0, length - end);
+        length -= end;
+
+        if (executor.isFull()) {
+          lineNo = collect(executor.next(), lineNo, chunks);
+        }
+        executor.submit(parse(lines));
+      }
+      Chunk chunk;
+      while ((chunk = executor.next()) != null) {
+        lineNo = collect(chunk, lineNo, chunks);
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    merge(chunks);
+
+    // the ranges are needed to create the attributes
+    if (m_FirstCheck) {
+      m_NominalAttributes.setUpper(m_structure.numAttributes() - 1);
+      m_StringAttributes.setUpper(m_structure.numAttributes() - 1);
+      m_dateAttributes.setUpper(m_structure.numAttributes() - 1);
+      m_FirstCheck = false;
+    }
+  }
+
+  /**
+   * Returns the task that reads the rows of a chunk of lines with a copy of
+   * this loader, which collects the nominal values of the chunk.
+   * 
+   * @param lines the lines
+   * @return the task
+   * @throws IOException if the loader can't be copied
+   */
+  protected Callable<Chunk> parse(final String lines) throws IOException {
+    final Chunk result = new Chunk();
+    result.m_Loader = new CSVLoader();
+    try {
+      result.m_Loader.setOptions(getOptions());
+    } catch (Exception e) {
+      IOException ex = new IOException("Can't copy the loader: "
+        + e.getMessage());
+      ex.initCause(e);
+      throw ex;
+    }
+    result.m_Loader.m_structure = m_structure;
+    result.m_Loader.m_FirstCheck = true;
+    result.m_Loader.m_cumulativeStructure = new FastVector(
+      m_structure.numAttributes());
+    for (int i = 0; i < m_structure.numAttributes(); i++) {
+      result.m_Loader.m_cumulativeStructure.addElement(new Hashtable());
+    }
+    result.m_Loader.m_cumulativeInstances = new FastVector();
+
+    return new Callable<Chunk>() {
+      public Chunk call() throws IOException {
+        StreamTokenizer st = new StreamTokenizer(new StringReader(lines));
+        result.m_Loader.initTokenizer(st);
+        st.ordinaryChar(',');
+        st.ordinaryChar('\t');
+        try {
+          FastVector current;
+          while ((current = result.m_Loader.getInstance(st)) != null) {
+            result.m_Loader.m_cumulativeInstances.addElement(current);
+          }
+        } catch (RowError e) {
+          result.m_Error = e;
+        }
+        result.m_NumLines = st.lineno() - 1;
+        return result;
+      }
+    };
+  }
+
+  /**
+   * Adds a parsed chunk to the list of chunks, or reports its error with
+   * the line number in the file.
+   * 
+   * @param chunk the parsed chunk
+   * @param lineNo the number of lines before the chunk
+   * @param chunks the chunks parsed so far
+   * @return the number of lines after the chunk
+   * @throws IOException if parsing the chunk failed
+   */
+  protected int collect(Chunk chunk, int lineNo, ArrayList<Chunk> chunks)
+    throws IOException {
+    if (chunk.m_Error != null) {
+      throw new RowError(chunk.m_Error.m_Text, lineNo + chunk.m_Error.m_Line);
+    }
+    chunks.add(chunk);
+    return lineNo + chunk.m_NumLines;
+  }
+
+  /**
+   * Merges the rows and nominal values of the chunks. The nominal values of
+   * an attribute are numbered in the order they first appear in the file, as
+   * when reading on one thread: a chunk that found no nominal values for the
+   * attribute contributes its numbers in the order of its rows.
+   * 
+   * @param chunks the parsed chunks, in the order of the file
+   */
+  protected void merge(ArrayList<Chunk> chunks) {
+    for (int i = 0; i < m_structure.numAttributes(); i++) {
+      Hashtable tempHash = (Hashtable) m_cumulativeStructure.elementAt(i);
+      boolean nominal = false;
+      for (Chunk chunk : chunks) {
+        if (((Hashtable) chunk.m_Loader.m_cumulativeStructure.elementAt(i))
+          .size() > 0) {
+          nominal = true;
+        }
+      }
+      if (!nominal) {
+        continue;
+      }
+
+      for (Chunk chunk : chunks) {
+        Hashtable chunkHash = (Hashtable) chunk.m_Loader.m_cumulativeStructure
+          .elementAt(i);
+        FastVector values = new FastVector();
+        if (chunkHash.size() > 0) {
+          for (int z = 0; z < chunkHash.size(); z++) {
+            values.addElement(null);
+          }
+          Enumeration e = chunkHash.keys();
+          while (e.hasMoreElements()) {
+            Object ob = e.nextElement();
+            values.setElementAt(ob, ((Integer) chunkHash.get(ob)).intValue());
+          }
+        } else {
+          FastVector rows = chunk.m_Loader.m_cumulativeInstances;
+          for (int j = 0; j < rows.size(); j++) {
+            Object ob = ((FastVector) rows.elementAt(j)).elementAt(i);
+            if (!(ob instanceof String)) {
+              values.addElement(ob);
+            }
+          }
+        }
+        for (int j = 0; j < values.size(); j++) {
+          if (!tempHash.containsKey(values.elementAt(j))) {
+            tempHash.put(values.elementAt(j), new Integer(tempHash.size()));
+          }
+        }
+      }
+    }
+
+    for (Chunk chunk : chunks) {
+      FastVector rows = chunk.m_Loader.m_cumulativeInstances;
+      for (int j = 0; j < rows.size(); j++) {
+        m_cumulativeInstances.addElement(rows.elementAt(j));
+      }
+    }
+  }
+
   /**
    * CSVLoader is unable to process a data set incrementally.
    * 
@@ -819,11 +1135,13 @@ public class CSVLoader extends AbstractFileLoader implements BatchConverter,
       first = false;
     }
 
-    // check number of values read
+    // check number of values read, with the message of ConverterUtils.errms
+    // for the EOL or EOF that ends the row
     if (current.size() != m_structure.numAttributes()) {
-      ConverterUtils.errms(tokenizer,
-        "wrong number of values. Read " + current.size() + ", expected "
-          + m_structure.numAttributes());
+      throw new RowError("wrong number of values. Read " + current.size()
+        + ", expected " + m_structure.numAttributes() + ", read Token["
+        + ((tokenizer.ttype == StreamTokenizer.TT_EOF) ? "EOF" : "EOL")
+        + "]", tokenizer.lineno());
     }
 
     // check for structure update
@@ -0,0 +1,151 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+/*
+ *    ChunkExecutor.java
+ *    Copyright (C) 2015 University of Waikato, Hamilton, New Zealand
+ *
+ */
+
+package weka.core.converters;
+
+import weka.core.RevisionHandler;
+import weka.core.RevisionUtils;
+
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Parses the chunks of a file on a pool of threads and returns the results
+ * in the order the chunks were submitted, so that a loader can assemble the
+ * instances in the order of the file. A loader splits the data at line
+ * boundaries into chunks of about CHUNK_SIZE bytes or characters, submits
+ * them and takes the results with next() whenever isFull() says so, which
+ * bounds the number of chunks held in memory.
+ *
+ * @param <T> the type of the results
+ * @version $Revision: 1.0 $
+ */
+public class ChunkExecutor<T>
+  implements RevisionHandler {
+
+  /** the size of the chunks in bytes or characters. */
+  public static final int CHUNK_SIZE = 1 << 22;
+
+  /** the threads. */
+  protected ExecutorService m_Executor;
+
+  /** the results that haven't been taken yet, in the order of submission. */
+  protected LinkedList<Future<T>> m_Futures = new LinkedList<Future<T>>();
+
+  /** the number of results after which isFull() returns true. */
+  protected int m_MaxPending;
+
+  /**
+   * Starts the threads.
+   *
+   * @param numThreads the number of threads
+   * @param name the name of the threads
+   */
+  public ChunkExecutor(int numThreads, final String name) {
+    m_MaxPending = 2 * numThreads;
+    m_Executor = Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+      }
+    });
+  }
+
+  /**
+   * Submits the parsing of a chunk.
+   *
+   * @param task the task that parses the chunk
+   */
+  public void submit(Callable<T> task) {
+    m_Futures.add(m_Executor.submit(task));
+  }
+
+  /**
+   * Returns whether enough chunks are pending that the next result should be
+   * taken before another chunk is submitted.
+   *
+   * @return true if next() should be called
+   */
+  public boolean isFull() {
+    return m_Futures.size() >= m_MaxPending;
+  }
+
+  /**
+   * Waits for the result of the oldest chunk that hasn't been taken yet.
+   *
+   * @return the result, null if all results have been taken
+   * @throws IOException if the task failed or the thread was interrupted
+   */
+  public T next() throws IOException {
+    if (m_Futures.isEmpty()) {
+      return null;
+    }
+    try {
+      return m_Futures.removeFirst().get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      IOException ex = new IOException("Interrupted while waiting for a chunk");
+      ex.initCause(e);
+      throw ex;
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      IOException ex = new IOException(e.getCause().toString());
+      ex.initCause(e.getCause());
+      throw ex;
+    }
+  }
+
+  /**
+   * Stops the threads, cancelling the chunks that are still pending.
+   */
+  public void shutdown() {
+    for (Future<T> future : m_Futures) {
+      future.cancel(true);
+    }
+    m_Futures.clear();
+    m_Executor.shutdownNow();
+  }
+
+  /**
+   * Returns the revision string.
+   *
+   * @return the revision
+   */
+  public String getRevision() {
+    return RevisionUtils.extract("$Revision: 1.0 $");
+  }
+}
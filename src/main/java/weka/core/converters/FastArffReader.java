@@ -0,0 +1,1183 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+/*
+ *    FastArffReader.java
+ *    Copyright (C) 2015 University of Waikato, Hamilton, New Zealand
+ *
+ */
+
+package weka.core.converters;
+
+import weka.core.Attribute;
+import weka.core.FastVector;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.RevisionUtils;
+import weka.core.SparseInstance;
+import weka.core.converters.ArffLoader.ArffReader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+
+/**
+ * Reads ARFF files like ArffReader, but tokenizes the data section itself
+ * instead of using a StreamTokenizer. The bytes are read from an NIO
+ * channel into a large direct buffer, and values are parsed straight from
+ * the buffer: numbers without creating a String, nominal values by looking
+ * up their bytes in a hash table per attribute.<p>
+ *
+ * The header is parsed by ArffReader. Data lines that use anything the fast
+ * tokenizer doesn't handle (escapes in quoted values, relational values,
+ * undeclared nominal values, malformed lines, ...) are parsed by ArffReader
+ * as well, so the result and the error messages are the same as those of
+ * ArffReader. The charset has to be UTF-8 or a single-byte charset that is
+ * compatible with ASCII, see supports(Charset).<p>
+ *
+ * Typical code for batch usage:
+ * <pre>
+ * FastArffReader arff = new FastArffReader(new FileInputStream("/some/where/file.arff"));
+ * Instances data = arff.getData();
+ * </pre>
+ *
+ * or, as an option of ArffLoader:
+ * <pre>
+ * ArffLoader loader = new ArffLoader();
+ * loader.setUseFastReader(true);
+ * </pre>
+ *
+ * @version $Revision: 1.0 $
+ * @see ArffLoader
+ */
+public class FastArffReader
+  extends ArffReader {
+
+  /** the default size of the buffer in bytes. */
+  public static final int BUFFER_SIZE = 1 << 22;
+
+  /** the token type of the end of a line. */
+  protected static final int TT_EOL = -1;
+
+  /** the token type of an unquoted word. */
+  protected static final int TT_WORD = -2;
+
+  /** the token type of a quoted word without escapes. */
+  protected static final int TT_QUOTED = -3;
+
+  /** the token type of a token the fast tokenizer can't handle. */
+  protected static final int TT_OTHER = -4;
+
+  /** the powers of ten that are exact doubles. */
+  protected static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3,
+    1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+    1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+  /**
+   * Looks up the index of a nominal value from its bytes.
+   */
+  protected static class NominalIndex {
+
+    /** the attribute the index was built for. */
+    protected Attribute m_Attribute;
+
+    /** the encoded values. */
+    protected byte[][] m_Values;
+
+    /** the hash table, the index of the value or -1 for empty slots. */
+    protected int[] m_Table;
+
+    /**
+     * Builds the index for the values of an attribute.
+     *
+     * @param att the nominal attribute
+     * @param charset the charset to encode the values with
+     */
+    protected NominalIndex(Attribute att, Charset charset) {
+      m_Attribute = att;
+      m_Values = new byte[att.numValues()][];
+      int size = 4;
+      while (size < 2 * m_Values.length) {
+        size *= 2;
+      }
+      m_Table = new int[size];
+      Arrays.fill(m_Table, -1);
+      for (int i = 0; i < m_Values.length; i++) {
+        m_Values[i] = encode(att.value(i), charset);
+        // values the charset can't encode are left to ArffReader
+        if (!decode(m_Values[i], 0, m_Values[i].length, charset).equals(att.value(i))) {
+          continue;
+        }
+        int slot = hash(m_Values[i], 0, m_Values[i].length) & (size - 1);
+        while (m_Table[slot] != -1) {
+          slot = (slot + 1) & (size - 1);
+        }
+        m_Table[slot] = i;
+      }
+    }
+
+    /**
+     * Hashes bytes with FNV-1a.
+     *
+     * @param bytes the bytes
+     * @param start the index of the first byte
+     * @param end the index after the last byte
+     * @return the hash
+     */
+    protected static int hash(byte[] bytes, int start, int end) {
+      int h = 0x811C9DC5;
+      for (int i = start; i < end; i++) {
+        h = (h ^ (bytes[i] & 0xFF)) * 0x01000193;
+      }
+      return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the index of the value with the given bytes.
+     *
+     * @param buffer the buffer holding the bytes
+     * @param start the index of the first byte
+     * @param end the index after the last byte
+     * @return the index of the value, -1 if it isn't declared
+     */
+    protected int indexOf(ByteBuffer buffer, int start, int end) {
+      int h = 0x811C9DC5;
+      for (int i = start; i < end; i++) {
+        h = (h ^ (buffer.get(i) & 0xFF)) * 0x01000193;
+      }
+      int slot = (h ^ (h >>> 16)) & (m_Table.length - 1);
+      while (m_Table[slot] != -1) {
+        byte[] value = m_Values[m_Table[slot]];
+        if (value.length == end - start) {
+          int i = 0;
+          while ((i < value.length) && (value[i] == buffer.get(start + i))) {
+            i++;
+          }
+          if (i == value.length) {
+            return m_Table[slot];
+          }
+        }
+        slot = (slot + 1) & (m_Table.length - 1);
+      }
+      return -1;
+    }
+  }
+
+  /** the channel the bytes are read from. */
+  protected ReadableByteChannel m_Channel;
+
+  /** the charset of the bytes. */
+  protected Charset m_Charset;
+
+  /** the buffer, bytes from 0 to m_Limit are valid. */
+  protected ByteBuffer m_Buffer;
+
+  /** the number of valid bytes in the buffer. */
+  protected int m_Limit;
+
+  /** the position of the first byte that hasn't been split into lines. */
+  protected int m_Next;
+
+  /** whether the end of the channel has been reached. */
+  protected boolean m_EndOfChannel;
+
+  /** the start of the current line. */
+  protected int m_Start;
+
+  /** the end of the current line, without the line terminator. */
+  protected int m_End;
+
+  /** whether the current line has to be parsed before the next is read. */
+  protected boolean m_Pending;
+
+  /** the position of the tokenizer in the current line. */
+  protected int m_Pos;
+
+  /** the start of the current token, without the quote. */
+  protected int m_TokenStart;
+
+  /** the end of the current token, without the quote. */
+  protected int m_TokenEnd;
+
+  /** the number parsed last. */
+  protected double m_Number;
+
+  /** the nominal indices, per attribute. */
+  protected NominalIndex[] m_Nominal = new NominalIndex[0];
+
+  /** the instances parsed by ArffReader from the current line. */
+  protected LinkedList<Instance> m_Parsed = new LinkedList<Instance>();
+
+  /** the number of lines parsed by ArffReader. */
+  protected int m_NumFallbacks;
+
+  /** for copying bytes out of the buffer. */
+  protected byte[] m_Bytes = new byte[64];
+
+  /**
+   * The instances parsed from a chunk of lines by one of the threads of
+   * readInstances(Instances, int).
+   */
+  protected static class Chunk {
+
+    /** the bytes of the lines. */
+    protected byte[] m_Bytes;
+
+    /** the copy of the header the instances refer to. */
+    protected Instances m_Structure;
+
+    /** the instances. */
+    protected ArrayList<Instance> m_Instances = new ArrayList<Instance>();
+
+    /** the number of lines. */
+    protected int m_NumLines;
+
+    /** the number of lines parsed by ArffReader. */
+    protected int m_NumFallbacks;
+
+    /** the error, if parsing failed. */
+    protected IOException m_Error;
+  }
+
+  /**
+   * Reads the data completely from the stream, in the default charset. The
+   * data can be accessed via the <code>getData()</code> method.
+   *
+   * @param in the stream to read from
+   * @throws IOException if something goes wrong
+   * @see #getData()
+   */
+  public FastArffReader(InputStream in) throws IOException {
+    this(in, 1000, Charset.defaultCharset(), BUFFER_SIZE);
+
+    Instance inst;
+    while ((inst = readInstance(m_Data)) != null) {
+      m_Data.add(inst);
+    }
+    compactify();
+  }
+
+  /**
+   * Reads only the header, in the default charset, and reserves the
+   * specified space for instances. Further instances can be read via
+   * <code>readInstance()</code>.
+   *
+   * @param in the stream to read from
+   * @param capacity the capacity of the new dataset
+   * @throws IOException if something goes wrong
+   * @see #getStructure()
+   * @see #readInstance(Instances)
+   */
+  public FastArffReader(InputStream in, int capacity) throws IOException {
+    this(in, capacity, Charset.defaultCharset(), BUFFER_SIZE);
+  }
+
+  /**
+   * Reads only the header and reserves the specified space for instances.
+   * Further instances can be read via <code>readInstance()</code>.
+   *
+   * @param in the stream to read from
+   * @param capacity the capacity of the new dataset
+   * @param charset the charset of the stream
+   * @param bufferSize the initial size of the buffer in bytes, it grows if
+   *          a line doesn't fit
+   * @throws IOException if something goes wrong
+   * @throws IllegalArgumentException if capacity is negative or the charset
+   *           isn't supported
+   * @see #getStructure()
+   * @see #readInstance(Instances)
+   */
+  public FastArffReader(InputStream in, int capacity, Charset charset,
+    int bufferSize) throws IOException {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Capacity has to be positive!");
+    }
+    if (!supports(charset)) {
+      throw new IllegalArgumentException("Charset " + charset
+        + " is not supported!");
+    }
+
+    if (in instanceof FileInputStream) {
+      m_Channel = ((FileInputStream) in).getChannel();
+    } else {
+      m_Channel = Channels.newChannel(in);
+    }
+    m_Charset = charset;
+    m_Buffer = ByteBuffer.allocateDirect(Math.max(16, bufferSize));
+
+    readHeader(capacity);
+    initBuffers();
+  }
+
+  /**
+   * Reads instances from lines in memory, without a header. Used to parse
+   * the chunks of the data section in parallel.
+   *
+   * @param lines the bytes of the lines
+   * @param template the dataset header information
+   * @param lineNo the number of lines before the first line
+   * @param charset the charset of the bytes
+   * @see #readInstances(Instances, int)
+   */
+  protected FastArffReader(ByteBuffer lines, Instances template, int lineNo,
+    Charset charset) {
+    m_Buffer = lines;
+    m_Limit = lines.limit();
+    m_EndOfChannel = true;
+    m_Charset = charset;
+    m_Lines = lineNo;
+    m_Data = template;
+    initBuffers();
+  }
+
+  /**
+   * Returns whether the charset can be read: the tokenizer looks for ASCII
+   * delimiters in the bytes, so the charset has to encode ASCII as ASCII and
+   * must not use bytes below 128 as part of other characters.
+   *
+   * @param charset the charset to check
+   * @return true if FastArffReader can read the charset
+   */
+  public static boolean supports(Charset charset) {
+    if (!charset.canEncode()) {
+      return false;
+    }
+    if (!charset.name().equals("UTF-8")
+      && (charset.newEncoder().maxBytesPerChar() != 1)) {
+      return false;
+    }
+    String ascii = "\t\n\r ,%{}'\"?@.+-0123456789azAZ";
+    byte[] bytes = encode(ascii, charset);
+    if (bytes.length != ascii.length()) {
+      return false;
+    }
+    for (int i = 0; i < bytes.length; i++) {
+      if (bytes[i] != ascii.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+  /**
+   * Encodes a string with the given charset, replacing characters the
+   * charset can't encode.
+   *
+   * @param s the string to encode
+   * @param charset the charset
+   * @return the bytes
+   */
+  protected static byte[] encode(String s, Charset charset) {
+    try {
+      return s.getBytes(charset.name());
+    }
+    catch (UnsupportedEncodingException e) {
+      // can't happen, the charset exists
+      throw new IllegalStateException(e.toString());
+    }
+  }
+
+  /**
+   * Decodes bytes with the given charset, replacing malformed input.
+   *
+   * @param bytes the bytes to decode
+   * @param offset the index of the first byte
+   * @param length the number of bytes
+   * @param charset the charset
+   * @return the string
+   */
+  protected static String decode(byte[] bytes, int offset, int length,
+    Charset charset) {
+    try {
+      return new String(bytes, offset, length, charset.name());
+    }
+    catch (UnsupportedEncodingException e) {
+      // can't happen, the charset exists
+      throw new IllegalStateException(e.toString());
+    }
+  }
+
+
+  /**
+   * Reads lines up to the @data keyword and parses them with ArffReader.
+   * Anything after the keyword on the same line is data.
+   *
+   * @param capacity the number of instances to reserve in the data structure
+   * @throws IOException if the information is not read successfully
+   */
+  protected void readHeader(int capacity) throws IOException {
+    ByteArrayOutputStream header = new ByteArrayOutputStream();
+    byte[] data = encode(Instances.ARFF_DATA, m_Charset);
+
+    m_Lines = 0;
+    while (nextLine()) {
+      m_Pos = m_Start;
+      if ((nextToken() == TT_WORD) && isKeyword(data)) {
+        append(header, m_Start, m_TokenEnd);
+        m_Start = m_TokenEnd;
+        m_Pending = true;
+        break;
+      }
+      append(header, m_Start, m_End);
+      header.write('\n');
+    }
+
+    byte[] bytes = header.toByteArray();
+    ArffReader arff = new ArffReader(new StringReader(decode(bytes, 0,
+      bytes.length, m_Charset)), capacity);
+    m_Data = arff.getData();
+  }
+
+  /**
+   * Returns whether the current token is the given keyword, ignoring case.
+   *
+   * @param keyword the keyword in lower case
+   * @return true if the token is the keyword
+   */
+  protected boolean isKeyword(byte[] keyword) {
+    if (m_TokenEnd - m_TokenStart != keyword.length) {
+      return false;
+    }
+    for (int i = 0; i < keyword.length; i++) {
+      int b = m_Buffer.get(m_TokenStart + i);
+      if ((b >= 'A') && (b <= 'Z')) {
+        b += 'a' - 'A';
+      }
+      if (b != keyword[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Appends bytes of the buffer to a stream.
+   *
+   * @param out the stream to append to
+   * @param start the index of the first byte
+   * @param end the index after the last byte
+   */
+  protected void append(ByteArrayOutputStream out, int start, int end) {
+    for (int i = start; i < end; i++) {
+      out.write(m_Buffer.get(i));
+    }
+  }
+
+  /**
+   * Moves the bytes that haven't been split into lines to the start of the
+   * buffer, growing the buffer if they fill it, and reads more bytes.
+   *
+   * @throws IOException if reading fails
+   */
+  protected void fill() throws IOException {
+    m_Buffer.limit(m_Limit);
+    m_Buffer.position(m_Next);
+    if (m_Next == 0 && m_Limit == m_Buffer.capacity()) {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(2 * m_Buffer.capacity());
+      buffer.put(m_Buffer);
+      m_Buffer = buffer;
+    } else {
+      m_Buffer.compact();
+    }
+    int read = 0;
+    while ((read == 0) && m_Buffer.hasRemaining()) {
+      read = m_Channel.read(m_Buffer);
+    }
+    if (read < 0) {
+      m_EndOfChannel = true;
+    }
+    m_Limit = m_Buffer.position();
+    m_Next = 0;
+  }
+
+  /**
+   * Splits off the next line. Like StreamTokenizer, a line ends with \n, \r
+   * or \r\n.
+   *
+   * @return false if there are no more lines
+   * @throws IOException if reading fails
+   */
+  protected boolean nextLine() throws IOException {
+    int i = m_Next;
+    while (true) {
+      while ((i < m_Limit) && (m_Buffer.get(i) != '\n')
+        && (m_Buffer.get(i) != '\r')) {
+        i++;
+      }
+      if ((i < m_Limit) && ((m_Buffer.get(i) == '\n') || (i + 1 < m_Limit)
+        || m_EndOfChannel)) {
+        m_Start = m_Next;
+        m_End = i;
+        m_Next = i + 1;
+        if ((m_Buffer.get(i) == '\r') && (m_Next < m_Limit)
+          && (m_Buffer.get(m_Next) == '\n')) {
+          m_Next++;
+        }
+        m_Lines++;
+        return true;
+      }
+      if (m_EndOfChannel) {
+        if (m_Next == m_Limit) {
+          return false;
+        }
+        m_Start = m_Next;
+        m_End = m_Limit;
+        m_Next = m_Limit;
+        m_Lines++;
+        return true;
+      }
+      // a \r at the end of the buffer may be followed by a \n
+      int scanned = i - m_Next;
+      fill();
+      i = m_Next + scanned;
+    }
+  }
+
+  /**
+   * Reads the next token of the current line. Whitespace and commas separate
+   * tokens, and % starts a comment that runs to the end of the line.
+   *
+   * @return the type of the token, '{' or '}' for braces
+   */
+  protected int nextToken() {
+    int pos = m_Pos;
+    int b = 0;
+    while (pos < m_End) {
+      b = m_Buffer.get(pos) & 0xFF;
+      if ((b > ' ') && (b != ',')) {
+        break;
+      }
+      pos++;
+    }
+    if ((pos == m_End) || (b == '%')) {
+      m_Pos = m_End;
+      return TT_EOL;
+    }
+    if ((b == '{') || (b == '}')) {
+      m_Pos = pos + 1;
+      return b;
+    }
+    if ((b == '\'') || (b == '"')) {
+      int end = pos + 1;
+      while ((end < m_End) && (m_Buffer.get(end) != b)) {
+        if (m_Buffer.get(end) == '\\') {
+          return TT_OTHER;
+        }
+        end++;
+      }
+      if (end == m_End) {
+        return TT_OTHER;
+      }
+      m_TokenStart = pos + 1;
+      m_TokenEnd = end;
+      m_Pos = end + 1;
+      return TT_QUOTED;
+    }
+    int end = pos + 1;
+    while (end < m_End) {
+      b = m_Buffer.get(end) & 0xFF;
+      if ((b <= ' ') || (b == ',') || (b == '%') || (b == '{') || (b == '}')
+        || (b == '\'') || (b == '"')) {
+        break;
+      }
+      end++;
+    }
+    m_TokenStart = pos;
+    m_TokenEnd = end;
+    m_Pos = end;
+    return TT_WORD;
+  }
+
+  /**
+   * Returns the current token as a string.
+   *
+   * @return the token
+   */
+  protected String token() {
+    int length = m_TokenEnd - m_TokenStart;
+    if (m_Bytes.length < length) {
+      m_Bytes = new byte[Math.max(length, 2 * m_Bytes.length)];
+    }
+    for (int i = 0; i < length; i++) {
+      m_Bytes[i] = m_Buffer.get(m_TokenStart + i);
+    }
+    return decode(m_Bytes, 0, length, m_Charset);
+  }
+
+  /**
+   * Parses the current token as a double, like Double.parseDouble. Decimal
+   * numbers with up to 18 significant digits whose value is exact in a
+   * double after one multiplication or division by a power of ten are
+   * parsed without creating any objects, all others by Double.parseDouble.
+   * The result is stored in m_Number.
+   *
+   * @return false if the token is not a number
+   */
+  protected boolean parseNumber() {
+    int pos = m_TokenStart;
+    int end = m_TokenEnd;
+    boolean negative = false;
+    int b;
+
+    if ((pos < end) && ((m_Buffer.get(pos) == '-') || (m_Buffer.get(pos) == '+'))) {
+      negative = m_Buffer.get(pos) == '-';
+      pos++;
+    }
+
+    long mantissa = 0;
+    int digits = 0;
+    int exponent = 0;
+    boolean any = false;
+    while ((pos < end) && ((b = m_Buffer.get(pos)) >= '0') && (b <= '9')) {
+      any = true;
+      if ((mantissa != 0) || (b != '0')) {
+        if (++digits > 18) {
+          return parseNumberSlow();
+        }
+        mantissa = 10 * mantissa + (b - '0');
+      }
+      pos++;
+    }
+    if ((pos < end) && (m_Buffer.get(pos) == '.')) {
+      pos++;
+      while ((pos < end) && ((b = m_Buffer.get(pos)) >= '0') && (b <= '9')) {
+        any = true;
+        if ((mantissa != 0) || (b != '0')) {
+          if (++digits > 18) {
+            return parseNumberSlow();
+          }
+          mantissa = 10 * mantissa + (b - '0');
+        }
+        exponent--;
+        pos++;
+      }
+    }
+    if (!any) {
+      return parseNumberSlow();
+    }
+    if ((pos < end) && ((m_Buffer.get(pos) == 'e') || (m_Buffer.get(pos) == 'E'))) {
+      pos++;
+      boolean negativeExponent = false;
+      if ((pos < end) && ((m_Buffer.get(pos) == '-') || (m_Buffer.get(pos) == '+'))) {
+        negativeExponent = m_Buffer.get(pos) == '-';
+        pos++;
+      }
+      int value = 0;
+      boolean anyExponent = false;
+      while ((pos < end) && ((b = m_Buffer.get(pos)) >= '0') && (b <= '9')) {
+        anyExponent = true;
+        if (value < 100000) {
+          value = 10 * value + (b - '0');
+        }
+        pos++;
+      }
+      if (!anyExponent) {
+        return parseNumberSlow();
+      }
+      exponent += negativeExponent ? -value : value;
+    }
+    if (pos != end) {
+      return parseNumberSlow();
+    }
+
+    double result;
+    if (mantissa == 0) {
+      result = 0;
+    } else if ((exponent >= 0) && (exponent < POWERS_OF_TEN.length)
+      && (mantissa < (1L << 53))) {
+      result = mantissa * POWERS_OF_TEN[exponent];
+    } else if ((exponent < 0) && (-exponent < POWERS_OF_TEN.length)
+      && (mantissa < (1L << 53))) {
+      result = mantissa / POWERS_OF_TEN[-exponent];
+    } else {
+      return parseNumberSlow();
+    }
+    m_Number = negative ? -result : result;
+    return true;
+  }
+
+  /**
+   * Parses the current token with Double.parseDouble. The result is stored
+   * in m_Number.
+   *
+   * @return false if the token is not a number
+   */
+  protected boolean parseNumberSlow() {
+    try {
+      m_Number = Double.parseDouble(token());
+      return true;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Parses the current token as the value of an attribute.
+   *
+   * @param structure the dataset header information
+   * @param attIndex the index of the attribute
+   * @param type the type of the token
+   * @param values the array to store the value in
+   * @param index the index in the array
+   * @return false if the value has to be parsed by ArffReader
+   */
+  protected boolean parseValue(Instances structure, int attIndex, int type,
+    double[] values, int index) {
+    if ((type == TT_WORD) && (m_TokenEnd - m_TokenStart == 1)
+      && (m_Buffer.get(m_TokenStart) == '?')) {
+      values[index] = Instance.missingValue();
+      return true;
+    }
+
+    Attribute att = structure.attribute(attIndex);
+    switch (att.type()) {
+    case Attribute.NUMERIC:
+      if (!parseNumber()) {
+        return false;
+      }
+      values[index] = m_Number;
+      return true;
+    case Attribute.NOMINAL:
+      if (m_Nominal.length < structure.numAttributes()) {
+        NominalIndex[] nominal = new NominalIndex[structure.numAttributes()];
+        System.arraycopy(m_Nominal, 0, nominal, 0, m_Nominal.length);
+        m_Nominal = nominal;
+      }
+      if ((m_Nominal[attIndex] == null)
+        || (m_Nominal[attIndex].m_Attribute != att)) {
+        m_Nominal[attIndex] = new NominalIndex(att, m_Charset);
+      }
+      int value = m_Nominal[attIndex].indexOf(m_Buffer, m_TokenStart,
+        m_TokenEnd);
+      if (value == -1) {
+        return false;
+      }
+      values[index] = value;
+      return true;
+    case Attribute.STRING:
+      values[index] = att.addStringValue(token());
+      return true;
+    case Attribute.DATE:
+      try {
+        values[index] = att.parseDate(token());
+        return true;
+      } catch (ParseException e) {
+        return false;
+      }
+    default:
+      return false;
+    }
+  }
+
+  /**
+   * Parses the optional weight at the end of the current line.
+   *
+   * @return the weight, NaN if the end of the line has to be parsed by
+   *         ArffReader
+   */
+  protected double parseWeight() {
+    int type = nextToken();
+    if (type == TT_EOL) {
+      return 1.0;
+    }
+    if ((type != '{') || (nextToken() != TT_WORD) || !parseNumber()) {
+      return Double.NaN;
+    }
+    double weight = m_Number;
+    if ((nextToken() != '}') || (nextToken() != TT_EOL)) {
+      return Double.NaN;
+    }
+    return weight;
+  }
+
+  /**
+   * Parses the current line as a dense instance.
+   *
+   * @param structure the dataset header information
+   * @param type the type of the first token
+   * @return the instance, null if the line has to be parsed by ArffReader
+   */
+  protected Instance parseFull(Instances structure, int type) {
+    double[] values = new double[structure.numAttributes()];
+
+    for (int i = 0; i < values.length; i++) {
+      if (i > 0) {
+        type = nextToken();
+      }
+      if (((type != TT_WORD) && (type != TT_QUOTED))
+        || !parseValue(structure, i, type, values, i)) {
+        return null;
+      }
+    }
+    double weight = parseWeight();
+    if (Double.isNaN(weight)) {
+      return null;
+    }
+
+    Instance inst = new Instance(weight, values);
+    inst.setDataset(structure);
+    return inst;
+  }
+
+  /**
+   * Parses the current line as a sparse instance, after the opening brace.
+   *
+   * @param structure the dataset header information
+   * @return the instance, null if the line has to be parsed by ArffReader
+   */
+  protected Instance parseSparse(Instances structure) {
+    int numValues = 0;
+    int maxIndex = -1;
+
+    if (m_IndicesBuffer.length < structure.numAttributes()) {
+      m_ValueBuffer = new double[structure.numAttributes()];
+      m_IndicesBuffer = new int[structure.numAttributes()];
+    }
+    while (true) {
+      int type = nextToken();
+      if (type == '}') {
+        break;
+      }
+      if (type != TT_WORD) {
+        return null;
+      }
+      int index = 0;
+      for (int i = m_TokenStart; i < m_TokenEnd; i++) {
+        int b = m_Buffer.get(i);
+        if ((b < '0') || (b > '9') || (index > structure.numAttributes())) {
+          return null;
+        }
+        index = 10 * index + (b - '0');
+      }
+      if ((index <= maxIndex) || (index >= structure.numAttributes())) {
+        return null;
+      }
+      maxIndex = index;
+
+      type = nextToken();
+      if (((type != TT_WORD) && (type != TT_QUOTED))
+        || !parseValue(structure, index, type, m_ValueBuffer, numValues)) {
+        return null;
+      }
+      m_IndicesBuffer[numValues++] = index;
+    }
+    double weight = parseWeight();
+    if (Double.isNaN(weight)) {
+      return null;
+    }
+
+    double[] values = new double[numValues];
+    int[] indices = new int[numValues];
+    System.arraycopy(m_ValueBuffer, 0, values, 0, numValues);
+    System.arraycopy(m_IndicesBuffer, 0, indices, 0, numValues);
+    Instance inst = new SparseInstance(weight, values, indices,
+      structure.numAttributes());
+    inst.setDataset(structure);
+    return inst;
+  }
+
+  /**
+   * Parses the current line with ArffReader, which reports errors the same
+   * way as when reading the whole file.
+   *
+   * @param structure the dataset header information
+   * @param flag if method should test for carriage return after each
+   *          instance
+   * @throws IOException if the line is not read successfully
+   */
+  protected void parseWithArffReader(Instances structure, boolean flag)
+    throws IOException {
+    int length = m_End - m_Start;
+    if (m_Bytes.length < length + 1) {
+      m_Bytes = new byte[Math.max(length + 1, 2 * m_Bytes.length)];
+    }
+    for (int i = 0; i < length; i++) {
+      m_Bytes[i] = m_Buffer.get(m_Start + i);
+    }
+    m_Bytes[length] = '\n';
+
+    ArffReader arff = new ArffReader(new StringReader(decode(m_Bytes, 0,
+      length + 1, m_Charset)), structure, m_Lines, 1);
+    Instance inst;
+    while ((inst = arff.readInstance(structure, flag)) != null) {
+      m_Parsed.add(inst);
+    }
+    m_NumFallbacks++;
+  }
+
+  /**
+   * Reads a single instance and returns it.
+   *
+   * @param structure the dataset header information, will get updated in
+   *          case of string or relational attributes
+   * @param flag if method should test for carriage return after each
+   *          instance
+   * @return null if end of file has been reached
+   * @throws IOException if the information is not read successfully
+   */
+  public Instance readInstance(Instances structure, boolean flag)
+    throws IOException {
+    m_Data = structure;
+
+    while (m_Parsed.isEmpty()) {
+      if (m_Pending) {
+        m_Pending = false;
+      } else if (!nextLine()) {
+        return null;
+      }
+
+      m_Pos = m_Start;
+      int type = nextToken();
+      if (type == TT_EOL) {
+        continue;
+      }
+
+      Instance inst = null;
+      if (flag && (structure.numAttributes() > 0)) {
+        if (type == '{') {
+          inst = parseSparse(structure);
+        } else {
+          inst = parseFull(structure, type);
+        }
+      }
+      if (inst != null) {
+        return inst;
+      }
+      parseWithArffReader(structure, flag);
+    }
+    return m_Parsed.removeFirst();
+  }
+
+  /**
+   * Reads the remaining instances and adds them to the dataset, parsing
+   * chunks of lines on several threads. The instances are added in the
+   * order of the file, and errors are reported as by readInstance().
+   * Datasets with relational attributes are read on the calling thread.
+   *
+   * @param data the dataset to add the instances to, its attributes have to
+   *          be those of the header, as for readInstance()
+   * @param numThreads the number of threads
+   * @throws IOException if the instances are not read successfully
+   */
+  public void readInstances(Instances data, int numThreads)
+    throws IOException {
+    boolean parallel = numThreads > 1;
+    for (int i = 0; i < data.numAttributes(); i++) {
+      if (data.attribute(i).isRelationValued()) {
+        parallel = false;
+      }
+    }
+    if (!parallel) {
+      Instance inst;
+      while ((inst = readInstance(data)) != null) {
+        data.add(inst);
+      }
+      return;
+    }
+
+    ChunkExecutor<Chunk> executor = new ChunkExecutor<Chunk>(numThreads,
+      "FastArffReader");
+    try {
+      // the rest of the @data line is data as well
+      int lineNo = m_Lines;
+      if (m_Pending) {
+        m_Next = m_Start;
+        m_Pending = false;
+        lineNo--;
+      }
+      byte[] lines;
+      while ((lines = nextChunk()) != null) {
+        if (executor.isFull()) {
+          lineNo = add(data, executor.next(), lineNo);
+        }
+        executor.submit(parse(lines, data));
+      }
+      Chunk chunk;
+      while ((chunk = executor.next()) != null) {
+        lineNo = add(data, chunk, lineNo);
+      }
+      m_Lines = lineNo;
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Splits off the complete lines in the buffer, reading more bytes if there
+   * is none.
+   *
+   * @return the bytes of the lines, null at the end of the channel
+   * @throws IOException if reading fails
+   */
+  protected byte[] nextChunk() throws IOException {
+    while (true) {
+      int end = m_Limit;
+      if (!m_EndOfChannel) {
+        while ((end > m_Next) && (m_Buffer.get(end - 1) != '\n')) {
+          end--;
+        }
+        if (end == m_Next) {
+          // a \r at the end may be followed by a \n
+          end = m_Limit - 1;
+          while ((end > m_Next) && (m_Buffer.get(end - 1) != '\r')) {
+            end--;
+          }
+        }
+      }
+      if (end > m_Next) {
+        byte[] result = new byte[end - m_Next];
+        m_Buffer.position(m_Next);
+        m_Buffer.get(result);
+        m_Next = end;
+        return result;
+      }
+      if (m_EndOfChannel) {
+        return null;
+      }
+      fill();
+    }
+  }
+
+  /**
+   * Returns the task that parses a chunk of lines with a copy of the header.
+   * String and date attributes are copied, because adding string values
+   * and parsing dates isn't thread-safe.
+   *
+   * @param lines the bytes of the lines
+   * @param data the dataset header information
+   * @return the task
+   */
+  protected Callable<Chunk> parse(final byte[] lines, Instances data) {
+    final Chunk result = new Chunk();
+    result.m_Bytes = lines;
+    result.m_Structure = copyStructure(data);
+    return new Callable<Chunk>() {
+      public Chunk call() {
+        FastArffReader arff = new FastArffReader(ByteBuffer.wrap(lines),
+          result.m_Structure, 0, m_Charset);
+        try {
+          Instance inst;
+          while ((inst = arff.readInstance(result.m_Structure)) != null) {
+            result.m_Instances.add(inst);
+          }
+        } catch (IOException e) {
+          result.m_Error = e;
+        }
+        result.m_NumLines = arff.m_Lines;
+        result.m_NumFallbacks = arff.m_NumFallbacks;
+        return result;
+      }
+    };
+  }
+
+  /**
+   * Returns a copy of the header whose string and date attributes can be
+   * used by another thread.
+   *
+   * @param data the dataset header information
+   * @return the copy
+   */
+  protected Instances copyStructure(Instances data) {
+    FastVector atts = new FastVector(data.numAttributes());
+    for (int i = 0; i < data.numAttributes(); i++) {
+      Attribute att = data.attribute(i);
+      if (att.isString()) {
+        atts.addElement(new Attribute(att.name(), (FastVector) null));
+      } else if (att.isDate()) {
+        atts.addElement(new Attribute(att.name(), att.getDateFormat()));
+      } else {
+        atts.addElement(att.copy());
+      }
+    }
+    return new Instances(data.relationName(), atts, 0);
+  }
+
+  /**
+   * Adds the instances of a chunk to the dataset, moving string values to
+   * the attributes of the dataset. If parsing the chunk failed, the chunk
+   * is parsed again with the right line numbers to report the error.
+   *
+   * @param data the dataset to add the instances to
+   * @param chunk the parsed chunk
+   * @param lineNo the number of lines before the chunk
+   * @return the number of lines after the chunk
+   * @throws IOException if parsing the chunk failed
+   */
+  protected int add(Instances data, Chunk chunk, int lineNo)
+    throws IOException {
+    if (chunk.m_Error != null) {
+      Instances structure = copyStructure(data);
+      FastArffReader arff = new FastArffReader(
+        ByteBuffer.wrap(chunk.m_Bytes), structure, lineNo, m_Charset);
+      while (arff.readInstance(structure) != null) {
+      }
+      throw chunk.m_Error;
+    }
+
+    for (Instance inst : chunk.m_Instances) {
+      for (int j = 0; j < inst.numValues(); j++) {
+        Attribute att = data.attribute(inst.index(j));
+        if (att.isString() && !inst.isMissingSparse(j)) {
+          inst.setValueSparse(j, att.addStringValue(
+            chunk.m_Structure.attribute(att.index()),
+            (int) inst.valueSparse(j)));
+        }
+      }
+      data.add(inst);
+    }
+    m_NumFallbacks += chunk.m_NumFallbacks;
+    return lineNo + chunk.m_NumLines;
+  }
+
+  /**
+   * Returns the number of the line read last.
+   *
+   * @return the line number
+   */
+  public int getLineNo() {
+    return m_Lines;
+  }
+
+  /**
+   * Returns the number of data lines that were parsed by ArffReader because
+   * the fast tokenizer couldn't handle them.
+   *
+   * @return the number of lines
+   */
+  public int getNumFallbacks() {
+    return m_NumFallbacks;
+  }
+
+  /**
+   * Returns the revision string.
+   *
+   * @return the revision
+   */
+  public String getRevision() {
+    return RevisionUtils.extract("$Revision: 1.0 $");
+  }
+}
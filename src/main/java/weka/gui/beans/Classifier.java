@@ -45,6 +45,9 @@ import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.filechooser.FileFilter;
 
+import weka.classifiers.TrainingEvent;
+import weka.classifiers.TrainingListener;
+import weka.classifiers.TrainingListenerHandler;
 import weka.classifiers.rules.ZeroR;
 import weka.core.Instances;
 import weka.core.OptionHandler;
@@ -684,6 +687,39 @@ public class Classifier extends JPanel implements BeanCommon, Visible,
     }
   }
 
+  /**
+   * Shows the progress of an iterative learner in the status area and the
+   * log.
+   */
+  protected static class StatusTrainingListener implements TrainingListener {
+
+    /** the log to write to */
+    protected Logger m_Log;
+
+    /** the status prefix of the bean */
+    protected String m_Prefix;
+
+    /**
+     * @param log the log to write to
+     * @param prefix the status prefix of the bean
+     */
+    public StatusTrainingListener(Logger log, String prefix) {
+      m_Log = log;
+      m_Prefix = prefix;
+    }
+
+    public void trainingStarted(TrainingEvent e) {
+    }
+
+    public void epochFinished(TrainingEvent e) {
+      m_Log.statusMessage(m_Prefix + e.toString());
+    }
+
+    public void trainingFinished(TrainingEvent e) {
+      m_Log.logMessage("[Classifier] " + m_Prefix + e.toString());
+    }
+  }
+
   protected class TrainingTask implements Runnable, Task {
     private final int m_runNum;
     private final int m_maxRunNum;
@@ -766,6 +802,14 @@ public class Classifier extends JPanel implements BeanCommon, Visible,
           weka.classifiers.Classifier classifierCopy =
             weka.classifiers.Classifier.makeCopy(m_ClassifierTemplate);
 
+          // show the progress of iterative learners in the status area
+          if (m_log != null
+            && classifierCopy instanceof TrainingListenerHandler) {
+            ((TrainingListenerHandler) classifierCopy)
+              .addTrainingListener(new StatusTrainingListener(m_log,
+                statusMessagePrefix()));
+          }
+
           // build this model
           classifierCopy.buildClassifier(m_train);
           if (m_runNum == m_maxRunNum && m_setNum == m_maxSetNum) {
@@ -0,0 +1,63 @@
+/*
+ *    AnnTestData.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ */
+
+package weka.classifiers.ann;
+
+import weka.core.Attribute;
+import weka.core.Instances;
+import weka.core.TestInstances;
+
+/**
+ * Generates the datasets of the tests of PTR, DR, MLP and the classes
+ * around them, so that all tests use the same generator.
+ */
+public class AnnTestData {
+
+    /**
+     * Generates <code>numInstances</code> instances with
+     * <code>numNominal</code> nominal attributes of
+     * <code>numNominalValues</code> values, <code>numNumeric</code> numeric
+     * attributes and a nominal class with <code>numClasses</code> values as
+     * last attribute, a numeric class if <code>numClasses</code> is 0.
+     */
+    public static Instances generate(int numNominal, int numNominalValues, int numNumeric,
+            int numClasses, int numInstances) throws Exception {
+        TestInstances gen = new TestInstances();
+        gen.setNumNominal(numNominal);
+        gen.setNumNominalValues(numNominalValues);
+        gen.setNumNumeric(numNumeric);
+        if (numClasses == 0)
+            gen.setClassType(Attribute.NUMERIC);
+        else
+            gen.setNumClasses(numClasses);
+        gen.setNumInstances(numInstances);
+        return gen.generate();
+    }
+
+    /** Same as above, with two values per nominal attribute. */
+    public static Instances generate(int numNominal, int numNumeric, int numClasses, int numInstances)
+            throws Exception {
+        return generate(numNominal, 2, numNumeric, numClasses, numInstances);
+    }
+
+    /**
+     * The dataset of the regression test of AbstractClassifierTest for a
+     * classifier with nominal and numeric attributes: 20 instances with two
+     * nominal and one numeric attribute, generated with seed 42. For tests
+     * that only need some data, e.g. to check that an option is rejected.
+     */
+    public static Instances checkDataset(int numClasses) throws Exception {
+        TestInstances gen = new TestInstances();
+        gen.setSeed(42);
+        gen.setNumNominal(2);
+        gen.setNumNumeric(1);
+        if (numClasses == 0)
+            gen.setClassType(Attribute.NUMERIC);
+        else
+            gen.setNumClasses(numClasses);
+        gen.setNumInstances(20);
+        return gen.generate();
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ *    BatchPredictionTest.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ */
+
+package weka.classifiers.ann;
+
+import weka.classifiers.Classifier;
+import weka.classifiers.Evaluation;
+import weka.core.BatchPredictor;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.Range;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the batch scoring path of PTR, DR and MLP against per-instance
+ * scoring. Run from the command line with:<p/>
+ * java weka.classifiers.ann.BatchPredictionTest
+ */
+public class BatchPredictionTest extends TestCase {
+
+    public BatchPredictionTest(String name) {
+        super(name);
+    }
+
+    protected void assertSameAsSingle(Classifier classifier) throws Exception {
+        Instances data = AnnTestData.generate(2, 5, 3, 80);
+        classifier.buildClassifier(data);
+
+        double[][] dists = ((BatchPredictor) classifier).distributionsForInstances(data);
+        assertEquals(data.numInstances(), dists.length);
+        for (int i = 0; i < data.numInstances(); i++) {
+            double[] single = classifier.distributionForInstance(data.instance(i));
+            assertEquals(single.length, dists[i].length);
+            for (int j = 0; j < single.length; j++)
+                assertEquals("instance " + i + ", class " + j, single[j], dists[i][j], 1e-12);
+        }
+
+        Evaluation batch = new Evaluation(data);
+        batch.evaluateModel(classifier, data);
+        Evaluation single = new Evaluation(data);
+        for (int i = 0; i < data.numInstances(); i++)
+            single.evaluateModelOnceAndRecordPrediction(classifier, data.instance(i));
+        assertEquals(single.pctCorrect(), batch.pctCorrect(), 1e-12);
+        assertEquals(single.meanAbsoluteError(), batch.meanAbsoluteError(), 1e-12);
+    }
+
+    public void testPTR() throws Exception {
+        PTR ptr = new PTR();
+        ptr.setActivationFunction(1);
+        assertSameAsSingle(ptr);
+    }
+
+    public void testDR() throws Exception {
+        assertSameAsSingle(new DR());
+    }
+
+    public void testMLPGraph() throws Exception {
+        MLP mlp = new MLP();
+        mlp.setUseFilter(true);
+        assertSameAsSingle(mlp);
+    }
+
+    public void testMLPDense() throws Exception {
+        MLP mlp = new MLP();
+        mlp.setEngine(1);
+        mlp.setUseFilter(true);
+        mlp.setHiddenPerceptrons(5);
+        assertSameAsSingle(mlp);
+    }
+
+    public void testMLPRows() throws Exception {
+        Instances data = AnnTestData.generate(0, 4, 2, 30);
+
+        MLP mlp = new MLP();
+        mlp.setEngine(1);
+        mlp.buildClassifier(data);
+
+        double[] rows = new double[data.numInstances() * 4];
+        for (int i = 0; i < data.numInstances(); i++)
+            for (int a = 0; a < 4; a++)
+                rows[i * 4 + a] = data.instance(i).value(a);
+
+        double[][] dists = mlp.distributionsForRows(rows, data.numInstances());
+        for (int i = 0; i < data.numInstances(); i++)
+            assertEquals(mlp.classifyInstance(data.instance(i)), weka.core.Utils.maxIndex(dists[i]), 0);
+    }
+
+    public void testEvaluationBlocks() throws Exception {
+        Instances data = AnnTestData.generate(2, 5, 3, 2500);
+        final MLP mlp = new MLP();
+        mlp.setEngine(1);
+        mlp.setMaxIteration(2);
+        mlp.buildClassifier(data);
+
+        // sama dengan mlp, tetapi tanpa BatchPredictor
+        Classifier single = new Classifier() {
+            public void buildClassifier(Instances data) {
+            }
+
+            public double[] distributionForInstance(Instance instance) throws Exception {
+                return mlp.distributionForInstance(instance);
+            }
+        };
+
+        StringBuffer expected = new StringBuffer();
+        Evaluation evalSingle = new Evaluation(data);
+        evalSingle.evaluateModel(single, data, expected, new Range("first"), Boolean.TRUE);
+        StringBuffer actual = new StringBuffer();
+        Evaluation evalBatch = new Evaluation(data);
+        evalBatch.evaluateModel(mlp, data, actual, new Range("first"), Boolean.TRUE);
+        assertEquals(expected.toString(), actual.toString());
+        assertEquals(evalSingle.pctCorrect(), evalBatch.pctCorrect(), 1e-12);
+    }
+
+    public static Test suite() {
+        return new TestSuite(BatchPredictionTest.class);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(suite());
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ *    BinaryModelTest.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ */
+
+package weka.classifiers.ann;
+
+import weka.classifiers.Classifier;
+import weka.classifiers.misc.SerializedClassifier;
+import weka.core.Instances;
+import weka.core.SerializationHelper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests BinaryModel. Run from the command line with:<p/>
+ * java weka.classifiers.ann.BinaryModelTest
+ */
+public class BinaryModelTest extends TestCase {
+
+    protected File file;
+
+    public BinaryModelTest(String name) {
+        super(name);
+    }
+
+    protected void setUp() throws Exception {
+        file = File.createTempFile("mlp", ".wann");
+    }
+
+    protected void tearDown() throws Exception {
+        file.delete();
+    }
+
+    protected MLP train(Instances data, String options) throws Exception {
+        MLP mlp = new MLP();
+        mlp.setOptions(weka.core.Utils.splitOptions(options));
+        mlp.setInitWeight("a");
+        mlp.setMaxIteration(3);
+        mlp.buildClassifier(data);
+        return mlp;
+    }
+
+    protected void assertSamePredictions(Classifier expected, Classifier actual, Instances data) throws Exception {
+        for (int i = 0; i < data.numInstances(); i++) {
+            double[] a = expected.distributionForInstance(data.instance(i));
+            double[] b = actual.distributionForInstance(data.instance(i));
+            assertEquals(a.length, b.length);
+            for (int j = 0; j < a.length; j++)
+                assertEquals("instance " + i + ", class " + j, a[j], b[j], 0);
+        }
+    }
+
+    protected void assertRoundTrip(Instances data, String options) throws Exception {
+        MLP mlp = train(data, options);
+        BinaryModel.write(mlp, file);
+
+        MLP mapped = BinaryModel.read(file);
+        assertSamePredictions(mlp, mapped, data);
+
+        MLP copied = BinaryModel.read(new FileInputStream(file));
+        assertSamePredictions(mlp, copied, data);
+    }
+
+    public void testGraphEngine() throws Exception {
+        assertRoundTrip(AnnTestData.generate(2, 5, 3, 50), "-E 0 -N 2 -H 4");
+    }
+
+    public void testDenseEngine() throws Exception {
+        assertRoundTrip(AnnTestData.generate(2, 5, 3, 50), "-E 1 -N 2 -H 4 -O 1 -A 1");
+    }
+
+    public void testFiltersAndNumericClass() throws Exception {
+        assertRoundTrip(AnnTestData.generate(2, 5, 0, 50), "-E 1 -F 1 -U 0 -O 5");
+    }
+
+    public void testSerializationHelperRecognizesFormat() throws Exception {
+        Instances data = AnnTestData.generate(2, 5, 2, 50);
+        MLP mlp = train(data, "-E 1");
+        BinaryModel.write(mlp, file);
+        assertTrue(SerializationHelper.isBinaryModel(file.getAbsolutePath()));
+
+        assertSamePredictions(mlp, (Classifier) SerializationHelper.read(file.getAbsolutePath()), data);
+        assertSamePredictions(mlp, (Classifier) SerializationHelper.read(new FileInputStream(file)), data);
+
+        SerializedClassifier serialized = new SerializedClassifier();
+        serialized.setModelFile(file);
+        assertSamePredictions(mlp, serialized, data);
+    }
+
+    public void testMappedModelCanBeSerializedAndTrained() throws Exception {
+        Instances data = AnnTestData.generate(2, 5, 2, 50);
+        MLP mlp = train(data, "-E 1");
+        BinaryModel.write(mlp, file);
+        MLP mapped = BinaryModel.read(file);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SerializationHelper.write(bytes, mapped);
+        Classifier copy = (Classifier) SerializationHelper.read(new ByteArrayInputStream(bytes.toByteArray()));
+        assertSamePredictions(mlp, copy, data);
+
+        mapped.buildClassifier(data);
+        BinaryModel.write(mapped, file);
+        assertSamePredictions(mapped, BinaryModel.read(file), data);
+    }
+
+    public void testJavaSerializedModelIsNotBinary() throws Exception {
+        SerializationHelper.write(file.getAbsolutePath(), train(AnnTestData.generate(2, 5, 2, 50), "-E 1"));
+        assertFalse(SerializationHelper.isBinaryModel(file.getAbsolutePath()));
+        assertTrue(SerializationHelper.read(file.getAbsolutePath()) instanceof MLP);
+    }
+
+    public static Test suite() {
+        return new TestSuite(BinaryModelTest.class);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(suite());
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ *    CheckpointTest.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ */
+
+package weka.classifiers.ann;
+
+import weka.classifiers.TrainingEvent;
+import weka.classifiers.TrainingListener;
+import weka.core.Instances;
+import weka.core.Utils;
+
+import java.io.File;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests checkpointing and resuming MLP training runs. Run from the command
+ * line with:<p/>
+ * java weka.classifiers.ann.CheckpointTest
+ */
+public class CheckpointTest extends TestCase {
+
+    protected File file;
+
+    public CheckpointTest(String name) {
+        super(name);
+    }
+
+    protected void setUp() throws Exception {
+        file = File.createTempFile("mlp", ".checkpoint");
+        file.delete();
+    }
+
+    protected void tearDown() throws Exception {
+        file.delete();
+        new File(file.getPath() + ".tmp").delete();
+    }
+
+    /** Stops training by failing in the given epoch, like a preempted job. */
+    protected static class Preemption extends RuntimeException implements TrainingListener {
+        int epoch;
+
+        Preemption(int epoch) {
+            this.epoch = epoch;
+        }
+
+        public void trainingStarted(TrainingEvent e) {
+        }
+
+        public void epochFinished(TrainingEvent e) {
+            if (e.getEpoch() == epoch)
+                throw this;
+        }
+
+        public void trainingFinished(TrainingEvent e) {
+        }
+    }
+
+    protected MLP mlp(String options) throws Exception {
+        MLP mlp = new MLP();
+        mlp.setOptions(Utils.splitOptions(options));
+        return mlp;
+    }
+
+    /** Trains with a preemption in epoch 4, resumes and compares with an uninterrupted run. */
+    protected void assertResumesExactly(String options) throws Exception {
+        Instances data = AnnTestData.generate(2, 4, 3, 40);
+        MLP plain = mlp(options);
+        plain.buildClassifier(data);
+
+        MLP preempted = mlp(options + " -J " + file.getPath());
+        preempted.addTrainingListener(new Preemption(4));
+        try {
+            preempted.buildClassifier(data);
+            fail("training should have been preempted");
+        } catch (Preemption e) {
+            // diharapkan
+        }
+        assertTrue(file.exists());
+        Checkpoint checkpoint = Checkpoint.read(file);
+        assertEquals(3 * checkpoint.getNumInstances(), checkpoint.getIteration());
+
+        MLP resumed = mlp(options + " -J " + file.getPath() + " -R 1");
+        resumed.buildClassifier(data);
+        assertEquals(plain.toString(), resumed.toString());
+    }
+
+    public void testGraphEngine() throws Exception {
+        assertResumesExactly("-H 3 -M 6 -F 1 -L 0.3");
+    }
+
+    public void testDenseEngineWithAdam() throws Exception {
+        assertResumesExactly("-E 1 -H 3 -M 6 -F 1 -G 3 -K 2 -I 1");
+    }
+
+    public void testBatchesAndEarlyStopping() throws Exception {
+        assertResumesExactly("-E 1 -H 3 -M 6 -B 7 -T 2 -V 20 -P 10");
+    }
+
+    public void testDropoutAndRegularization() throws Exception {
+        assertResumesExactly("-E 1 -H 3 -M 6 -F 1 -D 0.3 -w 0.001 -c 1");
+    }
+
+    public void testInterval() throws Exception {
+        Instances data = AnnTestData.generate(2, 4, 3, 40);
+        mlp("-H 2 -M 5 -Z 2 -J " + file.getPath()).buildClassifier(data);
+        assertEquals(4 * data.numInstances(), Checkpoint.read(file).getIteration());
+    }
+
+    public void testResumeWithoutCheckpointStartsOver() throws Exception {
+        Instances data = AnnTestData.generate(2, 4, 3, 40);
+        MLP plain = mlp("-H 2 -M 3");
+        plain.buildClassifier(data);
+        MLP resumed = mlp("-H 2 -M 3 -R 1 -J " + file.getPath());
+        resumed.buildClassifier(data);
+        assertEquals(plain.toString(), resumed.toString());
+    }
+
+    public void testOtherNetworkIsRejected() throws Exception {
+        Instances data = AnnTestData.generate(2, 4, 3, 40);
+        mlp("-H 2 -M 2 -J " + file.getPath()).buildClassifier(data);
+        try {
+            mlp("-H 3 -M 2 -R 1 -J " + file.getPath()).buildClassifier(data);
+            fail("checkpoint of another network should be rejected");
+        } catch (Exception e) {
+            assertTrue(e.getMessage(), e.getMessage().indexOf("Checkpoint") >= 0);
+        }
+    }
+
+    public void testOptions() throws Exception {
+        MLP mlp = mlp("-J " + file.getPath() + " -Z 3 -R 1");
+        String options = Utils.joinOptions(mlp.getOptions());
+        assertTrue(options, options.indexOf("-J " + file.getPath()) >= 0);
+        assertTrue(options, options.indexOf("-Z 3 -R 1") >= 0);
+        assertEquals("", mlp("").getCheckpointFile());
+    }
+
+    public static Test suite() {
+        return new TestSuite(CheckpointTest.class);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(suite());
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ *    CompactModelTest.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ */
+
+package weka.classifiers.ann;
+
+import weka.classifiers.Classifier;
+import weka.core.Instances;
+import weka.core.SerializedObject;
+import weka.core.Utils;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests CompactModel. Run from the command line with:<p/>
+ * java weka.classifiers.ann.CompactModelTest
+ */
+public class CompactModelTest extends TestCase {
+
+    public CompactModelTest(String name) {
+        super(name);
+    }
+
+    protected MLP train(Instances data, String options) throws Exception {
+        MLP mlp = new MLP();
+        mlp.setOptions(Utils.splitOptions(options));
+        mlp.setInitWeight("a");
+        mlp.setMaxIteration(10);
+        mlp.buildClassifier(data);
+        return mlp;
+    }
+
+    protected void assertSameDistributions(Classifier expected, Classifier actual, Instances data, double delta)
+            throws Exception {
+        for (int i = 0; i < data.numInstances(); i++) {
+            double[] e = expected.distributionForInstance(data.instance(i));
+            double[] a = actual.distributionForInstance(data.instance(i));
+            assertEquals(e.length, a.length);
+            for (int j = 0; j < e.length; j++)
+                assertEquals("instance " + i, e[j], a[j], delta);
+        }
+    }
+
+    public void testFloatExportMatchesMLP() throws Exception {
+        Instances data = AnnTestData.generate(2, 6, 3, 80);
+        String[] options = {"-H 6 -F 1", "-E 1 -H 6 -N 2 -O 1 -A 1 -F 1", "-E 1 -H 6 -A 2 -U 0 -F 1"};
+        for (int o = 0; o < options.length; o++) {
+            MLP mlp = train(data, options[o]);
+            CompactModel compact = CompactModel.export(mlp);
+            assertFalse(compact.getNetwork().isQuantized());
+            assertSameDistributions(mlp, compact, data, 1e-5);
+            for (int i = 0; i < data.numInstances(); i++)
+                assertEquals(mlp.classifyInstance(data.instance(i)), compact.classifyInstance(data.instance(i)), 0);
+        }
+    }
+
+    public void testFloatExportNumericClass() throws Exception {
+        Instances data = AnnTestData.generate(2, 6, 0, 80);
+        MLP mlp = train(data, "-E 1 -H 4 -O 5 -F 1");
+        assertSameDistributions(mlp, CompactModel.export(mlp), data, 1e-5);
+    }
+
+    public void testFloatExportPerceptrons() throws Exception {
+        Instances data = AnnTestData.generate(2, 6, 2, 80);
+        PTR ptr = new PTR();
+        ptr.setActivationFunction(2);
+        ptr.buildClassifier(data);
+        DR dr = new DR();
+        dr.setActivationFunction(1);
+        dr.buildClassifier(data);
+
+        CompactModel compactPtr = CompactModel.export(ptr);
+        CompactModel compactDr = CompactModel.export(dr);
+        for (int i = 0; i < data.numInstances(); i++) {
+            assertEquals(ptr.classifyInstance(data.instance(i)), compactPtr.classifyInstance(data.instance(i)), 1e-5);
+            assertEquals(dr.classifyInstance(data.instance(i)), compactDr.classifyInstance(data.instance(i)), 0);
+        }
+        assertSameDistributions(dr, compactDr, data, 0);
+    }
+
+    public void testQuantizedExport() throws Exception {
+        Instances data = AnnTestData.generate(2, 6, 3, 80);
+        MLP mlp = train(data, "-E 1 -H 8 -N 2 -O 1 -F 1");
+        CompactModel compact = CompactModel.export(mlp);
+        CompactModel quantized = CompactModel.export(mlp, data);
+        assertTrue(quantized.getNetwork().isQuantized());
+        assertTrue(quantized.getNetwork().sizeInBytes() < compact.getNetwork().sizeInBytes() / 2);
+
+        assertSameDistributions(mlp, quantized, data, 0.05);
+        int agree = 0;
+        for (int i = 0; i < data.numInstances(); i++)
+            if (mlp.classifyInstance(data.instance(i)) == quantized.classifyInstance(data.instance(i)))
+                agree++;
+        assertTrue("only " + agree + " predictions agree", agree >= data.numInstances() * 0.9);
+    }
+
+    public void testBatchMatchesSingle() throws Exception {
+        Instances data = AnnTestData.generate(2, 6, 3, 80);
+        MLP mlp = train(data, "-E 1 -H 5 -F 1");
+        CompactModel quantized = CompactModel.export(mlp, data);
+        double[][] batch = quantized.distributionsForInstances(data);
+        for (int i = 0; i < data.numInstances(); i++) {
+            double[] dist = quantized.distributionForInstance(data.instance(i));
+            for (int j = 0; j < dist.length; j++)
+                assertEquals(dist[j], batch[i][j], 0);
+        }
+    }
+
+    public void testSerializedModelPredictsTheSame() throws Exception {
+        Instances data = AnnTestData.generate(2, 6, 3, 80);
+        CompactModel quantized = CompactModel.export(train(data, "-H 4 -F 1"), data);
+        CompactModel copy = (CompactModel) new SerializedObject(quantized).getObject();
+        assertSameDistributions(quantized, copy, data, 0);
+    }
+
+    public void testReport() throws Exception {
+        Instances data = AnnTestData.generate(2, 6, 3, 80);
+        MLP mlp = train(data, "-E 1 -H 4");
+        String report = CompactModel.report(mlp, CompactModel.export(mlp, data), data);
+        assertTrue(report, report.indexOf("ACCURACY DROP") >= 0);
+        assertTrue(report, report.indexOf("int8") >= 0);
+    }
+
+    public void testCannotTrain() throws Exception {
+        Instances data = AnnTestData.generate(2, 6, 2, 80);
+        CompactModel compact = CompactModel.export(train(data, "-H 2"));
+        try {
+            compact.buildClassifier(data);
+            fail("CompactModel trained");
+        } catch (Exception e) {
+            // expected
+        }
+    }
+
+    public static Test suite() {
+        return new TestSuite(CompactModelTest.class);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(suite());
+    }
+}
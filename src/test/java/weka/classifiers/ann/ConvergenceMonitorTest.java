@@ -0,0 +1,103 @@
+/*
+ *    ConvergenceMonitorTest.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ */
+
+package weka.classifiers.ann;
+
+import weka.core.Instances;
+
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests ConvergenceMonitor. Run from the command line with:<p/>
+ * java weka.classifiers.ann.ConvergenceMonitorTest
+ */
+public class ConvergenceMonitorTest extends TestCase {
+
+    /** learner whose validation error is scripted per check */
+    protected static class ScriptedLearner implements ConvergenceMonitor.Learner {
+        double[] errors;
+        int checks = 0;
+        int weights = 0;
+
+        ScriptedLearner(double[] errors) {
+            this.errors = errors;
+        }
+
+        public double error(Instances data) {
+            return errors[checks++];
+        }
+
+        public Object saveWeights() {
+            return new Integer(weights);
+        }
+
+        public void restoreWeights(Object w) {
+            weights = ((Integer) w).intValue();
+        }
+    }
+
+    public ConvergenceMonitorTest(String name) {
+        super(name);
+    }
+
+    public void testEpochCheckUsesRecordedErrors() throws Exception {
+        ConvergenceMonitor monitor = new ConvergenceMonitor(0.5, 0, 0);
+        monitor.start(new ScriptedLearner(new double[0]), 4);
+
+        monitor.record(1);
+        monitor.record(1);
+        monitor.record(0);
+        assertEquals(Double.MAX_VALUE, monitor.getLastError(), 0);
+        monitor.record(0);
+        assertEquals(1.0, monitor.getLastError(), 1e-12);
+        assertFalse(monitor.isStopped());
+
+        for (int i = 0; i < 4; i++)
+            monitor.record(0);
+        assertEquals(0.0, monitor.getLastError(), 1e-12);
+        assertTrue(monitor.isStopped());
+    }
+
+    public void testIntervalCheckIsExtrapolated() throws Exception {
+        ConvergenceMonitor monitor = new ConvergenceMonitor(0, 2, 0);
+        monitor.start(new ScriptedLearner(new double[0]), 10);
+
+        monitor.record(1);
+        monitor.record(0);
+        assertEquals(2.5, monitor.getLastError(), 1e-12);
+    }
+
+    public void testEarlyStoppingRestoresBestWeights() throws Exception {
+        Instances data = AnnTestData.checkDataset(2);
+
+        ConvergenceMonitor monitor = new ConvergenceMonitor(0, 1, 2);
+        Instances train = monitor.split(data, 25, new Random(1));
+        assertEquals(15, train.numInstances());
+
+        ScriptedLearner learner = new ScriptedLearner(new double[]{5, 3, 4, 6});
+        monitor.start(learner, train.numInstances());
+        for (int i = 0; i < 4 && !monitor.isStopped(); i++) {
+            learner.weights = i;
+            monitor.record(0);
+        }
+        assertTrue(monitor.isStopped());
+        assertEquals(4, learner.checks);
+
+        monitor.finish();
+        assertEquals(1, learner.weights);
+    }
+
+    public static Test suite() {
+        return new TestSuite(ConvergenceMonitorTest.class);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(suite());
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ *    InputTransformerTest.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ */
+
+package weka.classifiers.ann;
+
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.SparseInstance;
+import weka.filters.Filter;
+import weka.filters.unsupervised.attribute.NominalToBinary;
+import weka.filters.unsupervised.attribute.Normalize;
+
+import java.io.StringReader;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests InputTransformer against NominalToBinary and Normalize. Run from
+ * the command line with:<p/>
+ * java weka.classifiers.ann.InputTransformerTest
+ */
+public class InputTransformerTest extends TestCase {
+
+    public InputTransformerTest(String name) {
+        super(name);
+    }
+
+    protected Instances generate(int numClasses, double missing) throws Exception {
+        Instances data = AnnTestData.generate(3, 4, 5, numClasses, 50);
+        // kelas di tengah, agar urutan input di sekitar kelas ikut diuji
+        data.setClassIndex(2);
+        if (missing > 0) {
+            for (int i = 0; i < data.numInstances(); i++)
+                for (int a = 0; a < data.numAttributes(); a++)
+                    if (a != data.classIndex() && (i * 7 + a) % 10 < missing * 10)
+                        data.instance(i).setMissing(a);
+        }
+        return data;
+    }
+
+    protected Instances filter(Instances data, Normalize[] normalize) throws Exception {
+        NominalToBinary nominalToBinary = new NominalToBinary();
+        nominalToBinary.setInputFormat(data);
+        Instances instances = Filter.useFilter(data, nominalToBinary);
+        normalize[0] = new Normalize();
+        normalize[0].setInputFormat(instances);
+        return Filter.useFilter(instances, normalize[0]);
+    }
+
+    protected void assertSameInputs(Instances filtered, InputTransformer transformer, Instances data) {
+        assertEquals(filtered.numAttributes() - 1, transformer.numInputs());
+        assertEquals(filtered.classIndex(), transformer.classIndex());
+        for (int i = 0; i < data.numInstances(); i++) {
+            double[] input = transformer.transform(data.instance(i));
+            Instance expected = filtered.instance(i);
+            for (int a = 0, k = 0; a < expected.numAttributes(); a++) {
+                if (a == expected.classIndex())
+                    continue;
+                if (expected.isMissing(a))
+                    assertTrue("instance " + i + ", input " + k, Instance.isMissingValue(input[k]));
+                else
+                    assertEquals("instance " + i + ", input " + k, expected.value(a), input[k], 1e-12);
+                k++;
+            }
+        }
+    }
+
+    /**
+     * Data whose inputs are constant for a numeric attribute, a two-valued
+     * nominal attribute with one value only and a value of a nominal
+     * attribute that never occurs, with a two-valued nominal attribute that
+     * has both values.
+     */
+    protected Instances constantInputs() throws Exception {
+        Instances data = new Instances(new StringReader(
+                "@relation constant\n"
+              + "@attribute num numeric\n"
+              + "@attribute same numeric\n"
+              + "@attribute one {a,b}\n"
+              + "@attribute two {a,b}\n"
+              + "@attribute three {x,y,z}\n"
+              + "@attribute class {p,q}\n"
+              + "@data\n"
+              + "1,5,b,a,x,p\n"
+              + "3,5,b,b,y,q\n"
+              + "2,5,b,?,x,q\n"
+              + "?,5,b,a,y,p\n"));
+        data.setClassIndex(data.numAttributes() - 1);
+        return data;
+    }
+
+    public void testMatchesFilters() throws Exception {
+        Instances data = generate(3, 0);
+        Instances filtered = filter(data, new Normalize[1]);
+        assertSameInputs(filtered, new InputTransformer(data, true), data);
+    }
+
+    public void testMissingValues() throws Exception {
+        Instances data = generate(2, 0.2);
+        Instances filtered = filter(data, new Normalize[1]);
+        assertSameInputs(filtered, new InputTransformer(data, true), data);
+    }
+
+    public void testFromFilters() throws Exception {
+        Instances data = generate(3, 0.1);
+        Normalize[] normalize = new Normalize[1];
+        Instances filtered = filter(data, normalize);
+        assertSameInputs(filtered, InputTransformer.fromFilters(data, normalize[0]), data);
+    }
+
+    public void testConstantInputs() throws Exception {
+        Instances data = constantInputs();
+        Normalize[] normalize = new Normalize[1];
+        Instances filtered = filter(data, normalize);
+        InputTransformer transformer = new InputTransformer(data, true);
+        assertSameInputs(filtered, transformer, data);
+        assertSameInputs(filtered, InputTransformer.fromFilters(data, normalize[0]), data);
+
+        // num, same, one, two, three=x, three=y, three=z
+        double[] expected = {0, 0, 0, 0, 1, 0, 0};
+        double[] input = transformer.transform(data.instance(0));
+        for (int k = 0; k < expected.length; k++)
+            assertEquals("input " + k, expected[k], input[k], 1e-12);
+    }
+
+    public void testConstantInputsSparse() throws Exception {
+        Instances data = constantInputs();
+        Instances sparse = new Instances(data, data.numInstances());
+        for (int i = 0; i < data.numInstances(); i++)
+            sparse.add(new SparseInstance(data.instance(i)));
+        InputTransformer transformer = new InputTransformer(sparse, true);
+        assertSameInputs(filter(data, new Normalize[1]), transformer, data);
+
+        SparseInputs rows = transformer.transformSparse(sparse);
+        double[] dense = new double[transformer.numInputs()];
+        for (int i = 0; i < sparse.numInstances(); i++) {
+            rows.densify(i, dense, 0, dense.length);
+            double[] expected = transformer.transform(data.instance(i));
+            for (int k = 0; k < dense.length; k++) {
+                if (Instance.isMissingValue(expected[k]))
+                    assertTrue("instance " + i + ", input " + k, Instance.isMissingValue(dense[k]));
+                else
+                    assertEquals("instance " + i + ", input " + k, expected[k], dense[k], 0);
+            }
+        }
+    }
+
+    public void testWithoutFilter() throws Exception {
+        Instances data = generate(3, 0);
+        InputTransformer transformer = new InputTransformer(data, false);
+        assertEquals(data.numAttributes() - 1, transformer.numInputs());
+        double[] inputs = transformer.transform(data);
+        for (int i = 0; i < data.numInstances(); i++)
+            for (int a = 0, k = 0; a < data.numAttributes(); a++)
+                if (a != data.classIndex())
+                    assertEquals(data.instance(i).value(a), inputs[i * transformer.numInputs() + k++], 0);
+    }
+
+    public void testUpdateStartsFromEmpty() throws Exception {
+        Instances data = generate(2, 0.1);
+        InputTransformer stream = new InputTransformer(new Instances(data, 0), true);
+        for (int i = 0; i < data.numInstances(); i++)
+            stream.update(data.instance(i));
+        assertSameInputs(filter(data, new Normalize[1]), stream, data);
+    }
+
+    public static Test suite() {
+        return new TestSuite(InputTransformerTest.class);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(suite());
+    }
+}
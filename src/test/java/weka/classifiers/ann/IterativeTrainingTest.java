@@ -0,0 +1,100 @@
+/*
+ *    IterativeTrainingTest.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ */
+
+package weka.classifiers.ann;
+
+import weka.classifiers.Classifier;
+import weka.classifiers.ConvergingClassifier;
+import weka.classifiers.IterativeClassifier;
+import weka.core.Instances;
+import weka.core.OptionHandler;
+import weka.core.Utils;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests epoch-by-epoch training of MLP, PTR and DR through
+ * IterativeClassifier. Run from the command line with:<p/>
+ * java weka.classifiers.ann.IterativeTrainingTest
+ */
+public class IterativeTrainingTest extends TestCase {
+
+    public IterativeTrainingTest(String name) {
+        super(name);
+    }
+
+    protected Classifier classifier(Classifier classifier, String options) throws Exception {
+        ((OptionHandler) classifier).setOptions(Utils.splitOptions(options));
+        return classifier;
+    }
+
+    /** Trains the classifier with next() for more epochs than maxIteration. */
+    protected void assertSameAsBuild(Classifier plain, Classifier iterative, Instances data) throws Exception {
+        plain.buildClassifier(data);
+        IterativeClassifier it = (IterativeClassifier) iterative;
+        it.initClassifier(data);
+        for (int e = 0; e < 10; e++)
+            it.next(e);
+        it.done();
+        assertEquals(plain.toString(), iterative.toString());
+    }
+
+    public void testIterativeTrainingMatchesBuildClassifier() throws Exception {
+        Instances data = AnnTestData.generate(2, 4, 2, 60);
+        String[] options = {"-H 3 -M 6", "-E 1 -H 3 -M 6 -G 3", "-E 1 -H 3 -M 6 -B 8 -T 2", "-E 1 -H 3 -M 8 -V 20 -P 1"};
+        for (int o = 0; o < options.length; o++)
+            assertSameAsBuild(classifier(new MLP(), options[o]), classifier(new MLP(), options[o]), data);
+        // maxIteration PTR dihitung per instance, epoch terakhir tidak penuh
+        assertSameAsBuild(classifier(new PTR(), "-M 150"), classifier(new PTR(), "-M 150"), data);
+        assertSameAsBuild(classifier(new DR(), "-M 6"), classifier(new DR(), "-M 6"), data);
+        assertSameAsBuild(classifier(new DR(), "-M 150 -O 1"), classifier(new DR(), "-M 150 -O 1"), data);
+    }
+
+    /** Counts the calls of next() until hasConverged(), which does not change the model. */
+    protected int epochs(Classifier classifier, Instances data) throws Exception {
+        ConvergingClassifier it = (ConvergingClassifier) classifier;
+        it.initClassifier(data);
+        int epochs = 0;
+        while (!it.hasConverged() && epochs < 10) {
+            it.next(epochs);
+            epochs++;
+        }
+        assertTrue(it.hasConverged());
+        String model = classifier.toString();
+        it.next(epochs);
+        assertEquals(model, classifier.toString());
+        it.done();
+        assertFalse(it.hasConverged());
+        return epochs;
+    }
+
+    public void testHasConvergedOnceFinished() throws Exception {
+        Instances data = AnnTestData.generate(2, 4, 2, 60);
+        assertEquals(6, epochs(classifier(new MLP(), "-H 3 -M 6 -L 0.01"), data));
+        // konvergen sebelum maxIteration
+        assertEquals(3, epochs(classifier(new MLP(), "-H 3 -M 6"), data));
+        assertEquals(3, epochs(classifier(new PTR(), "-M 150"), data));
+        assertEquals(6, epochs(classifier(new DR(), "-M 6"), data));
+    }
+
+    public void testNextBeforeInitFails() throws Exception {
+        try {
+            new MLP().next(0);
+            fail("next without initClassifier should fail");
+        } catch (Exception e) {
+            // diharapkan
+        }
+    }
+
+    public static Test suite() {
+        return new TestSuite(IterativeTrainingTest.class);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(suite());
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ *    MLPTest.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ */
+
+package weka.classifiers.ann;
+
+import weka.classifiers.AbstractClassifierTest;
+import weka.classifiers.Classifier;
+import weka.core.Instances;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests MLP. Run from the command line with:<p/>
+ * java weka.classifiers.ann.MLPTest
+ */
+public class MLPTest extends AbstractClassifierTest {
+
+    public MLPTest(String name) {
+        super(name);
+    }
+
+    /**
+     * Creates an MLP that trains for 100 epochs, with the default 30 epochs
+     * it doesn't beat ZeroR on the small numeric class test data.
+     */
+    public Classifier getClassifier() {
+        MLP mlp = new MLP();
+        mlp.setMaxIteration(100);
+        return mlp;
+    }
+
+    protected MLP newMLP(int engine, int hiddenLayers) {
+        MLP mlp = new MLP();
+        mlp.setEngine(engine);
+        mlp.setHiddenLayers(hiddenLayers);
+        mlp.setHiddenPerceptrons(4);
+        mlp.setMomentum(0.2);
+        mlp.setMaxIteration(5);
+        mlp.setInitWeight("0.05");
+        return mlp;
+    }
+
+    protected void assertSameModel(int hiddenLayers) throws Exception {
+        assertSameModel(hiddenLayers, 0, 0);
+    }
+
+    protected void assertSameModel(int hiddenLayers, int hiddenActivation, int outputLayer) throws Exception {
+        Instances data = AnnTestData.generate(0, 6, 3, 40);
+        MLP graph = newMLP(0, hiddenLayers);
+        MLP dense = newMLP(1, hiddenLayers);
+        graph.setHiddenActivation(hiddenActivation);
+        dense.setHiddenActivation(hiddenActivation);
+        graph.setOutputLayer(outputLayer);
+        dense.setOutputLayer(outputLayer);
+        graph.buildClassifier(data);
+        dense.buildClassifier(data);
+
+        for (int i = 0; i < data.numInstances(); i++) {
+            assertEquals("prediction differs for instance " + i,
+                    graph.classifyInstance(data.instance(i)),
+                    dense.classifyInstance(data.instance(i)), 1e-12);
+        }
+        assertEquals("models differ", graph.toString().replace("GRAPH", ""),
+                dense.toString().replace("DENSE", ""));
+    }
+
+    public void testDenseEngineMatchesGraphEngine() throws Exception {
+        assertSameModel(1);
+    }
+
+    public void testDenseEngineMatchesGraphEngineDeep() throws Exception {
+        assertSameModel(3);
+    }
+
+    public void testDenseEngineMatchesGraphEngineActivations() throws Exception {
+        assertSameModel(2, 1, 5);
+        assertSameModel(2, 3, 2);
+    }
+
+    public void testDenseEngineMatchesGraphEngineSeeded() throws Exception {
+        Instances data = AnnTestData.generate(0, 6, 3, 40);
+        for (int scheme = 0; scheme <= 2; scheme++) {
+            MLP graph = newMLP(0, 2);
+            MLP dense = newMLP(1, 2);
+            graph.setInitWeight("a");
+            dense.setInitWeight("a");
+            graph.setInitScheme(scheme);
+            dense.setInitScheme(scheme);
+            graph.setSeed(7);
+            dense.setSeed(7);
+            graph.buildClassifier(data);
+            dense.buildClassifier(data);
+            assertEquals("models differ", graph.toString().replace("GRAPH", ""),
+                    dense.toString().replace("DENSE", ""));
+        }
+    }
+
+    public void testSeedIsReproducible() throws Exception {
+        Instances data = AnnTestData.generate(0, 6, 3, 40);
+        MLP a = newMLP(1, 1);
+        MLP b = newMLP(1, 1);
+        MLP c = newMLP(1, 1);
+        a.setInitWeight("a");
+        b.setInitWeight("a");
+        c.setInitWeight("a");
+        c.setSeed(2);
+        a.buildClassifier(data);
+        b.buildClassifier(data);
+        c.buildClassifier(data);
+        assertEquals(a.toString(), b.toString());
+        assertFalse(a.toString().equals(c.toString().replace("seed 2", "seed 1")));
+    }
+
+    public void testEngineOption() throws Exception {
+        MLP mlp = new MLP();
+        mlp.setOptions(new String[]{"-E", "1"});
+        assertEquals(1, mlp.getEngine());
+
+        String[] options = mlp.getOptions();
+        MLP copy = new MLP();
+        copy.setOptions(options);
+        assertEquals(1, copy.getEngine());
+    }
+
+    public void testSoftmaxDistribution() throws Exception {
+        Instances data = AnnTestData.generate(0, 6, 3, 40);
+        MLP mlp = newMLP(1, 1);
+        mlp.setOutputLayer(1);
+        mlp.setInitWeight("a");
+        mlp.buildClassifier(data);
+
+        double[][] batch = mlp.distributionsForInstances(data);
+        for (int i = 0; i < data.numInstances(); i++) {
+            double[] dist = mlp.distributionForInstance(data.instance(i));
+            double sum = 0;
+            for (int j = 0; j < dist.length; j++) {
+                assertTrue(dist[j] > 0 && dist[j] < 1);
+                assertEquals(dist[j], batch[i][j], 1e-12);
+                sum += dist[j];
+            }
+            assertEquals(1.0, sum, 1e-12);
+        }
+    }
+
+    public void testSoftmaxRequiresDenseEngine() throws Exception {
+        MLP mlp = newMLP(0, 1);
+        mlp.setOutputLayer(1);
+        try {
+            mlp.buildClassifier(AnnTestData.checkDataset(2));
+            fail("softmax accepted with the GRAPH engine");
+        } catch (Exception e) {
+            // expected
+        }
+    }
+
+    public void testOptimizerOptions() throws Exception {
+        MLP mlp = new MLP();
+        mlp.setOptions(new String[]{"-E", "1", "-G", "3", "-K", "2", "-W", "1.5"});
+        MLP copy = new MLP();
+        copy.setOptions(mlp.getOptions());
+        assertEquals(3, copy.getOptimizer());
+        assertEquals(2, copy.getSchedule());
+        assertEquals(1.5, copy.getWarmupEpochs(), 0);
+    }
+
+    public void testAdaptiveOptimizersTrain() throws Exception {
+        Instances data = AnnTestData.generate(0, 6, 3, 60);
+        for (int optimizer = 1; optimizer <= 3; optimizer++) {
+            MLP mlp = newMLP(1, 1);
+            mlp.setInitWeight("a");
+            mlp.setOptimizer(optimizer);
+            mlp.setSchedule(2);
+            mlp.setLearningRate(0.01f);
+            mlp.setMaxIteration(20);
+            mlp.buildClassifier(data);
+            double[] dist = mlp.distributionForInstance(data.instance(0));
+            for (int j = 0; j < dist.length; j++)
+                assertFalse(Double.isNaN(dist[j]));
+        }
+    }
+
+    public void testAdaptiveOptimizerRequiresDenseEngine() throws Exception {
+        MLP mlp = newMLP(0, 1);
+        mlp.setOptimizer(3);
+        try {
+            mlp.buildClassifier(AnnTestData.checkDataset(2));
+            fail("ADAM accepted with the GRAPH engine");
+        } catch (Exception e) {
+            // expected
+        }
+    }
+
+    public void testConcurrentClassification() throws Exception {
+        final Instances data = AnnTestData.generate(0, 8, 3, 60);
+        final MLP mlp = newMLP(1, 2);
+        mlp.setInitWeight("a");
+        mlp.buildClassifier(data);
+
+        final double[] expected = new double[data.numInstances()];
+        for (int i = 0; i < expected.length; i++)
+            expected[i] = mlp.classifyInstance(data.instance(i));
+
+        final int[] mismatches = new int[1];
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                public void run() {
+                    try {
+                        for (int round = 0; round < 50; round++) {
+                            for (int i = 0; i < expected.length; i++) {
+                                if (mlp.classifyInstance(data.instance(i)) != expected[i]) {
+                                    synchronized (mismatches) {
+                                        mismatches[0]++;
+                                    }
+                                }
+                            }
+                        }
+                    } catch (Exception e) {
+                        synchronized (mismatches) {
+                            mismatches[0]++;
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (int t = 0; t < threads.length; t++)
+            threads[t].join();
+
+        assertEquals("concurrent predictions differ", 0, mismatches[0]);
+    }
+
+    public static Test suite() {
+        return new TestSuite(MLPTest.class);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(suite());
+    }
+}
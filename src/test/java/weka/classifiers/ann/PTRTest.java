@@ -0,0 +1,59 @@
+/*
+ *    PTRTest.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ */
+
+package weka.classifiers.ann;
+
+import weka.classifiers.AbstractClassifierTest;
+import weka.classifiers.Classifier;
+import weka.core.Instances;
+import weka.core.Utils;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests PTR. Run from the command line with:<p/>
+ * java weka.classifiers.ann.PTRTest
+ */
+public class PTRTest extends AbstractClassifierTest {
+
+    public PTRTest(String name) {
+        super(name);
+    }
+
+    /** Creates a default PTR */
+    public Classifier getClassifier() {
+        return new PTR();
+    }
+
+    protected String train(String options, Instances data) throws Exception {
+        PTR c = new PTR();
+        c.setOptions(Utils.splitOptions(options));
+        c.buildClassifier(data);
+        return c.toString();
+    }
+
+    public void testSeedSetsValidationSplit() throws Exception {
+        Instances data = AnnTestData.generate(2, 4, 2, 60);
+        String one = train("-M 600 -V 30 -P 1", data);
+        assertEquals(one, train("-M 600 -V 30 -P 1 -S 1", data));
+        boolean differs = false;
+        for (int seed = 2; seed < 6 && !differs; seed++)
+            differs = !one.equals(train("-M 600 -V 30 -P 1 -S " + seed, data));
+        assertTrue("seed does not change the validation split", differs);
+        PTR c = new PTR();
+        c.setOptions(Utils.splitOptions("-S 7"));
+        assertEquals(7, c.getSeed());
+        assertTrue(Utils.joinOptions(c.getOptions()).indexOf("-S 7") >= 0);
+    }
+
+    public static Test suite() {
+        return new TestSuite(PTRTest.class);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(suite());
+    }
+}
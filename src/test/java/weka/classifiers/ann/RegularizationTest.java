@@ -0,0 +1,187 @@
+/*
+ *    RegularizationTest.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ */
+
+package weka.classifiers.ann;
+
+import weka.classifiers.ann.engine.DenseNetwork;
+import weka.core.Instances;
+import weka.core.Utils;
+
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests dropout, L2 weight decay and gradient clipping of the DENSE engine.
+ * Run from the command line with:<p/>
+ * java weka.classifiers.ann.RegularizationTest
+ */
+public class RegularizationTest extends TestCase {
+
+    public RegularizationTest(String name) {
+        super(name);
+    }
+
+    protected MLP mlp(String options) throws Exception {
+        MLP mlp = new MLP();
+        mlp.setOptions(Utils.splitOptions(options));
+        return mlp;
+    }
+
+    protected DenseNetwork network() {
+        DenseNetwork network = new DenseNetwork(new int[]{4, 5, 3}, true);
+        Random random = new Random(3);
+        for (int l = 0; l < 2; l++)
+            for (int i = 0; i < network.layerSize(l); i++)
+                for (int j = 0; j < network.layerSize(l + 1); j++)
+                    network.setWeight(l, i, j, random.nextDouble() - 0.5);
+        return network;
+    }
+
+    protected double[][] copy(DenseNetwork network) {
+        double[][] w = new double[2][];
+        for (int l = 0; l < 2; l++) {
+            int nIn = network.layerSize(l);
+            int nOut = network.layerSize(l + 1);
+            w[l] = new double[nIn * nOut + nOut];
+            for (int j = 0; j < nOut; j++) {
+                for (int i = 0; i < nIn; i++)
+                    w[l][j * nIn + i] = network.getWeight(l, i, j);
+                w[l][nIn * nOut + j] = network.getBias(l, j);
+            }
+        }
+        return w;
+    }
+
+    protected double sumOfSquares(double[][] w, DenseNetwork network) {
+        double sum = 0;
+        for (int l = 0; l < w.length; l++)
+            for (int k = 0; k < network.layerSize(l) * network.layerSize(l + 1); k++)
+                sum += w[l][k] * w[l][k];
+        return sum;
+    }
+
+    public void testLargeClipNormDoesNotChangeTraining() throws Exception {
+        DenseNetwork plain = network();
+        DenseNetwork clipped = network();
+        clipped.setClipNorm(1e9);
+        double[] input = {0.1, 0.9, 0.4, 0.3};
+        double[] target = {1, 0, 0};
+        for (int s = 0; s < 20; s++) {
+            plain.train(input, target, 0.3, 0.2);
+            clipped.train(input, target, 0.3, 0.2);
+        }
+        double[][] expected = copy(plain);
+        double[][] actual = copy(clipped);
+        for (int l = 0; l < expected.length; l++)
+            for (int k = 0; k < expected[l].length; k++)
+                assertEquals(expected[l][k], actual[l][k], 1e-12);
+    }
+
+    public void testWeightDecayShrinksWeights() throws Exception {
+        DenseNetwork plain = network();
+        DenseNetwork decayed = network();
+        decayed.setWeightDecay(0.05);
+        double[] inputs = {0.1, 0.9, 0.4, 0.3, 0.7, 0.2, 0.5, 0.8};
+        double[] targets = {1, 0, 0, 0, 1, 0};
+        for (int s = 0; s < 50; s++) {
+            plain.trainBatch(inputs, targets, 2, 0.3, 0);
+            decayed.trainBatch(inputs, targets, 2, 0.3, 0);
+        }
+        assertTrue(sumOfSquares(copy(decayed), decayed) < sumOfSquares(copy(plain), plain));
+    }
+
+    public void testClipNormBoundsEveryLayerUpdate() throws Exception {
+        DenseNetwork network = network();
+        network.setClipNorm(0.01);
+        double[][] before = copy(network);
+        // tanpa momentum perubahan bobot = rate * gradien
+        network.train(new double[]{5, -5, 5, -5}, new double[]{1, 0, 1}, 0.5, 0);
+        double[][] after = copy(network);
+        for (int l = 0; l < before.length; l++) {
+            double sum = 0;
+            for (int k = 0; k < before[l].length; k++)
+                sum += (after[l][k] - before[l][k]) * (after[l][k] - before[l][k]);
+            assertTrue("layer " + l, Math.sqrt(sum) <= 0.5 * 0.01 + 1e-12);
+            assertTrue("layer " + l, sum > 0);
+        }
+    }
+
+    public void testDropoutIsReproducibleAndOnlyUsedInTraining() throws Exception {
+        Instances data = AnnTestData.generate(2, 4, 3, 40);
+        String options = "-E 1 -H 6 -M 5 -D 0.5";
+        MLP first = mlp(options);
+        MLP second = mlp(options);
+        first.buildClassifier(data);
+        second.buildClassifier(data);
+        assertEquals(first.toString(), second.toString());
+        assertTrue(first.toString().indexOf("DROPOUT 0.5") >= 0);
+
+        MLP plain = mlp("-E 1 -H 6 -M 5");
+        plain.buildClassifier(data);
+        assertFalse(plain.toString().equals(first.toString()));
+
+        for (int i = 0; i < data.numInstances(); i++) {
+            double[] a = first.distributionForInstance(data.instance(i));
+            double[] b = first.distributionForInstance(data.instance(i));
+            for (int c = 0; c < a.length; c++)
+                assertEquals(a[c], b[c], 0);
+        }
+    }
+
+    public void testBatchShardsAgree() throws Exception {
+        Instances data = AnnTestData.generate(2, 4, 3, 40);
+        String options = "-E 1 -H 4 -M 5 -B 8 -D 0.3 -w 0.01 -c 1";
+        MLP one = mlp(options + " -T 1");
+        MLP two = mlp(options + " -T 2");
+        one.buildClassifier(data);
+        two.buildClassifier(data);
+        // mask dibuat di thread pemanggil, hanya urutan penjumlahan gradien yang berbeda
+        for (int i = 0; i < data.numInstances(); i++) {
+            double[] a = one.distributionForInstance(data.instance(i));
+            double[] b = two.distributionForInstance(data.instance(i));
+            for (int c = 0; c < a.length; c++)
+                assertEquals(a[c], b[c], 1e-9);
+        }
+    }
+
+    public void testRequiresDenseEngine() throws Exception {
+        String[] options = {"-D 0.2", "-w 0.1", "-c 1"};
+        for (int o = 0; o < options.length; o++) {
+            try {
+                mlp("-H 2 -M 1 " + options[o]).buildClassifier(AnnTestData.checkDataset(2));
+                fail(options[o] + " should require the DENSE engine");
+            } catch (Exception e) {
+                assertTrue(e.getMessage(), e.getMessage().indexOf("DENSE") >= 0);
+            }
+        }
+        try {
+            mlp("-E 1 -D 1").buildClassifier(AnnTestData.checkDataset(2));
+            fail("dropout 1 should be rejected");
+        } catch (Exception e) {
+            // diharapkan
+        }
+    }
+
+    public void testOptions() throws Exception {
+        MLP mlp = mlp("-D 0.25 -w 0.001 -c 5");
+        assertEquals(0.25, mlp.getDropout(), 0);
+        assertEquals(0.001, mlp.getWeightDecay(), 0);
+        assertEquals(5, mlp.getClipNorm(), 0);
+        MLP copy = mlp(Utils.joinOptions(mlp.getOptions()));
+        assertEquals(Utils.joinOptions(mlp.getOptions()), Utils.joinOptions(copy.getOptions()));
+        assertEquals(0, mlp("").getDropout(), 0);
+    }
+
+    public static Test suite() {
+        return new TestSuite(RegularizationTest.class);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(suite());
+    }
+}
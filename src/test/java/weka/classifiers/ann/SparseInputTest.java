@@ -0,0 +1,198 @@
+/*
+ *    SparseInputTest.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ */
+
+package weka.classifiers.ann;
+
+import weka.classifiers.Classifier;
+import weka.classifiers.UpdateableClassifier;
+import weka.core.BatchPredictor;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.SparseInstance;
+import weka.core.Utils;
+
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests that MLP and PTR train and predict the same on sparse instances as
+ * on the same values stored densely. Run from the command line with:<p/>
+ * java weka.classifiers.ann.SparseInputTest
+ */
+public class SparseInputTest extends TestCase {
+
+    public SparseInputTest(String name) {
+        super(name);
+    }
+
+    /**
+     * Data with mostly zero numeric values. The numeric attributes are
+     * non-negative except for the first one, so that value 0 of that
+     * attribute and of the nominal attributes gives a non-zero input. A
+     * numeric class is used if numClasses is 0.
+     */
+    protected Instances generate(int numClasses) throws Exception {
+        Instances data = AnnTestData.generate(2, 3, 30, numClasses, 50);
+        Random random = new Random(1);
+        for (int i = 0; i < data.numInstances(); i++) {
+            Instance instance = data.instance(i);
+            for (int a = 0; a < data.numAttributes(); a++) {
+                if (a == data.classIndex() || !data.attribute(a).isNumeric())
+                    continue;
+                if (random.nextDouble() < 0.9)
+                    instance.setValue(a, 0);
+                else if (a > 2)
+                    instance.setValue(a, Math.abs(instance.value(a)));
+            }
+        }
+        return data;
+    }
+
+    protected Instances sparse(Instances data) {
+        Instances sparse = new Instances(data, data.numInstances());
+        for (int i = 0; i < data.numInstances(); i++)
+            sparse.add(new SparseInstance(data.instance(i)));
+        return sparse;
+    }
+
+    protected void assertSameModel(Classifier dense, Classifier sparse, Instances data) throws Exception {
+        Instances sparseData = sparse(data);
+        assertTrue(sparseData.instance(0) instanceof SparseInstance);
+        dense.buildClassifier(data);
+        sparse.buildClassifier(sparseData);
+        assertEquals(dense.toString(), sparse.toString());
+        for (int i = 0; i < data.numInstances(); i++) {
+            double[] expected = dense.distributionForInstance(data.instance(i));
+            double[] actual = sparse.distributionForInstance(sparseData.instance(i));
+            for (int c = 0; c < expected.length; c++)
+                assertEquals(expected[c], actual[c], 0);
+        }
+        double[][] batch = ((BatchPredictor) sparse).distributionsForInstances(sparseData);
+        for (int i = 0; i < data.numInstances(); i++)
+            for (int c = 0; c < batch[i].length; c++)
+                assertEquals(dense.distributionForInstance(data.instance(i))[c], batch[i][c], 1e-12);
+    }
+
+    protected MLP mlp(String options) throws Exception {
+        MLP mlp = new MLP();
+        mlp.setOptions(Utils.splitOptions(options));
+        return mlp;
+    }
+
+    public void testTransformerMatchesDense() throws Exception {
+        Instances data = generate(3);
+        data.instance(4).setMissing(1);
+        data.instance(5).setMissing(7);
+        Instances sparseData = sparse(data);
+        InputTransformer transformer = new InputTransformer(data, true);
+        SparseInputs rows = transformer.transformSparse(sparseData);
+        double[] row = new double[transformer.numInputs()];
+        for (int i = 0; i < data.numInstances(); i++) {
+            double[] expected = transformer.transform(data.instance(i)).clone();
+            rows.densify(i, row, 0, row.length);
+            for (int k = 0; k < row.length; k++) {
+                if (Instance.isMissingValue(expected[k]))
+                    assertTrue(Instance.isMissingValue(row[k]));
+                else
+                    assertEquals("instance " + i + ", input " + k, expected[k], row[k], 0);
+            }
+            // hanya nilai bukan 0, ditambah atribut yang nilai 0-nya bukan input 0
+            assertTrue(rows.end(i) - rows.start(i) < row.length / 2);
+        }
+    }
+
+    public void testMLPDenseEngine() throws Exception {
+        String options = "-E 1 -H 4 -M 5 -F 1 -L 0.3";
+        assertSameModel(mlp(options), mlp(options), generate(3));
+        assertSameModel(mlp(options), mlp(options), generate(0));
+    }
+
+    public void testMLPOptimizersThatUpdateAllWeights() throws Exception {
+        String[] options = {"-E 1 -H 4 -M 5 -F 1 -G 3", "-E 1 -H 4 -M 5 -G 2"};
+        for (int o = 0; o < options.length; o++)
+            assertSameModel(mlp(options[o]), mlp(options[o]), generate(2));
+
+        MLP dense = mlp("-E 1 -H 4 -M 5 -F 1");
+        MLP sparse = mlp("-E 1 -H 4 -M 5 -F 1");
+        dense.setMomentum(0.5);
+        sparse.setMomentum(0.5);
+        assertSameModel(dense, sparse, generate(2));
+    }
+
+    public void testMLPGraphEngineAndBatches() throws Exception {
+        String[] options = {"-H 4 -M 5 -F 1", "-E 1 -H 4 -M 5 -F 1 -B 8 -T 2"};
+        for (int o = 0; o < options.length; o++)
+            assertSameModel(mlp(options[o]), mlp(options[o]), generate(3));
+    }
+
+    public void testPTR() throws Exception {
+        PTR dense = new PTR();
+        PTR sparse = new PTR();
+        dense.setMaxIteration(200);
+        sparse.setMaxIteration(200);
+        assertSameModel(dense, sparse, generate(2));
+    }
+
+    public void testUpdateClassifier() throws Exception {
+        Instances data = generate(2);
+        Instances sparseData = sparse(data);
+        Classifier[][] pairs = {{mlp("-E 1 -H 3 -F 1"), mlp("-E 1 -H 3 -F 1")}, {new PTR(), new PTR()}};
+        for (int p = 0; p < pairs.length; p++) {
+            pairs[p][0].buildClassifier(new Instances(data, 0));
+            pairs[p][1].buildClassifier(new Instances(sparseData, 0));
+            for (int i = 0; i < data.numInstances(); i++) {
+                ((UpdateableClassifier) pairs[p][0]).updateClassifier(data.instance(i));
+                ((UpdateableClassifier) pairs[p][1]).updateClassifier(sparseData.instance(i));
+            }
+            assertEquals(pairs[p][0].toString(), pairs[p][1].toString());
+        }
+    }
+
+    public void testConcurrentClassification() throws Exception {
+        final Instances sparseData = sparse(generate(3));
+        final MLP mlp = mlp("-E 1 -H 4 -M 5 -F 1");
+        mlp.buildClassifier(sparseData);
+        final double[] expected = new double[sparseData.numInstances()];
+        for (int i = 0; i < expected.length; i++)
+            expected[i] = mlp.classifyInstance(sparseData.instance(i));
+
+        // setiap thread mengisi buffer sparse miliknya sendiri
+        final int[] mismatches = new int[1];
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                public void run() {
+                    try {
+                        for (int round = 0; round < 50; round++)
+                            for (int i = 0; i < expected.length; i++)
+                                if (mlp.classifyInstance(sparseData.instance(i)) != expected[i])
+                                    synchronized (mismatches) {
+                                        mismatches[0]++;
+                                    }
+                    } catch (Exception e) {
+                        synchronized (mismatches) {
+                            mismatches[0]++;
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (int t = 0; t < threads.length; t++)
+            threads[t].join();
+        assertEquals("concurrent predictions differ", 0, mismatches[0]);
+    }
+
+    public static Test suite() {
+        return new TestSuite(SparseInputTest.class);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(suite());
+    }
+}
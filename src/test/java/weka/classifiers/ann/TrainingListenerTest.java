@@ -0,0 +1,154 @@
+/*
+ *    TrainingListenerTest.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ */
+
+package weka.classifiers.ann;
+
+import weka.classifiers.Classifier;
+import weka.classifiers.TrainingEvent;
+import weka.classifiers.TrainingListener;
+import weka.classifiers.TrainingListenerHandler;
+import weka.classifiers.TrainingMetrics;
+import weka.classifiers.functions.MultilayerPerceptron;
+import weka.core.Instances;
+import weka.core.OptionHandler;
+import weka.core.Utils;
+
+import java.util.ArrayList;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the TrainingListener hooks of MLP, PTR, DR and
+ * MultilayerPerceptron. Run from the command line with:<p/>
+ * java weka.classifiers.ann.TrainingListenerTest
+ */
+public class TrainingListenerTest extends TestCase {
+
+    public TrainingListenerTest(String name) {
+        super(name);
+    }
+
+    protected static class Recorder implements TrainingListener {
+        int started;
+        int finished;
+        ArrayList<TrainingEvent> epochs = new ArrayList<TrainingEvent>();
+        TrainingEvent last;
+
+        public void trainingStarted(TrainingEvent e) {
+            started++;
+        }
+
+        public void epochFinished(TrainingEvent e) {
+            epochs.add(e);
+        }
+
+        public void trainingFinished(TrainingEvent e) {
+            finished++;
+            last = e;
+        }
+    }
+
+    protected Recorder train(Classifier classifier, Instances data) throws Exception {
+        Recorder recorder = new Recorder();
+        ((TrainingListenerHandler) classifier).addTrainingListener(recorder);
+        classifier.buildClassifier(data);
+        assertEquals(1, recorder.started);
+        assertEquals(1, recorder.finished);
+        for (int e = 0; e < recorder.epochs.size(); e++) {
+            TrainingEvent event = recorder.epochs.get(e);
+            assertEquals(e + 1, event.getEpoch());
+            assertFalse(Double.isNaN(event.getLoss()));
+            assertTrue(event.getInstancesPerSecond() > 0);
+        }
+        return recorder;
+    }
+
+    protected void assertEpochs(Recorder recorder, int epochs, int instances) {
+        assertEquals(epochs, recorder.epochs.size());
+        for (int e = 0; e < epochs; e++)
+            assertEquals(instances, recorder.epochs.get(e).getInstances());
+    }
+
+    public void testMLP() throws Exception {
+        Instances data = AnnTestData.generate(2, 4, 2, 40);
+        String[] options = {"-H 3 -M 5", "-E 1 -H 3 -M 5", "-E 1 -H 3 -M 5 -B 8"};
+        for (int o = 0; o < options.length; o++) {
+            MLP mlp = new MLP();
+            mlp.setOptions(Utils.splitOptions(options[o]));
+            Recorder recorder = train(mlp, data);
+            assertEpochs(recorder, 5, data.numInstances());
+            assertEquals(0, recorder.last.getInstances());
+            TrainingEvent first = recorder.epochs.get(0);
+            assertTrue(first.getPhaseMillis(TrainingMetrics.FILTER) > 0);
+            assertTrue(first.getPhaseMillis(TrainingMetrics.BACKWARD) > 0);
+            if (o < 2)
+                assertTrue(first.getPhaseMillis(TrainingMetrics.FORWARD) > 0);
+        }
+    }
+
+    public void testValidationIsTimedAsError() throws Exception {
+        Instances data = AnnTestData.generate(2, 4, 2, 40);
+        MLP mlp = new MLP();
+        mlp.setOptions(Utils.splitOptions("-E 1 -H 3 -M 3 -V 25"));
+        Recorder recorder = train(mlp, data);
+        assertEpochs(recorder, 3, 30);
+        assertTrue(recorder.epochs.get(0).getPhaseMillis(TrainingMetrics.ERROR) > 0);
+    }
+
+    public void testPerceptrons() throws Exception {
+        Instances data = AnnTestData.generate(2, 4, 2, 40);
+        PTR ptr = new PTR();
+        ptr.setMaxIteration(100);
+        Recorder recorder = train(ptr, data);
+        // maxIteration PTR dihitung per instance: dua epoch dan sisa 20 update
+        assertEpochs(recorder, 2, data.numInstances());
+        assertEquals(20, recorder.last.getInstances());
+
+        DR dr = new DR();
+        dr.setMaxIteration(3);
+        assertEpochs(train(dr, data), 3, data.numInstances());
+    }
+
+    public void testMultilayerPerceptron() throws Exception {
+        Instances data = AnnTestData.generate(2, 4, 2, 40);
+        MultilayerPerceptron mp = new MultilayerPerceptron();
+        mp.setTrainingTime(4);
+        Recorder recorder = train(mp, data);
+        assertEpochs(recorder, 4, data.numInstances());
+        assertTrue(recorder.epochs.get(0).getPhaseMillis(TrainingMetrics.FORWARD) > 0);
+    }
+
+    public void testListenersDoNotChangeTheModel() throws Exception {
+        Instances data = AnnTestData.generate(2, 4, 2, 40);
+        Classifier[] classifiers = {new MLP(), new PTR(), new DR(), new MultilayerPerceptron()};
+        for (int c = 0; c < classifiers.length; c++) {
+            Classifier plain = Classifier.makeCopy(classifiers[c]);
+            plain.buildClassifier(data);
+            train(classifiers[c], data);
+            assertEquals(plain.toString(), classifiers[c].toString());
+        }
+    }
+
+    public void testPrintProgressOption() throws Exception {
+        Classifier[] classifiers = {new MLP(), new PTR(), new DR(), new MultilayerPerceptron()};
+        String[] flags = {"-Y 1", "-Y 1", "-Y 1", "-Y"};
+        for (int c = 0; c < classifiers.length; c++) {
+            OptionHandler handler = (OptionHandler) classifiers[c];
+            handler.setOptions(Utils.splitOptions(flags[c]));
+            String options = Utils.joinOptions(handler.getOptions());
+            assertTrue(options, options.indexOf(flags[c]) >= 0);
+        }
+    }
+
+    public static Test suite() {
+        return new TestSuite(TrainingListenerTest.class);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(suite());
+    }
+}
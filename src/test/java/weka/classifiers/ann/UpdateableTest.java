@@ -0,0 +1,165 @@
+/*
+ *    UpdateableTest.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ */
+
+package weka.classifiers.ann;
+
+import weka.classifiers.Classifier;
+import weka.classifiers.UpdateableClassifier;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.converters.ArffLoader;
+
+import java.io.File;
+import java.io.FileWriter;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests updateClassifier of PTR, DR and MLP. Run from the command line
+ * with:<p/>
+ * java weka.classifiers.ann.UpdateableTest
+ */
+public class UpdateableTest extends TestCase {
+
+    public UpdateableTest(String name) {
+        super(name);
+    }
+
+    protected void update(Classifier classifier, Instances data) throws Exception {
+        for (int i = 0; i < data.numInstances(); i++)
+            ((UpdateableClassifier) classifier).updateClassifier(data.instance(i));
+    }
+
+    /**
+     * Builds a model without training steps, so the normalization ranges
+     * come from the data, and checks that one pass of updates over the same
+     * data gives the model trained with one pass.
+     */
+    protected void assertUpdatesMatchTraining(Classifier untrained, Classifier trained, Instances data)
+            throws Exception {
+        untrained.buildClassifier(data);
+        update(untrained, data);
+        trained.buildClassifier(data);
+        assertEquals(trained.toString(), untrained.toString());
+        for (int i = 0; i < data.numInstances(); i++)
+            assertEquals(trained.classifyInstance(data.instance(i)), untrained.classifyInstance(data.instance(i)), 0);
+    }
+
+    public void testPTRUpdatesMatchTraining() throws Exception {
+        Instances data = AnnTestData.generate(2, 5, 2, 60);
+        PTR untrained = new PTR();
+        untrained.setMaxIteration(0);
+        PTR trained = new PTR();
+        trained.setMaxIteration(data.numInstances());
+        assertUpdatesMatchTraining(untrained, trained, data);
+    }
+
+    public void testDRUpdatesMatchTraining() throws Exception {
+        Instances data = AnnTestData.generate(2, 5, 2, 60);
+        DR untrained = new DR();
+        untrained.setUpdateOption(1);
+        untrained.setMaxIteration(0);
+        DR trained = new DR();
+        trained.setUpdateOption(1);
+        trained.setMaxIteration(data.numInstances());
+        assertUpdatesMatchTraining(untrained, trained, data);
+    }
+
+    public void testMLPUpdatesMatchTraining() throws Exception {
+        Instances data = AnnTestData.generate(2, 5, 3, 60);
+        for (int engine = 0; engine < 2; engine++) {
+            MLP untrained = new MLP();
+            MLP trained = new MLP();
+            MLP[] both = {untrained, trained};
+            for (int m = 0; m < 2; m++) {
+                both[m].setEngine(engine);
+                both[m].setHiddenPerceptrons(4);
+                both[m].setUseFilter(true);
+                both[m].setInitWeight("a");
+            }
+            untrained.setMaxIteration(0);
+            trained.setMaxIteration(1);
+            assertUpdatesMatchTraining(untrained, trained, data);
+        }
+    }
+
+    public void testRangesGrowWithStream() throws Exception {
+        Instances data = AnnTestData.generate(2, 5, 2, 60);
+        PTR ptr = new PTR();
+        ptr.buildClassifier(new Instances(data, 0));
+        update(ptr, data);
+
+        // rentang normalisasi sama dengan rentang dari semua data
+        PTR batch = new PTR();
+        batch.setMaxIteration(0);
+        batch.buildClassifier(data);
+        InputTransformer stream = ptr.getTransformer();
+        InputTransformer all = batch.getTransformer();
+        double[] expected = new double[all.numInputs()];
+        double[] actual = new double[stream.numInputs()];
+        for (int i = 0; i < data.numInstances(); i++) {
+            all.transform(data.instance(i), expected, 0);
+            stream.transform(data.instance(i), actual, 0);
+            for (int j = 0; j < expected.length; j++)
+                assertEquals(expected[j], actual[j], 0);
+        }
+    }
+
+    public void testStreamFromArffLoader() throws Exception {
+        Instances data = AnnTestData.generate(2, 5, 3, 60);
+        File file = File.createTempFile("stream", ".arff");
+        try {
+            FileWriter writer = new FileWriter(file);
+            writer.write(data.toString());
+            writer.close();
+
+            Classifier[] classifiers = {new PTR(), new DR(), new MLP()};
+            ((MLP) classifiers[2]).setUseFilter(true);
+            ((MLP) classifiers[2]).setInitWeight("a");
+            for (int c = 0; c < classifiers.length; c++) {
+                ArffLoader loader = new ArffLoader();
+                loader.setFile(file);
+                Instances structure = loader.getStructure();
+                structure.setClassIndex(data.classIndex());
+                classifiers[c].buildClassifier(structure);
+
+                Instance instance;
+                int count = 0;
+                while ((instance = loader.getNextInstance(structure)) != null) {
+                    ((UpdateableClassifier) classifiers[c]).updateClassifier(instance);
+                    count++;
+                }
+                assertEquals(data.numInstances(), count);
+                for (int i = 0; i < data.numInstances(); i++)
+                    assertFalse(Double.isNaN(classifiers[c].distributionForInstance(data.instance(i))[0]));
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void testMissingClassIsSkipped() throws Exception {
+        Instances data = AnnTestData.checkDataset(2);
+        MLP mlp = new MLP();
+        mlp.setEngine(1);
+        mlp.setInitWeight("a");
+        mlp.buildClassifier(data);
+        String before = mlp.toString();
+        Instance instance = (Instance) data.instance(0).copy();
+        instance.setClassMissing();
+        mlp.updateClassifier(instance);
+        assertEquals(before, mlp.toString());
+    }
+
+    public static Test suite() {
+        return new TestSuite(UpdateableTest.class);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(suite());
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ *    ActivationTest.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ */
+
+package weka.classifiers.ann.engine;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests Activation. Run from the command line with:<p/>
+ * java weka.classifiers.ann.engine.ActivationTest
+ */
+public class ActivationTest extends TestCase {
+
+    public ActivationTest(String name) {
+        super(name);
+    }
+
+    public void testDerivativesMatchFiniteDifferences() {
+        double eps = 1e-6;
+        for (int type = Activation.SIGMOID; type <= Activation.LINEAR; type++) {
+            Activation f = Activation.forType(type);
+            for (double x = -3.05; x < 3; x += 0.1) {
+                double expected = (f.apply(x + eps) - f.apply(x - eps)) / (2 * eps);
+                assertEquals(f + " at " + x, expected, f.derivative(f.apply(x)), 1e-6);
+            }
+        }
+    }
+
+    public void testBulkMatchesScalar() {
+        for (int type = Activation.SIGMOID; type <= Activation.STEP; type++) {
+            for (int a = 0; a < 2; a++) {
+                Activation f = Activation.forType(type, a == 1);
+                double[] v = new double[41];
+                double[] e = new double[v.length];
+                for (int k = 0; k < v.length; k++) {
+                    v[k] = f.apply((k - 20) / 4.0);
+                    e[k] = 1;
+                }
+                double[] y = v.clone();
+                for (int k = 0; k < v.length; k++)
+                    y[k] = (k - 20) / 4.0;
+                f.apply(y, 0, y.length);
+                f.multiplyDerivative(y, e, 0, e.length);
+                for (int k = 0; k < v.length; k++) {
+                    assertEquals(f + " apply", v[k], y[k], 0);
+                    assertEquals(f + " derivative", f.derivative(y[k]), e[k], 0);
+                }
+            }
+        }
+    }
+
+    public void testApproximationErrorBounds() {
+        Activation sigmoid = Activation.forType(Activation.SIGMOID);
+        Activation fastSigmoid = Activation.forType(Activation.SIGMOID, true);
+        Activation tanh = Activation.forType(Activation.TANH);
+        Activation fastTanh = Activation.forType(Activation.TANH, true);
+        double maxSigmoid = 0, maxTanh = 0;
+        for (double x = -40; x <= 40; x += 0.000731) {
+            maxSigmoid = Math.max(maxSigmoid, Math.abs(sigmoid.apply(x) - fastSigmoid.apply(x)));
+            maxTanh = Math.max(maxTanh, Math.abs(tanh.apply(x) - fastTanh.apply(x)));
+        }
+        assertTrue("sigmoid error " + maxSigmoid, maxSigmoid < 1e-6);
+        assertTrue("tanh error " + maxTanh, maxTanh < 2e-6);
+    }
+
+    public void testSignAndStep() {
+        Activation sign = Activation.forType(Activation.SIGN);
+        assertEquals(-1.0, sign.apply(-0.5), 0);
+        assertEquals(0.0, sign.apply(0), 0);
+        assertEquals(1.0, sign.apply(0.5), 0);
+
+        Activation step = new Activation.Step(0.3);
+        assertEquals(0.0, step.apply(0.3), 0);
+        assertEquals(1.0, step.apply(0.31), 0);
+    }
+
+    public static Test suite() {
+        return new TestSuite(ActivationTest.class);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(suite());
+    }
+}
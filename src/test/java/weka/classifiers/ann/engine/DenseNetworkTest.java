@@ -0,0 +1,254 @@
+/*
+ *    DenseNetworkTest.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ */
+
+package weka.classifiers.ann.engine;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests DenseNetwork. Run from the command line with:<p/>
+ * java weka.classifiers.ann.engine.DenseNetworkTest
+ */
+public class DenseNetworkTest extends TestCase {
+
+    protected static final int[] SIZES = {3, 4, 5, 2};
+
+    public DenseNetworkTest(String name) {
+        super(name);
+    }
+
+    protected DenseNetwork newNetwork() {
+        return newNetwork(false);
+    }
+
+    protected DenseNetwork newNetwork(boolean bias) {
+        DenseNetwork network = new DenseNetwork(SIZES, bias);
+        Random random = new Random(3);
+        for (int l = 0; l < SIZES.length - 1; l++) {
+            for (int from = 0; from < SIZES[l]; from++)
+                for (int to = 0; to < SIZES[l + 1]; to++)
+                    network.setWeight(l, from, to, random.nextGaussian());
+            if (bias)
+                for (int to = 0; to < SIZES[l + 1]; to++)
+                    network.setBias(l, to, random.nextGaussian());
+        }
+        return network;
+    }
+
+    protected double loss(DenseNetwork network, double[] inputs, double[] targets, int count) {
+        int nIn = SIZES[0];
+        int nOut = SIZES[SIZES.length - 1];
+        double loss = 0;
+        for (int b = 0; b < count; b++) {
+            double[] input = new double[nIn];
+            System.arraycopy(inputs, b * nIn, input, 0, nIn);
+            double[] out = network.predict(input);
+            for (int j = 0; j < nOut; j++) {
+                if (network.isSoftmax())
+                    loss -= targets[b * nOut + j] * Math.log(out[j]);
+                else
+                    loss += 0.5 * (targets[b * nOut + j] - out[j]) * (targets[b * nOut + j] - out[j]);
+            }
+        }
+        return loss / count;
+    }
+
+    public void testBatchGradientMatchesFiniteDifferences() {
+        assertGradient(false, new double[]{0.99, 0.01, 0.01, 0.99, 0.5, 0.5});
+    }
+
+    public void testSoftmaxGradientMatchesFiniteDifferences() {
+        assertGradient(true, new double[]{1, 0, 0, 1, 0.5, 0.5});
+    }
+
+    public void testActivationGradientMatchesFiniteDifferences() {
+        assertGradient(false, new double[]{0.99, -0.5, 0.01, 0.99, 2, 0.5},
+                Activation.forType(Activation.TANH), Activation.forType(Activation.LINEAR));
+    }
+
+    public void testBiasGradientMatchesFiniteDifferences() {
+        double[] inputs = {0.1, 0.5, -0.3, 0.9, -0.7, 0.2, 0.4, 0.4, 0.8};
+        double[] targets = {0.99, 0.01, 0.01, 0.99, 0.5, 0.5};
+        double rate = 1e-3;
+        double eps = 1e-6;
+
+        DenseNetwork reference = newNetwork(true);
+        DenseNetwork trained = newNetwork(true);
+        trained.trainBatch(inputs, targets, 3, rate, 0);
+
+        for (int l = 0; l < SIZES.length - 1; l++) {
+            for (int to = 0; to < SIZES[l + 1]; to++) {
+                double b = reference.getBias(l, to);
+                reference.setBias(l, to, b + eps);
+                double plus = loss(reference, inputs, targets, 3);
+                reference.setBias(l, to, b - eps);
+                double minus = loss(reference, inputs, targets, 3);
+                reference.setBias(l, to, b);
+
+                double expected = -rate * (plus - minus) / (2 * eps);
+                assertEquals("update of bias " + l + "/" + to, expected, trained.getBias(l, to) - b, 1e-9);
+            }
+        }
+    }
+
+    public void testOnlineBiasMatchesBatchOfOne() {
+        double[] input = {0.1, 0.5, -0.3};
+        double[] target = {0.99, 0.01};
+        DenseNetwork online = newNetwork(true);
+        DenseNetwork batch = newNetwork(true);
+        online.train(input, target, 0.5, 0);
+        batch.trainBatch(input, target, 1, 0.5, 0);
+        int last = SIZES.length - 2;
+        for (int to = 0; to < SIZES[last + 1]; to++)
+            assertEquals(batch.getBias(last, to), online.getBias(last, to), 1e-12);
+    }
+
+    public void testSoftmaxOutputSumsToOne() {
+        DenseNetwork network = newNetwork();
+        network.setSoftmax(true);
+        double[] out = network.predict(new double[]{1e3, -1e3, 5e2});
+        assertEquals(1.0, out[0] + out[1], 1e-12);
+        assertFalse(Double.isNaN(out[0]));
+    }
+
+    protected void assertGradient(boolean softmax, double[] targets) {
+        assertGradient(softmax, targets, new Activation.Sigmoid(), new Activation.Sigmoid());
+    }
+
+    protected void assertGradient(boolean softmax, double[] targets, Activation hidden, Activation output) {
+        double[] inputs = {0.1, 0.5, -0.3, 0.9, -0.7, 0.2, 0.4, 0.4, 0.8};
+        double rate = 1e-3;
+        double eps = 1e-6;
+
+        DenseNetwork reference = newNetwork();
+        DenseNetwork trained = newNetwork();
+        reference.setSoftmax(softmax);
+        trained.setSoftmax(softmax);
+        reference.setActivations(hidden, output);
+        trained.setActivations(hidden, output);
+        trained.trainBatch(inputs, targets, 3, rate, 0);
+
+        for (int l = 0; l < SIZES.length - 1; l++) {
+            for (int from = 0; from < SIZES[l]; from++) {
+                for (int to = 0; to < SIZES[l + 1]; to++) {
+                    double w = reference.getWeight(l, from, to);
+                    reference.setWeight(l, from, to, w + eps);
+                    double plus = loss(reference, inputs, targets, 3);
+                    reference.setWeight(l, from, to, w - eps);
+                    double minus = loss(reference, inputs, targets, 3);
+                    reference.setWeight(l, from, to, w);
+
+                    double expected = -rate * (plus - minus) / (2 * eps);
+                    double actual = trained.getWeight(l, from, to) - w;
+                    assertEquals("update of weight " + l + "/" + from + "/" + to, expected, actual, 1e-9);
+                }
+            }
+        }
+    }
+
+    public void testBatchAveragesGradient() {
+        double[] one = {0.1, 0.5, -0.3};
+        double[] oneTarget = {0.99, 0.01};
+        double[] two = {0.1, 0.5, -0.3, 0.1, 0.5, -0.3};
+        double[] twoTarget = {0.99, 0.01, 0.99, 0.01};
+
+        DenseNetwork a = newNetwork();
+        DenseNetwork b = newNetwork();
+        for (int i = 0; i < 3; i++) {
+            a.trainBatch(one, oneTarget, 1, 0.3, 0.5);
+            b.trainBatch(two, twoTarget, 2, 0.3, 0.5);
+        }
+        double[] outA = a.predict(one);
+        double[] outB = b.predict(one);
+        for (int j = 0; j < outA.length; j++)
+            assertEquals(outA[j], outB[j], 1e-12);
+    }
+
+    public void testShardedBatchIsDeterministic() throws Exception {
+        Random random = new Random(7);
+        int count = 37;
+        double[] inputs = new double[count * SIZES[0]];
+        double[] targets = new double[count * SIZES[SIZES.length - 1]];
+        for (int k = 0; k < inputs.length; k++)
+            inputs[k] = random.nextDouble();
+        for (int k = 0; k < targets.length; k++)
+            targets[k] = random.nextBoolean() ? 0.99 : 0.01;
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            DenseNetwork serial = newNetwork();
+            DenseNetwork a = newNetwork();
+            DenseNetwork b = newNetwork();
+            for (int i = 0; i < 5; i++) {
+                serial.trainBatch(inputs, targets, count, 0.5, 0.3);
+                a.trainBatch(inputs, targets, count, 0.5, 0.3, executor, 4);
+                b.trainBatch(inputs, targets, count, 0.5, 0.3, executor, 4);
+            }
+
+            for (int l = 0; l < SIZES.length - 1; l++) {
+                for (int from = 0; from < SIZES[l]; from++) {
+                    for (int to = 0; to < SIZES[l + 1]; to++) {
+                        assertEquals(a.getWeight(l, from, to), b.getWeight(l, from, to), 0);
+                        assertEquals(serial.getWeight(l, from, to), a.getWeight(l, from, to), 1e-12);
+                    }
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void testConcurrentPredict() throws Exception {
+        final DenseNetwork network = newNetwork(true);
+        final double[][] inputs = new double[50][SIZES[0]];
+        final double[][] expected = new double[inputs.length][];
+        Random random = new Random(5);
+        for (int i = 0; i < inputs.length; i++) {
+            for (int k = 0; k < SIZES[0]; k++)
+                inputs[i][k] = random.nextGaussian();
+            expected[i] = network.predict(inputs[i]);
+        }
+
+        final int[] mismatches = new int[1];
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                public void run() {
+                    for (int round = 0; round < 200; round++) {
+                        for (int i = 0; i < inputs.length; i++) {
+                            double[] out = network.predict(inputs[i]);
+                            for (int j = 0; j < out.length; j++) {
+                                if (out[j] != expected[i][j]) {
+                                    synchronized (mismatches) {
+                                        mismatches[0]++;
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (int t = 0; t < threads.length; t++)
+            threads[t].join();
+
+        assertEquals("concurrent predictions differ", 0, mismatches[0]);
+    }
+
+    public static Test suite() {
+        return new TestSuite(DenseNetworkTest.class);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(suite());
+    }
+}
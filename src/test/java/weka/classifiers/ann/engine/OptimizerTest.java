@@ -0,0 +1,117 @@
+/*
+ *    OptimizerTest.java
+ *    Copyright (C) 2015 by Andre Susanto, Adhika Sigit, Michael Alexander
+ */
+
+package weka.classifiers.ann.engine;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Tests Optimizer and Schedule. Run from the command line with:<p/>
+ * java weka.classifiers.ann.engine.OptimizerTest
+ */
+public class OptimizerTest extends TestCase {
+
+    public OptimizerTest(String name) {
+        super(name);
+    }
+
+    public void testRowUpdateMatchesFullUpdate() {
+        double[] in = {0.3, -1.2, 0.7};
+        double e = 0.4;
+        for (int type = Optimizer.SGD; type <= Optimizer.ADAM; type++) {
+            Optimizer row = Optimizer.forType(type);
+            Optimizer full = Optimizer.forType(type);
+            row.init(new int[]{6});
+            full.init(new int[]{6});
+            double[] a = {1, 2, 3, 4, 5, 6};
+            double[] b = a.clone();
+            double[] g = new double[6];
+            for (int i = 0; i < 3; i++)
+                g[3 + i] = 2 * e * in[i];
+
+            for (int step = 0; step < 4; step++) {
+                row.step();
+                full.step();
+                row.updateRow(0, a, 3, in, 3, e, 0.1, 0.5);
+                full.update(0, b, g, 3, 6, 0.5, 0.1, 0.5);
+            }
+            for (int k = 0; k < a.length; k++)
+                assertEquals(row + " weight " + k, a[k], b[k], 1e-12);
+        }
+    }
+
+    public void testSparseRowUpdateMatchesRowUpdate() {
+        double[] in = {0, -1.2, 0, 0.7};
+        int[] indices = {1, 3};
+        double[] values = {-1.2, 0.7};
+        for (int type = Optimizer.SGD; type <= Optimizer.ADAM; type++) {
+            Optimizer sparse = Optimizer.forType(type);
+            Optimizer row = Optimizer.forType(type);
+            sparse.init(new int[]{8});
+            row.init(new int[]{8});
+            double[] a = {1, 2, 3, 4, 5, 6, 7, 8};
+            double[] b = a.clone();
+
+            for (int step = 0; step < 4; step++) {
+                sparse.step();
+                row.step();
+                sparse.updateSparseRow(0, a, 4, 4, indices, values, 0, 2, 0.4, 0.1, 0);
+                row.updateRow(0, b, 4, in, 4, 0.4, 0.1, 0);
+            }
+            for (int k = 0; k < a.length; k++)
+                assertEquals(row + " weight " + k, b[k], a[k], 1e-12);
+        }
+    }
+
+    public void testMomentumMatchesClassicalUpdate() {
+        Optimizer sgd = Optimizer.forType(Optimizer.SGD);
+        sgd.init(new int[]{1});
+        double[] w = {0};
+        double[] g = {1};
+        sgd.step();
+        sgd.update(0, w, g, 0, 1, 1, 0.1, 0.5);
+        sgd.step();
+        sgd.update(0, w, g, 0, 1, 1, 0.1, 0.5);
+        assertEquals(0.1 + 0.15, w[0], 1e-15);
+    }
+
+    public void testAdamStepIsBoundedByRate() {
+        Optimizer adam = Optimizer.forType(Optimizer.ADAM);
+        adam.init(new int[]{2});
+        double[] w = {0, 0};
+        double[] g = {1e-3, -50};
+        adam.step();
+        adam.update(0, w, g, 0, 2, 1, 0.01, 0);
+        assertEquals(0.01, w[0], 1e-6);
+        assertEquals(-0.01, w[1], 1e-6);
+    }
+
+    public void testSchedules() {
+        Schedule step = new Schedule(Schedule.STEP, 10, 0);
+        assertEquals(1.0, step.rate(1, 9.5, 30), 0);
+        assertEquals(0.25, step.rate(1, 20, 30), 0);
+
+        Schedule cosine = new Schedule(Schedule.COSINE, 0, 0);
+        assertEquals(1.0, cosine.rate(1, 0, 30), 1e-15);
+        assertEquals(0.5, cosine.rate(1, 15, 30), 1e-15);
+        assertEquals(0.0, cosine.rate(1, 30, 30), 1e-15);
+
+        Schedule warmup = new Schedule(Schedule.CONSTANT, 0, 4);
+        assertFalse(warmup.isConstant());
+        assertEquals(0.25, warmup.rate(1, 1, 30), 1e-15);
+        assertEquals(1.0, warmup.rate(1, 5, 30), 0);
+        assertTrue(new Schedule(Schedule.CONSTANT, 10, 0).isConstant());
+    }
+
+    public static Test suite() {
+        return new TestSuite(OptimizerTest.class);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(suite());
+    }
+}
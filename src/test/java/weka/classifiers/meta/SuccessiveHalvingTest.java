@@ -0,0 +1,207 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+/*
+ * Copyright (C) 2015 University of Waikato, Hamilton, New Zealand
+ */
+
+package weka.classifiers.meta;
+
+import weka.classifiers.AbstractClassifierTest;
+import weka.classifiers.Classifier;
+import weka.classifiers.ann.AnnTestData;
+import weka.classifiers.ann.MLP;
+import weka.classifiers.rules.ZeroR;
+import weka.core.Instances;
+import weka.core.Utils;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests SuccessiveHalving. Run from the command line with:<p/>
+ * java weka.classifiers.meta.SuccessiveHalvingTest
+ *
+ * @version $Revision: 1.0 $
+ */
+public class SuccessiveHalvingTest
+  extends AbstractClassifierTest {
+
+  public SuccessiveHalvingTest(String name) {
+    super(name);
+  }
+
+  /**
+   * Creates a SuccessiveHalving that searches the learning rate of MLP.
+   *
+   * @return		the configured classifier
+   */
+  public Classifier getClassifier() {
+    try {
+      return search("-P \"L 0.1 0.5 3\" -W weka.classifiers.ann.MLP -- -M 100");
+    }
+    catch (Exception e) {
+      throw new IllegalStateException(e.toString());
+    }
+  }
+
+  /**
+   * Creates a SuccessiveHalving with the given options.
+   *
+   * @param options	the options
+   * @return		the configured classifier
+   * @throws Exception	if an option is invalid
+   */
+  protected SuccessiveHalving search(String options) throws Exception {
+    SuccessiveHalving	result;
+
+    result = new SuccessiveHalving();
+    result.setOptions(Utils.splitOptions(options));
+
+    return result;
+  }
+
+  /**
+   * Tests that the best third of the candidates continue with three times
+   * as many epochs, and that the best candidate is the final model.
+   *
+   * @throws Exception	if the search fails
+   */
+  public void testHalvesCandidates() throws Exception {
+    Instances		data;
+    SuccessiveHalving	search;
+    String		result;
+    String		best;
+    MLP			expected;
+
+    data = AnnTestData.generate(2, 4, 2, 60);
+    search = search("-P \"L 0.1 0.5 3\" -P \"H 1 3 3 R\" -W weka.classifiers.ann.MLP -- -M 10");
+    search.buildClassifier(data);
+    result = search.toString();
+    assertTrue(result, result.indexOf("Round 1: 9 candidate(s), 1 epoch(s)") >= 0);
+    assertTrue(result, result.indexOf("Round 2: 3 candidate(s), 3 epoch(s)") >= 0);
+    assertTrue(result, result.indexOf("Round 3") < 0);
+    // 6 candidates stop after 1 epoch, 2 after 3 epochs and one converges
+    // after 2 epochs
+    assertTrue(result, result.indexOf("Epochs trained: 14") >= 0);
+    assertTrue(search.getExhaustiveSeconds() > 0);
+
+    best = Utils.joinOptions(search.getBestClassifierOptions());
+    assertTrue(best, best.indexOf("-L ") >= 0 && best.indexOf("-H ") >= 0);
+    assertTrue(best, best.indexOf("-M 10") >= 0);
+    expected = new MLP();
+    expected.setOptions(Utils.splitOptions(best));
+    expected.buildClassifier(data);
+    assertEquals(expected.toString(), search.getClassifier().toString());
+  }
+
+  /**
+   * Tests that candidates which finished training before the end of a
+   * round are not counted for the epochs they did not train.
+   *
+   * @throws Exception	if the search fails
+   */
+  public void testFinishedCandidatesStopCounting() throws Exception {
+    SuccessiveHalving	search;
+    String		result;
+
+    // DR trains 2 epochs: 6 candidates stop after 1 epoch, 3 after 2
+    search = search("-P \"L 0.05 0.5 9\" -W weka.classifiers.ann.DR -- -M 2");
+    search.buildClassifier(AnnTestData.generate(2, 4, 2, 60));
+    result = search.toString();
+    assertTrue(result, result.indexOf("Round 2: 3 candidate(s), 3 epoch(s)") >= 0);
+    assertTrue(result, result.indexOf("Epochs trained: 12") >= 0);
+  }
+
+  /**
+   * Tests that the number of execution slots does not change the result.
+   *
+   * @throws Exception	if the search fails
+   */
+  public void testExecutionSlotsDoNotChangeTheResult() throws Exception {
+    Instances		data;
+    String		options;
+    SuccessiveHalving	one;
+    SuccessiveHalving	three;
+
+    data = AnnTestData.generate(2, 4, 2, 60);
+    options = "-P \"L 0.1 0.9 3\" -P \"m 0 0.6 3\" -E 2 -M 2 -W weka.classifiers.ann.MLP -- -E 1 -H 2 -M 12";
+    one = search(options);
+    three = search("-num-slots 3 " + options);
+    one.buildClassifier(data);
+    three.buildClassifier(data);
+    assertEquals(Utils.joinOptions(one.getBestClassifierOptions()),
+	Utils.joinOptions(three.getBestClassifierOptions()));
+    assertEquals(one.getClassifier().toString(), three.getClassifier().toString());
+  }
+
+  /**
+   * Tests the search over a perceptron.
+   *
+   * @throws Exception	if the search fails
+   */
+  public void testPerceptronBase() throws Exception {
+    SuccessiveHalving	search;
+
+    search = search("-P \"L 0.05 0.5 6\" -W weka.classifiers.ann.DR -- -M 20");
+    search.buildClassifier(AnnTestData.generate(2, 4, 2, 60));
+    assertTrue(search.toString().indexOf("Round 2: 2 candidate(s)") >= 0);
+  }
+
+  /**
+   * Tests that base classifiers which are not iterative are rejected.
+   *
+   * @throws Exception	if the data cannot be generated
+   */
+  public void testRequiresIterativeClassifier() throws Exception {
+    SuccessiveHalving	search;
+
+    search = new SuccessiveHalving();
+    search.setClassifier(new ZeroR());
+    try {
+      search.buildClassifier(AnnTestData.checkDataset(2));
+      fail("ZeroR is not an IterativeClassifier");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  /**
+   * Tests that the options round-trip.
+   *
+   * @throws Exception	if an option is invalid
+   */
+  public void testOptions() throws Exception {
+    SuccessiveHalving	search;
+    SuccessiveHalving	copy;
+
+    search = search("-P \"L 0.1 0.5 3\" -E 4 -M 2 -V 30 -num-slots 2");
+    copy = search(Utils.joinOptions(search.getOptions()));
+    assertEquals(Utils.joinOptions(search.getOptions()), Utils.joinOptions(copy.getOptions()));
+    assertEquals(4, copy.getReductionFactor());
+    assertEquals(2, copy.getNumExecutionSlots());
+    assertTrue(search.getClassifier() instanceof MLP);
+  }
+
+  public static Test suite() {
+    return new TestSuite(SuccessiveHalvingTest.class);
+  }
+
+  public static void main(String[] args){
+    junit.textui.TestRunner.run(suite());
+  }
+}
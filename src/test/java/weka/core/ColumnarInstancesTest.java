@@ -0,0 +1,344 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+/*
+ * Copyright (C) 2015 University of Waikato, Hamilton, NZ
+ */
+
+package weka.core;
+
+import weka.classifiers.Classifier;
+import weka.classifiers.trees.DecisionStump;
+import weka.classifiers.trees.J48;
+import weka.core.converters.ConverterUtils.DataSource;
+
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+
+/**
+ * Tests ColumnarInstances against the row layout of Instances. Run from the
+ * command line with:<p/>
+ * java weka.core.ColumnarInstancesTest
+ *
+ * @version $Revision: 1.0 $
+ */
+public class ColumnarInstancesTest
+  extends TestCase {
+
+  /** the test instances as read, including sparse instances. */
+  protected Instances m_Sparse;
+
+  /** the test instances to work with, all dense. */
+  protected Instances m_Instances;
+
+  /**
+   * Constructs the <code>ColumnarInstancesTest</code>.
+   *
+   * @param name 	the name of the test
+   */
+  public ColumnarInstancesTest(String name) {
+    super(name);
+  }
+
+  /**
+   * Called by JUnit before each test method.
+   *
+   * @throws Exception 	if an error occurs
+   */
+  protected void setUp() throws Exception {
+    super.setUp();
+
+    m_Sparse = DataSource.read(ClassLoader.getSystemResourceAsStream("weka/core/data/InstancesTest.arff"));
+    m_Sparse.instance(3).setWeight(2.5);
+    m_Sparse.instance(7).setWeight(0.5);
+
+    // the columns store sparse instances densely
+    m_Instances = new Instances(m_Sparse, m_Sparse.numInstances());
+    for (int i = 0; i < m_Sparse.numInstances(); i++)
+      m_Instances.add(new Instance(m_Sparse.instance(i).weight(), m_Sparse.instance(i).toDoubleArray()));
+  }
+
+  /**
+   * Called by JUnit after each test method.
+   *
+   * @throws Exception 	if an error occurs
+   */
+  protected void tearDown() throws Exception {
+    m_Sparse    = null;
+    m_Instances = null;
+
+    super.tearDown();
+  }
+
+  /**
+   * Returns the test suite.
+   *
+   * @return		the test suite
+   */
+  public static Test suite() {
+    return new TestSuite(ColumnarInstancesTest.class);
+  }
+
+  /**
+   * Generates a dataset with numeric and nominal attributes and a few
+   * missing values.
+   *
+   * @param classType	the type of the class attribute
+   * @return		the dataset
+   * @throws Exception	if generation fails
+   */
+  protected Instances generate(int classType) throws Exception {
+    TestInstances	gen;
+    Instances		result;
+    int			i;
+
+    gen = new TestInstances();
+    gen.setNumNominal(3);
+    gen.setNumNumeric(4);
+    gen.setClassType(classType);
+    gen.setNumInstances(80);
+    result = gen.generate();
+    for (i = 0; i < result.numInstances(); i += 7) {
+      if (i % result.numAttributes() != result.classIndex())
+	result.instance(i).setMissing(i % result.numAttributes());
+    }
+    return result;
+  }
+
+  /**
+   * Tests that copying keeps values, weights, sparse instances and the
+   * header.
+   */
+  public void testCopy() {
+    Instances	data;
+
+    data = new ColumnarInstances(m_Sparse);
+    assertEquals("# of instances differ", m_Instances.numInstances(), data.numInstances());
+    assertEquals("content differs", m_Instances.toString(), data.toString());
+    assertTrue("not a view", data.instance(0) instanceof ColumnarInstance);
+    assertEquals("weight differs", 2.5, data.instance(3).weight(), 0);
+
+    data = new ColumnarInstances(new ColumnarInstances(m_Instances, 5, 10));
+    assertEquals("# of instances differ", 10, data.numInstances());
+    assertEquals("content differs", new Instances(m_Instances, 5, 10).toString(), data.toString());
+
+    data = new Instances(new ColumnarInstances(m_Instances));
+    assertFalse("row copy expected", data.instance(0) instanceof ColumnarInstance);
+    assertEquals("content differs", m_Instances.toString(), data.toString());
+  }
+
+  /**
+   * Tests that the column scans give the same results as the row layout.
+   */
+  public void testColumnScans() {
+    Instances	data;
+    int		i;
+
+    data = new ColumnarInstances(m_Instances);
+    for (i = 0; i < data.numAttributes(); i++) {
+      assertEquals("stats of " + i, m_Instances.attributeStats(i).toString(), data.attributeStats(i).toString());
+      assertEquals("mean or mode of " + i, m_Instances.meanOrMode(i), data.meanOrMode(i), 0);
+      assertEquals("distinct values of " + i, m_Instances.numDistinctValues(i), data.numDistinctValues(i));
+      assertEquals("values of " + i, Utils.arrayToString(m_Instances.attributeToDoubleArray(i)),
+	Utils.arrayToString(data.attributeToDoubleArray(i)));
+      if (data.attribute(i).isNumeric()) {
+	assertEquals("variance of " + i, m_Instances.variance(i), data.variance(i), 0);
+	assertEquals("median of " + i, m_Instances.kthSmallestValue(i, 10), data.kthSmallestValue(i, 10), 0);
+      }
+    }
+    assertEquals("sum of weights", m_Instances.sumOfWeights(), data.sumOfWeights(), 0);
+    assertEquals("weights", Utils.arrayToString(m_Instances.weightsToDoubleArray()),
+      Utils.arrayToString(data.weightsToDoubleArray()));
+  }
+
+  /**
+   * Tests that views write through to the columns, and that copies don't.
+   */
+  public void testViews() {
+    Instances	data;
+    Instance	view;
+    Instance	copy;
+
+    data = new ColumnarInstances(m_Instances);
+    view = data.instance(2);
+    copy = (Instance) view.copy();
+    view.setValue(2, 42);
+    view.setWeight(3);
+    view.setValue(1, "g");
+    assertEquals("value not written", 42, data.instance(2).value(2), 0);
+    assertEquals("weight not written", 3, data.instance(2).weight(), 0);
+    assertEquals("nominal not written", "g", data.instance(2).stringValue(1));
+    assertEquals("copy changed", 3.0, copy.value(2), 0);
+    assertEquals("copy changed", 1.0, copy.weight(), 0);
+
+    copy = new Instance(view);
+    view.setMissing(2);
+    assertEquals("copy changed", 42, copy.value(2), 0);
+    assertTrue("missing not written", data.instance(2).isMissing(2));
+  }
+
+  /**
+   * Tests that sorting, shuffling and stratifying reorder the instances like
+   * the row layout does, and that views stay attached to their rows.
+   */
+  public void testReordering() {
+    Instances	rows;
+    Instances	data;
+    Instance	view;
+    String	before;
+
+    rows = new Instances(m_Instances);
+    data = new ColumnarInstances(m_Instances);
+    view = data.instance(4);
+    before = view.toString();
+
+    rows.sort(5);
+    data.sort(5);
+    assertEquals("sort differs", rows.toString(), data.toString());
+    rows.randomize(new Random(1));
+    data.randomize(new Random(1));
+    assertEquals("randomize differs", rows.toString(), data.toString());
+    rows.setClassIndex(4);
+    data.setClassIndex(4);
+    rows.stratify(3);
+    data.stratify(3);
+    assertEquals("stratify differs", rows.toString(), data.toString());
+    assertEquals("view moved", before, view.toString());
+    assertEquals("cv fold differs", rows.trainCV(3, 1).toString(), data.trainCV(3, 1).toString());
+  }
+
+  /**
+   * Tests deleting instances and compactifying.
+   */
+  public void testDelete() {
+    Instances	rows;
+    Instances	data;
+    Instance	view;
+    String	before;
+
+    rows = new Instances(m_Instances);
+    data = new ColumnarInstances(m_Instances);
+    view = data.instance(6);
+    before = view.toString();
+
+    rows.delete(6);
+    data.delete(6);
+    rows.deleteWithMissing(4);
+    data.deleteWithMissing(4);
+    assertEquals("delete differs", rows.toString(), data.toString());
+    data.compactify();
+    assertEquals("compactify changed content", rows.toString(), data.toString());
+    assertEquals("deleted view changed", before, view.toString());
+
+    view = data.firstInstance();
+    before = view.toString();
+    data.delete();
+    assertEquals("not empty", 0, data.numInstances());
+    assertEquals("deleted view changed", before, view.toString());
+    data.add(view);
+    assertEquals("content differs", before, data.lastInstance().toString());
+  }
+
+  /**
+   * Tests inserting and deleting attributes.
+   */
+  public void testAttributes() {
+    Instances	rows;
+    Instances	data;
+    Instance	view;
+    Instance	expected;
+    String	before;
+
+    rows = new Instances(m_Instances);
+    data = new ColumnarInstances(m_Instances);
+    rows.setClassIndex(4);
+    data.setClassIndex(4);
+
+    rows.deleteAttributeAt(2);
+    data.deleteAttributeAt(2);
+    rows.insertAttributeAt(new Attribute("new"), 1);
+    data.insertAttributeAt(new Attribute("new"), 1);
+    assertEquals("class index differs", rows.classIndex(), data.classIndex());
+    assertEquals("content differs", rows.toString(), data.toString());
+
+    rows.add(m_Instances.instance(0));
+    data.add(m_Instances.instance(0));
+    rows.lastInstance().setValue(1, 7);
+    data.lastInstance().setValue(1, 7);
+    assertEquals("content differs", rows.toString(), data.toString());
+
+    // a view without dataset gets values of its own
+    before = data.toString();
+    view = data.instance(0);
+    expected = new Instance(view);
+    view.setDataset(null);
+    view.deleteAttributeAt(0);
+    expected.deleteAttributeAt(0);
+    view.insertAttributeAt(2);
+    expected.insertAttributeAt(2);
+    assertEquals("content of view differs", expected.toString(), view.toString());
+    view.setValue(0, 42);
+    assertEquals("dataset changed", before, data.toString());
+  }
+
+  /**
+   * Tests that classifiers build the same models on both layouts.
+   *
+   * @throws Exception	if building fails
+   */
+  public void testClassifiers() throws Exception {
+    Classifier[]	classifiers;
+    Instances		data;
+    int			i;
+
+    classifiers = new Classifier[]{new DecisionStump(), new J48()};
+    for (i = 0; i < classifiers.length; i++) {
+      data = generate(Attribute.NOMINAL);
+      assertEquals(classifiers[i].getClass().getName(), build(classifiers[i], data), build(classifiers[i], new ColumnarInstances(data)));
+    }
+    data = generate(Attribute.NUMERIC);
+    assertEquals("numeric class", build(new DecisionStump(), data), build(new DecisionStump(), new ColumnarInstances(data)));
+  }
+
+  /**
+   * Builds a copy of the classifier and returns its model.
+   *
+   * @param classifier	the classifier to copy
+   * @param data	the training data
+   * @return		the model as string
+   * @throws Exception	if building fails
+   */
+  protected String build(Classifier classifier, Instances data) throws Exception {
+    Classifier	copy;
+
+    copy = Classifier.makeCopy(classifier);
+    copy.buildClassifier(data);
+    return copy.toString();
+  }
+
+  /**
+   * Executes the test from command-line.
+   *
+   * @param args	ignored
+   */
+  public static void main(String[] args){
+    TestRunner.run(suite());
+  }
+}
@@ -23,6 +23,7 @@ package weka.core;
 import weka.core.converters.ConverterUtils.DataSource;
 
 import java.util.ArrayList;
+import java.util.Random;
 
 import junit.framework.Test;
 import junit.framework.TestCase;
@@ -201,6 +202,148 @@ public class InstancesTest
     assertEquals("# of instances differ", 10, data.numInstances());
   }
 
+  /**
+   * Asserts that an instance of a view has the values and the weight of an
+   * instance of this dataset and has access to the view.
+   *
+   * @param msg		the message
+   * @param expected	the instance of this dataset
+   * @param view	the view
+   * @param index	the index of the instance in the view
+   */
+  protected void assertViewOf(String msg, Instance expected, Instances view, int index) {
+    Instance	actual;
+
+    actual = view.instance(index);
+    assertTrue(msg + " is shared", expected != actual);
+    assertSame(msg + " has no access to the view", view, actual.dataset());
+    assertEquals(msg + " differs", expected.toString(), actual.toString());
+    assertEquals(msg + " weight differs", expected.weight(), actual.weight(), 0);
+  }
+
+  /**
+   * Tests that view(int[]) holds copies of the instances that have access to
+   * the new dataset, and that neither a change to the new dataset nor to this
+   * dataset affects the other.
+   *
+   * @throws Exception	if serialization fails
+   * @see Instances#view(int[])
+   */
+  public void testView() throws Exception {
+    Instances	data;
+    String	before;
+
+    data = m_Instances.view(new int[]{3, 1, 3});
+    assertEquals("# of instances differ", 3, data.numInstances());
+    assertViewOf("instance 0", m_Instances.instance(3), data, 0);
+    assertViewOf("instance 1", m_Instances.instance(1), data, 1);
+    assertViewOf("instance 2", m_Instances.instance(3), data, 2);
+
+    before = m_Instances.toString();
+    data.swap(0, 1);
+    data.delete(2);
+    data.instance(0).setValue(2, 42);
+    data.instance(1).setWeight(3);
+    data.setClassIndex(1);
+    assertEquals("class index differs", 1, data.instance(1).classIndex());
+    data.deleteAttributeAt(2);
+    assertEquals("dataset changed", before, m_Instances.toString());
+    assertEquals("weight changed", 1.0, m_Instances.instance(3).weight(), 0);
+
+    data = m_Instances.view(new int[]{4, 5});
+    data = (Instances) new SerializedObject(data).getObject();
+    assertSame("serialized with dataset", data, data.instance(0).dataset());
+    assertEquals("content differs", m_Instances.instance(4).toString(), data.instance(0).toString());
+  }
+
+  /**
+   * Tests that a fold keeps its header information, class index and values
+   * when the class index and the attributes of this dataset change after it
+   * was created.
+   *
+   * @see Instances#trainCV(int, int)
+   */
+  public void testViewAfterParentChanges() {
+    Instances	train;
+    String	before;
+    int		i;
+
+    m_Instances.setClassIndex(m_Instances.numAttributes() - 1);
+    train  = m_Instances.trainCV(3, 1);
+    before = train.toString();
+
+    m_Instances.setClassIndex(0);
+    for (i = 0; i < train.numInstances(); i++)
+      assertEquals("class value " + i, train.instance(i).value(train.numAttributes() - 1), train.instance(i).classValue(), 0);
+
+    m_Instances.deleteAttributeAt(2);
+    m_Instances.insertAttributeAt(new Attribute("new"), 1);
+    m_Instances.instance(0).setValue(5, 42);
+    assertEquals("# of attributes differ", 6, train.numAttributes());
+    assertEquals("# of attributes differ", 6, train.instance(0).numAttributes());
+    assertEquals("class index changed", 5, train.classIndex());
+    assertEquals("content differs", before, train.toString());
+  }
+
+  /**
+   * Tests that the cross-validation folds are views that together hold each
+   * instance exactly once.
+   *
+   * @see Instances#trainCV(int, int)
+   * @see Instances#testCV(int, int)
+   */
+  public void testCrossValidation() {
+    Instances	train;
+    Instances	test;
+    int		numFold;
+    int		first;
+    int		i;
+
+    for (numFold = 0; numFold < 3; numFold++) {
+      train = m_Instances.trainCV(3, numFold);
+      test  = m_Instances.testCV(3, numFold);
+      assertEquals("# of instances differ", m_Instances.numInstances(), train.numInstances() + test.numInstances());
+      first = numFold * (m_Instances.numInstances() / 3) + Math.min(numFold, m_Instances.numInstances() % 3);
+      for (i = 0; i < m_Instances.numInstances(); i++) {
+	if (i < first)
+	  assertViewOf("train instance " + i, m_Instances.instance(i), train, i);
+	else if (i < first + test.numInstances())
+	  assertViewOf("test instance " + i, m_Instances.instance(i), test, i - first);
+	else
+	  assertViewOf("train instance " + i, m_Instances.instance(i), train, i - test.numInstances());
+      }
+    }
+  }
+
+  /**
+   * Tests that resampling returns views unless weights have to be reset.
+   *
+   * @see Instances#resample(Random)
+   * @see Instances#resampleWithWeights(Random)
+   */
+  public void testResample() {
+    Instances	data;
+    Random	random;
+    int		i;
+
+    data   = m_Instances.resample(new Random(1));
+    random = new Random(1);
+    for (i = 0; i < data.numInstances(); i++)
+      assertViewOf("instance " + i, m_Instances.instance(random.nextInt(m_Instances.numInstances())), data, i);
+
+    data = m_Instances.resampleWithWeights(new Random(1));
+    assertEquals("# of instances differ", m_Instances.numInstances(), data.numInstances());
+    assertSame("no access to the sample", data, data.instance(0).dataset());
+
+    for (i = 0; i < m_Instances.numInstances(); i++)
+      m_Instances.instance(i).setWeight(i + 1);
+    data = m_Instances.resampleWithWeights(new Random(1));
+    for (i = 0; i < data.numInstances(); i++)
+      assertEquals("weight not reset", 1.0, data.instance(i).weight(), 0);
+    assertEquals("weight changed", 1.0, m_Instances.instance(0).weight(), 0);
+    assertEquals("weight changed", 2.0, m_Instances.instance(1).weight(), 0);
+  }
+
   /**
    * Executes the test from command-line.
    *
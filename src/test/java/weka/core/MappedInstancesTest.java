@@ -0,0 +1,296 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+/*
+ * Copyright (C) 2015 University of Waikato, Hamilton, NZ
+ */
+
+package weka.core;
+
+import weka.classifiers.trees.J48;
+import weka.core.converters.ConverterUtils.DataSource;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+
+/**
+ * Tests MappedInstances and its conversion tool. Run from the command line
+ * with:<p/>
+ * java weka.core.MappedInstancesTest
+ *
+ * @version $Revision: 1.0 $
+ */
+public class MappedInstancesTest
+  extends TestCase {
+
+  /** the dataset that gets converted. */
+  protected Instances m_Instances;
+
+  /** the ARFF file with the dataset. */
+  protected File m_Arff;
+
+  /** the converted file. */
+  protected File m_Mapped;
+
+  /**
+   * Constructs the <code>MappedInstancesTest</code>.
+   *
+   * @param name 	the name of the test
+   */
+  public MappedInstancesTest(String name) {
+    super(name);
+  }
+
+  /**
+   * Called by JUnit before each test method. Generates a dataset with
+   * missing values and weights and converts it.
+   *
+   * @throws Exception 	if an error occurs
+   */
+  protected void setUp() throws Exception {
+    TestInstances	gen;
+    int			i;
+
+    super.setUp();
+
+    gen = new TestInstances();
+    gen.setNumNominal(3);
+    gen.setNumNumeric(4);
+    gen.setNumDate(1);
+    gen.setNumInstances(100);
+    m_Instances = gen.generate();
+    for (i = 0; i < m_Instances.numInstances(); i += 7) {
+      if (i % m_Instances.numAttributes() != m_Instances.classIndex())
+	m_Instances.instance(i).setMissing(i % m_Instances.numAttributes());
+      m_Instances.instance(i).setWeight(0.5 + i);
+    }
+
+    // the ARFF file rounds the values, compare against what was read
+    m_Arff      = write(m_Instances.toString(), ".arff");
+    m_Instances = DataSource.read(m_Arff.getPath());
+    m_Instances.setClassIndex(m_Instances.numAttributes() - 1);
+    m_Mapped    = File.createTempFile("weka", ".col");
+    MappedInstances.convert(new DataSource(m_Arff.getPath()), m_Mapped, m_Instances.classIndex());
+  }
+
+  /**
+   * Called by JUnit after each test method.
+   *
+   * @throws Exception 	if an error occurs
+   */
+  protected void tearDown() throws Exception {
+    m_Arff.delete();
+    m_Mapped.delete();
+    m_Instances = null;
+
+    super.tearDown();
+  }
+
+  /**
+   * Returns the test suite.
+   *
+   * @return		the test suite
+   */
+  public static Test suite() {
+    return new TestSuite(MappedInstancesTest.class);
+  }
+
+  /**
+   * Writes the content to a temporary file.
+   *
+   * @param content	the content to write
+   * @param suffix	the suffix of the file
+   * @return		the file
+   * @throws Exception	if writing fails
+   */
+  protected File write(String content, String suffix) throws Exception {
+    File	result;
+    FileWriter	writer;
+
+    result = File.createTempFile("weka", suffix);
+    writer = new FileWriter(result);
+    writer.write(content);
+    writer.close();
+    return result;
+  }
+
+  /**
+   * Tests that the mapped dataset has the same header, values and weights as
+   * the converted one, also when the columns are mapped in many chunks.
+   *
+   * @throws Exception	if opening fails
+   */
+  public void testOpen() throws Exception {
+    Instances	data;
+    int		i;
+
+    data = new MappedInstances(m_Mapped);
+    assertEquals("class index differs", m_Instances.classIndex(), data.classIndex());
+    assertEquals("content differs", m_Instances.toString(), data.toString());
+    assertTrue("not a view", data.instance(0) instanceof ColumnarInstance);
+
+    data = new MappedInstances(m_Mapped, 3);
+    assertEquals("content differs", m_Instances.toString(), data.toString());
+    for (i = 0; i < data.numAttributes(); i++) {
+      assertEquals("stats of " + i, m_Instances.attributeStats(i).toString(), data.attributeStats(i).toString());
+      assertEquals("mean or mode of " + i, m_Instances.meanOrMode(i), data.meanOrMode(i), 0);
+    }
+    assertEquals("sum of weights", m_Instances.sumOfWeights(), data.sumOfWeights(), 0);
+  }
+
+  /**
+   * Tests that shuffling and cross-validation folds give the same instances
+   * as the row layout, and that the folds share the mapped columns.
+   *
+   * @throws Exception	if opening fails
+   */
+  public void testFolds() throws Exception {
+    Instances	rows;
+    Instances	data;
+    Instances	fold;
+
+    rows = new Instances(m_Instances);
+    data = new MappedInstances(m_Mapped, 4);
+    rows.randomize(new Random(1));
+    data.randomize(new Random(1));
+    assertEquals("randomize differs", rows.toString(), data.toString());
+    rows.stratify(4);
+    data.stratify(4);
+    assertEquals("stratify differs", rows.toString(), data.toString());
+
+    fold = data.testCV(4, 1);
+    assertEquals("test fold differs", rows.testCV(4, 1).toString(), fold.toString());
+    assertEquals("train fold differs", rows.trainCV(4, 1).toString(), data.trainCV(4, 1).toString());
+    assertEquals("train fold differs", rows.trainCV(4, 3).toString(), data.trainCV(4, 3).toString());
+
+    fold.instance(0).setValue(3, 42);
+    assertEquals("fold doesn't share the columns", 42, data.instance(data.numInstances() / 4).value(3), 0);
+  }
+
+  /**
+   * Tests that changes are not written back to the file and that the number
+   * of instances is fixed.
+   *
+   * @throws Exception	if opening fails
+   */
+  public void testReadOnly() throws Exception {
+    Instances	data;
+
+    data = new MappedInstances(m_Mapped);
+    data.instance(0).setValue(3, 42);
+    data.instance(0).setWeight(3);
+    assertEquals("value not changed", 42, data.instance(0).value(3), 0);
+    assertEquals("file changed", m_Instances.toString(), new MappedInstances(m_Mapped).toString());
+
+    try {
+      data.add(m_Instances.instance(0));
+      fail("instance added");
+    }
+    catch (UnsupportedOperationException e) {
+      // expected
+    }
+
+    data = new ColumnarInstances(new MappedInstances(m_Mapped));
+    data.add(m_Instances.instance(0));
+    assertEquals("# of instances differ", m_Instances.numInstances() + 1, data.numInstances());
+
+    data = new MappedInstances(m_Mapped);
+    data.deleteAttributeAt(1);
+    m_Instances.deleteAttributeAt(1);
+    assertEquals("content differs", m_Instances.toString(), data.toString());
+  }
+
+  /**
+   * Tests that a serialized dataset maps the file again.
+   *
+   * @throws Exception	if serialization fails
+   */
+  public void testSerialization() throws Exception {
+    Instances	data;
+
+    data = new MappedInstances(m_Mapped, 5);
+    data.delete(3);
+    m_Instances.delete(3);
+    data = (Instances) new SerializedObject(data).getObject();
+    assertEquals("content differs", m_Instances.toString(), data.toString());
+  }
+
+  /**
+   * Tests that J48 builds the same model on the mapped dataset.
+   *
+   * @throws Exception	if building fails
+   */
+  public void testClassifier() throws Exception {
+    J48		rows;
+    J48		mapped;
+
+    rows = new J48();
+    rows.buildClassifier(m_Instances);
+    mapped = new J48();
+    mapped.buildClassifier(new MappedInstances(m_Mapped));
+    assertEquals("model differs", rows.toString(), mapped.toString());
+  }
+
+  /**
+   * Tests converting a CSV file and rejecting string attributes.
+   *
+   * @throws Exception	if converting fails unexpectedly
+   */
+  public void testConvert() throws Exception {
+    File	csv;
+    File	arff;
+    File	mapped;
+    Instances	data;
+
+    csv    = write("a,b,c\n1.5,x,3\n?,y,4\n2,x,?\n", ".csv");
+    mapped = File.createTempFile("weka", ".col");
+    arff   = write("@relation strings\n@attribute a string\n@attribute b numeric\n@data\nhello,1\n", ".arff");
+    try {
+      MappedInstances.convert(new DataSource(csv.getPath()), mapped, -1);
+      data = new MappedInstances(mapped);
+      assertEquals("class index set", -1, data.classIndex());
+      assertEquals("content differs", DataSource.read(csv.getPath()).toString(), data.toString());
+
+      try {
+	MappedInstances.convert(new DataSource(arff.getPath()), mapped, -1);
+	fail("string attribute converted");
+      }
+      catch (IllegalArgumentException e) {
+	// expected
+      }
+    }
+    finally {
+      csv.delete();
+      arff.delete();
+      mapped.delete();
+    }
+  }
+
+  /**
+   * Executes the test from command-line.
+   *
+   * @param args	ignored
+   */
+  public static void main(String[] args){
+    TestRunner.run(suite());
+  }
+}
@@ -23,6 +23,9 @@ package weka.core.converters;
 import weka.core.Instance;
 import weka.core.Instances;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
 import junit.framework.Test;
 import junit.framework.TestSuite;
 
@@ -99,6 +102,75 @@ public class CSVTest
     }
   }
 
+  /**
+   * Loads the CSV content with the given number of threads and chunk size.
+   *
+   * @param content the CSV content
+   * @param slots the number of threads
+   * @param chunkSize the number of characters in a chunk
+   * @return the loaded data
+   * @throws Exception if loading fails
+   */
+  protected Instances load(String content, int slots, int chunkSize)
+    throws Exception {
+    CSVLoader loader = new CSVLoader();
+    loader.setNumExecutionSlots(slots);
+    loader.m_ChunkSize = chunkSize;
+    loader.setSource(new ByteArrayInputStream(content.getBytes()));
+    return loader.getDataSet();
+  }
+
+  /**
+   * Tests that loading in chunks on several threads gives the same data and
+   * the same order of nominal values as loading on one thread, also when a
+   * numeric looking attribute turns out to be nominal in a later chunk.
+   *
+   * @throws Exception if loading fails
+   */
+  public void testParallel() throws Exception {
+    StringBuffer content = new StringBuffer("num,nom,mixed,late,str\n");
+    for (int i = 0; i < 300; i++) {
+      content.append(i * 0.5 + ",");
+      content.append((i % 3 == 0 ? "a" : (i % 3 == 1 ? "'b c'" : "?")) + ",");
+      content.append((i % 7 == 0 ? "x" + (i % 4) : "" + (i % 5)) + ",");
+      content.append((i < 250 ? "" + (i % 6) : "z") + ",");
+      content.append("\"text " + i + "\"\n");
+    }
+
+    String expected = load(content.toString(), 1, 1 << 20).toString();
+    assertEquals("data differs", expected, load(content.toString(), 4, 64).toString());
+    assertEquals("data differs", expected, load(content.toString(), 3, 4096).toString());
+    assertEquals("data differs with CRLF", expected,
+      load(content.toString().replace("\n", "\r\n"), 4, 64).toString());
+  }
+
+  /**
+   * Tests that errors are reported with the same line number when loading
+   * on several threads.
+   *
+   * @throws Exception if loading fails unexpectedly
+   */
+  public void testParallelError() throws Exception {
+    StringBuffer content = new StringBuffer("a,b\n");
+    for (int i = 0; i < 100; i++) {
+      content.append(i + "," + (i == 77 ? "1,2" : "" + i) + "\n");
+    }
+
+    String expected = null;
+    try {
+      load(content.toString(), 1, 1 << 20);
+      fail("wrong number of values not detected");
+    } catch (IOException e) {
+      expected = e.getMessage();
+    }
+    try {
+      load(content.toString(), 4, 32);
+      fail("wrong number of values not detected");
+    } catch (IOException e) {
+      assertEquals("message differs", expected, e.getMessage());
+    }
+  }
+
   /**
    * returns a test suite
    * 
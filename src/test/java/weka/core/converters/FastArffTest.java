@@ -0,0 +1,365 @@
+/*
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 2 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program; if not, write to the Free Software
+ *    Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+/*
+ * Copyright (C) 2015 University of Waikato, Hamilton, NZ
+ */
+
+package weka.core.converters;
+
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.converters.ArffLoader.ArffReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests ArffLoader with FastArffReader, and that FastArffReader reads the
+ * same data and reports the same errors as ArffReader. Run from the command
+ * line with:<p/>
+ * java weka.core.converters.FastArffTest
+ *
+ * @version $Revision: 1.0 $
+ */
+public class FastArffTest
+  extends ArffTest {
+
+  /** a header with all attribute types the fast tokenizer handles. */
+  public final static String HEADER =
+      "% a comment\n"
+    + "@relation test\n"
+    + "\n"
+    + "@attribute num numeric\n"
+    + "@attribute nom {a, 'b c', \"d\", '?'}\n"
+    + "@attribute str string\n"
+    + "@attribute dat date \"yyyy-MM-dd\"\n"
+    + "@attribute int integer\n"
+    + "\n"
+    + "@data\n";
+
+  /** data lines for the header. */
+  public final static String DATA =
+      "1.5,a,hello,2015-01-02,3\n"
+    + "% another comment\n"
+    + "\n"
+    + "-2e-3, 'b c', 'hello world', ?, -0\n"
+    + "?,d,x,2015-12-31,7 % trailing comment\n"
+    + "1e400\t'?'\t\"quoted\"\t2000-02-29\t12345678901234567890123\n"
+    + ".5,?,?,?,?,{2.5}\n"
+    + "{0 4, 1 'b c', 4 -1}\n"
+    + "{1 d, 2 sparse} {0.5}\n"
+    + "{}\n"
+    + "0.1,a,last,2015-01-02,1";
+
+  /**
+   * Constructs the <code>FastArffTest</code>.
+   *
+   * @param name 	the name of the test class
+   */
+  public FastArffTest(String name) {
+    super(name);
+  }
+
+  /**
+   * returns the loader used in the tests
+   *
+   * @return 		the configured loader
+   */
+  public AbstractLoader getLoader() {
+    ArffLoader	result;
+
+    result = new ArffLoader();
+    result.setUseFastReader(true);
+
+    return result;
+  }
+
+  /**
+   * Reads the data with ArffReader.
+   *
+   * @param arff	the content of the ARFF file
+   * @return		the data
+   * @throws IOException	if reading fails
+   */
+  protected Instances readOld(String arff) throws IOException {
+    return new ArffReader(new StringReader(arff)).getData();
+  }
+
+  /**
+   * Reads the data with FastArffReader.
+   *
+   * @param arff	the content of the ARFF file
+   * @param bufferSize	the initial size of the buffer
+   * @return		the reader, with the data read
+   * @throws IOException	if reading fails
+   */
+  protected FastArffReader readFast(String arff, int bufferSize) throws IOException {
+    FastArffReader	result;
+    Instances		data;
+    Instance		inst;
+
+    result = new FastArffReader(
+	new ByteArrayInputStream(arff.getBytes("UTF-8")), 10, Charset.forName("UTF-8"), bufferSize);
+    data = result.getData();
+    while ((inst = result.readInstance(data)) != null)
+      data.add(inst);
+
+    return result;
+  }
+
+  /**
+   * Reads the data with FastArffReader on several threads.
+   *
+   * @param arff	the content of the ARFF file
+   * @param bufferSize	the initial size of the buffer, the size of the chunks
+   * @param threads	the number of threads
+   * @return		the data
+   * @throws IOException	if reading fails
+   */
+  protected Instances readParallel(String arff, int bufferSize, int threads) throws IOException {
+    FastArffReader	reader;
+    Instances		result;
+
+    reader = new FastArffReader(
+	new ByteArrayInputStream(arff.getBytes("UTF-8")), 10, Charset.forName("UTF-8"), bufferSize);
+    result = reader.getData();
+    reader.readInstances(result, threads);
+
+    return result;
+  }
+
+  /**
+   * Checks that both readers read the same data.
+   *
+   * @param arff	the content of the ARFF file
+   * @param fallbacks	the expected number of lines parsed by ArffReader
+   * @throws IOException	if reading fails
+   */
+  protected void checkSame(String arff, int fallbacks) throws IOException {
+    Instances		expected;
+    FastArffReader	fast;
+    int			i;
+
+    expected = readOld(arff);
+    for (int size: new int[]{16, 64, FastArffReader.BUFFER_SIZE}) {
+      fast = readFast(arff, size);
+      assertEquals("number of instances differs", expected.numInstances(), fast.getData().numInstances());
+      assertEquals("data differs", expected.toString(), fast.getData().toString());
+      for (i = 0; i < expected.numInstances(); i++) {
+	assertEquals("weight " + i + " differs", expected.instance(i).weight(), fast.getData().instance(i).weight(), 0);
+	assertEquals("sparse " + i + " differs",
+	    expected.instance(i).getClass(), fast.getData().instance(i).getClass());
+      }
+      assertEquals("fallbacks", fallbacks, fast.getNumFallbacks());
+    }
+  }
+
+  /**
+   * Checks that both readers fail with the same message.
+   *
+   * @param arff	the content of the ARFF file
+   */
+  protected void checkError(String arff) {
+    String	expected;
+
+    expected = null;
+    try {
+      readOld(arff);
+      fail("ArffReader read " + arff);
+    }
+    catch (IOException e) {
+      expected = e.getMessage();
+    }
+    try {
+      readFast(arff, 16);
+      fail("FastArffReader read " + arff);
+    }
+    catch (IOException e) {
+      assertEquals("message differs", expected, e.getMessage());
+    }
+  }
+
+  /**
+   * Tests that all values, weights, sparse lines, comments and blank lines
+   * are read without falling back to ArffReader, with any buffer size and
+   * line terminator.
+   *
+   * @throws Exception	if reading fails
+   */
+  public void testSameData() throws Exception {
+    checkSame(HEADER + DATA, 0);
+    checkSame(HEADER + DATA + "\n", 0);
+    checkSame((HEADER + DATA).replace("\n", "\r\n"), 0);
+    checkSame((HEADER + DATA).replace("\n", "\r"), 0);
+    checkSame(HEADER.replace("'b c'", "'b \u00e7'") + "1,'b \u00e7','\u00fcml\u00e4ut \u4e2d',?,1\n", 0);
+    checkSame(HEADER.replace("@data\n", "@DATA 1,a,b,?,2\n") + DATA, 0);
+  }
+
+  /**
+   * Tests that lines the fast tokenizer doesn't handle are parsed by
+   * ArffReader.
+   *
+   * @throws Exception	if reading fails
+   */
+  public void testFallback() throws Exception {
+    checkSame(HEADER + "1,a,'it\\'s',?,1\n2,a,b,?,2\n", 1);
+    checkSame(
+	"@relation rel\n"
+      + "@attribute id numeric\n"
+      + "@attribute bag relational\n"
+      + "  @attribute x numeric\n"
+      + "@end bag\n"
+      + "@data\n"
+      + "1,\"1\\n2\"\n"
+      + "2,'3'\n", 2);
+  }
+
+  /**
+   * Tests that errors are reported with the same message and line.
+   */
+  public void testSameErrors() {
+    checkError(HEADER + "1,a,b,?,1\n1,e,b,?,1\n");
+    checkError(HEADER + "1,a,b,?,1\n\n1,a,b\n");
+    checkError(HEADER + "1,a,b,?,1\r\n1,a,b,?,x\r\n");
+    checkError(HEADER + "1,a,b,2015,1\n");
+    checkError(HEADER + "{1 a, 0 1}\n");
+    checkError(HEADER + "{0 1, 7 1}\n");
+    checkError(HEADER + "1,a,b,?,1,{2\n");
+    checkError(HEADER + "1,a,b,?,2,3,a,b,?,4\n");
+    checkError(HEADER.replace("@data\n", ""));
+  }
+
+  /**
+   * Tests that reading chunks on several threads gives the same data, in
+   * the same order and with the same string values, as ArffReader.
+   *
+   * @throws Exception	if reading fails
+   */
+  public void testParallel() throws Exception {
+    StringBuffer	arff;
+    String		expected;
+    int			i;
+
+    arff = new StringBuffer(HEADER.replace("@data\n", "@data 0,a,first,?,0\n"));
+    for (i = 0; i < 200; i++) {
+      arff.append(DATA.replace("hello", "hello" + (i % 13)) + "\n");
+      if (i % 50 == 0)
+	arff.append("1,a,'it\\'s',?,1\n");
+    }
+
+    expected = readOld(arff.toString()).toString();
+    assertEquals("data differs", expected, readParallel(arff.toString(), 64, 4).toString());
+    assertEquals("data differs", expected, readParallel(arff.toString(), 1024, 3).toString());
+    expected = readOld(arff.toString().replace("\n", "\r\n")).toString();
+    assertEquals("data differs with CRLF", expected,
+	readParallel(arff.toString().replace("\n", "\r\n"), 64, 4).toString());
+    expected = readOld(arff.toString().replace("\n", "\r")).toString();
+    assertEquals("data differs with CR", expected,
+	readParallel(arff.toString().replace("\n", "\r"), 64, 4).toString());
+  }
+
+  /**
+   * Tests that reading on several threads reports errors with the same
+   * message and line as ArffReader.
+   *
+   * @throws Exception	if reading fails unexpectedly
+   */
+  public void testParallelError() throws Exception {
+    StringBuffer	arff;
+    String		expected;
+    int			i;
+
+    arff = new StringBuffer(HEADER);
+    for (i = 0; i < 100; i++)
+      arff.append(i + "," + (i == 77 ? "e" : "a") + ",b,?,1\n");
+
+    expected = null;
+    try {
+      readOld(arff.toString());
+      fail("ArffReader read undeclared value");
+    }
+    catch (IOException e) {
+      expected = e.getMessage();
+    }
+    try {
+      readParallel(arff.toString(), 64, 4);
+      fail("FastArffReader read undeclared value");
+    }
+    catch (IOException e) {
+      assertEquals("message differs", expected, e.getMessage());
+    }
+  }
+
+  /**
+   * Tests that numbers are parsed exactly like Double.parseDouble does.
+   *
+   * @throws Exception	if reading fails
+   */
+  public void testNumbers() throws Exception {
+    String[]		numbers;
+    StringBuffer	arff;
+    Instances		data;
+    int			i;
+
+    numbers = new String[]{
+	"0", "-0", "+1", "1.", ".25", "007", "0.1", "0.3", "123456789012345678",
+	"9007199254740993", "1234567890123456789", "1e22", "1e23", "1.7976931348623157e308",
+	"4.9e-324", "2.2250738585072014E-308", "1e-400", "-1.5E+3", "3.14159265358979323846",
+	"0.000000000000000000000000001", "1d", "NaN", "-Infinity", "0x1p3"};
+    arff = new StringBuffer("@relation numbers\n@attribute x numeric\n@data\n");
+    for (i = 0; i < numbers.length; i++)
+      arff.append(numbers[i] + "\n");
+
+    data = readFast(arff.toString(), 16).getData();
+    for (i = 0; i < numbers.length; i++)
+      assertEquals(numbers[i],
+	  Double.doubleToRawLongBits(Double.parseDouble(numbers[i])),
+	  Double.doubleToRawLongBits(data.instance(i).value(0)));
+  }
+
+  /**
+   * Tests that unsupported charsets are rejected.
+   */
+  public void testCharsets() {
+    assertTrue("UTF-8", FastArffReader.supports(Charset.forName("UTF-8")));
+    assertTrue("ISO-8859-1", FastArffReader.supports(Charset.forName("ISO-8859-1")));
+    assertFalse("UTF-16", FastArffReader.supports(Charset.forName("UTF-16")));
+  }
+
+  /**
+   * returns a test suite
+   *
+   * @return 		the test suite
+   */
+  public static Test suite() {
+    return new TestSuite(FastArffTest.class);
+  }
+
+  /**
+   * for running the test from commandline
+   *
+   * @param args 	the commandline arguments - ignored
+   */
+  public static void main(String[] args){
+    junit.textui.TestRunner.run(suite());
+  }
+}